@@ -17,19 +17,17 @@ import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
-
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.amber.AmberBAF;
-import com.hartwig.hmftools.common.amber.AmberSite;
-import com.hartwig.hmftools.common.amber.AmberSitesFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -47,7 +45,7 @@ public class AmberApplication implements AutoCloseable
 
     private ResultsWriter mPersistence;
     private VersionInfo mVersionInfo;
-    private ImmutableListMultimap<Chromosome,AmberSite> mChromosomeSites;
+    private AmberSiteStore mSiteStore;
 
     public AmberApplication(final ConfigBuilder configBuilder)
     {
@@ -62,7 +60,7 @@ public class AmberApplication implements AutoCloseable
 
         mPersistence = new ResultsWriter(mConfig);
 
-        mChromosomeSites = loadAmberSites();
+        mSiteStore = loadAmberSites();
 
         if(!mConfig.isValid())
         {
@@ -88,14 +86,14 @@ public class AmberApplication implements AutoCloseable
         return 0;
     }
 
-    private ImmutableListMultimap<Chromosome,AmberSite> loadAmberSites() throws IOException
+    private AmberSiteStore loadAmberSites() throws IOException
     {
-        ListMultimap<Chromosome,AmberSite> amberSitesMap = AmberSitesFile.sites(mConfig.BafLociPath);
+        AmberSiteStore siteStore = AmberSiteStore.load(mConfig.BafLociPath, mConfig.SiteCacheFile);
 
         if(mConfig.TargetRegionsBed == null)
-            return ImmutableListMultimap.copyOf(amberSitesMap);
+            return siteStore;
 
-        ListMultimap<Chromosome,AmberSite> targetRegionSites = ArrayListMultimap.create();
+        Map<Chromosome,SiteColumns> targetRegionSites = Maps.newLinkedHashMap();
 
         try
         {
@@ -106,20 +104,24 @@ public class AmberApplication implements AutoCloseable
                 Chromosome chromosome = entry.getKey();
                 List<BaseRegion> regions = entry.getValue();
 
-                Collection<AmberSite> amberSites = amberSitesMap.get(chromosome);
+                SiteColumns amberSites = siteStore.sites(chromosome);
 
                 if(amberSites == null)
                     continue;
 
+                BitSet includedSites = new BitSet(amberSites.size());
+
                 int regionIndex = 0;
                 BaseRegion currentRegion = regions.get(0);
 
-                for(AmberSite amberSite : amberSites)
+                for(int i = 0; i < amberSites.size(); ++i)
                 {
-                    if(amberSite.position() < currentRegion.start())
+                    int sitePosition = amberSites.Positions[i];
+
+                    if(sitePosition < currentRegion.start())
                         continue;
 
-                    while(amberSite.position() > currentRegion.end())
+                    while(sitePosition > currentRegion.end())
                     {
                         ++regionIndex;
 
@@ -132,15 +134,18 @@ public class AmberApplication implements AutoCloseable
                     if(regionIndex >= regions.size())
                         break;
 
-                    if(amberSite.position() >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
-                    && amberSite.position() <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
+                    if(sitePosition >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
+                    && sitePosition <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
                     {
-                        targetRegionSites.put(chromosome, amberSite);
+                        includedSites.set(i);
                     }
                 }
+
+                if(!includedSites.isEmpty())
+                    targetRegionSites.put(chromosome, amberSites.subset(includedSites));
             }
 
-            return ImmutableListMultimap.copyOf(targetRegionSites);
+            return new AmberSiteStore(targetRegionSites);
         }
         catch(Exception e)
         {
@@ -148,12 +153,12 @@ public class AmberApplication implements AutoCloseable
             System.exit(1);
         }
 
-        return ImmutableListMultimap.copyOf(targetRegionSites);
+        return new AmberSiteStore(targetRegionSites);
     }
 
     private void runGermlineOnly() throws InterruptedException, IOException
     {
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory(mConfig), mChromosomeSites);
+        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory(mConfig), mSiteStore);
 
         List<AmberBAF> amberBAFList = Lists.newArrayList();
 
@@ -178,10 +183,10 @@ public class AmberApplication implements AutoCloseable
     {
         final SamReaderFactory readerFactory = readerFactory(mConfig);
 
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory, mChromosomeSites);
+        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory, mSiteStore);
 
         TumorAnalysis tumor = new TumorAnalysis(mConfig, readerFactory,
-                germline.getHeterozygousLoci(), germline.getHomozygousLoci());
+                germline.getHeterozygousLoci(), germline.getHomozygousLoci(), germline.getPairedTumorEvidence());
 
         final List<TumorBAF> tumorBAFList = tumor.getBafs().values().stream().sorted().collect(toList());
         final List<AmberBAF> amberBAFList = tumorBAFList.stream().map(x -> fromTumorBaf(x)).filter(AmberUtils::isValid).collect(toList());
@@ -234,25 +239,30 @@ public class AmberApplication implements AutoCloseable
         int numBlackListed = 0;
 
         // filter out everything in loaded genome positions that are in these regions
-        for(Map.Entry<Chromosome,AmberSite> entry : mChromosomeSites.entries())
+        for(Map.Entry<Chromosome,SiteColumns> entry : mSiteStore.chromosomeSites().entrySet())
         {
-            // check against black list
-            boolean blacklisted = false;
-            for(GenomeRegion gr : excludedRegions)
+            SiteColumns sites = entry.getValue();
+
+            for(int i = 0; i < sites.size(); ++i)
             {
-                if(gr.contains(entry.getValue()))
+                // check against black list
+                boolean blacklisted = false;
+                for(GenomeRegion gr : excludedRegions)
+                {
+                    if(gr.chromosome().equals(sites.Chromosome) && gr.start() <= sites.Positions[i] && gr.end() >= sites.Positions[i])
+                    {
+                        blacklisted = true;
+                        break;
+                    }
+                }
+                if(blacklisted)
                 {
-                    blacklisted = true;
-                    break;
+                    numBlackListed++;
+                }
+                else
+                {
+                    result.put(entry.getKey(), sites.positionEvidence(i));
                 }
-            }
-            if(blacklisted)
-            {
-                numBlackListed++;
-            }
-            else
-            {
-                result.put(entry.getKey(), PositionEvidenceChecker.fromAmberSite(entry.getValue()));
             }
         }
 
@@ -38,6 +38,7 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.bam.BamUtils;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.pcf.PCFMode;
 
 import htsjdk.samtools.ValidationStringency;
 
@@ -49,6 +50,7 @@ public class AmberConfig
     public final List<String> ReferenceBams;
 
     public final String BafLociPath;
+    public final String SiteCacheFile;
     public final String TargetRegionsBed;
     public final RefGenomeVersion RefGenVersion;
     public final String RefGenomeFile;
@@ -69,6 +71,8 @@ public class AmberConfig
     public final ValidationStringency BamStringency;
     public final int Threads;
     public final boolean SkipBafSegmentation;
+    public final PCFMode PcfSegmentationMode;
+    public final boolean JointPileup;
 
     public final List<String> SpecificChromosomes;
 
@@ -76,6 +80,7 @@ public class AmberConfig
 
     private static final String SAMPLE_DELIM = ",";
     private static final String LOCI_FILE = "loci";
+    private static final String SITE_CACHE = "site_cache";
 
     private static final String TUMOR_ONLY_MIN_SUPPORT = "tumor_only_min_support";
     private static final String TUMOR_ONLY_MIN_VAF = "tumor_only_min_vaf";
@@ -89,6 +94,7 @@ public class AmberConfig
     private static final String WRITE_UNFILTERED_GERMLINE = "write_unfiltered_germline";
     private static final String POSITION_GAP = "position_gap";
     private static final String SKIP_BAF_SEGMENTATION = "skip_baf_segmentation";
+    private static final String JOINT_PILEUP = "joint_pileup";
 
     public AmberConfig(final ConfigBuilder configBuilder)
     {
@@ -105,6 +111,7 @@ public class AmberConfig
         }
 
         BafLociPath = configBuilder.getValue(LOCI_FILE);
+        SiteCacheFile = configBuilder.getValue(SITE_CACHE);
         TargetRegionsBed  = configBuilder.getValue(TARGET_REGIONS_BED);
 
         RefGenVersion = RefGenomeVersion.from(configBuilder);
@@ -140,6 +147,8 @@ public class AmberConfig
         PositionGap = configBuilder.getInteger(POSITION_GAP);
 
         SkipBafSegmentation = configBuilder.hasFlag(SKIP_BAF_SEGMENTATION);
+        PcfSegmentationMode = PCFMode.from(configBuilder);
+        JointPileup = configBuilder.hasFlag(JOINT_PILEUP);
 
         WriteUnfilteredGermline = configBuilder.hasFlag(WRITE_UNFILTERED_GERMLINE);
 
@@ -164,6 +173,7 @@ public class AmberConfig
         configBuilder.addPath(REFERENCE_BAM, false, REFERENCE_BAM_DESC);
 
         configBuilder.addPath(LOCI_FILE, true, "Path to BAF loci vcf file");
+        configBuilder.addConfigItem(SITE_CACHE, false, "Binary cache of the BAF loci, written from the loci file if absent or stale");
         configBuilder.addPath(TARGET_REGIONS_BED, false, TARGET_REGIONS_BED_DESC);
 
         addRefGenomeVersion(configBuilder);
@@ -191,6 +201,8 @@ public class AmberConfig
         configBuilder.addDecimal(MAX_HIT_AT_PERC, "Max heterozygous AF%", DEFAULT_MAX_HET_AF_PERCENTAGE);
 
         configBuilder.addFlag(SKIP_BAF_SEGMENTATION, "Skip BAF segmentation");
+        PCFMode.addConfig(configBuilder);
+        configBuilder.addFlag(JOINT_PILEUP, "Read tumor and primary reference BAMs together in a single pass over the sites");
 
         configBuilder.addFlag(WRITE_UNFILTERED_GERMLINE, "Write all (unfiltered) germline points");
 
@@ -0,0 +1,199 @@
+package com.hartwig.hmftools.amber;
+
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSitesFile;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.jetbrains.annotations.Nullable;
+
+public class AmberSiteStore
+{
+    // the AMBER site list held as primitive columns per chromosome, in place of a multimap of site objects
+    private final Map<Chromosome,SiteColumns> mChromosomeSites;
+
+    private static final int CACHE_MAGIC = 0x414D4253; // "AMBS"
+    private static final int CACHE_VERSION = 1;
+
+    public AmberSiteStore(final Map<Chromosome,SiteColumns> chromosomeSites)
+    {
+        mChromosomeSites = chromosomeSites;
+    }
+
+    public Map<Chromosome,SiteColumns> chromosomeSites() { return mChromosomeSites; }
+
+    @Nullable
+    public SiteColumns sites(final Chromosome chromosome) { return mChromosomeSites.get(chromosome); }
+
+    public int siteCount() { return mChromosomeSites.values().stream().mapToInt(SiteColumns::size).sum(); }
+
+    public Map<Chromosome,SampleEvidence> createSampleEvidence()
+    {
+        Map<Chromosome,SampleEvidence> chrEvidence = Maps.newLinkedHashMap();
+        mChromosomeSites.forEach((chromosome, sites) -> chrEvidence.put(chromosome, new SampleEvidence(sites.size())));
+        return chrEvidence;
+    }
+
+    public static AmberSiteStore fromSites(final ListMultimap<Chromosome,AmberSite> chrSites)
+    {
+        Map<Chromosome,SiteColumns> chromosomeSites = Maps.newLinkedHashMap();
+
+        for(Chromosome chromosome : chrSites.keySet())
+        {
+            List<AmberSite> sites = chrSites.get(chromosome);
+
+            if(!sites.isEmpty())
+                chromosomeSites.put(chromosome, SiteColumns.fromSites(sites.get(0).Chromosome, sites));
+        }
+
+        return new AmberSiteStore(chromosomeSites);
+    }
+
+    public static AmberSiteStore fromEvidence(final Map<Chromosome,List<PositionEvidence>> chrPositionEvidence)
+    {
+        Map<Chromosome,SiteColumns> chromosomeSites = Maps.newLinkedHashMap();
+
+        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
+        {
+            List<PositionEvidence> positions = entry.getValue();
+
+            if(!positions.isEmpty())
+                chromosomeSites.put(entry.getKey(), SiteColumns.fromEvidence(positions.get(0).Chromosome, positions));
+        }
+
+        return new AmberSiteStore(chromosomeSites);
+    }
+
+    public static AmberSiteStore load(final String sitesFile, @Nullable final String cacheFile) throws IOException
+    {
+        // use the binary cache if it was written from the same sites file, otherwise parse the sites file and refresh the cache
+        if(cacheFile != null)
+        {
+            AmberSiteStore cachedStore = readCache(cacheFile, new File(sitesFile));
+
+            if(cachedStore != null)
+            {
+                AMB_LOGGER.info("loaded {} Amber germline sites from cache({})", cachedStore.siteCount(), cacheFile);
+                return cachedStore;
+            }
+        }
+
+        AmberSiteStore siteStore = fromSites(AmberSitesFile.sites(sitesFile));
+
+        if(cacheFile != null)
+            siteStore.writeCache(cacheFile, new File(sitesFile));
+
+        return siteStore;
+    }
+
+    public void writeCache(final String cacheFile, final File sourceFile) throws IOException
+    {
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile))))
+        {
+            output.writeInt(CACHE_MAGIC);
+            output.writeInt(CACHE_VERSION);
+            output.writeLong(sourceFile.length());
+            output.writeLong(sourceFile.lastModified());
+            output.writeInt(mChromosomeSites.size());
+
+            for(SiteColumns sites : mChromosomeSites.values())
+            {
+                output.writeUTF(sites.Chromosome);
+                output.writeInt(sites.size());
+
+                ByteBuffer positions = ByteBuffer.allocate(sites.size() * Integer.BYTES);
+                positions.asIntBuffer().put(sites.Positions);
+                output.write(positions.array());
+
+                output.write(sites.Refs);
+                output.write(sites.Alts);
+
+                long[] snpCheck = sites.snpCheck().toLongArray();
+                output.writeInt(snpCheck.length);
+
+                for(long value : snpCheck)
+                {
+                    output.writeLong(value);
+                }
+            }
+        }
+
+        AMB_LOGGER.debug("wrote {} Amber sites to cache({})", siteCount(), cacheFile);
+    }
+
+    @Nullable
+    public static AmberSiteStore readCache(final String cacheFile, final File sourceFile) throws IOException
+    {
+        if(!new File(cacheFile).exists())
+            return null;
+
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile))))
+        {
+            if(input.readInt() != CACHE_MAGIC || input.readInt() != CACHE_VERSION)
+            {
+                AMB_LOGGER.warn("ignoring invalid Amber site cache({})", cacheFile);
+                return null;
+            }
+
+            long sourceLength = input.readLong();
+            long sourceModified = input.readLong();
+
+            if(sourceLength != sourceFile.length() || sourceModified != sourceFile.lastModified())
+            {
+                AMB_LOGGER.info("Amber site cache({}) is stale, reloading sites", cacheFile);
+                return null;
+            }
+
+            int chromosomeCount = input.readInt();
+            Map<Chromosome,SiteColumns> chromosomeSites = Maps.newLinkedHashMap();
+
+            for(int c = 0; c < chromosomeCount; ++c)
+            {
+                String chromosome = input.readUTF();
+                int siteCount = input.readInt();
+
+                byte[] positionBytes = new byte[siteCount * Integer.BYTES];
+                input.readFully(positionBytes);
+
+                int[] positions = new int[siteCount];
+                ByteBuffer.wrap(positionBytes).asIntBuffer().get(positions);
+
+                byte[] refs = new byte[siteCount];
+                input.readFully(refs);
+
+                byte[] alts = new byte[siteCount];
+                input.readFully(alts);
+
+                long[] snpCheck = new long[input.readInt()];
+
+                for(int i = 0; i < snpCheck.length; ++i)
+                {
+                    snpCheck[i] = input.readLong();
+                }
+
+                chromosomeSites.put(
+                        HumanChromosome.fromString(chromosome),
+                        new SiteColumns(chromosome, positions, refs, alts, BitSet.valueOf(snpCheck)));
+            }
+
+            return new AmberSiteStore(chromosomeSites);
+        }
+    }
+}
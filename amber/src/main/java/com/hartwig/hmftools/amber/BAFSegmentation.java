@@ -1,26 +1,54 @@
 package com.hartwig.hmftools.amber;
 
 import java.io.IOException;
+import java.util.List;
 
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFMode;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class BAFSegmentation
 {
     private final String mOutputDir;
+    private final RefGenomeVersion mRefGenVersion;
+    private final PCFMode mPcfMode;
+    private final int mThreads;
 
-    public BAFSegmentation(final String outputDir)
+    public BAFSegmentation(final String outputDir, final RefGenomeVersion refGenVersion, final PCFMode pcfMode, int threads)
     {
         mOutputDir = outputDir;
+        mRefGenVersion = refGenVersion;
+        mPcfMode = pcfMode;
+        mThreads = threads;
     }
 
-    public void applySegmentation(final String tumor, final String ratioFile) throws InterruptedException, IOException
+    public void applySegmentation(final String tumor, final String ratioFile, final List<AmberBAF> bafs)
+            throws InterruptedException, IOException
     {
         final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
-        int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
-        if(result != 0)
+
+        if(mPcfMode.runR())
+        {
+            int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
+            if(result != 0)
+            {
+                throw new IOException("R execution failed. Unable to complete segmentation.");
+            }
+        }
+
+        if(mPcfMode.runJava())
         {
-            throw new IOException("R execution failed. Unable to complete segmentation.");
+            PCFSegmenter segmenter = new PCFSegmenter(mRefGenVersion, PCFSegmenter.DEFAULT_GAMMA, PCFSegmenter.DEFAULT_KMIN);
+            List<PCFSegment> segments = segmenter.segment(bafs, AmberBAF::tumorModifiedBAF, mThreads);
+
+            if(mPcfMode == PCFMode.VALIDATE)
+                PCFSegmenter.compareBreakpoints(tumor + " BAF", segments, PCFFile.readSegments(pcfFile), 0);
+
+            PCFFile.write(pcfFile, tumor, segments);
         }
     }
 }
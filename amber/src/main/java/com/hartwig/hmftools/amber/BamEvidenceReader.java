@@ -17,6 +17,8 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SamReaderFactory;
 
 public class BamEvidenceReader
@@ -34,20 +36,49 @@ public class BamEvidenceReader
             final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,List<PositionEvidence>> chrPositionEvidence)
             throws InterruptedException
     {
-        AMB_LOGGER.trace("processing bam({})", bamFile);
+        // gather evidence into columns for these positions, then set it on each position
+        AmberSiteStore siteStore = AmberSiteStore.fromEvidence(chrPositionEvidence);
+        Map<Chromosome,SampleEvidence> chrEvidence = siteStore.createSampleEvidence();
+
+        processBams(bamFile, null, samReaderFactory, siteStore, chrEvidence, null);
+
+        for(Map.Entry<Chromosome,SampleEvidence> entry : chrEvidence.entrySet())
+        {
+            List<PositionEvidence> positions = chrPositionEvidence.get(entry.getKey());
+            SampleEvidence evidence = entry.getValue();
+
+            for(int i = 0; i < positions.size(); ++i)
+            {
+                evidence.populate(i, positions.get(i));
+            }
+        }
+    }
+
+    public void processBams(
+            final String bamFile, @Nullable final String pairedBamFile, final SamReaderFactory samReaderFactory,
+            final AmberSiteStore siteStore, final Map<Chromosome,SampleEvidence> chrEvidence,
+            @Nullable final Map<Chromosome,SampleEvidence> chrPairedEvidence)
+            throws InterruptedException
+    {
+        // in joint mode each region task reads both BAMs, filling the paired evidence for the same sites
+        if(pairedBamFile != null)
+            AMB_LOGGER.trace("processing bams({} & {})", bamFile, pairedBamFile);
+        else
+            AMB_LOGGER.trace("processing bam({})", bamFile);
 
         final Queue<RegionTask> taskQueue = new ConcurrentLinkedQueue<>();
 
         // create genome regions from the loci
-        boolean limitRegions = bamFile.endsWith(".cram");
-        populateTaskQueue(chrPositionEvidence, taskQueue, limitRegions);
+        boolean limitRegions = bamFile.endsWith(".cram") || (pairedBamFile != null && pairedBamFile.endsWith(".cram"));
+        populateTaskQueue(siteStore, chrEvidence, chrPairedEvidence, taskQueue, limitRegions);
 
         // we create the consumer and producer
         List<BamReaderThread> bamReaders = new ArrayList<BamReaderThread>();
 
         for(int i = 0; i < max(mConfig.Threads, 1); ++i)
         {
-            BamReaderThread thread = new BamReaderThread(bamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
+            BamReaderThread thread = new BamReaderThread(
+                    bamFile, pairedBamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
             thread.setName(format("worker-%d", i));
             thread.start();
             bamReaders.add(thread);
@@ -79,9 +110,10 @@ public class BamEvidenceReader
     }
 
     private void populateTaskQueue(
-            final Map<Chromosome,List<PositionEvidence>> chrBaseDepth, final Queue<RegionTask> taskQueue, boolean limitRegions)
+            final AmberSiteStore siteStore, final Map<Chromosome,SampleEvidence> chrEvidence,
+            @Nullable final Map<Chromosome,SampleEvidence> chrPairedEvidence, final Queue<RegionTask> taskQueue, boolean limitRegions)
     {
-        int positionCount = chrBaseDepth.values().stream().mapToInt(x -> x.size()).sum();
+        int positionCount = siteStore.siteCount();
 
         int minGap = mConfig.PositionGap > 0 ? mConfig.PositionGap : (limitRegions ? CRAM_MIN_GAP_START : BAM_MIN_GAP_START);
 
@@ -90,34 +122,35 @@ public class BamEvidenceReader
 
         List<RegionTask> tasks = Lists.newArrayList();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrBaseDepth.entrySet())
+        for(Map.Entry<Chromosome,SiteColumns> entry : siteStore.chromosomeSites().entrySet())
         {
             String chromosome = mConfig.RefGenVersion.versionedChromosome(entry.getKey().toString());
 
             if(!mConfig.SpecificChromosomes.isEmpty() && !mConfig.SpecificChromosomes.contains(chromosome))
                 continue;
 
-            List<PositionEvidence> positions = entry.getValue();
+            SiteColumns sites = entry.getValue();
 
-            if(positions.isEmpty())
+            if(sites.size() == 0)
                 continue;
 
-            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, positions.get(0));
+            SampleEvidence evidence = chrEvidence.get(entry.getKey());
+            SampleEvidence pairedEvidence = chrPairedEvidence != null ? chrPairedEvidence.get(entry.getKey()) : null;
+
+            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, sites, 0, evidence, pairedEvidence);
             tasks.add(currentTask);
 
-            for(int i = 1; i < positions.size(); ++i)
+            for(int i = 1; i < sites.size(); ++i)
             {
-                PositionEvidence posEvidence = positions.get(i);
-
-                if(currentTask.Region.end() + minGap < posEvidence.Position) // or  || tasks.size() >= maxPositionsPerRegion
+                if(currentTask.Region.end() + minGap < sites.Positions[i]) // or  || tasks.size() >= maxPositionsPerRegion
                 {
                     // start a new region
-                    currentTask = new RegionTask(mEvidenceChecker, chromosome, posEvidence);
+                    currentTask = new RegionTask(mEvidenceChecker, chromosome, sites, i, evidence, pairedEvidence);
                     tasks.add(currentTask);
                 }
                 else
                 {
-                    currentTask.addPosition(posEvidence);
+                    currentTask.addPosition(i);
                 }
             }
         }
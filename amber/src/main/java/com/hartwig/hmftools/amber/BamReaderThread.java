@@ -10,6 +10,8 @@ import java.util.Queue;
 import com.hartwig.hmftools.common.bam.BamSlicer;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
@@ -18,6 +20,7 @@ public class BamReaderThread extends Thread
 {
     private final Queue<RegionTask> mTaskQueue;
     private final SamReader mSamReader;
+    private final SamReader mPairedSamReader; // the tumor BAM in joint mode, read over the same regions
     private final BamSlicer mBamSlicer;
     private RegionTask mCurrentTask;
 
@@ -26,9 +29,17 @@ public class BamReaderThread extends Thread
     public BamReaderThread(
             final String bamFile, final SamReaderFactory samReaderFactory, final Queue<RegionTask> inTaskQueue,
             int minMappingQuality)
+    {
+        this(bamFile, null, samReaderFactory, inTaskQueue, minMappingQuality);
+    }
+
+    public BamReaderThread(
+            final String bamFile, @Nullable final String pairedBamFile, final SamReaderFactory samReaderFactory,
+            final Queue<RegionTask> inTaskQueue, int minMappingQuality)
     {
         mTaskQueue = inTaskQueue;
         mSamReader = samReaderFactory.open(new File(bamFile));
+        mPairedSamReader = pairedBamFile != null ? samReaderFactory.open(new File(pairedBamFile)) : null;
         mBamSlicer = new BamSlicer(minMappingQuality, false, false, false);
         mCurrentTask = null;
         mPerfCounter = new PerformanceCounter("Reads");
@@ -55,12 +66,19 @@ public class BamReaderThread extends Thread
 
             mPerfCounter.start();
             mBamSlicer.slice(mSamReader, task.Region, this::processRecord);
+
+            if(mPairedSamReader != null && task.isPaired())
+                mBamSlicer.slice(mPairedSamReader, task.Region, this::processPairedRecord);
+
             mPerfCounter.stop();
         }
 
         try
         {
             mSamReader.close();
+
+            if(mPairedSamReader != null)
+                mPairedSamReader.close();
         }
         catch(IOException e)
         {
@@ -84,5 +102,19 @@ public class BamReaderThread extends Thread
             mBamSlicer.haltProcessing();
     }
 
+    private void processPairedRecord(final SAMRecord record)
+    {
+        if(mCurrentTask == null)
+        {
+            mBamSlicer.haltProcessing();
+            return;
+        }
+
+        mCurrentTask.processPairedRecord(record);
+
+        if(mCurrentTask.isPairedComplete())
+            mBamSlicer.haltProcessing();
+    }
+
     public PerformanceCounter perfCounter() { return mPerfCounter; }
 }
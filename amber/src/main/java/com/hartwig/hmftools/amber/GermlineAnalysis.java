@@ -3,7 +3,6 @@ package com.hartwig.hmftools.amber;
 import static java.util.stream.Collectors.toList;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
-import static com.hartwig.hmftools.amber.PositionEvidenceChecker.fromAmberSite;
 import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntries;
 
 import java.io.IOException;
@@ -14,9 +13,6 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 import org.jetbrains.annotations.Nullable;
@@ -33,10 +29,13 @@ public class GermlineAnalysis
     private final List<RegionOfHomozygosity> mRegionsOfHomozygosity;
     private final double mConsanguinityProportion;
 
+    // tumor evidence gathered alongside the primary reference in joint pileup mode
+    @Nullable private SampleSiteEvidence mPairedTumorEvidence;
+
     @Nullable private final Chromosome mUniparentalDisomy;
 
     public GermlineAnalysis(
-            final AmberConfig config, SamReaderFactory readerFactory, ListMultimap<Chromosome,AmberSite> chrAmberSites)
+            final AmberConfig config, SamReaderFactory readerFactory, final AmberSiteStore siteStore)
             throws InterruptedException, IOException
     {
         mConfig = config;
@@ -44,12 +43,16 @@ public class GermlineAnalysis
         final Predicate<PositionEvidence> isValidFilter = PositionEvidence::isValid;
         Predicate<PositionEvidence> homozygousFilter = new NormalHomozygousFilter().and(isValidFilter);
         Predicate<PositionEvidence> heterozygousFilter = new NormalHeterozygousFilter(mConfig.MinHetAfPercent, mConfig.MaxHetAfPercent).and(isValidFilter);
-        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(chrAmberSites);
+        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(siteStore);
 
         mHetNormalEvidence = new HetNormalEvidence();
 
-        // Primary Reference Data
-        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(readerFactory, mConfig.ReferenceBams.get(0), chrAmberSites);
+        // Primary Reference Data, optionally read together with the tumor
+        String pairedTumorBam = mConfig.JointPileup ? mConfig.TumorBam : null;
+        mPairedTumorEvidence = null;
+
+        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(
+                readerFactory, mConfig.ReferenceBams.get(0), pairedTumorBam, siteStore);
 
         final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, unfilteredLoci);
         mSnpCheckedLoci = filterEntries(unfilteredLoci, snpCheckFilter);
@@ -62,7 +65,8 @@ public class GermlineAnalysis
         {
             final String sample = mConfig.ReferenceIds.get(i);
             final String sampleBam = mConfig.ReferenceBams.get(i);
-            final Collection<PositionEvidence> additional = germlineDepth(readerFactory, sampleBam, mHetNormalEvidence.intersection()).values();
+            final Collection<PositionEvidence> additional = germlineDepth(
+                    readerFactory, sampleBam, null, AmberSiteStore.fromSites(mHetNormalEvidence.intersection())).values();
             final Predicate<PositionEvidence> filter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, additional);
             final Collection<PositionEvidence> additionalHetNormal = additional.stream().filter(filter.and(heterozygousFilter)).collect(toList());
             mHetNormalEvidence.add(sample, additionalHetNormal);
@@ -92,40 +96,45 @@ public class GermlineAnalysis
     @Nullable
     Chromosome getUniparentalDisomy() { return mUniparentalDisomy; }
 
+    @Nullable
+    public SampleSiteEvidence getPairedTumorEvidence() { return mPairedTumorEvidence; }
+
     private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
-            final SamReaderFactory readerFactory, final String bamPath,
-            final ListMultimap<Chromosome,AmberSite> chrAmberSites) throws InterruptedException
+            final SamReaderFactory readerFactory, final String bamPath, @Nullable final String pairedTumorBam,
+            final AmberSiteStore siteStore) throws InterruptedException
     {
-        AMB_LOGGER.info("processing {} Amber sites in reference bam({})", chrAmberSites.values().size(), bamPath);
-
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
-
-        for(Map.Entry<Chromosome,AmberSite> entry : chrAmberSites.entries())
+        if(pairedTumorBam != null)
         {
-            Chromosome chromosome = entry.getKey();
-
-            List<PositionEvidence> positions = chrPositionEvidence.get(chromosome);
-
-            if(positions == null)
-            {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(chromosome, positions);
-            }
-
-            positions.add(fromAmberSite(entry.getValue()));
+            AMB_LOGGER.info("processing {} Amber sites in reference bam({}) and tumor bam({})",
+                    siteStore.siteCount(), bamPath, pairedTumorBam);
+        }
+        else
+        {
+            AMB_LOGGER.info("processing {} Amber sites in reference bam({})", siteStore.siteCount(), bamPath);
         }
 
+        // the pileup fills primitive evidence columns, with position evidence then only formed for the reference sample
+        Map<Chromosome,SampleEvidence> chrEvidence = siteStore.createSampleEvidence();
+        Map<Chromosome,SampleEvidence> chrTumorEvidence = pairedTumorBam != null ? siteStore.createSampleEvidence() : null;
+
         BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(bamPath, readerFactory, chrPositionEvidence);
+        bamEvidenceReader.processBams(bamPath, pairedTumorBam, readerFactory, siteStore, chrEvidence, chrTumorEvidence);
+
+        if(chrTumorEvidence != null)
+            mPairedTumorEvidence = new SampleSiteEvidence(siteStore, chrTumorEvidence);
 
         ListMultimap<Chromosome, PositionEvidence> normalEvidence = ArrayListMultimap.create();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
+        for(Map.Entry<Chromosome,SiteColumns> entry : siteStore.chromosomeSites().entrySet())
         {
             Chromosome chromosome = entry.getKey();
-            List<PositionEvidence> positions = entry.getValue();
+            SiteColumns sites = entry.getValue();
+            SampleEvidence evidence = chrEvidence.get(chromosome);
 
-            positions.forEach(x -> normalEvidence.put(chromosome, x));
+            for(int i = 0; i < sites.size(); ++i)
+            {
+                normalEvidence.put(chromosome, evidence.positionEvidence(sites, i));
+            }
         }
 
         return normalEvidence;
@@ -47,6 +47,40 @@ public class PositionEvidenceChecker
         }
     }
 
+    public void addEvidence(final SiteColumns sites, final SampleEvidence evidence, int index, final SAMRecord samRecord)
+    {
+        int bafPosition = sites.Positions[index];
+        int baseQuality = getBaseQuality(bafPosition, samRecord);
+
+        if(baseQuality < mMinBaseQuality)
+            return;
+
+        ++evidence.ReadDepth[index];
+
+        int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
+        if(readPosition != 0)
+        {
+            if(!isIndel(bafPosition, readPosition, samRecord))
+            {
+                byte base = samRecord.getReadBases()[readPosition - 1];
+
+                if(base == sites.Refs[index])
+                {
+                    ++evidence.RefSupport[index];
+                }
+                else if(base == sites.Alts[index])
+                {
+                    ++evidence.AltSupport[index];
+                    evidence.AltQuality[index] += baseQuality;
+                }
+            }
+            else
+            {
+                ++evidence.IndelCount[index];
+            }
+        }
+    }
+
     public static boolean isIndel(int bafPosition, int readPosition, final SAMRecord samRecord)
     {
         if(samRecord.getAlignmentEnd() > bafPosition)
@@ -3,11 +3,10 @@ package com.hartwig.hmftools.amber;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SAMRecord;
 
 public class RegionTask
@@ -15,49 +14,86 @@ public class RegionTask
     private final PositionEvidenceChecker mEvidenceChecker;
     public final ChrBaseRegion Region;
 
-    private final List<PositionEvidence> mPositions;
+    // a contiguous range of site indices into the chromosome's site columns
+    private final SiteColumns mSites;
+    private final int mStartIndex;
+    private int mEndIndex;
+
+    private final SampleEvidence mEvidence;
     private int mCurrentIndex;
     private boolean mComplete;
 
-    public RegionTask(final PositionEvidenceChecker evidenceChecker, final String chromosome, final PositionEvidence baseDepth)
+    // in joint mode the tumor evidence for the same sites
+    private final SampleEvidence mPairedEvidence;
+    private int mPairedIndex;
+    private boolean mPairedComplete;
+
+    public RegionTask(
+            final PositionEvidenceChecker evidenceChecker, final String chromosome, final SiteColumns sites, int siteIndex,
+            final SampleEvidence evidence, @Nullable final SampleEvidence pairedEvidence)
     {
         mEvidenceChecker = evidenceChecker;
-        Region = new ChrBaseRegion(chromosome, baseDepth.Position, baseDepth.Position);
-        mPositions = Lists.newArrayList(baseDepth);
-        mCurrentIndex = 0;
+        Region = new ChrBaseRegion(chromosome, sites.Positions[siteIndex], sites.Positions[siteIndex]);
+        mSites = sites;
+        mStartIndex = siteIndex;
+        mEndIndex = siteIndex;
+
+        mEvidence = evidence;
+        mCurrentIndex = siteIndex;
         mComplete = false;
+
+        mPairedEvidence = pairedEvidence;
+        mPairedIndex = siteIndex;
+        mPairedComplete = false;
     }
 
-    public void addPosition(final PositionEvidence posEvidence)
+    public void addPosition(int siteIndex)
     {
-        mPositions.add(posEvidence);
-        Region.setEnd(max(Region.end(), posEvidence.Position));
+        mEndIndex = siteIndex;
+        Region.setEnd(max(Region.end(), mSites.Positions[siteIndex]));
     }
 
+    public boolean isPaired() { return mPairedEvidence != null; }
+
     public void processRecord(final SAMRecord record)
+    {
+        mCurrentIndex = processRecord(record, mEvidence, mCurrentIndex);
+
+        if(mCurrentIndex > mEndIndex)
+            mComplete = true;
+    }
+
+    public void processPairedRecord(final SAMRecord record)
+    {
+        mPairedIndex = processRecord(record, mPairedEvidence, mPairedIndex);
+
+        if(mPairedIndex > mEndIndex)
+            mPairedComplete = true;
+    }
+
+    private int processRecord(final SAMRecord record, final SampleEvidence evidence, int currentIndex)
     {
         int alignmentStart = record.getAlignmentStart();
         int alignmentEnd = record.getAlignmentEnd();
 
-        int index = mCurrentIndex;
-        for(; index < mPositions.size(); ++index)
+        int index = currentIndex;
+        for(; index <= mEndIndex; ++index)
         {
-            PositionEvidence posEvidence = mPositions.get(index);
+            int position = mSites.Positions[index];
 
-            if(alignmentStart > posEvidence.Position)
+            if(alignmentStart > position)
             {
-                ++mCurrentIndex;
+                ++currentIndex;
                 continue;
             }
 
-            if(alignmentEnd < posEvidence.Position)
+            if(alignmentEnd < position)
                 break;
 
-            mEvidenceChecker.addEvidence(posEvidence, record);
+            mEvidenceChecker.addEvidence(mSites, evidence, index, record);
         }
 
-        if(mCurrentIndex >= mPositions.size())
-            mComplete = true;
+        return currentIndex;
     }
 
     public boolean isComplete()
@@ -65,13 +101,18 @@ public class RegionTask
         return mComplete;
     }
 
+    public boolean isPairedComplete()
+    {
+        return mPairedComplete;
+    }
+
     public int positionCount()
     {
-        return mPositions.size();
+        return mEndIndex - mStartIndex + 1;
     }
 
     public String toString()
     {
-        return format("region(%s) positions(%d) index(%d)", Region, mPositions.size(), mCurrentIndex);
+        return format("region(%s) positions(%d) index(%d)", Region, positionCount(), mCurrentIndex - mStartIndex);
     }
 }
@@ -40,7 +40,8 @@ public class ResultsWriter
         if(mConfig.TumorId != null && !mConfig.SkipBafSegmentation)
         {
             AMB_LOGGER.info("applying pcf segmentation");
-            new BAFSegmentation(mConfig.OutputDir).applySegmentation(mConfig.TumorId, filename);
+            new BAFSegmentation(mConfig.OutputDir, mConfig.RefGenVersion, mConfig.PcfSegmentationMode, mConfig.Threads)
+                    .applySegmentation(mConfig.TumorId, filename, result);
         }
     }
 
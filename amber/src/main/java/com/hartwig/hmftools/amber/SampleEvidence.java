@@ -0,0 +1,38 @@
+package com.hartwig.hmftools.amber;
+
+public class SampleEvidence
+{
+    // a sample's read evidence at each site of a chromosome, indexed to match its SiteColumns
+    public final int[] ReadDepth;
+    public final int[] IndelCount;
+    public final int[] RefSupport;
+    public final int[] AltSupport;
+    public final int[] AltQuality;
+
+    public SampleEvidence(int siteCount)
+    {
+        ReadDepth = new int[siteCount];
+        IndelCount = new int[siteCount];
+        RefSupport = new int[siteCount];
+        AltSupport = new int[siteCount];
+        AltQuality = new int[siteCount];
+    }
+
+    public int size() { return ReadDepth.length; }
+
+    public void populate(int index, final PositionEvidence posEvidence)
+    {
+        posEvidence.ReadDepth = ReadDepth[index];
+        posEvidence.IndelCount = IndelCount[index];
+        posEvidence.RefSupport = RefSupport[index];
+        posEvidence.AltSupport = AltSupport[index];
+        posEvidence.AltQuality = AltQuality[index];
+    }
+
+    public PositionEvidence positionEvidence(final SiteColumns sites, int index)
+    {
+        PositionEvidence posEvidence = sites.positionEvidence(index);
+        populate(index, posEvidence);
+        return posEvidence;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hartwig.hmftools.amber;
+
+import java.util.Map;
+
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+
+public class SampleSiteEvidence
+{
+    // a sample's evidence across all sites, from which evidence for individual sites is formed on request
+    private final AmberSiteStore mSiteStore;
+    private final Map<Chromosome,SampleEvidence> mChrEvidence;
+
+    public SampleSiteEvidence(final AmberSiteStore siteStore, final Map<Chromosome,SampleEvidence> chrEvidence)
+    {
+        mSiteStore = siteStore;
+        mChrEvidence = chrEvidence;
+    }
+
+    public PositionEvidence positionEvidence(final Chromosome chromosome, final PositionEvidence site)
+    {
+        SiteColumns sites = mSiteStore.sites(chromosome);
+        int index = sites != null ? sites.indexOf(site.Position, site.ref(), site.alt()) : -1;
+
+        if(index < 0)
+            return PositionEvidence.copy(site);
+
+        PositionEvidence posEvidence = PositionEvidence.copy(site);
+        mChrEvidence.get(chromosome).populate(index, posEvidence);
+        return posEvidence;
+    }
+}
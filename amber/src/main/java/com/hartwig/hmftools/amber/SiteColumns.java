@@ -0,0 +1,142 @@
+package com.hartwig.hmftools.amber;
+
+import static java.lang.String.format;
+
+import java.util.BitSet;
+import java.util.List;
+
+import com.hartwig.hmftools.common.amber.AmberSite;
+
+public class SiteColumns
+{
+    // the AMBER sites for a single chromosome held as primitive columns, sorted by position, with the evidence for each sample
+    // held in matching columns in SampleEvidence
+    public final String Chromosome;
+    public final int[] Positions;
+    public final byte[] Refs;
+    public final byte[] Alts;
+
+    private final BitSet mSnpCheck;
+
+    public SiteColumns(final String chromosome, final int[] positions, final byte[] refs, final byte[] alts, final BitSet snpCheck)
+    {
+        Chromosome = chromosome;
+        Positions = positions;
+        Refs = refs;
+        Alts = alts;
+        mSnpCheck = snpCheck;
+    }
+
+    public static SiteColumns fromSites(final String chromosome, final List<AmberSite> sites)
+    {
+        int siteCount = sites.size();
+        int[] positions = new int[siteCount];
+        byte[] refs = new byte[siteCount];
+        byte[] alts = new byte[siteCount];
+        BitSet snpCheck = new BitSet(siteCount);
+
+        for(int i = 0; i < siteCount; ++i)
+        {
+            AmberSite site = sites.get(i);
+            positions[i] = site.Position;
+            refs[i] = (byte)site.Ref.charAt(0);
+            alts[i] = (byte)site.Alt.charAt(0);
+
+            if(site.snpCheck())
+                snpCheck.set(i);
+        }
+
+        return new SiteColumns(chromosome, positions, refs, alts, snpCheck);
+    }
+
+    public static SiteColumns fromEvidence(final String chromosome, final List<PositionEvidence> positions)
+    {
+        int siteCount = positions.size();
+        int[] sitePositions = new int[siteCount];
+        byte[] refs = new byte[siteCount];
+        byte[] alts = new byte[siteCount];
+
+        for(int i = 0; i < siteCount; ++i)
+        {
+            PositionEvidence posEvidence = positions.get(i);
+            sitePositions[i] = posEvidence.Position;
+            refs[i] = (byte)posEvidence.Ref.name().charAt(0);
+            alts[i] = (byte)posEvidence.Alt.name().charAt(0);
+        }
+
+        return new SiteColumns(chromosome, sitePositions, refs, alts, new BitSet());
+    }
+
+    public int size() { return Positions.length; }
+
+    public boolean isSnpCheck(int index) { return mSnpCheck.get(index); }
+
+    public BitSet snpCheck() { return mSnpCheck; }
+
+    public String ref(int index) { return String.valueOf((char)Refs[index]); }
+    public String alt(int index) { return String.valueOf((char)Alts[index]); }
+
+    public AmberSite site(int index)
+    {
+        return new AmberSite(Chromosome, Positions[index], ref(index), alt(index), isSnpCheck(index));
+    }
+
+    public PositionEvidence positionEvidence(int index)
+    {
+        return new PositionEvidence(Chromosome, Positions[index], ref(index), alt(index));
+    }
+
+    public int indexOf(int position, final String ref, final String alt)
+    {
+        // binary search to the first site at this position, then check each site sharing it
+        int low = 0;
+        int high = Positions.length - 1;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(Positions[mid] < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        byte refBase = (byte)ref.charAt(0);
+        byte altBase = (byte)alt.charAt(0);
+
+        for(int index = low; index < Positions.length && Positions[index] == position; ++index)
+        {
+            if(Refs[index] == refBase && Alts[index] == altBase)
+                return index;
+        }
+
+        return -1;
+    }
+
+    public SiteColumns subset(final BitSet included)
+    {
+        int siteCount = included.cardinality();
+        int[] positions = new int[siteCount];
+        byte[] refs = new byte[siteCount];
+        byte[] alts = new byte[siteCount];
+        BitSet snpCheck = new BitSet(siteCount);
+
+        int newIndex = 0;
+        for(int index = included.nextSetBit(0); index >= 0; index = included.nextSetBit(index + 1))
+        {
+            positions[newIndex] = Positions[index];
+            refs[newIndex] = Refs[index];
+            alts[newIndex] = Alts[index];
+
+            if(mSnpCheck.get(index))
+                snpCheck.set(newIndex);
+
+            ++newIndex;
+        }
+
+        return new SiteColumns(Chromosome, positions, refs, alts, snpCheck);
+    }
+
+    public String toString() { return format("%s sites(%d)", Chromosome, Positions.length); }
+}
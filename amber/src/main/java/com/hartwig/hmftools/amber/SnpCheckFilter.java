@@ -6,32 +6,27 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.amber.AmberSite;
-import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 public class SnpCheckFilter implements Predicate<PositionEvidence>
 {
     private final Map<String,List<AmberSite>> mSnpLoci;
 
-    public SnpCheckFilter(final Multimap<Chromosome, AmberSite> snpLoci)
+    public SnpCheckFilter(final AmberSiteStore siteStore)
     {
         mSnpLoci = Maps.newHashMap();
 
-        for(AmberSite amberSite : snpLoci.values())
+        for(SiteColumns sites : siteStore.chromosomeSites().values())
         {
-            if(!amberSite.snpCheck())
-                continue;
+            List<AmberSite> chrSites = Lists.newArrayList();
 
-            List<AmberSite> chrSites = mSnpLoci.get(amberSite.Chromosome);
-
-            if(chrSites == null)
+            for(int index = sites.snpCheck().nextSetBit(0); index >= 0; index = sites.snpCheck().nextSetBit(index + 1))
             {
-                chrSites = Lists.newArrayList();
-                mSnpLoci.put(amberSite.Chromosome, chrSites);
+                chrSites.add(sites.site(index));
             }
 
-            chrSites.add(amberSite);
+            if(!chrSites.isEmpty())
+                mSnpLoci.put(sites.Chromosome, chrSites);
         }
     }
 
@@ -13,6 +13,8 @@ import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SamReaderFactory;
 
 public class TumorAnalysis
@@ -29,15 +31,26 @@ public class TumorAnalysis
             final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci,
             final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci)
             throws InterruptedException
+    {
+        this(config, readerFactory, germlineHetLoci, germlineHomLoci, null);
+    }
+
+    public TumorAnalysis(
+            final AmberConfig config, SamReaderFactory readerFactory,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci,
+            @Nullable final SampleSiteEvidence pairedTumorEvidence)
+            throws InterruptedException
     {
         mConfig = config;
 
-        tumorBAFAndContamination(readerFactory, germlineHetLoci, germlineHomLoci);
+        tumorBAFAndContamination(readerFactory, germlineHetLoci, germlineHomLoci, pairedTumorEvidence);
     }
 
-    // we process them together
+    // we process them together, and if the tumor evidence was gathered in the joint pileup with the reference then the BAM isn't re-read
     private void tumorBAFAndContamination(final SamReaderFactory readerFactory,
-            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci) throws InterruptedException
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci,
+            @Nullable final SampleSiteEvidence pairedTumorEvidence) throws InterruptedException
     {
         AMB_LOGGER.info("processing tumor germline heterozygous({}) and homozygous({}) sites",
                 germlineHetLoci.values().size(), germlineHomLoci.size());
@@ -58,7 +71,8 @@ public class TumorAnalysis
 
             PositionEvidence normal = entry.getValue();
 
-            TumorBAF tumorBAF = TumorBAF.fromNormal(normal);
+            TumorBAF tumorBAF = pairedTumorEvidence != null
+                    ? TumorBAF.fromNormal(normal, pairedTumorEvidence.positionEvidence(entry.getKey(), normal)) : TumorBAF.fromNormal(normal);
             tumorBAFs.add(tumorBAF);
 
             positions.add(tumorBAF.TumorEvidence);
@@ -75,7 +89,8 @@ public class TumorAnalysis
             }
 
             PositionEvidence normal = entry.getValue();
-            PositionEvidence tumor = PositionEvidence.copy(normal);
+            PositionEvidence tumor = pairedTumorEvidence != null
+                    ? pairedTumorEvidence.positionEvidence(entry.getKey(), normal) : PositionEvidence.copy(normal);
 
             positions.add(tumor);
             contaminationBafMap.put(normal, tumor);
@@ -87,8 +102,11 @@ public class TumorAnalysis
             Collections.sort(positions);
         }
 
-        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrPositionEvidence);
+        if(pairedTumorEvidence == null)
+        {
+            BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
+            bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrPositionEvidence);
+        }
 
         mBafs = ArrayListMultimap.create();
 
@@ -11,12 +11,17 @@ public class TumorBAF implements GenomePosition
     public final PositionEvidence TumorEvidence;
 
     public TumorBAF(final String chromosome, final int position, final String ref, final String alt)
+    {
+        this(new PositionEvidence(chromosome, position, ref, alt));
+    }
+
+    public TumorBAF(final PositionEvidence tumorEvidence)
     {
         NormalReadDepth = 0;
         NormalRefSupport = 0;
         NormalAltSupport = 0;
 
-        TumorEvidence = new PositionEvidence(chromosome, position, ref, alt);
+        TumorEvidence = tumorEvidence;
     }
 
     @Override
@@ -33,7 +38,12 @@ public class TumorBAF implements GenomePosition
 
     public static TumorBAF fromNormal(final PositionEvidence normal)
     {
-        TumorBAF tumorBAF = new TumorBAF(normal.Chromosome, normal.Position, normal.ref(), normal.alt());
+        return fromNormal(normal, new PositionEvidence(normal.Chromosome, normal.Position, normal.ref(), normal.alt()));
+    }
+
+    public static TumorBAF fromNormal(final PositionEvidence normal, final PositionEvidence tumorEvidence)
+    {
+        TumorBAF tumorBAF = new TumorBAF(tumorEvidence);
         tumorBAF.NormalReadDepth = normal.ReadDepth;
         tumorBAF.NormalRefSupport = normal.RefSupport;
         tumorBAF.NormalAltSupport = normal.AltSupport;
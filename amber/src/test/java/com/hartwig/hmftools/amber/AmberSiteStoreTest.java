@@ -0,0 +1,96 @@
+package com.hartwig.hmftools.amber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.junit.Test;
+
+public class AmberSiteStoreTest
+{
+    @Test
+    public void testSiteColumns()
+    {
+        AmberSiteStore siteStore = AmberSiteStore.fromSites(createSites());
+
+        assertEquals(5, siteStore.siteCount());
+
+        SiteColumns sites = siteStore.sites(HumanChromosome._1);
+        assertNotNull(sites);
+        assertEquals(3, sites.size());
+
+        // two sites share a position
+        assertEquals(1, sites.indexOf(2000, "G", "T"));
+        assertEquals(2, sites.indexOf(2000, "G", "C"));
+        assertEquals(-1, sites.indexOf(2000, "A", "C"));
+        assertEquals(-1, sites.indexOf(1500, "A", "C"));
+
+        assertTrue(sites.isSnpCheck(1));
+        assertFalse(sites.isSnpCheck(2));
+
+        AmberSite site = sites.site(2);
+        assertEquals("1", site.Chromosome);
+        assertEquals("C", site.Alt);
+    }
+
+    @Test
+    public void testBinaryCache() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("amber_test").toFile();
+        File sourceFile = new File(tempDir, "sites.tsv");
+        Files.writeString(sourceFile.toPath(), "placeholder");
+
+        String cacheFile = new File(tempDir, "sites.cache").getAbsolutePath();
+
+        AmberSiteStore siteStore = AmberSiteStore.fromSites(createSites());
+        siteStore.writeCache(cacheFile, sourceFile);
+
+        AmberSiteStore cachedStore = AmberSiteStore.readCache(cacheFile, sourceFile);
+        assertNotNull(cachedStore);
+        assertEquals(siteStore.siteCount(), cachedStore.siteCount());
+
+        for(Chromosome chromosome : siteStore.chromosomeSites().keySet())
+        {
+            SiteColumns sites = siteStore.sites(chromosome);
+            SiteColumns cachedSites = cachedStore.sites(chromosome);
+
+            assertEquals(sites.Chromosome, cachedSites.Chromosome);
+            assertArrayEquals(sites.Positions, cachedSites.Positions);
+            assertArrayEquals(sites.Refs, cachedSites.Refs);
+            assertArrayEquals(sites.Alts, cachedSites.Alts);
+            assertEquals(sites.snpCheck(), cachedSites.snpCheck());
+        }
+
+        // a changed source file invalidates the cache
+        Files.writeString(sourceFile.toPath(), "placeholder with changes");
+        assertNull(AmberSiteStore.readCache(cacheFile, sourceFile));
+
+        new File(cacheFile).delete();
+        sourceFile.delete();
+        tempDir.delete();
+    }
+
+    private static ListMultimap<Chromosome,AmberSite> createSites()
+    {
+        ListMultimap<Chromosome,AmberSite> chrSites = ArrayListMultimap.create();
+        chrSites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "C", false));
+        chrSites.put(HumanChromosome._1, new AmberSite("1", 2000, "G", "T", true));
+        chrSites.put(HumanChromosome._1, new AmberSite("1", 2000, "G", "C", false));
+        chrSites.put(HumanChromosome._2, new AmberSite("2", 500, "T", "A", true));
+        chrSites.put(HumanChromosome._2, new AmberSite("2", 800, "C", "G", false));
+        return chrSites;
+    }
+}
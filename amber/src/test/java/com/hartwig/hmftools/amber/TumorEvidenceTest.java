@@ -1,6 +1,10 @@
 package com.hartwig.hmftools.amber;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
 
 import com.hartwig.hmftools.common.bam.SamRecordUtils;
 
@@ -29,6 +33,46 @@ public class TumorEvidenceTest
         assertEquals(1, baseDepth.ReadDepth);
     }
 
+    @Test
+    public void pairedRegionEvidence()
+    {
+        // reference and tumor evidence at the same sites are filled independently within a single region task
+        PositionEvidenceChecker evidenceChecker = new PositionEvidenceChecker(0);
+
+        SiteColumns sites = SiteColumns.fromEvidence("5", List.of(
+                new PositionEvidence("5", 1001, "A", "T"),
+                new PositionEvidence("5", 1010, "C", "G")));
+
+        SampleEvidence refEvidence = new SampleEvidence(sites.size());
+        SampleEvidence tumorEvidence = new SampleEvidence(sites.size());
+
+        RegionTask task = new RegionTask(evidenceChecker, "5", sites, 0, refEvidence, tumorEvidence);
+        task.addPosition(1);
+        assertTrue(task.isPaired());
+
+        task.processRecord(buildSamRecord(1001, "10M", "AAAAAAAAAC", "FFFFFFFFFF"));
+
+        task.processPairedRecord(buildSamRecord(1001, "10M", "TAAAAAAAAG", "FFFFFFFFFF"));
+        task.processPairedRecord(buildSamRecord(1005, "10M", "AAAAAGAAAA", "FFFFFFFFFF"));
+
+        assertEquals(1, refEvidence.RefSupport[0]);
+        assertEquals(1, refEvidence.RefSupport[1]);
+        assertEquals(0, refEvidence.AltSupport[0]);
+
+        assertEquals(1, tumorEvidence.ReadDepth[0]);
+        assertEquals(1, tumorEvidence.AltSupport[0]);
+        assertEquals(2, tumorEvidence.ReadDepth[1]);
+        assertEquals(2, tumorEvidence.AltSupport[1]);
+        assertEquals(74, tumorEvidence.AltQuality[1]);
+
+        assertFalse(task.isComplete());
+        assertFalse(task.isPairedComplete());
+
+        PositionEvidence tumorSite = tumorEvidence.positionEvidence(sites, 1);
+        assertEquals(1010, tumorSite.Position);
+        assertEquals(2, tumorSite.AltSupport);
+    }
+
     private SAMRecord buildSamRecord(
             final int alignmentStart, final String cigar, final String readString, final String qualities)
     {
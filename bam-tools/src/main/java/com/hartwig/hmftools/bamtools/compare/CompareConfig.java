@@ -4,6 +4,7 @@ import static com.hartwig.hmftools.bamtools.common.CommonUtils.BT_LOGGER;
 import static com.hartwig.hmftools.bamtools.common.CommonUtils.PARTITION_SIZE;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeFile;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
 import static com.hartwig.hmftools.common.region.SpecificRegions.addSpecificChromosomesRegionsConfig;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
@@ -12,8 +13,10 @@ import static com.hartwig.hmftools.common.utils.config.CommonConfig.LOG_READ_IDS
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.parseLogReadIds;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
 
+import java.util.Collections;
 import java.util.List;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.region.SpecificRegions;
 import com.hartwig.hmftools.common.bam.BamUtils;
@@ -104,4 +107,22 @@ public class CompareConfig
         addLoggingOptions(configBuilder);
         addThreadOptions(configBuilder);
     }
+
+    @VisibleForTesting
+    public CompareConfig()
+    {
+        OutputFile = null;
+        RefBamFile = "";
+        NewBamFile = "";
+        RefGenomeFile = "";
+        RefGenVersion = V37;
+        PartitionSize = DEFAULT_CHR_PARTITION_SIZE;
+        MaxPartitionReads = 0;
+        ExcludeRegions = false;
+        IgnoreDupDiffs = false;
+        IgnoreAlterations = false;
+        SpecificChrRegions = new SpecificRegions();
+        Threads = 0;
+        LogReadIds = Collections.emptyList();
+    }
 }
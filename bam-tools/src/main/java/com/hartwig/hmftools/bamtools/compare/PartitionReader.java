@@ -1,12 +1,14 @@
 package com.hartwig.hmftools.bamtools.compare;
 
 import static java.lang.Math.abs;
+import static java.lang.Math.min;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.bamtools.common.CommonUtils.BT_LOGGER;
 import static com.hartwig.hmftools.bamtools.compare.MismatchType.NEW_ONLY;
 import static com.hartwig.hmftools.bamtools.compare.MismatchType.REF_ONLY;
 import static com.hartwig.hmftools.bamtools.compare.MismatchType.VALUE;
+import static com.hartwig.hmftools.common.bam.BamSlicer.createIntervals;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.CONSENSUS_READ_ATTRIBUTE;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.MATE_CIGAR_ATTRIBUTE;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.SUPPLEMENTARY_ATTRIBUTE;
@@ -14,16 +16,21 @@ import static com.hartwig.hmftools.common.bam.SamRecordUtils.UNMAP_ATTRIBUTE;
 
 import static htsjdk.samtools.SAMFlag.DUPLICATE_READ;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
-import com.hartwig.hmftools.common.region.ExcludedRegions;
-import com.hartwig.hmftools.common.bam.BamSlicer;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.bam.BamSlicerFilter;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.region.ExcludedRegions;
 
+import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
 
 public class PartitionReader
@@ -33,10 +40,12 @@ public class PartitionReader
 
     private final SamReader mRefSamReader;
     private final SamReader mNewSamReader;
-    private final BamSlicer mBamSlicer;
+    private final BamSlicerFilter mReadFilter;
+
+    // ref reads at the current alignment start, keyed by read, with any reads sharing a key kept separately
+    private final Map<ReadKey,SAMRecord> mRefPosReads;
+    private final List<SAMRecord> mRefPosDuplicateKeyReads;
 
-    private final Queue<List<SAMRecord>> mRefReads;
-    private List<SAMRecord> mCurrentRefPosReads;
     private final ReadWriter mReadWriter;
     private boolean mLogReadIds;
 
@@ -53,11 +62,11 @@ public class PartitionReader
 
         mRefSamReader = refSamReader;
         mNewSamReader = newSamReader;
-        mBamSlicer = new BamSlicer(0, true, true, true);
-        mBamSlicer.setKeepUnmapped();
+        mReadFilter = new BamSlicerFilter(0, true, true, true);
+        mReadFilter.setKeepUnmapped();
 
-        mRefReads = Queues.newArrayDeque();
-        mCurrentRefPosReads = null;
+        mRefPosReads = Maps.newLinkedHashMap();
+        mRefPosDuplicateKeyReads = Lists.newArrayList();
 
         ChrBaseRegion excludedRegion = ExcludedRegions.getPolyGRegion(mConfig.RefGenVersion);
         mExcludedRegion = mRegion.overlaps(excludedRegion) ? excludedRegion : null;
@@ -72,56 +81,62 @@ public class PartitionReader
     {
         BT_LOGGER.debug("processing region({})", mRegion);
 
-        mBamSlicer.slice(mRefSamReader, Lists.newArrayList(mRegion), this::processRefRecord);
-
-        mBamSlicer.slice(mNewSamReader, Lists.newArrayList(mRegion), this::processNewRecord);
-
-        while(!mRefReads.isEmpty())
+        try(SAMRecordIterator refIterator = queryRegion(mRefSamReader); SAMRecordIterator newIterator = queryRegion(mNewSamReader))
         {
-            // write remaining records
-            List<SAMRecord> refReads = mRefReads.remove();
-            refReads.forEach(x -> mReadWriter.writeComparison(x, REF_ONLY, null));
-            mStats.DiffCount += refReads.size();
+            compareReads(
+                    refIterator != null ? refIterator : Collections.emptyIterator(),
+                    newIterator != null ? newIterator : Collections.emptyIterator());
         }
 
         BT_LOGGER.debug("region({}) complete: refReads({}) newReads({}) diff({})",
                 mRegion, mStats.RefReadCount, mStats.NewReadCount, mStats.DiffCount);
     }
 
-    private void processRefRecord(final SAMRecord refRead)
+    private SAMRecordIterator queryRegion(final SamReader samReader)
     {
-        if(!mRegion.containsPosition(refRead.getAlignmentStart()))
-            return;
-
-        if(mExcludedRegion != null && mExcludedRegion.containsPosition(refRead.getAlignmentStart()))
-            return;
+        QueryInterval[] queryIntervals = createIntervals(List.of(mRegion), samReader.getFileHeader());
+        return queryIntervals != null ? samReader.queryOverlapping(queryIntervals) : null;
+    }
 
-        if(exceededMaxReads("ref", mStats.RefReadCount))
-            return;
+    @VisibleForTesting
+    public void compareReads(final Iterator<SAMRecord> refIterator, final Iterator<SAMRecord> newIterator)
+    {
+        // both BAMs are coordinate-sorted, so they are read in lock-step one alignment start at a time, and only the ref reads
+        // at the current position are held while the new BAM's reads at that position are matched against them
+        ReadSource refReads = new ReadSource(refIterator, true);
+        ReadSource newReads = new ReadSource(newIterator, false);
 
-        if(mLogReadIds && mConfig.LogReadIds.contains(refRead.getReadName()))
+        while(refReads.hasNext() || newReads.hasNext())
         {
-            BT_LOGGER.debug("specific readId({})", refRead.getReadName());
-        }
+            int position;
 
-        if(excludeRead(refRead))
-            return;
+            if(!refReads.hasNext())
+                position = newReads.nextPosition();
+            else if(!newReads.hasNext())
+                position = refReads.nextPosition();
+            else
+                position = min(refReads.nextPosition(), newReads.nextPosition());
 
-        ++mStats.RefReadCount;
+            while(refReads.hasNextAtPosition(position))
+            {
+                SAMRecord refRead = refReads.next();
 
-        if((mStats.RefReadCount % LOG_COUNT) == 0)
-        {
-            BT_LOGGER.debug("partition({}) ref reads processed({})", mRegion, mStats.RefReadCount);
-        }
+                if(mRefPosReads.putIfAbsent(new ReadKey(refRead), refRead) != null)
+                    mRefPosDuplicateKeyReads.add(refRead);
+            }
 
-        if(mCurrentRefPosReads == null || mCurrentRefPosReads.get(0).getAlignmentStart() != refRead.getAlignmentStart())
-        {
-            mCurrentRefPosReads = Lists.newArrayList(refRead);
-            mRefReads.add(mCurrentRefPosReads);
-        }
-        else
-        {
-            mCurrentRefPosReads.add(refRead);
+            while(newReads.hasNextAtPosition(position))
+            {
+                processNewRecord(newReads.next());
+            }
+
+            // any ref reads left at this position are unmatched
+            mRefPosReads.values().forEach(x -> mReadWriter.writeComparison(x, REF_ONLY, null));
+            mRefPosDuplicateKeyReads.forEach(x -> mReadWriter.writeComparison(x, REF_ONLY, null));
+            mStats.DiffCount += mRefPosReads.size() + mRefPosDuplicateKeyReads.size();
+
+            mRefPosReads.clear();
+            mRefPosDuplicateKeyReads.clear();
         }
     }
 
@@ -129,99 +144,165 @@ public class PartitionReader
 
     private void processNewRecord(final SAMRecord newRead)
     {
-        if(!mRegion.containsPosition(newRead.getAlignmentStart()))
-            return;
+        // look for an exact read match amongst the ref reads at the same position
+        SAMRecord refRead = mRefPosReads.remove(new ReadKey(newRead));
 
-        if(mExcludedRegion != null && mExcludedRegion.containsPosition(newRead.getAlignmentStart()))
-            return;
+        if(refRead == null)
+        {
+            int refIndex = 0;
+            while(refIndex < mRefPosDuplicateKeyReads.size())
+            {
+                if(readsMatch(mRefPosDuplicateKeyReads.get(refIndex), newRead))
+                {
+                    refRead = mRefPosDuplicateKeyReads.remove(refIndex);
+                    break;
+                }
 
-        if(exceededMaxReads("new", mStats.NewReadCount))
-            return;
+                ++refIndex;
+            }
+        }
 
-        if(mLogReadIds && mConfig.LogReadIds.contains(newRead.getReadName()))
+        if(refRead != null)
         {
-            BT_LOGGER.debug("specific readId({})", newRead.getReadName());
+            checkReadDetails(refRead, newRead);
+            return;
         }
 
-        if(excludeRead(newRead))
-            return;
+        // no match
+        mReadWriter.writeComparison(newRead, NEW_ONLY, null);
+        ++mStats.DiffCount;
+    }
+
+    private boolean acceptRead(final SAMRecord read, boolean isRef)
+    {
+        if(!mReadFilter.passesFilters(read))
+            return false;
 
-        ++mStats.NewReadCount;
+        if(!mRegion.containsPosition(read.getAlignmentStart()))
+            return false;
+
+        if(mExcludedRegion != null && mExcludedRegion.containsPosition(read.getAlignmentStart()))
+            return false;
 
-        if((mStats.NewReadCount % LOG_COUNT) == 0)
+        if(mLogReadIds && mConfig.LogReadIds.contains(read.getReadName()))
         {
-            BT_LOGGER.debug("partition({}) new reads processed({})", mRegion, mStats.NewReadCount);
+            BT_LOGGER.debug("specific readId({})", read.getReadName());
         }
 
-        if(mRefReads.isEmpty())
+        if(excludeRead(read))
+            return false;
+
+        int readCount = isRef ? ++mStats.RefReadCount : ++mStats.NewReadCount;
+
+        if((readCount % LOG_COUNT) == 0)
         {
-            mReadWriter.writeComparison(newRead, NEW_ONLY, null);
-            ++mStats.DiffCount;
-            return;
+            BT_LOGGER.debug("partition({}) {} reads processed({})", mRegion, isRef ? "ref" : "new", readCount);
         }
 
-        List<SAMRecord> refReads = mRefReads.peek();
-        int refPosStart = refReads.get(0).getAlignmentStart();
+        return true;
+    }
 
-        // purge any earlier reads
-        if(refPosStart < newRead.getAlignmentStart())
-        {
-            while(!mRefReads.isEmpty())
-            {
-                refReads = mRefReads.peek();
-                refPosStart = refReads.get(0).getAlignmentStart();
+    private boolean exceededMaxReads(final String source, int readCount)
+    {
+        if(mConfig.MaxPartitionReads == 0 || readCount < mConfig.MaxPartitionReads)
+            return false;
 
-                if(refPosStart >= newRead.getAlignmentStart())
-                    break;
+        BT_LOGGER.info("partition({}) exiting {} read processing at limit({})", mRegion, source, readCount);
 
-                refReads.forEach(x -> mReadWriter.writeComparison(x, REF_ONLY, null));
-                mStats.DiffCount += refReads.size();
-                mRefReads.remove();
-            }
+        return true;
+    }
+
+    private class ReadSource
+    {
+        private final Iterator<SAMRecord> mIterator;
+        private final boolean mIsRef;
+        private SAMRecord mNextRead;
+
+        public ReadSource(final Iterator<SAMRecord> iterator, boolean isRef)
+        {
+            mIterator = iterator;
+            mIsRef = isRef;
+            mNextRead = null;
+            moveNext();
         }
 
-        // write if before the current ref read
-        if(newRead.getAlignmentStart() < refPosStart)
+        public boolean hasNext() { return mNextRead != null; }
+        public int nextPosition() { return mNextRead.getAlignmentStart(); }
+
+        public boolean hasNextAtPosition(int position) { return mNextRead != null && mNextRead.getAlignmentStart() == position; }
+
+        public SAMRecord next()
         {
-            mReadWriter.writeComparison(newRead, NEW_ONLY, null);
-            ++mStats.DiffCount;
-            return;
+            SAMRecord read = mNextRead;
+            moveNext();
+            return read;
         }
 
-        // the positions now match, so look for an exact read match
-        int refIndex = 0;
-        while(refIndex < refReads.size())
+        private void moveNext()
         {
-            SAMRecord refRead = refReads.get(refIndex);
+            mNextRead = null;
+
+            if(exceededMaxReads(mIsRef ? "ref" : "new", mIsRef ? mStats.RefReadCount : mStats.NewReadCount))
+                return;
 
-            if(readsMatch(refRead, newRead))
+            while(mIterator.hasNext())
             {
-                refReads.remove(refIndex);
-                if(refReads.isEmpty())
-                    mRefReads.remove();
+                SAMRecord read = mIterator.next();
 
-                checkReadDetails(refRead, newRead);
-                return;
+                if(acceptRead(read, mIsRef))
+                {
+                    mNextRead = read;
+                    return;
+                }
             }
-
-            ++refIndex;
         }
-
-        // no match
-        mReadWriter.writeComparison(newRead, NEW_ONLY, null);
-        ++mStats.DiffCount;
     }
 
-    private boolean exceededMaxReads(final String source, int readCount)
+    private static class ReadKey
     {
-        if(mConfig.MaxPartitionReads == 0 || readCount < mConfig.MaxPartitionReads)
-            return false;
+        private final String mReadName;
+        private final int mKeyFlags;
+        private final int mHashCode;
 
-        BT_LOGGER.info("partition({}) exiting {} read processing at limit({})", mRegion, source, readCount);
+        private static final int SUPPLEMENTARY_FLAG = 1;
+        private static final int UNMAPPED_FLAG = 2;
+        private static final int FIRST_IN_PAIR_FLAG = 4;
 
-        mBamSlicer.haltProcessing();
+        public ReadKey(final SAMRecord read)
+        {
+            // matches the fields compared by readsMatch()
+            mReadName = read.getReadName();
 
-        return true;
+            int keyFlags = 0;
+
+            if(read.getSupplementaryAlignmentFlag())
+                keyFlags |= SUPPLEMENTARY_FLAG;
+
+            if(read.getReadUnmappedFlag())
+                keyFlags |= UNMAPPED_FLAG;
+
+            if(read.getReadPairedFlag() && read.getFirstOfPairFlag())
+                keyFlags |= FIRST_IN_PAIR_FLAG;
+
+            mKeyFlags = keyFlags;
+            mHashCode = 31 * mReadName.hashCode() + mKeyFlags;
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if(this == other)
+                return true;
+
+            if(!(other instanceof ReadKey))
+                return false;
+
+            ReadKey otherKey = (ReadKey)other;
+            return mKeyFlags == otherKey.mKeyFlags && mReadName.equals(otherKey.mReadName);
+        }
+
+        @Override
+        public int hashCode() { return mHashCode; }
     }
 
     private static final List<String> KEY_ATTRIBUTES = List.of(SUPPLEMENTARY_ATTRIBUTE, MATE_CIGAR_ATTRIBUTE);
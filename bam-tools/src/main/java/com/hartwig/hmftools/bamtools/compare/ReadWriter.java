@@ -22,7 +22,7 @@ public class ReadWriter
 
     public ReadWriter(final CompareConfig config)
     {
-        mWriter = initialiseWriter(config.OutputFile);
+        mWriter = config.OutputFile != null ? initialiseWriter(config.OutputFile) : null;
     }
 
     public boolean initialised() { return mWriter != null; }
@@ -48,6 +48,9 @@ public class ReadWriter
 
     public synchronized void writeComparison(final SAMRecord read, final MismatchType mismatchType, final List<String> diffList)
     {
+        if(mWriter == null)
+            return;
+
         try
         {
             String diffDetails = diffList != null ? diffList.stream().collect(Collectors.joining(";")) : "";
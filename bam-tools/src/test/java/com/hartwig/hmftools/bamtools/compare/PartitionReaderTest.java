@@ -0,0 +1,103 @@
+package com.hartwig.hmftools.bamtools.compare;
+
+import static com.hartwig.hmftools.bamtools.compare.MismatchType.NEW_ONLY;
+import static com.hartwig.hmftools.bamtools.compare.MismatchType.REF_ONLY;
+import static com.hartwig.hmftools.bamtools.compare.MismatchType.VALUE;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecord;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class PartitionReaderTest
+{
+    private static final CompareConfig CONFIG = new CompareConfig();
+    private static final ChrBaseRegion REGION = new ChrBaseRegion(CHR_1, 1000, 2000);
+
+    private static final String READ_BASES = "";
+    private static final String READ_CIGAR = "100M";
+
+    @Test
+    public void testMergeJoinCompare()
+    {
+        List<SAMRecord> refReads = Lists.newArrayList(
+                createRead("READ_01", 1000, true),
+                createRead("READ_02", 1000, true),
+                createRead("READ_03", 1100, true),
+                createRead("READ_05", 1300, true),
+                createRead("READ_01", 1500, false),
+                createRead("READ_06", 2500, true)); // outside the region
+
+        List<SAMRecord> newReads = Lists.newArrayList(
+                createRead("READ_02", 1000, true), // reordered at the same position
+                createRead("READ_01", 1000, true),
+                createRead("READ_03", 1100, false), // other read in the pair
+                createRead("READ_04", 1200, true),
+                createRead("READ_01", 1500, false));
+
+        SAMRecord diffRead = createRead("READ_05", 1300, true);
+        diffRead.setMappingQuality(10);
+        newReads.add(4, diffRead);
+
+        TestReadWriter readWriter = new TestReadWriter();
+        PartitionReader partitionReader = new PartitionReader(REGION, CONFIG, null, null, readWriter);
+
+        partitionReader.compareReads(refReads.iterator(), newReads.iterator());
+
+        assertEquals(5, partitionReader.stats().RefReadCount);
+        assertEquals(6, partitionReader.stats().NewReadCount);
+        assertEquals(4, partitionReader.stats().DiffCount);
+
+        assertEquals(Lists.newArrayList("READ_03_NEW_ONLY", "READ_03_REF_ONLY", "READ_04_NEW_ONLY", "READ_05_VALUE"), readWriter.Mismatches);
+    }
+
+    @Test
+    public void testUnmatchedSources()
+    {
+        List<SAMRecord> reads = Lists.newArrayList(createRead("READ_01", 1000, true), createRead("READ_02", 1200, true));
+
+        TestReadWriter readWriter = new TestReadWriter();
+        PartitionReader partitionReader = new PartitionReader(REGION, CONFIG, null, null, readWriter);
+        partitionReader.compareReads(reads.iterator(), Lists.<SAMRecord>newArrayList().iterator());
+
+        assertEquals(Lists.newArrayList("READ_01_REF_ONLY", "READ_02_REF_ONLY"), readWriter.Mismatches);
+
+        readWriter = new TestReadWriter();
+        partitionReader = new PartitionReader(REGION, CONFIG, null, null, readWriter);
+        partitionReader.compareReads(Lists.<SAMRecord>newArrayList().iterator(), reads.iterator());
+
+        assertEquals(Lists.newArrayList("READ_01_NEW_ONLY", "READ_02_NEW_ONLY"), readWriter.Mismatches);
+    }
+
+    private static SAMRecord createRead(final String readId, int readStart, boolean firstInPair)
+    {
+        SAMRecord read = createSamRecord(readId, CHR_1, readStart, READ_BASES, READ_CIGAR, CHR_1, readStart + 300, false, false, null);
+        read.setFirstOfPairFlag(firstInPair);
+        read.setSecondOfPairFlag(!firstInPair);
+        return read;
+    }
+
+    private class TestReadWriter extends ReadWriter
+    {
+        public final List<String> Mismatches = Lists.newArrayList();
+
+        public TestReadWriter()
+        {
+            super(CONFIG);
+        }
+
+        @Override
+        public synchronized void writeComparison(final SAMRecord read, final MismatchType mismatchType, final List<String> diffList)
+        {
+            Mismatches.add(read.getReadName() + "_" + mismatchType);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -23,6 +24,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.cobalt.count.BamReadCounter;
 import com.hartwig.hmftools.cobalt.diploid.DiploidRegionLoader;
 import com.hartwig.hmftools.cobalt.ratio.RatioSupplier;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCProfile;
@@ -126,9 +128,12 @@ public class CobaltApplication
             CB_LOGGER.info("persisting cobalt ratios to {}", outputFilename);
 
 
-            CobaltRatioFile.write(outputFilename, ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList()));
+            final List<CobaltRatio> cobaltRatios = ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList());
+            CobaltRatioFile.write(outputFilename, cobaltRatios);
 
-            applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            applyRatioSegmentation(
+                    executorService, mConfig.OutputDir, outputFilename, cobaltRatios, mConfig.ReferenceId, mConfig.TumorId,
+                    mConfig.RefGenVersion, mConfig.PcfGamma, mConfig.PcfSegmentationMode, mConfig.Threads);
 
             final VersionInfo version = fromAppName(APP_NAME);
             version.write(mConfig.OutputDir);
@@ -6,7 +6,10 @@ import static com.hartwig.hmftools.common.genome.gc.GCProfileFactory.GC_PROFILE;
 import static com.hartwig.hmftools.common.genome.gc.GCProfileFactory.GC_PROFILE_DESC;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME_CFG_DESC;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeVersion;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION;
 import static com.hartwig.hmftools.common.bam.BamUtils.addValidationStringencyOption;
+import static com.hartwig.hmftools.common.bam.BamUtils.deriveRefGenomeVersion;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.REFERENCE;
@@ -23,7 +26,9 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreate
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
 
 import com.hartwig.hmftools.common.bam.BamUtils;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.pcf.PCFMode;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -53,6 +58,7 @@ public class CobaltConfig
     public final String TumorBamPath;
 
     public final String RefGenomePath;
+    public final RefGenomeVersion RefGenVersion;
     public final String GcProfilePath;
 
     public final int Threads;
@@ -60,6 +66,7 @@ public class CobaltConfig
 
     public final int MinMappingQuality;
     public final int PcfGamma;
+    public final PCFMode PcfSegmentationMode;
 
     public final ValidationStringency BamStringency;
     public final boolean IncludeDuplicates;
@@ -82,9 +89,15 @@ public class CobaltConfig
         TumorOnlyDiploidBed = configBuilder.getValue(TUMOR_ONLY_DIPLOID_BED);
         TargetRegionPath = configBuilder.getValue(TARGET_REGION_NORM_FILE);
         RefGenomePath = configBuilder.getValue(REF_GENOME);
-        
+
+        String versionBamPath = TumorBamPath != null ? TumorBamPath : ReferenceBamPath;
+
+        RefGenVersion = configBuilder.hasValue(REF_GENOME_VERSION) || versionBamPath == null ?
+                RefGenomeVersion.from(configBuilder) : deriveRefGenomeVersion(versionBamPath);
+
         MinMappingQuality = configBuilder.getInteger(MIN_MAPPING_QUALITY);
         PcfGamma = configBuilder.getInteger(PCF_GAMMA);
+        PcfSegmentationMode = PCFMode.from(configBuilder);
         IncludeDuplicates = configBuilder.hasFlag(INCLUDE_DUPLICATES);
 
         BamStringency = BamUtils.validationStringency(configBuilder);
@@ -103,11 +116,13 @@ public class CobaltConfig
 
         configBuilder.addPath(GC_PROFILE, true, GC_PROFILE_DESC);
         configBuilder.addPath(REF_GENOME, false, REF_GENOME_CFG_DESC + ", required when using CRAM files");
+        addRefGenomeVersion(configBuilder);
         configBuilder.addPath(TUMOR_ONLY_DIPLOID_BED, false, "Diploid regions for tumor-only mode");
         configBuilder.addPath(TARGET_REGION_NORM_FILE, false, "Targeted regions normalisation file");
 
         configBuilder.addInteger(MIN_MAPPING_QUALITY, "Min map quality", DEFAULT_MIN_MAPPING_QUALITY);
         configBuilder.addInteger(PCF_GAMMA, "Gamma value for copy number PCF", DEFAULT_PCF_GAMMA);
+        PCFMode.addConfig(configBuilder);
         configBuilder.addFlag(INCLUDE_DUPLICATES, "Include duplicate reads in depth counts");
 
         addOutputDir(configBuilder);
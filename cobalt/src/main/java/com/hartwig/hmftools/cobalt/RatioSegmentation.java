@@ -1,6 +1,7 @@
 package com.hartwig.hmftools.cobalt;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.log2RatioValue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -8,35 +9,78 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
 
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFMode;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class RatioSegmentation
 {
+    private static final String REFERENCE_COLUMN = "referenceGCDiploidRatio";
+    private static final String TUMOR_COLUMN = "tumorGCRatio";
+
     public static void applyRatioSegmentation(
-            final ExecutorService executorService, final String outputDir, final String ratioFile,
-            final String reference, final String tumor, int gamma) throws ExecutionException, InterruptedException
+            final ExecutorService executorService, final String outputDir, final String ratioFile, final List<CobaltRatio> ratios,
+            final String reference, final String tumor, final RefGenomeVersion refGenVersion, int gamma, final PCFMode pcfMode,
+            int threads)
+            throws ExecutionException, InterruptedException, IOException
     {
-        final List<Future<Object>> futures = new ArrayList<>();
-
-        if(reference != null)
-        {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, reference, "referenceGCDiploidRatio", gamma)));
-        }
-        if(tumor != null)
+        if(pcfMode.runR())
         {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, tumor, "tumorGCRatio", gamma)));
+            final List<Future<Object>> futures = new ArrayList<>();
+
+            if(reference != null)
+            {
+                futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, reference, REFERENCE_COLUMN, gamma)));
+            }
+            if(tumor != null)
+            {
+                futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, tumor, TUMOR_COLUMN, gamma)));
+            }
+
+            for(Future<Object> future : futures)
+            {
+                future.get();
+            }
         }
 
-        for(Future<Object> future : futures)
+        if(pcfMode.runJava() && !ratios.isEmpty())
         {
-            future.get();
+            PCFSegmenter segmenter = new PCFSegmenter(refGenVersion, gamma, PCFSegmenter.DEFAULT_KMIN);
+
+            if(reference != null)
+            {
+                ratioSegmentation(
+                        segmenter, outputDir, ratios, reference, REFERENCE_COLUMN, CobaltRatio::referenceGCDiploidRatio, pcfMode, threads);
+            }
+            if(tumor != null)
+            {
+                ratioSegmentation(segmenter, outputDir, ratios, tumor, TUMOR_COLUMN, CobaltRatio::tumorGCRatio, pcfMode, threads);
+            }
         }
 
         CB_LOGGER.info("Segmentation Complete");
     }
 
+    private static void ratioSegmentation(
+            final PCFSegmenter segmenter, final String outputDir, final List<CobaltRatio> ratios, final String sample,
+            final String column, final ToDoubleFunction<CobaltRatio> ratioFunction, final PCFMode pcfMode, int threads)
+            throws IOException
+    {
+        final List<PCFSegment> segments = segmenter.segment(ratios, x -> log2RatioValue(ratioFunction.applyAsDouble(x)), threads);
+        final String pcfFile = PCFFile.generateRatioFilename(outputDir, sample);
+
+        if(pcfMode == PCFMode.VALIDATE)
+            PCFSegmenter.compareBreakpoints(sample + " " + column, segments, PCFFile.readSegments(pcfFile), 0);
+
+        PCFFile.write(pcfFile, sample, segments);
+    }
+
     private static Object ratioSegmentation(
             final String outputDir, final String ratioFile, final String sample, final String column, int gamma)
             throws IOException, InterruptedException
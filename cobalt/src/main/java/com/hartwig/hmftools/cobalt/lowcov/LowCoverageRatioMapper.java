@@ -16,8 +16,11 @@ import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
 import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
+import com.hartwig.hmftools.cobalt.ratio.WindowIndex;
+import com.hartwig.hmftools.cobalt.ratio.WindowValues;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -193,6 +196,126 @@ public class LowCoverageRatioMapper implements RatioMapper
         return lowCovRatio;
     }
 
+    // consolidate window ratios into the buckets, each bucket taking the mean of its valid ratios at the bucket position
+    public WindowValues mapRatios(final WindowIndex windowIndex, final WindowValues inputRatios)
+    {
+        Objects.requireNonNull(mConsolidateBoundaries);
+        CB_LOGGER.info("using {} sparse consolidated buckets, from {} input ratios",
+                mConsolidateBoundaries.size(), inputRatios.presentCount());
+
+        WindowValues lowCovRatios = new WindowValues(windowIndex.windowCount());
+        double[] bucketRatios = new double[inputRatios.size()];
+
+        for(int chrOrdinal = 0; chrOrdinal < windowIndex.chromosomeCount(); ++chrOrdinal)
+        {
+            String chromosome = windowIndex.chromosome(chrOrdinal);
+            int chrEnd = windowIndex.chromosomeEndIndex(chrOrdinal);
+            int firstIndex = inputRatios.Present.nextSetBit(windowIndex.chromosomeStartIndex(chrOrdinal));
+
+            if(firstIndex < 0 || firstIndex >= chrEnd)
+                continue;
+
+            Iterator<LowCovBucket> bucketItr = mConsolidateBoundaries.get(chromosome).iterator();
+
+            if(!bucketItr.hasNext())
+            {
+                CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
+                continue;
+            }
+
+            LowCovBucket bucket = bucketItr.next();
+            int bucketRatioCount = 0;
+
+            for(int i = firstIndex; i >= 0 && i < chrEnd; i = inputRatios.Present.nextSetBit(i + 1))
+            {
+                // windows with negative ratios are not part of any bucket
+                double ratio = inputRatios.get(i);
+
+                if(!(ratio >= 0))
+                    continue;
+
+                if(windowIndex.position(chrOrdinal, i) > bucket.EndPosition)
+                {
+                    setBucketRatio(windowIndex, lowCovRatios, chromosome, bucket, bucketRatios, bucketRatioCount);
+                    bucketRatioCount = 0;
+
+                    if(!bucketItr.hasNext())
+                    {
+                        // no more bucket for this chromosome, skip through the rest of it
+                        bucket = null;
+                        break;
+                    }
+
+                    bucket = bucketItr.next();
+                }
+
+                bucketRatios[bucketRatioCount++] = ratio;
+            }
+
+            if(bucket != null)
+                setBucketRatio(windowIndex, lowCovRatios, chromosome, bucket, bucketRatios, bucketRatioCount);
+        }
+
+        return lowCovRatios;
+    }
+
+    private static void setBucketRatio(
+            final WindowIndex windowIndex, final WindowValues lowCovRatios, final String chromosome, final LowCovBucket bucket,
+            final double[] bucketRatios, int bucketRatioCount)
+    {
+        if(bucketRatioCount == 0)
+            return;
+
+        int index = windowIndex.indexOf(chromosome, bucket.BucketPosition);
+
+        if(index >= 0)
+            lowCovRatios.set(index, StatUtils.mean(bucketRatios, 0, bucketRatioCount));
+    }
+
+    @Nullable
+    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(
+            final WindowIndex windowIndex, final WindowValues rawRatios, final double medianReadDepth)
+    {
+        int consolidationCount = calcConsolidationCount(medianReadDepth);
+
+        if(consolidationCount == 1)
+        {
+            CB_LOGGER.info("median read depth: {}, not using sparse consolidation", medianReadDepth);
+            return null;
+        }
+
+        CB_LOGGER.info("median read depth: {}, sparse consolidation count: {}",
+                medianReadDepth, consolidationCount);
+
+        ArrayListMultimap<String, LowCovBucket> boundaries = ArrayListMultimap.create();
+
+        for(int chrOrdinal = 0; chrOrdinal < windowIndex.chromosomeCount(); ++chrOrdinal)
+        {
+            int chrStart = windowIndex.chromosomeStartIndex(chrOrdinal);
+            int chrEnd = windowIndex.chromosomeEndIndex(chrOrdinal);
+
+            if(rawRatios.Present.get(chrStart, chrEnd).isEmpty())
+                continue;
+
+            String chromosome = windowIndex.chromosome(chrOrdinal);
+            List<Integer> nonMaskedPositions = new ArrayList<>();
+
+            for(int i = rawRatios.Present.nextSetBit(chrStart); i >= 0 && i < chrEnd; i = rawRatios.Present.nextSetBit(i + 1))
+            {
+                if(rawRatios.get(i) >= 0)
+                    nonMaskedPositions.add(windowIndex.position(chrOrdinal, i));
+            }
+
+            List<LowCovBucket> consolidatedBuckets = consolidateIntoBuckets(nonMaskedPositions, consolidationCount);
+
+            boundaries.putAll(chromosome, consolidatedBuckets);
+
+            CB_LOGGER.info("chromosome: {}, low cov buckets count: {}", chromosome, consolidatedBuckets.size());
+        }
+
+        return boundaries;
+    }
+
     @Nullable
     public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Table rawRatios, final double medianReadDepth)
     {
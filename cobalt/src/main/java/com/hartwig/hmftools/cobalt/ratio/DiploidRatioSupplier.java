@@ -3,6 +3,8 @@ package com.hartwig.hmftools.cobalt.ratio;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MAX_DISTANCE;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MIN_COVERAGE;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import com.hartwig.hmftools.cobalt.CobaltColumns;
@@ -48,4 +50,47 @@ public final class DiploidRatioSupplier
 
         return results;
     }
+
+    // the diploid normalisation over window columns, applied to the present windows of each chromosome in turn
+    public static WindowValues calcDiploidRatioResults(
+            final WindowIndex windowIndex, final WindowValues normalRatios, final List<MedianRatio> medianRatios)
+    {
+        WindowValues results = new WindowValues(windowIndex.windowCount());
+
+        for (CobaltChromosome cobaltChromosome : new CobaltChromosomes(medianRatios).chromosomes())
+        {
+            String chr = cobaltChromosome.contig();
+            int chrOrdinal = windowIndex.chromosomeOrdinal(chr);
+
+            if(!HumanChromosome.contains(chr) || chrOrdinal < 0)
+                continue;
+
+            BitSet chrWindows = normalRatios.Present.get(
+                    windowIndex.chromosomeStartIndex(chrOrdinal), windowIndex.chromosomeEndIndex(chrOrdinal));
+
+            int[] indices = chrWindows.stream().map(i -> i + windowIndex.chromosomeStartIndex(chrOrdinal)).toArray();
+            double[] ratios = Arrays.stream(indices).mapToDouble(normalRatios::get).toArray();
+
+            final double[] adjustedRatios;
+            if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
+            {
+                adjustedRatios = ratios;
+            }
+            else
+            {
+                double expectedRatio = cobaltChromosome.actualRatio();
+                adjustedRatios = new DiploidRatioNormalization(expectedRatio,
+                        ROLLING_MEDIAN_MAX_DISTANCE,
+                        ROLLING_MEDIAN_MIN_COVERAGE,
+                        ratios).results();
+            }
+
+            for(int i = 0; i < indices.length; ++i)
+            {
+                results.set(indices[i], adjustedRatios[i]);
+            }
+        }
+
+        return results;
+    }
 }
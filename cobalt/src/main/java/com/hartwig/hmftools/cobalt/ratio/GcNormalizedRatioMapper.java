@@ -2,6 +2,8 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,29 +12,33 @@ import com.hartwig.hmftools.common.genome.gc.GCBucket;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepth;
 import com.hartwig.hmftools.common.genome.gc.ImmutableGCBucket;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.aggregate.NumericAggregateFunction;
+import org.apache.commons.math3.stat.StatUtils;
+
 import tech.tablesaw.api.*;
+import tech.tablesaw.selection.Selection;
 
 public class GcNormalizedRatioMapper implements RatioMapper
 {
     private static final int MIN_BUCKET = 20;
     private static final int MAX_BUCKET = 60;
 
-    private Table mGCMedianReadDepth;
+    // median ratio and window count per GC bucket, indexed by bucket
+    private final double[] mBucketMedians;
+    private final int[] mBucketCounts;
+
     private double mSampleMedianReadDepth;
     private double mSampleMeanReadDepth;
 
     // apply gc normalisation, the input ratios must have chromosome, position, ratio, gcBucket, isMappable
     public GcNormalizedRatioMapper()
     {
+        mBucketMedians = new double[MAX_BUCKET + 1];
+        mBucketCounts = new int[MAX_BUCKET + 1];
     }
 
     @Override
     public Table mapRatios(final Table inputRatios)
     {
-        CB_LOGGER.info("applying ratio GC normalization");
-
         // add a gc bucket column if not already have one
         if (!inputRatios.containsColumn(CobaltColumns.GC_BUCKET))
         {
@@ -40,56 +46,115 @@ public class GcNormalizedRatioMapper implements RatioMapper
                     .multiply(100).round().asIntColumn().setName(CobaltColumns.GC_BUCKET));
         }
 
-        // create a gc normalisation df
+        int rowCount = inputRatios.rowCount();
 
-        // skipped masked regions
-        Table gcMedianCalcDf = inputRatios.where(
-                inputRatios.doubleColumn(CobaltColumns.RATIO).isGreaterThan(0.0) // TODO: change to >= 0.0
-                        .and(inputRatios.intColumn(CobaltColumns.GC_BUCKET).isBetweenInclusive(MIN_BUCKET, MAX_BUCKET))
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME).asSelection()));
+        double[] ratios = inputRatios.doubleColumn(CobaltColumns.RATIO).asDoubleArray();
+        int[] gcBuckets = inputRatios.intColumn(CobaltColumns.GC_BUCKET).asIntArray();
 
-        NumericAggregateFunction aggFunc = AggregateFunctions.median;
+        BitSet present = new BitSet(rowCount);
+        present.set(0, rowCount);
 
-        // get the sample median and mean
-        mSampleMedianReadDepth = aggFunc.summarize(gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO));
-        mSampleMeanReadDepth = gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO).mean();
+        BitSet mappable = new BitSet(rowCount);
+        BitSet autosome = new BitSet(rowCount);
+        BooleanColumn mappableCol = inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE);
+        BooleanColumn autosomeCol = inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME);
 
-        // groupby gcBucket and apply median, to create a table with columns
-        // gcBucket, gcMedianCount, windowCount
-        gcMedianCalcDf = gcMedianCalcDf.retainColumns(CobaltColumns.GC_BUCKET, CobaltColumns.RATIO)
-                .summarize(CobaltColumns.RATIO, aggFunc, AggregateFunctions.count)
-                .by(CobaltColumns.GC_BUCKET);
+        for(int i = 0; i < rowCount; ++i)
+        {
+            mappable.set(i, mappableCol.get(i) == Boolean.TRUE);
+            autosome.set(i, autosomeCol.get(i) == Boolean.TRUE);
+        }
 
-        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, gcMedianCalcDf);
+        normaliseRatios(ratios, present, gcBuckets, mappable, autosome);
 
-        gcMedianCalcDf.column(String.format("Median [%s]", CobaltColumns.RATIO)).setName("gcMedianCount");
-        gcMedianCalcDf.column(String.format("Count [%s]", CobaltColumns.RATIO)).setName("windowCount");
+        Table ratiosWithMedianCount = inputRatios.where(Selection.with(present.stream().toArray()));
 
-        // merge in the gc median count
-        Table ratiosWithMedianCount = inputRatios
-                .where(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                .joinOn(CobaltColumns.GC_BUCKET).inner(gcMedianCalcDf);
+        DoubleColumn gcNormalisedRatio = DoubleColumn.create(CobaltColumns.RATIO, present.stream().mapToDouble(i -> ratios[i]));
+        ratiosWithMedianCount.replaceColumn(CobaltColumns.RATIO, gcNormalisedRatio);
+
+        return ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+    }
+
+    // normalise the ratios in place by the median ratio of their GC bucket. Windows which are unmappable or whose GC bucket
+    // has no median are removed from the present set
+    public void normaliseRatios(
+            final double[] ratios, final BitSet present, final int[] gcBuckets, final BitSet mappable, final BitSet autosome)
+    {
+        CB_LOGGER.info("applying ratio GC normalization");
+
+        Arrays.fill(mBucketCounts, 0);
+
+        // first pass sizes the per-bucket ratio arrays, skipping masked regions
+        int sampleCount = 0;
+
+        for(int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+        {
+            if(isMedianWindow(ratios[i], gcBuckets[i], mappable.get(i), autosome.get(i)))
+            {
+                ++mBucketCounts[gcBuckets[i]];
+                ++sampleCount;
+            }
+        }
+
+        double[] sampleRatios = new double[sampleCount];
+        double[][] bucketRatios = new double[MAX_BUCKET + 1][];
+        int[] bucketFill = new int[MAX_BUCKET + 1];
+
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            bucketRatios[bucket] = new double[mBucketCounts[bucket]];
+        }
+
+        int sampleIndex = 0;
+
+        for(int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+        {
+            if(isMedianWindow(ratios[i], gcBuckets[i], mappable.get(i), autosome.get(i)))
+            {
+                int bucket = gcBuckets[i];
+                bucketRatios[bucket][bucketFill[bucket]++] = ratios[i];
+                sampleRatios[sampleIndex++] = ratios[i];
+            }
+        }
+
+        // get the sample median and mean
+        mSampleMedianReadDepth = StatUtils.percentile(sampleRatios, 50.0);
+        mSampleMeanReadDepth = StatUtils.mean(sampleRatios);
+
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            mBucketMedians[bucket] = mBucketCounts[bucket] > 0 ? StatUtils.percentile(bucketRatios[bucket], 50.0) : Double.NaN;
+        }
+
+        CB_LOGGER.trace("sample median: {}, mean: {}", mSampleMedianReadDepth, mSampleMeanReadDepth);
 
         double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
 
-        DoubleColumn gcNormalisedRatio = ratiosWithMedianCount.doubleColumn(CobaltColumns.RATIO)
-                .multiply(medianNormalisation)
-                .divide(ratiosWithMedianCount.doubleColumn("gcMedianCount"))
-                .map(d -> Double.isFinite(d) ? d : Double.NaN); // protect against division by 0
+        for(int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1))
+        {
+            int bucket = gcBuckets[i];
 
-        ratiosWithMedianCount.replaceColumn(gcNormalisedRatio.setName(CobaltColumns.RATIO));
+            if(!mappable.get(i) || !hasBucketMedian(bucket))
+            {
+                ratios[i] = Double.NaN;
+                present.clear(i);
+                continue;
+            }
 
-        // resort it, the join messes up with the ordering
-        ratiosWithMedianCount = ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+            double gcNormalisedRatio = ratios[i] * medianNormalisation / mBucketMedians[bucket];
+            ratios[i] = Double.isFinite(gcNormalisedRatio) ? gcNormalisedRatio : Double.NaN; // protect against division by 0
+        }
+    }
 
-        mGCMedianReadDepth = gcMedianCalcDf;
-        return ratiosWithMedianCount;
+    private static boolean isMedianWindow(double ratio, int gcBucket, boolean isMappable, boolean isAutosome)
+    {
+        // TODO: change to >= 0.0
+        return ratio > 0.0 && gcBucket >= MIN_BUCKET && gcBucket <= MAX_BUCKET && isMappable && isAutosome;
     }
 
-    public Table gcMedianReadDepthTable()
+    private boolean hasBucketMedian(int gcBucket)
     {
-        return mGCMedianReadDepth;
+        return gcBucket >= MIN_BUCKET && gcBucket <= MAX_BUCKET && mBucketCounts[gcBucket] > 0;
     }
 
     public double getSampleMedianReadDepth()
@@ -102,14 +167,17 @@ public class GcNormalizedRatioMapper implements RatioMapper
         return mSampleMeanReadDepth;
     }
 
-    // convert the gc median read count table to the object representation
+    // convert the gc median read counts to the object representation
     public GCMedianReadDepth gcMedianReadDepth()
     {
         final Map<GCBucket, Double> medianPerBucket = new HashMap<>();
-        for (Row row : mGCMedianReadDepth)
+
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
         {
-            medianPerBucket.put(new ImmutableGCBucket(row.getInt(CobaltColumns.GC_BUCKET)), row.getDouble("gcMedianCount"));
+            if(mBucketCounts[bucket] > 0)
+                medianPerBucket.put(new ImmutableGCBucket(bucket), mBucketMedians[bucket]);
         }
+
         return new GCMedianReadDepth(mSampleMeanReadDepth, mSampleMedianReadDepth, medianPerBucket);
     }
 }
@@ -0,0 +1,60 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.CobaltColumns;
+
+import tech.tablesaw.api.BooleanColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.Table;
+
+// the GC profile laid out over a WindowIndex, windows without a profile are unmappable and have no GC bucket
+public class GcProfileColumns
+{
+    public static final int NO_GC_BUCKET = -1;
+
+    public final int[] GcBucket;
+    public final BitSet Mappable;
+    public final BitSet Autosome;
+
+    public GcProfileColumns(int windowCount)
+    {
+        GcBucket = new int[windowCount];
+        Arrays.fill(GcBucket, NO_GC_BUCKET);
+        Mappable = new BitSet(windowCount);
+        Autosome = new BitSet(windowCount);
+    }
+
+    public static int gcBucket(double gcContent) { return (int)Math.round(gcContent * 100); }
+
+    public static GcProfileColumns fromTable(
+            final WindowIndex windowIndex, final ChromosomePositionCodec chromosomePosCodec, final Table gcProfiles)
+    {
+        GcProfileColumns gcProfileColumns = new GcProfileColumns(windowIndex.windowCount());
+
+        LongColumn encodedChrPosCol = gcProfiles.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        DoubleColumn gcContentCol = gcProfiles.doubleColumn(CobaltColumns.GC_CONTENT);
+        BooleanColumn mappableCol = gcProfiles.booleanColumn(CobaltColumns.IS_MAPPABLE);
+        BooleanColumn autosomeCol = gcProfiles.booleanColumn(CobaltColumns.IS_AUTOSOME);
+
+        for(int i = 0; i < gcProfiles.rowCount(); ++i)
+        {
+            int index = windowIndex.indexOf(chromosomePosCodec, encodedChrPosCol.getLong(i));
+
+            if(index < 0)
+                continue;
+
+            double gcContent = gcContentCol.getDouble(i);
+            gcProfileColumns.GcBucket[index] = Double.isNaN(gcContent) ? NO_GC_BUCKET : gcBucket(gcContent);
+
+            // missing values count as false, as in a table selection
+            gcProfileColumns.Mappable.set(index, mappableCol.get(i) == Boolean.TRUE);
+            gcProfileColumns.Autosome.set(index, autosomeCol.get(i) == Boolean.TRUE);
+        }
+
+        return gcProfileColumns;
+    }
+}
@@ -1,14 +1,14 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.toCommonChromosomeMap;
 import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
 
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
@@ -18,11 +18,11 @@ import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
 import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
-import com.hartwig.hmftools.common.cobalt.MedianRatioFactory;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFile;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepthFile;
+import com.hartwig.hmftools.common.utils.Doubles;
 
-import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,12 +32,15 @@ public class RatioSupplier
     private final String mReferenceId;
     @Nullable private final String mOutputDir;
 
-    private final Table mGcProfiles;
-    @Nullable private final Table mReferenceDepths;
-    @Nullable private final Table mTumorDepths;
+    // read depths, GC profile and ratios are all held as primitive columns over a genome-wide window index,
+    // so that each ratio stage is a pass over arrays rather than a table join
+    private final WindowIndex mWindowIndex;
+    private final GcProfileColumns mGcProfile;
+    @Nullable private final SampleDepths mReferenceDepths;
+    @Nullable private final SampleDepths mTumorDepths;
 
-    // a table with chromosome, position, relativeEnrichment
-    private Table mTargetRegionEnrichment = null;
+    // set when a target region enrichment table of chromosome, position, relativeEnrichment is supplied
+    private TargetedRatioMapper mTargetedRatioMapper = null;
 
     private final ChromosomePositionCodec mChromosomePosCodec;
 
@@ -48,61 +51,56 @@ public class RatioSupplier
         CALC_CONSOLIDATED_BUCKETS
     }
 
-    static class SampleRatios
+    static class SampleDepths
+    {
+        final WindowValues ReadDepths;
+        final WindowValues ReadGcContent;
+
+        SampleDepths(final WindowIndex windowIndex, final ChromosomePositionCodec chromosomePosCodec, final Table readDepths)
+        {
+            ReadDepths = WindowValues.fromTable(windowIndex, chromosomePosCodec, readDepths, CobaltColumns.READ_DEPTH);
+            ReadGcContent = WindowValues.fromTable(windowIndex, chromosomePosCodec, readDepths, CobaltColumns.READ_GC_CONTENT);
+        }
+    }
+
+    class SampleRatios
     {
         // processing states
         protected final GcNormalizedRatioMapper gcNormalizedRatioMapper;
 
         @Nullable Multimap<String, LowCovBucket> consolidatedBuckets;
 
-        // chromosomePositionIndex, ratio
-        Table readRatios;
+        WindowValues readRatios;
 
-        Table getRatios() { return readRatios; }
+        WindowValues getRatios() { return readRatios; }
 
         SampleRatios(
                 final String sampleId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final SampleDepths readDepths,
                 SparseBucketPolicy sparseBucketPolicy,
-                @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                @Nullable final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                @Nullable Multimap<String, LowCovBucket> consolidatedBuckets) throws IOException
         {
             CB_LOGGER.info("calculating sample ratios for {}", sampleId);
 
-            readRatios = readDepths.copy().setName("readRatios");
-
-            CB_LOGGER.info("merging in GC profile");
+            // set the read depth as ratio, but filter out unmappable regions
+            readRatios = readDepths.ReadDepths.copy();
 
-            // merge in the gc profile
-            readRatios = readRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).leftOuter(gcProfiles);
-
-            // set column as ratio, but filter out unmappable regions
-            DoubleColumn ratioColumn = DoubleColumn.create(CobaltColumns.RATIO);
-            for (Row row : readRatios)
+            for(int i = readRatios.Present.nextSetBit(0); i >= 0; i = readRatios.Present.nextSetBit(i + 1))
             {
-                if(!row.isMissing(CobaltColumns.IS_MAPPABLE) && row.getBoolean(CobaltColumns.IS_MAPPABLE))
-                {
-                    ratioColumn.append(row.getDouble(CobaltColumns.READ_DEPTH));
-                }
-                else
-                {
-                    ratioColumn.appendMissing();
-                }
+                if(!mGcProfile.Mappable.get(i))
+                    readRatios.Values[i] = Double.NaN;
             }
-            readRatios.addColumns(ratioColumn);
 
             // on target ratios
-            if(targetRegionEnrichment != null)
+            if(mTargetedRatioMapper != null)
             {
                 CB_LOGGER.info("using targeted ratio");
-                readRatios = new TargetedRatioMapper(targetRegionEnrichment, chromosomePosCodec).mapRatios(readRatios);
+                mTargetedRatioMapper.mapRatios(mWindowIndex, readRatios);
             }
 
             gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
-            readRatios = gcNormalizedRatioMapper.mapRatios(readRatios);
+            gcNormalizedRatioMapper.normaliseRatios(
+                    readRatios.Values, readRatios.Present, mGcProfile.GcBucket, mGcProfile.Mappable, mGcProfile.Autosome);
 
             switch (sparseBucketPolicy)
             {
@@ -117,7 +115,7 @@ public class RatioSupplier
                     // determine consolidated buckets
                     // determine the low cov consolidation window count
                     double medianReadDepth = gcNormalizedRatioMapper.getSampleMedianReadDepth();
-                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(readRatios, medianReadDepth);
+                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(mWindowIndex, readRatios, medianReadDepth);
                     break;
                 }
             }
@@ -125,44 +123,39 @@ public class RatioSupplier
             if(this.consolidatedBuckets != null)
             {
                 CB_LOGGER.info("using low coverage ratio");
-                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, mChromosomePosCodec).mapRatios(mWindowIndex, readRatios);
             }
 
-            if(outputDir != null)
+            if(mOutputDir != null)
             {
-                CB_LOGGER.info("persisting {} gc read count to {}", sampleId, outputDir);
-                final String tumorGCMedianFilename = GCMedianReadDepthFile.generateFilename(outputDir, sampleId);
+                CB_LOGGER.info("persisting {} gc read count to {}", sampleId, mOutputDir);
+                final String tumorGCMedianFilename = GCMedianReadDepthFile.generateFilename(mOutputDir, sampleId);
                 GCMedianReadDepthFile.write(tumorGCMedianFilename, gcNormalizedRatioMapper.gcMedianReadDepth());
             }
         }
     }
 
-    static class GermlineRatios extends SampleRatios
+    class GermlineRatios extends SampleRatios
     {
         // processing states
-        private final Table gcDiploidRatios;
+        private final WindowValues gcDiploidRatios;
 
         GermlineRatios(final String referenceId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final SampleDepths readDepths,
                 SparseBucketPolicy sparseBucketPolicy,
-                @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                @Nullable Multimap<String, LowCovBucket> consolidatedBuckets) throws IOException
         {
-            super(referenceId, readDepths, gcProfiles, targetRegionEnrichment, sparseBucketPolicy,
-                    consolidatedBuckets, outputDir, chromosomePosCodec);
+            super(referenceId, readDepths, sparseBucketPolicy, consolidatedBuckets);
 
             // TODO: check this
-            final List<MedianRatio> medianRatios = MedianRatioFactory.createFromReadRatio(toCommonChromosomeMap(getRatios()));
+            final List<MedianRatio> medianRatios = calcMedianRatios(getRatios());
 
-            CB_LOGGER.info("persisting {} gc ratio medians to {}", referenceId, outputDir);
-            final String ratioMedianFilename = MedianRatioFile.generateFilename(outputDir, referenceId);
+            CB_LOGGER.info("persisting {} gc ratio medians to {}", referenceId, mOutputDir);
+            final String ratioMedianFilename = MedianRatioFile.generateFilename(mOutputDir, referenceId);
             MedianRatioFile.write(ratioMedianFilename, medianRatios);
 
             CB_LOGGER.info("applying ratio diploid normalization");
-            gcDiploidRatios = calcDiploidRatioResults(getRatios(), medianRatios);
+            gcDiploidRatios = calcDiploidRatioResults(mWindowIndex, getRatios(), medianRatios);
         }
     }
 
@@ -176,15 +169,17 @@ public class RatioSupplier
         mTumorId = tumor;
         mReferenceId = reference;
         mOutputDir = outputDirectory;
-        mGcProfiles = gcProfiles;
-        mReferenceDepths = referenceDepths;
-        mTumorDepths = tumorDepths;
         mChromosomePosCodec = chromosomePosCodec;
+
+        mWindowIndex = WindowIndex.fromTables(chromosomePosCodec, referenceDepths, tumorDepths);
+        mGcProfile = GcProfileColumns.fromTable(mWindowIndex, chromosomePosCodec, gcProfiles);
+        mReferenceDepths = referenceDepths != null ? new SampleDepths(mWindowIndex, chromosomePosCodec, referenceDepths) : null;
+        mTumorDepths = tumorDepths != null ? new SampleDepths(mWindowIndex, chromosomePosCodec, tumorDepths) : null;
     }
     
     public void setTargetRegionEnrichment(Table targetRegionEnrichment)
     {
-        mTargetRegionEnrichment = targetRegionEnrichment;
+        mTargetedRatioMapper = new TargetedRatioMapper(targetRegionEnrichment, mChromosomePosCodec);
     }
 
     @NotNull
@@ -195,15 +190,11 @@ public class RatioSupplier
             CB_LOGGER.error("tumor count should not be null");
             throw new RuntimeException("tumor count is null");
         }
-        SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        Table tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
-                null, mOutputDir, mChromosomePosCodec).getRatios();
+        SparseBucketPolicy sparseBucketPolicy = mTargetedRatioMapper == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
+        WindowValues tumorRatios = new SampleRatios(mTumorId, mTumorDepths, sparseBucketPolicy, null).getRatios();
 
-        // filter tumor ratios by the diploid regions
-        // we use inner join to remove any tumor ratios that are not in the diploid regions
-        tumorRatios = tumorRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS)
-                .inner(diploidRegions.selectColumns(CobaltColumns.ENCODED_CHROMOSOME_POS))
-                .sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        // filter tumor ratios by the diploid regions, removing any tumor ratios that are not in the diploid regions
+        tumorRatios.retain(WindowValues.windowMask(mWindowIndex, mChromosomePosCodec, diploidRegions));
 
         // merge this ratios together into one cobalt ratio
         return mergeRatios(null, mTumorDepths, null, tumorRatios, null);
@@ -217,9 +208,8 @@ public class RatioSupplier
             CB_LOGGER.fatal("Reference count should not be null");
             throw new RuntimeException("reference count is null");
         }
-        SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+        SparseBucketPolicy sparseBucketPolicy = mTargetedRatioMapper == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
+        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, sparseBucketPolicy, null);
         return mergeRatios(
                 mReferenceDepths, null,
                 germlineRatios.getRatios(), null, germlineRatios.gcDiploidRatios);
@@ -238,128 +228,116 @@ public class RatioSupplier
             CB_LOGGER.fatal("Tumor count should not be null");
             throw new RuntimeException("tumor count is null");
         }
-        SparseBucketPolicy tumorSparseBucketPolicy = mTargetRegionEnrichment == null ?
+        SparseBucketPolicy tumorSparseBucketPolicy = mTargetedRatioMapper == null ?
                 SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
 
-        var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
-                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+        var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, tumorSparseBucketPolicy, null);
 
         SparseBucketPolicy germlineSparseBucketPolicy = tumorRatios.consolidatedBuckets == null ?
                 SparseBucketPolicy.DO_NOT_CONSOLIDATE : SparseBucketPolicy.USE_PROVIDED_BUCKETS;
 
-        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec);
+        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets);
 
         return mergeRatios(
                 mReferenceDepths, mTumorDepths,
                 germlineRatios.getRatios(), tumorRatios.getRatios(), germlineRatios.gcDiploidRatios);
     }
 
-    // merge everything together
-    @NotNull
-    private static Table mergeRatios(
-            @Nullable Table referenceDepths,
-            @Nullable Table tumorDepths,
-            @Nullable Table referenceRatios,
-            @Nullable Table tumorRatios,
-            @Nullable Table referenceDiploidRatios)
+    // median of the positive ratios per chromosome
+    private List<MedianRatio> calcMedianRatios(final WindowValues ratios)
     {
-        CB_LOGGER.info("start merging ratios");
-
-        // get all the chromosome positions from the counts
-        Table result = Table.create(LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        List<MedianRatio> medianRatios = new ArrayList<>();
 
-        // now we make sure all tables are valid, by setting missing tables to empty
-        if(referenceDepths == null)
+        for(int chrOrdinal = 0; chrOrdinal < mWindowIndex.chromosomeCount(); ++chrOrdinal)
         {
-            referenceDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+            String chromosome = mWindowIndex.chromosome(chrOrdinal);
+            int chrStart = mWindowIndex.chromosomeStartIndex(chrOrdinal);
+            int chrEnd = mWindowIndex.chromosomeEndIndex(chrOrdinal);
 
-        if(tumorDepths == null)
-        {
-            tumorDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+            if(!HumanChromosome.contains(chromosome) || ratios.Present.get(chrStart, chrEnd).isEmpty())
+                continue;
 
-        if(referenceRatios == null)
-        {
-            referenceRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            List<Double> contigRatios = new ArrayList<>();
 
-        if(tumorRatios == null)
-        {
-            tumorRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            for(int i = ratios.Present.nextSetBit(chrStart); i >= 0 && i < chrEnd; i = ratios.Present.nextSetBit(i + 1))
+            {
+                if(Doubles.positive(ratios.get(i)))
+                    contigRatios.add(ratios.get(i));
+            }
 
-        if(referenceDiploidRatios == null)
-        {
-            referenceDiploidRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
+            int count = contigRatios.size();
+            double medianRatio = count > 0 ? Doubles.median(contigRatios) : 0;
+
+            medianRatios.add(new MedianRatio(chromosome, medianRatio, count));
         }
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
+        return medianRatios;
+    }
+
+    // merge everything together, with a row for each window present in any of the columns
+    @NotNull
+    private Table mergeRatios(
+            @Nullable SampleDepths referenceDepths,
+            @Nullable SampleDepths tumorDepths,
+            @Nullable WindowValues referenceRatios,
+            @Nullable WindowValues tumorRatios,
+            @Nullable WindowValues referenceDiploidRatios)
+    {
+        CB_LOGGER.info("start merging ratios");
 
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.REFERENCE_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.REFERENCE_GC_CONTENT);
+        BitSet windows = new BitSet(mWindowIndex.windowCount());
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
+        for(WindowValues values : new WindowValues[] {
+                referenceDepths != null ? referenceDepths.ReadDepths : null, tumorDepths != null ? tumorDepths.ReadDepths : null,
+                referenceRatios, tumorRatios, referenceDiploidRatios })
+        {
+            if(values != null)
+                windows.or(values.Present);
+        }
 
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.TUMOR_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.TUMOR_GC_CONTENT);
+        int rowCount = windows.cardinality();
+        long[] encodedChrPos = new long[rowCount];
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+        int row = 0;
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCRatio");
+        for(int chrOrdinal = 0; chrOrdinal < mWindowIndex.chromosomeCount(); ++chrOrdinal)
+        {
+            int chrEnd = mWindowIndex.chromosomeEndIndex(chrOrdinal);
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+            for(int i = windows.nextSetBit(mWindowIndex.chromosomeStartIndex(chrOrdinal)); i >= 0 && i < chrEnd; i = windows.nextSetBit(i + 1))
+            {
+                encodedChrPos[row++] = mWindowIndex.encodedPosition(chrOrdinal, i);
+            }
+        }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("tumorGCRatio");
+        Table result = Table.create(
+                LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS, encodedChrPos),
+                mergedColumn(CobaltColumns.REFERENCE_READ_DEPTH, windows, referenceDepths != null ? referenceDepths.ReadDepths : null),
+                mergedColumn(CobaltColumns.REFERENCE_GC_CONTENT, windows, referenceDepths != null ? referenceDepths.ReadGcContent : null),
+                mergedColumn(CobaltColumns.TUMOR_READ_DEPTH, windows, tumorDepths != null ? tumorDepths.ReadDepths : null),
+                mergedColumn(CobaltColumns.TUMOR_GC_CONTENT, windows, tumorDepths != null ? tumorDepths.ReadGcContent : null),
+                mergedColumn("referenceGCRatio", windows, referenceRatios),
+                mergedColumn("tumorGCRatio", windows, tumorRatios),
+                mergedColumn("referenceGCDiploidRatio", windows, referenceDiploidRatios));
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDiploidRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+        CB_LOGGER.info("finish merging ratios");
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCDiploidRatio");
+        return result;
+    }
 
-        Validate.isTrue(result.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
+    // set any missing value to -1
+    private static DoubleColumn mergedColumn(final String name, final BitSet windows, @Nullable final WindowValues values)
+    {
+        double[] column = new double[windows.cardinality()];
 
-        // sort by the encoded chromosome pos
-        result = result.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        int row = 0;
 
-        // set any missing value to -1
-        for (Column<?> c: result.columns())
+        for(int i = windows.nextSetBit(0); i >= 0; i = windows.nextSetBit(i + 1))
         {
-            if(c instanceof IntColumn)
-            {
-                ((IntColumn)c).setMissingTo(CobaltConstants.INVALID_VALUE_INDICATOR);
-            }
-            else if(c instanceof DoubleColumn)
-            {
-                ((DoubleColumn)c).setMissingTo((double)CobaltConstants.INVALID_VALUE_INDICATOR);
-                // ((DoubleColumn)c).map(d -> Double.isFinite(d) ? d : -1.0);
-            }
+            double value = values != null && values.isPresent(i) ? values.get(i) : Double.NaN;
+            column[row++] = Double.isNaN(value) ? CobaltConstants.INVALID_VALUE_INDICATOR : value;
         }
 
-        CB_LOGGER.info("finish merging ratios");
-
-        return result;
+        return DoubleColumn.create(name, column);
     }
-}
\ No newline at end of file
+}
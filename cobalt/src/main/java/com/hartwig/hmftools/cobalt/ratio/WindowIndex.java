@@ -0,0 +1,113 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static com.hartwig.hmftools.cobalt.CobaltConstants.WINDOW_SIZE;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.Table;
+
+// a fixed genome-wide index of the 1kb windows, with chromosomes laid out in encoded chromosome position order so that
+// per-window values can be held in flat primitive arrays instead of being joined table to table
+public class WindowIndex
+{
+    private final String[] mChromosomes;
+    private final long[] mEncodedChromosomeBase;
+
+    // the first window index of each chromosome, with the total window count as the final entry
+    private final int[] mChromosomeStart;
+
+    private final Map<String,Integer> mChromosomeOrdinals;
+
+    public WindowIndex(final ChromosomePositionCodec chromosomePosCodec, final Map<String,Integer> chromosomeWindowCounts)
+    {
+        List<String> chromosomes = new ArrayList<>(chromosomeWindowCounts.keySet());
+        chromosomes.sort(Comparator.comparingInt(x -> HumanChromosome.fromString(x).intValue()));
+
+        mChromosomes = chromosomes.toArray(new String[0]);
+        mEncodedChromosomeBase = new long[mChromosomes.length];
+        mChromosomeStart = new int[mChromosomes.length + 1];
+        mChromosomeOrdinals = new HashMap<>();
+
+        for(int i = 0; i < mChromosomes.length; ++i)
+        {
+            mEncodedChromosomeBase[i] = chromosomePosCodec.encodeChromosomePosition(mChromosomes[i], 0);
+            mChromosomeStart[i + 1] = mChromosomeStart[i] + chromosomeWindowCounts.get(mChromosomes[i]);
+            mChromosomeOrdinals.put(mChromosomes[i], i);
+        }
+    }
+
+    // create an index spanning every window position found in the encoded chromosome position column of the tables
+    public static WindowIndex fromTables(final ChromosomePositionCodec chromosomePosCodec, final Table... tables)
+    {
+        Map<String,Integer> chromosomeWindowCounts = new HashMap<>();
+
+        for(Table table : tables)
+        {
+            if(table == null)
+                continue;
+
+            LongColumn encodedChrPosCol = table.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+
+            for(int i = 0; i < encodedChrPosCol.size(); ++i)
+            {
+                long encodedChrPos = encodedChrPosCol.getLong(i);
+                String chromosome = chromosomePosCodec.decodeChromosome(encodedChrPos);
+                int windowCount = windowOffset(chromosomePosCodec.decodePosition(encodedChrPos)) + 1;
+                chromosomeWindowCounts.merge(chromosome, windowCount, Math::max);
+            }
+        }
+
+        return new WindowIndex(chromosomePosCodec, chromosomeWindowCounts);
+    }
+
+    public int windowCount() { return mChromosomeStart[mChromosomes.length]; }
+    public int chromosomeCount() { return mChromosomes.length; }
+
+    public String chromosome(int chromosomeOrdinal) { return mChromosomes[chromosomeOrdinal]; }
+    public int chromosomeStartIndex(int chromosomeOrdinal) { return mChromosomeStart[chromosomeOrdinal]; }
+    public int chromosomeEndIndex(int chromosomeOrdinal) { return mChromosomeStart[chromosomeOrdinal + 1]; }
+
+    public int chromosomeOrdinal(final String chromosome)
+    {
+        Integer ordinal = mChromosomeOrdinals.get(chromosome);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    // returns -1 if the position is not the start of a window covered by the index
+    public int indexOf(final String chromosome, int position)
+    {
+        int ordinal = chromosomeOrdinal(chromosome);
+
+        if(ordinal < 0 || position < 1 || (position - 1) % WINDOW_SIZE != 0)
+            return -1;
+
+        int index = mChromosomeStart[ordinal] + windowOffset(position);
+        return index < mChromosomeStart[ordinal + 1] ? index : -1;
+    }
+
+    public int indexOf(final ChromosomePositionCodec chromosomePosCodec, long encodedChrPos)
+    {
+        return indexOf(chromosomePosCodec.decodeChromosome(encodedChrPos), chromosomePosCodec.decodePosition(encodedChrPos));
+    }
+
+    public int position(int chromosomeOrdinal, int index)
+    {
+        return (index - mChromosomeStart[chromosomeOrdinal]) * WINDOW_SIZE + 1;
+    }
+
+    public long encodedPosition(int chromosomeOrdinal, int index)
+    {
+        return mEncodedChromosomeBase[chromosomeOrdinal] + position(chromosomeOrdinal, index);
+    }
+
+    private static int windowOffset(int position) { return (position - 1) / WINDOW_SIZE; }
+}
@@ -0,0 +1,103 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.CobaltColumns;
+
+import tech.tablesaw.api.LongColumn;
+import tech.tablesaw.api.NumericColumn;
+import tech.tablesaw.api.Table;
+
+// a value per window of a WindowIndex. Windows which are absent from the set, as opposed to holding an invalid value,
+// are cleared in Present, which plays the part of the row set of the equivalent table
+public class WindowValues
+{
+    public final double[] Values;
+    public final BitSet Present;
+
+    public WindowValues(int windowCount)
+    {
+        Values = new double[windowCount];
+        Arrays.fill(Values, Double.NaN);
+        Present = new BitSet(windowCount);
+    }
+
+    private WindowValues(final double[] values, final BitSet present)
+    {
+        Values = values;
+        Present = present;
+    }
+
+    public int size() { return Values.length; }
+    public int presentCount() { return Present.cardinality(); }
+
+    public boolean isPresent(int index) { return Present.get(index); }
+    public double get(int index) { return Values[index]; }
+
+    public void set(int index, double value)
+    {
+        Values[index] = value;
+        Present.set(index);
+    }
+
+    public void clear(int index)
+    {
+        Values[index] = Double.NaN;
+        Present.clear(index);
+    }
+
+    // restrict the windows to those present in the mask, akin to an inner join
+    public void retain(final BitSet mask)
+    {
+        for(int i = Present.nextSetBit(0); i >= 0; i = Present.nextSetBit(i + 1))
+        {
+            if(!mask.get(i))
+                Values[i] = Double.NaN;
+        }
+
+        Present.and(mask);
+    }
+
+    public WindowValues copy()
+    {
+        return new WindowValues(Values.clone(), (BitSet)Present.clone());
+    }
+
+    public static WindowValues fromTable(
+            final WindowIndex windowIndex, final ChromosomePositionCodec chromosomePosCodec, final Table table, final String column)
+    {
+        WindowValues windowValues = new WindowValues(windowIndex.windowCount());
+
+        LongColumn encodedChrPosCol = table.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        NumericColumn<?> valueCol = table.numberColumn(column);
+
+        for(int i = 0; i < table.rowCount(); ++i)
+        {
+            int index = windowIndex.indexOf(chromosomePosCodec, encodedChrPosCol.getLong(i));
+
+            if(index >= 0)
+                windowValues.set(index, valueCol.getDouble(i));
+        }
+
+        return windowValues;
+    }
+
+    // the windows listed in the table, used to apply region filters
+    public static BitSet windowMask(final WindowIndex windowIndex, final ChromosomePositionCodec chromosomePosCodec, final Table table)
+    {
+        BitSet mask = new BitSet(windowIndex.windowCount());
+        LongColumn encodedChrPosCol = table.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+
+        for(int i = 0; i < table.rowCount(); ++i)
+        {
+            int index = windowIndex.indexOf(chromosomePosCodec, encodedChrPosCol.getLong(i));
+
+            if(index >= 0)
+                mask.set(index);
+        }
+
+        return mask;
+    }
+}
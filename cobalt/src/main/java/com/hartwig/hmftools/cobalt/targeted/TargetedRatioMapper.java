@@ -15,12 +15,15 @@ import com.hartwig.hmftools.cobalt.CobaltConstants;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
 import com.hartwig.hmftools.cobalt.ratio.GcNormalizedRatioMapper;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
+import com.hartwig.hmftools.cobalt.ratio.WindowIndex;
+import com.hartwig.hmftools.cobalt.ratio.WindowValues;
 import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
 import com.hartwig.hmftools.common.cobalt.ReadRatio;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.utils.Doubles;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.apache.logging.log4j.Level;
 import org.jetbrains.annotations.Nullable;
 
@@ -33,6 +36,10 @@ public class TargetedRatioMapper implements RatioMapper
     private final Table mTargetRegionEnrichment;
     private final ChromosomePositionCodec mChromosomePosCodec;
 
+    // relative enrichment laid out over the window index last used
+    private WindowIndex mEnrichmentIndex = null;
+    private WindowValues mEnrichment = null;
+
     public TargetedRatioMapper(final Table targetRegionEnrichment,
             ChromosomePositionCodec chromosomePosCodec)
     {
@@ -47,6 +54,31 @@ public class TargetedRatioMapper implements RatioMapper
         return onTargetRatios(inputRatios);
     }
 
+    // the on target ratio calculation over window columns, windows outside the target regions are removed
+    public void mapRatios(final WindowIndex windowIndex, final WindowValues ratios)
+    {
+        if(mEnrichmentIndex != windowIndex)
+        {
+            mEnrichment = WindowValues.fromTable(
+                    windowIndex, mChromosomePosCodec, mTargetRegionEnrichment, CobaltColumns.RELATIVE_ENRICHMENT);
+            mEnrichmentIndex = windowIndex;
+        }
+
+        ratios.retain(mEnrichment.Present);
+
+        double targetRegionGcRatioMedian = StatUtils.percentile(
+                ratios.Present.stream().mapToDouble(ratios::get).filter(x -> x >= 0).toArray(), 50.0);
+
+        CB_LOGGER.printf(Level.INFO, "targeted mode GC ratio median: %.3f", targetRegionGcRatioMedian);
+
+        // normalise the ratio by relative enrichment and targeted region median
+        for(int i = ratios.Present.nextSetBit(0); i >= 0; i = ratios.Present.nextSetBit(i + 1))
+        {
+            double ratio = ratios.Values[i] / mEnrichment.Values[i] / targetRegionGcRatioMedian;
+            ratios.Values[i] = Double.isFinite(ratio) ? ratio : Double.NaN; // protect against division by 0
+        }
+    }
+
     private void populateCombinedRatios(final Table ratios1, final Table ratios2)
     {
         // mCombinedRatios = ratios1.append(ratios2);
@@ -115,7 +147,8 @@ public class TargetedRatioMapper implements RatioMapper
         GcNormalizedRatioMapper gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
         offTargetRatios = gcNormalizedRatioMapper.mapRatios(offTargetRatios);
 
-        CB_LOGGER.info("off target gc normalisation: \n{}", gcNormalizedRatioMapper.gcMedianReadDepthTable());
+        CB_LOGGER.info("off target gc normalisation: sample median({}) mean({})",
+                gcNormalizedRatioMapper.getSampleMedianReadDepth(), gcNormalizedRatioMapper.getSampleMeanReadDepth());
         CB_LOGGER.info("off target after gc normalisation: \n{}", offTargetRatios);
 
         return offTargetRatios;
@@ -0,0 +1,73 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.CobaltColumns;
+
+import org.junit.Test;
+
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.Row;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+public class WindowIndexTest
+{
+    @Test
+    public void testWindowIndex()
+    {
+        var chromosomePosCodec = new ChromosomePositionCodec();
+
+        final Table readDepths = Table.create(
+                StringColumn.create(CobaltColumns.CHROMOSOME),
+                IntColumn.create(CobaltColumns.POSITION),
+                DoubleColumn.create(CobaltColumns.READ_DEPTH));
+
+        // chromosomes are laid out in encoded order regardless of table order
+        addReadDepth(readDepths, "chr2", 3001, 5.0);
+        addReadDepth(readDepths, "chr1", 2001, 10.0);
+        addReadDepth(readDepths, "chr2", 1001, 7.0);
+
+        chromosomePosCodec.addEncodedChrPosColumn(readDepths, false);
+
+        WindowIndex windowIndex = WindowIndex.fromTables(chromosomePosCodec, readDepths);
+
+        assertEquals(2, windowIndex.chromosomeCount());
+        assertEquals("chr1", windowIndex.chromosome(0));
+        assertEquals("chr2", windowIndex.chromosome(1));
+
+        // windows from the start of each chromosome up to the last position seen
+        assertEquals(7, windowIndex.windowCount());
+        assertEquals(2, windowIndex.indexOf("chr1", 2001));
+        assertEquals(3, windowIndex.indexOf("chr2", 1));
+        assertEquals(4, windowIndex.indexOf("chr2", 1001));
+        assertEquals(6, windowIndex.indexOf("chr2", 3001));
+
+        // outside the index or not at a window start
+        assertEquals(-1, windowIndex.indexOf("chr1", 3001));
+        assertEquals(-1, windowIndex.indexOf("chr2", 3500));
+        assertEquals(-1, windowIndex.indexOf("chr3", 1001));
+
+        assertEquals(3001, windowIndex.position(1, 6));
+        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 3001), windowIndex.encodedPosition(1, 6));
+
+        WindowValues depths = WindowValues.fromTable(windowIndex, chromosomePosCodec, readDepths, CobaltColumns.READ_DEPTH);
+
+        assertEquals(3, depths.presentCount());
+        assertEquals(10.0, depths.get(2), 1e-10);
+        assertFalse(depths.isPresent(1));
+        assertTrue(Double.isNaN(depths.get(1)));
+    }
+
+    private static void addReadDepth(Table table, String chromosome, int position, double readDepth)
+    {
+        Row row = table.appendRow();
+        row.setString(CobaltColumns.CHROMOSOME, chromosome);
+        row.setInt(CobaltColumns.POSITION, position);
+        row.setDouble(CobaltColumns.READ_DEPTH, readDepth);
+    }
+}
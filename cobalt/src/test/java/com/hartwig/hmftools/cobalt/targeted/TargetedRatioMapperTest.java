@@ -11,6 +11,8 @@ import com.google.common.collect.ListMultimap;
 import com.hartwig.hmftools.cobalt.Chromosome;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
 import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ratio.WindowIndex;
+import com.hartwig.hmftools.cobalt.ratio.WindowValues;
 import com.hartwig.hmftools.common.cobalt.ReadRatio;
 
 import org.jetbrains.annotations.NotNull;
@@ -86,6 +88,16 @@ public class TargetedRatioMapperTest
         // median of the unnormalized gc ratio is 10.0
         // so read ratio = 19.5 / 10.0 / 10 = 0.195
         assertDoubleEquals(0.195, readRatio12001.getDouble(CobaltColumns.RATIO));
+
+        // the same calculation over window columns
+        WindowIndex windowIndex = WindowIndex.fromTables(chromosomePositionCodec, ratios);
+        WindowValues windowRatios = WindowValues.fromTable(windowIndex, chromosomePositionCodec, ratios, CobaltColumns.RATIO);
+
+        ratioMapper.mapRatios(windowIndex, windowRatios);
+
+        assertEquals(2, windowRatios.presentCount());
+        assertDoubleEquals(0.025, windowRatios.get(windowIndex.indexOf(CHROMOSOME.contig, 2001)));
+        assertDoubleEquals(0.195, windowRatios.get(windowIndex.indexOf(CHROMOSOME.contig, 12001)));
     }
 
     @NotNull
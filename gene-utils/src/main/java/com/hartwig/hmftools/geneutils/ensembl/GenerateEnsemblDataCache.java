@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.geneutils.ensembl;
 
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblBinaryCache.binaryCacheFilename;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.DEFAULT_PRE_GENE_PROMOTOR_DISTANCE;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
@@ -20,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblBinaryCache;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.gene.ExonData;
@@ -65,9 +67,40 @@ public class GenerateEnsemblDataCache
         createTranscriptPreGenePositionData(
                 geneTransCache.getChrGeneDataMap(), geneTransCache.getTranscriptDataMap(), DEFAULT_PRE_GENE_PROMOTOR_DISTANCE, outputDir);
 
+        writeBinaryCache(refGenomeVersion, outputDir);
+
         GU_LOGGER.info("Ensembl data cache complete");
     }
 
+    private static void writeBinaryCache(final RefGenomeVersion refGenomeVersion, final String outputDir)
+    {
+        GU_LOGGER.debug("reloading all Ensembl data to write binary cache");
+
+        // the binary cache holds all transcripts, exons and protein features, with any filtering applied as each tool loads it
+        EnsemblDataCache ensemblDataCache = new EnsemblDataCache(outputDir, refGenomeVersion);
+        ensemblDataCache.setRequiredData(true, true, true, false);
+        ensemblDataCache.setRequireGeneSynonyms();
+        ensemblDataCache.setRequireNonEnsemblTranscripts();
+
+        if(!ensemblDataCache.load(false))
+        {
+            GU_LOGGER.error("failed to load Ensembl data to write binary cache");
+            return;
+        }
+
+        String outputFile = binaryCacheFilename(outputDir);
+
+        try
+        {
+            EnsemblBinaryCache.write(outputFile, ensemblDataCache);
+            GU_LOGGER.info("Ensembl binary cache written to file: {}", outputFile);
+        }
+        catch(IOException e)
+        {
+            GU_LOGGER.error("error writing Ensembl binary cache file: {}", e.toString());
+        }
+    }
+
     private static void createTranscriptPreGenePositionData(
             final Map<String, List<GeneData>> chrGeneDataMap, final Map<String, List<TranscriptData>> transcriptDataMap,
             int preGenePromotorDistance, final String outputDir)
@@ -0,0 +1,395 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_GENE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_PROTEIN_FEATURE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_EXON_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANSCRIPT_PREFIX;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+// a binary form of the Ensembl gene, transcript-exon, protein feature and splice acceptor files, memory-mapped on load
+// genes are decoded up-front, while each gene's block of transcripts, exons and protein features is only decoded on request
+//
+// layout: header (magic, version, gene count, transcript section offset), then gene records each holding the offset of their
+// transcript block, then the transcript blocks
+public class EnsemblBinaryCache
+{
+    private final ByteBuffer mBuffer;
+    private final int mGeneCount;
+    private final int mTranscriptSectionOffset;
+
+    // transcript block offsets keyed by geneId
+    private final Map<String,Integer> mGeneTranscriptOffsets;
+
+    public static final String ENSEMBL_BINARY_CACHE_FILE = "ensembl_data_cache.bin";
+
+    private static final int MAGIC = 0x454E5343; // 'ENSC'
+    private static final int VERSION = 1;
+
+    private static final int NO_VALUE = -1;
+
+    private static final List<String> SOURCE_FILES = Lists.newArrayList(
+            ENSEMBL_GENE_DATA_FILE, ENSEMBL_TRANS_EXON_DATA_FILE, ENSEMBL_PROTEIN_FEATURE_DATA_FILE, ENSEMBL_TRANS_SPLICE_DATA_FILE);
+
+    private static final Logger LOGGER = LogManager.getLogger(EnsemblBinaryCache.class);
+
+    private EnsemblBinaryCache(final ByteBuffer buffer, int geneCount, int transcriptSectionOffset)
+    {
+        mBuffer = buffer;
+        mGeneCount = geneCount;
+        mTranscriptSectionOffset = transcriptSectionOffset;
+        mGeneTranscriptOffsets = Maps.newHashMap();
+    }
+
+    public static String binaryCacheFilename(final String dataPath) { return dataPath + ENSEMBL_BINARY_CACHE_FILE; }
+
+    public static boolean hasCurrentBinaryCache(final String dataPath)
+    {
+        // ignore a binary cache older than any of the text files it was generated from, since they have been regenerated since
+        File binaryFile = new File(binaryCacheFilename(dataPath));
+
+        if(!binaryFile.exists())
+            return false;
+
+        for(String sourceFilename : SOURCE_FILES)
+        {
+            File sourceFile = new File(dataPath + sourceFilename);
+
+            if(sourceFile.exists() && sourceFile.lastModified() > binaryFile.lastModified())
+                return false;
+        }
+
+        return true;
+    }
+
+    @Nullable
+    public static EnsemblBinaryCache open(final String filename)
+    {
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"); FileChannel channel = file.getChannel())
+        {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.limit() < 16 || buffer.getInt(0) != MAGIC)
+            {
+                LOGGER.error("invalid Ensembl binary cache file({})", filename);
+                return null;
+            }
+
+            int version = buffer.getInt(4);
+
+            if(version != VERSION)
+            {
+                LOGGER.warn("Ensembl binary cache file({}) version({}) not supported, expected version({})", filename, version, VERSION);
+                return null;
+            }
+
+            return new EnsemblBinaryCache(buffer, buffer.getInt(8), buffer.getInt(12));
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("failed to open Ensembl binary cache file({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public int loadGeneData(
+            final List<String> restrictedGeneIds, final Map<String,List<GeneData>> chrGeneDataMap, final RefGenomeVersion version,
+            boolean loadSynonyms)
+    {
+        Set<String> restrictedGeneIdSet = Sets.newHashSet(restrictedGeneIds);
+
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(16);
+
+        List<GeneData> geneList = null;
+        String currentChr = "";
+        int geneCount = 0;
+
+        for(int i = 0; i < mGeneCount; ++i)
+        {
+            String geneId = readString(buffer);
+            String geneName = readString(buffer);
+            String chromosome = readString(buffer);
+            byte strand = buffer.get();
+            int geneStart = buffer.getInt();
+            int geneEnd = buffer.getInt();
+            String karyotypeBand = readString(buffer);
+            String synonyms = readString(buffer);
+            int transcriptOffset = buffer.getInt();
+
+            // transcripts remain available for genes outside the restricted set, as with the text files
+            mGeneTranscriptOffsets.put(geneId, transcriptOffset);
+
+            if(!restrictedGeneIdSet.isEmpty() && !restrictedGeneIdSet.contains(geneId))
+                continue;
+
+            chromosome = version.versionedChromosome(chromosome);
+
+            GeneData geneData = new GeneData(geneId, geneName, chromosome, strand, geneStart, geneEnd, karyotypeBand);
+
+            if(loadSynonyms)
+                geneData.setSynonyms(synonyms);
+
+            if(!currentChr.equals(chromosome))
+            {
+                currentChr = chromosome;
+                geneList = chrGeneDataMap.computeIfAbsent(chromosome, k -> Lists.newArrayList());
+            }
+
+            geneList.add(geneData);
+            ++geneCount;
+        }
+
+        LOGGER.debug("loaded {} gene records from binary cache", geneCount);
+
+        return geneCount;
+    }
+
+    public Collection<String> geneIds() { return mGeneTranscriptOffsets.keySet(); }
+
+    @Nullable
+    public List<TranscriptData> decodeTranscripts(
+            final String geneId, boolean cacheExons, boolean canonicalOnly, boolean includeNonEnsembl, final List<String> nonCanonicalTrans,
+            @Nullable final Map<Integer,List<TranscriptProteinData>> proteinDataMap, @Nullable final Map<Integer,Integer> transSaPositionMap)
+    {
+        // applies the same transcript filters as the text loader, and adds protein features and splice positions for the gene
+        Integer transcriptOffset = mGeneTranscriptOffsets.get(geneId);
+
+        if(transcriptOffset == null)
+            return null;
+
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mTranscriptSectionOffset + transcriptOffset);
+
+        int transcriptCount = buffer.getInt();
+        List<TranscriptData> transDataList = Lists.newArrayListWithCapacity(transcriptCount);
+
+        for(int t = 0; t < transcriptCount; ++t)
+        {
+            int transId = buffer.getInt();
+            String transName = readString(buffer);
+            boolean isCanonical = buffer.get() != 0;
+            byte strand = buffer.get();
+            int transStart = buffer.getInt();
+            int transEnd = buffer.getInt();
+            int codingStart = buffer.getInt();
+            int codingEnd = buffer.getInt();
+            String bioType = readString(buffer);
+            int saPosition = buffer.getInt();
+            int exonCount = buffer.getInt();
+            int exonsPosition = buffer.position();
+
+            buffer.position(exonsPosition + exonCount * 5 * Integer.BYTES);
+
+            int proteinCount = buffer.getInt();
+            List<TranscriptProteinData> proteinDataList = proteinCount > 0 ? Lists.newArrayListWithCapacity(proteinCount) : null;
+
+            for(int p = 0; p < proteinCount; ++p)
+            {
+                proteinDataList.add(new TranscriptProteinData(
+                        transId, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), readString(buffer)));
+            }
+
+            if(proteinDataMap != null && proteinDataList != null)
+                proteinDataMap.put(transId, proteinDataList);
+
+            if(transSaPositionMap != null && saPosition != NO_VALUE)
+                transSaPositionMap.put(transId, saPosition);
+
+            if(canonicalOnly && !isCanonical && !nonCanonicalTrans.contains(transName))
+                continue;
+
+            if(!includeNonEnsembl && !transName.startsWith(ENSEMBL_TRANSCRIPT_PREFIX))
+                continue;
+
+            TranscriptData transData = new TranscriptData(
+                    transId, transName, geneId, isCanonical, strand, transStart, transEnd,
+                    codingStart != NO_VALUE ? codingStart : null, codingEnd != NO_VALUE ? codingEnd : null, bioType);
+
+            if(cacheExons || isCanonical)
+            {
+                List<ExonData> exonDataList = Lists.newArrayListWithCapacity(exonCount);
+                int proteinsPosition = buffer.position();
+                buffer.position(exonsPosition);
+
+                for(int e = 0; e < exonCount; ++e)
+                {
+                    exonDataList.add(new ExonData(
+                            transId, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()));
+                }
+
+                buffer.position(proteinsPosition);
+                transData.setExons(exonDataList);
+            }
+
+            transDataList.add(transData);
+        }
+
+        return transDataList;
+    }
+
+    public static void write(final String filename, final EnsemblDataCache ensemblDataCache) throws IOException
+    {
+        // write to a temporary file then move it into place, so any existing cache mapped by another process remains valid
+        ByteArrayOutputStream geneBytes = new ByteArrayOutputStream();
+        DataOutputStream geneStream = new DataOutputStream(geneBytes);
+
+        ByteArrayOutputStream transcriptBytes = new ByteArrayOutputStream();
+        DataOutputStream transcriptStream = new DataOutputStream(transcriptBytes);
+
+        int geneCount = 0;
+
+        for(List<GeneData> geneDataList : ensemblDataCache.getChrGeneDataMap().values())
+        {
+            for(GeneData geneData : geneDataList)
+            {
+                writeString(geneStream, geneData.GeneId);
+                writeString(geneStream, geneData.GeneName);
+                writeString(geneStream, geneData.Chromosome);
+                geneStream.writeByte(geneData.Strand);
+                geneStream.writeInt(geneData.GeneStart);
+                geneStream.writeInt(geneData.GeneEnd);
+                writeString(geneStream, geneData.KaryotypeBand);
+                writeString(geneStream, geneData.getSynonyms());
+                geneStream.writeInt(transcriptStream.size());
+
+                List<TranscriptData> transDataList = ensemblDataCache.getTranscriptDataMap().get(geneData.GeneId);
+
+                if(transDataList == null)
+                    transDataList = Lists.newArrayList();
+
+                transcriptStream.writeInt(transDataList.size());
+
+                for(TranscriptData transData : transDataList)
+                {
+                    writeTranscript(transcriptStream, transData, ensemblDataCache);
+                }
+
+                ++geneCount;
+            }
+        }
+
+        geneStream.flush();
+        transcriptStream.flush();
+
+        // written to a uniquely-named file alongside the target then moved into place, so concurrent or failed builds never leave
+        // or read each other's partial output
+        File cacheFile = new File(filename).getAbsoluteFile();
+        File tempFile = File.createTempFile(cacheFile.getName() + ".", ".tmp", cacheFile.getParentFile());
+
+        try
+        {
+            try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(geneCount);
+                outputStream.writeInt(16 + geneBytes.size());
+                geneBytes.writeTo(outputStream);
+                transcriptBytes.writeTo(outputStream);
+            }
+
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+
+        LOGGER.debug("wrote {} genes to Ensembl binary cache file({})", geneCount, filename);
+    }
+
+    private static void writeTranscript(
+            final DataOutputStream stream, final TranscriptData transData, final EnsemblDataCache ensemblDataCache) throws IOException
+    {
+        stream.writeInt(transData.TransId);
+        writeString(stream, transData.TransName);
+        stream.writeByte(transData.IsCanonical ? 1 : 0);
+        stream.writeByte(transData.Strand);
+        stream.writeInt(transData.TransStart);
+        stream.writeInt(transData.TransEnd);
+        stream.writeInt(transData.CodingStart != null ? transData.CodingStart : NO_VALUE);
+        stream.writeInt(transData.CodingEnd != null ? transData.CodingEnd : NO_VALUE);
+        writeString(stream, transData.BioType);
+        stream.writeInt(ensemblDataCache.findPrecedingGeneSpliceAcceptorPosition(transData.TransId));
+
+        stream.writeInt(transData.exons().size());
+
+        for(ExonData exon : transData.exons())
+        {
+            stream.writeInt(exon.Start);
+            stream.writeInt(exon.End);
+            stream.writeInt(exon.Rank);
+            stream.writeInt(exon.PhaseStart);
+            stream.writeInt(exon.PhaseEnd);
+        }
+
+        List<TranscriptProteinData> proteinDataList = ensemblDataCache.getTranscriptProteinDataMap().get(transData.TransId);
+
+        if(proteinDataList == null)
+        {
+            stream.writeInt(0);
+            return;
+        }
+
+        stream.writeInt(proteinDataList.size());
+
+        for(TranscriptProteinData proteinData : proteinDataList)
+        {
+            stream.writeInt(proteinData.TranslationId);
+            stream.writeInt(proteinData.ProteinFeatureId);
+            stream.writeInt(proteinData.SeqStart);
+            stream.writeInt(proteinData.SeqEnd);
+            writeString(stream, proteinData.HitDescription);
+        }
+    }
+
+    private static void writeString(final DataOutputStream stream, @Nullable final String value) throws IOException
+    {
+        byte[] bytes = value != null ? value.getBytes(UTF_8) : new byte[0];
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+
+        if(length == 0)
+            return "";
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
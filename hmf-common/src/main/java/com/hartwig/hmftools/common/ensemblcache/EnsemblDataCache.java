@@ -1,8 +1,11 @@
 package com.hartwig.hmftools.common.ensemblcache;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblBinaryCache.binaryCacheFilename;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblBinaryCache.hasCurrentBinaryCache;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.loadEnsemblGeneData;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.loadTranscriptProteinData;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.loadTranscriptSpliceAcceptorData;
@@ -12,10 +15,12 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDir
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -50,10 +55,17 @@ public class EnsemblDataCache
     private boolean mRequireGeneSynonyms;
     private boolean mRequireNonEnsemblTranscripts;
 
+    // interval indices over each chromosome's genes, built on load and rebuilt if the gene list has since been changed
+    private final Map<String,GeneRegionIndex> mChrGeneIndexMap;
+
     private final Map<GeneData,Integer> mDownstreamGeneAnnotations;
+    private final Map<String,List<GeneData>> mChrDownstreamGenes;
     private final List<GeneData> mAlternativeGeneData;
     private final List<String> mRestrictedGeneIdList = Lists.newArrayList();
 
+    // when a binary cache is present, transcripts are decoded from it per gene rather than parsed from the text files
+    private EnsemblBinaryCache mBinaryCache;
+
     public static final String ENSEMBL_DATA_DIR = "ensembl_data_dir";
     public static final String ENSEMBL_DATA_DIR_CFG = "Ensembl data file directory";
 
@@ -85,8 +97,11 @@ public class EnsemblDataCache
         mCanonicalTranscriptsOnly = false;
         mRequireGeneSynonyms = false;
         mRequireNonEnsemblTranscripts = false;
+        mChrGeneIndexMap = new ConcurrentHashMap<>();
         mDownstreamGeneAnnotations = Maps.newHashMap();
+        mChrDownstreamGenes = Maps.newHashMap();
         mAlternativeGeneData = Lists.newArrayList();
+        mBinaryCache = null;
     }
 
     public static void addEnsemblDir(final ConfigBuilder configBuilder)
@@ -107,7 +122,8 @@ public class EnsemblDataCache
 
     public void addDownstreamGeneAnnotations(final GeneData geneData, int distance)
     {
-        mDownstreamGeneAnnotations.put(geneData, distance);
+        if(mDownstreamGeneAnnotations.put(geneData, distance) == null)
+            mChrDownstreamGenes.computeIfAbsent(geneData.Chromosome, k -> Lists.newArrayList()).add(geneData);
     }
     public boolean hasDownstreamGeneAnnotation(final GeneData geneData) { return mDownstreamGeneAnnotations.containsKey(geneData); }
 
@@ -211,6 +227,20 @@ public class EnsemblDataCache
         return mTranscriptByGeneIdMap.get(geneId);
     }
 
+    private void decodeTranscriptData(final Collection<String> geneIds, final List<String> nonCanonicalTrans)
+    {
+        for(String geneId : geneIds)
+        {
+            List<TranscriptData> transDataList = mBinaryCache.decodeTranscripts(
+                    geneId, mRequireExons, mCanonicalTranscriptsOnly, mRequireNonEnsemblTranscripts, nonCanonicalTrans,
+                    mRequireProteinDomains ? mEnsemblProteinDataMap : null,
+                    mRequireSplicePositions ? mTransSpliceAcceptorPosDataMap : null);
+
+            if(transDataList != null)
+                mTranscriptByGeneIdMap.put(geneId, transDataList);
+        }
+    }
+
     public TranscriptData getCanonicalTranscriptData(final String geneId) { return getTranscriptData(geneId, ""); }
 
     public TranscriptData getTranscriptData(final String geneId, final String transcriptId)
@@ -239,13 +269,13 @@ public class EnsemblDataCache
         // find genes if any of their transcripts are within this position
         List<GeneData> genesList = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+        final GeneRegionIndex geneIndex = getGeneIndex(chromosome);
 
-        for(final GeneData geneData : geneDataList)
-        {
-            if(posStart > geneData.GeneEnd || posEnd < geneData.GeneStart)
-                continue;
+        if(geneIndex == null)
+            return genesList;
 
+        for(final GeneData geneData : geneIndex.findOverlapping(posStart, posEnd))
+        {
             final List<TranscriptData> transList = mTranscriptByGeneIdMap.get(geneData.GeneId);
 
             if(transList == null || transList.isEmpty())
@@ -268,12 +298,15 @@ public class EnsemblDataCache
     {
         final List<GeneData> matchedGenes = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+        final GeneRegionIndex geneIndex = getGeneIndex(chromosome);
 
-        if(geneDataList == null)
+        if(geneIndex == null)
             return matchedGenes;
 
-        for(final GeneData geneData : geneDataList)
+        // candidate genes are those within the upstream distance of the position on either side, then tested by strand
+        int maxDistance = abs(upstreamDistance);
+
+        for(final GeneData geneData : geneIndex.findOverlapping(position - maxDistance, position + maxDistance))
         {
             int geneStartRange = geneData.Strand == 1 ? geneData.GeneStart - upstreamDistance : geneData.GeneStart;
             int geneEndRange = geneData.Strand == 1 ? geneData.GeneEnd : geneData.GeneEnd + upstreamDistance;
@@ -284,15 +317,20 @@ public class EnsemblDataCache
             }
         }
 
-        for(Map.Entry<GeneData,Integer> entry : mDownstreamGeneAnnotations.entrySet())
-        {
-            final GeneData geneData = entry.getKey();
+        final List<GeneData> downstreamGenes = mChrDownstreamGenes.get(chromosome);
+
+        if(downstreamGenes == null)
+            return matchedGenes;
 
-            if(matchedGenes.contains(geneData) || !geneData.Chromosome.equals(chromosome))
+        for(final GeneData geneData : downstreamGenes)
+        {
+            if(matchedGenes.contains(geneData))
                 continue;
 
-            if((geneData.Strand == POS_STRAND && position >= geneData.GeneEnd && position <= geneData.GeneEnd + entry.getValue())
-            || (geneData.Strand == NEG_STRAND && position <= geneData.GeneStart && position >= geneData.GeneStart - entry.getValue()))
+            int distance = mDownstreamGeneAnnotations.get(geneData);
+
+            if((geneData.Strand == POS_STRAND && position >= geneData.GeneEnd && position <= geneData.GeneEnd + distance)
+            || (geneData.Strand == NEG_STRAND && position <= geneData.GeneStart && position >= geneData.GeneStart - distance))
             {
                 matchedGenes.add(geneData);
             }
@@ -301,6 +339,30 @@ public class EnsemblDataCache
         return matchedGenes;
     }
 
+    private GeneRegionIndex getGeneIndex(final String chromosome)
+    {
+        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+
+        if(geneDataList == null)
+            return null;
+
+        GeneRegionIndex geneIndex = mChrGeneIndexMap.get(chromosome);
+
+        if(geneIndex == null || !geneIndex.isCurrent(geneDataList))
+        {
+            geneIndex = new GeneRegionIndex(geneDataList);
+            mChrGeneIndexMap.put(chromosome, geneIndex);
+        }
+
+        return geneIndex;
+    }
+
+    private void buildGeneIndices()
+    {
+        mChrGeneIndexMap.clear();
+        mChrGeneDataMap.forEach((chromosome, geneDataList) -> mChrGeneIndexMap.put(chromosome, new GeneRegionIndex(geneDataList)));
+    }
+
     public int findPrecedingGeneSpliceAcceptorPosition(int transId)
     {
         if(mTransSpliceAcceptorPosDataMap.isEmpty())
@@ -349,41 +411,42 @@ public class EnsemblDataCache
         }
         else
         {
-            for(int i = 0; i < exonDataList.size(); ++i)
+            // binary search for the last exon starting at or before the position, since exons are ordered and non-overlapping
+            int lowIndex = 0;
+            int highIndex = exonDataList.size() - 1;
+
+            while(lowIndex < highIndex)
             {
-                final ExonData transExonData = exonDataList.get(i);
-                final ExonData nextTransExonData = i < exonDataList.size() - 1 ? exonDataList.get(i+1) : null;
+                int midIndex = (lowIndex + highIndex + 1) / 2;
 
-                if(position == transExonData.End || position == transExonData.Start)
-                {
-                    // position matches the bounds of an exon
-                    exonData[EXON_RANK_MIN] = transExonData.Rank;
-                    exonData[EXON_RANK_MAX] = transExonData.Rank;
-                    break;
-                }
+                if(exonDataList.get(midIndex).Start <= position)
+                    lowIndex = midIndex;
+                else
+                    highIndex = midIndex - 1;
+            }
+
+            final ExonData transExonData = exonDataList.get(lowIndex);
+
+            if(position <= transExonData.End)
+            {
+                // position matches within or at the bounds of an exon
+                exonData[EXON_RANK_MIN] = transExonData.Rank;
+                exonData[EXON_RANK_MAX] = transExonData.Rank;
+            }
+            else if(lowIndex < exonDataList.size() - 1)
+            {
+                // position is in the intron before the next exon
+                final ExonData nextTransExonData = exonDataList.get(lowIndex + 1);
 
-                if(position >= transExonData.Start && position <= transExonData.End)
+                if(strand == 1)
                 {
-                    // position matches within or at the bounds of an exon
                     exonData[EXON_RANK_MIN] = transExonData.Rank;
-                    exonData[EXON_RANK_MAX] = transExonData.Rank;
-                    break;
+                    exonData[EXON_RANK_MAX] = nextTransExonData.Rank;
                 }
-
-                if(nextTransExonData != null && position > transExonData.End && position < nextTransExonData.Start)
+                else
                 {
-                    if(strand == 1)
-                    {
-                        exonData[EXON_RANK_MIN] = transExonData.Rank;
-                        exonData[EXON_RANK_MAX] = nextTransExonData.Rank;
-                    }
-                    else
-                    {
-                        exonData[EXON_RANK_MIN] = nextTransExonData.Rank;
-                        exonData[EXON_RANK_MAX] = transExonData.Rank;
-                    }
-
-                    break;
+                    exonData[EXON_RANK_MIN] = nextTransExonData.Rank;
+                    exonData[EXON_RANK_MAX] = transExonData.Rank;
                 }
             }
         }
@@ -393,10 +456,31 @@ public class EnsemblDataCache
 
     public boolean load(boolean delayTranscriptLoading)
     {
-        if(!loadEnsemblGeneData(mDataPath, mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms))
+        if(hasCurrentBinaryCache(mDataPath))
+            mBinaryCache = EnsemblBinaryCache.open(binaryCacheFilename(mDataPath));
+
+        if(mBinaryCache != null)
+        {
+            mBinaryCache.loadGeneData(mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms);
+        }
+        else if(!loadEnsemblGeneData(mDataPath, mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms))
+        {
             return false;
+        }
+
+        buildGeneIndices();
 
-        if(!delayTranscriptLoading)
+        if(mBinaryCache != null)
+        {
+            // as with the text files, delayed transcripts are only loaded for the genes later passed to loadTranscriptData
+            if(!delayTranscriptLoading)
+            {
+                List<String> geneIds = Lists.newArrayList();
+                mChrGeneDataMap.values().forEach(x -> x.forEach(y -> geneIds.add(y.GeneId)));
+                decodeTranscriptData(geneIds, Collections.emptyList());
+            }
+        }
+        else if(!delayTranscriptLoading)
         {
             if(!EnsemblDataLoader.loadTranscriptData(
                     mDataPath, mTranscriptByGeneIdMap, mRestrictedGeneIdList, mRequireExons, mCanonicalTranscriptsOnly,
@@ -422,6 +506,12 @@ public class EnsemblDataCache
 
     public boolean loadTranscriptData(final List<String> restrictedGeneIds, final List<String> nonCanonicalTrans)
     {
+        if(mBinaryCache != null)
+        {
+            decodeTranscriptData(!restrictedGeneIds.isEmpty() ? restrictedGeneIds : mBinaryCache.geneIds(), nonCanonicalTrans);
+            return true;
+        }
+
         if(!EnsemblDataLoader.loadTranscriptData(
                 mDataPath, mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
                 mRequireNonEnsemblTranscripts, nonCanonicalTrans))
@@ -0,0 +1,205 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.gene.GeneData;
+
+// an implicit augmented interval tree over one chromosome's genes - genes are sorted by start and each node of the binary tree
+// laid over the sorted array holds the maximum gene end in its subtree, so overlap queries take O(log n + k)
+// the index is built once and is read-only thereafter, so may be shared across threads
+public class GeneRegionIndex
+{
+    private final List<GeneData> mSourceGenes;
+    private final int mGeneCount;
+
+    // gene positions sorted by start, and each gene's position in the source list to return genes in their original order
+    private final int[] mSourceIndex;
+    private final int[] mStarts;
+    private final int[] mEnds;
+    private final int[] mMaxEnds;
+    private final int mMaxLevel;
+
+    private static final int SCAN_LEVEL = 3; // subtrees at or below this level are scanned linearly
+
+    public GeneRegionIndex(final List<GeneData> genes)
+    {
+        mSourceGenes = genes;
+        mGeneCount = genes.size();
+
+        Integer[] order = new Integer[mGeneCount];
+
+        for(int i = 0; i < mGeneCount; ++i)
+        {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, Comparator.comparingInt(x -> genes.get(x).GeneStart));
+
+        mSourceIndex = new int[mGeneCount];
+        mStarts = new int[mGeneCount];
+        mEnds = new int[mGeneCount];
+        mMaxEnds = new int[mGeneCount];
+
+        for(int i = 0; i < mGeneCount; ++i)
+        {
+            GeneData geneData = genes.get(order[i]);
+            mSourceIndex[i] = order[i];
+            mStarts[i] = geneData.GeneStart;
+            mEnds[i] = geneData.GeneEnd;
+        }
+
+        mMaxLevel = buildMaxEnds();
+    }
+
+    public boolean isCurrent(final List<GeneData> genes) { return genes == mSourceGenes && genes.size() == mGeneCount; }
+
+    public int geneCount() { return mGeneCount; }
+
+    private int buildMaxEnds()
+    {
+        if(mGeneCount == 0)
+            return -1;
+
+        // leaves are the even indices, and the node at level k covers the 2^(k+1) - 1 indices centred on it
+        int lastIndex = 0;
+        int lastMax = 0;
+
+        for(int i = 0; i < mGeneCount; i += 2)
+        {
+            lastIndex = i;
+            mMaxEnds[i] = mEnds[i];
+            lastMax = mEnds[i];
+        }
+
+        int level = 1;
+
+        for(; (1 << level) <= mGeneCount; ++level)
+        {
+            int halfWidth = 1 << (level - 1);
+            int firstNode = (halfWidth << 1) - 1;
+            int step = halfWidth << 2;
+
+            for(int i = firstNode; i < mGeneCount; i += step)
+            {
+                int leftMax = mMaxEnds[i - halfWidth];
+                int rightMax = i + halfWidth < mGeneCount ? mMaxEnds[i + halfWidth] : lastMax;
+                mMaxEnds[i] = max(mEnds[i], max(leftMax, rightMax));
+            }
+
+            // move the last node up to its parent, which may lie beyond the array but still bounds the right-most subtree
+            lastIndex = ((lastIndex >> level) & 1) != 0 ? lastIndex - halfWidth : lastIndex + halfWidth;
+
+            if(lastIndex < mGeneCount && mMaxEnds[lastIndex] > lastMax)
+                lastMax = mMaxEnds[lastIndex];
+        }
+
+        return level - 1;
+    }
+
+    public List<GeneData> findOverlapping(int posStart, int posEnd)
+    {
+        // returns genes overlapping the inclusive range, in the order of the source gene list
+        List<GeneData> genes = Lists.newArrayList();
+
+        if(mGeneCount == 0 || posEnd < posStart)
+            return genes;
+
+        int[] matchedIndices = new int[8];
+        int matchCount = 0;
+
+        // each stack entry is a node's level, index and whether its left subtree has been visited
+        int[] stackLevels = new int[64];
+        int[] stackNodes = new int[64];
+        boolean[] stackVisited = new boolean[64];
+        int stackSize = 0;
+
+        stackLevels[0] = mMaxLevel;
+        stackNodes[0] = (1 << mMaxLevel) - 1;
+        stackVisited[0] = false;
+        stackSize = 1;
+
+        while(stackSize > 0)
+        {
+            --stackSize;
+            int level = stackLevels[stackSize];
+            int node = stackNodes[stackSize];
+            boolean visited = stackVisited[stackSize];
+
+            if(level <= SCAN_LEVEL)
+            {
+                int first = (node >> level) << level;
+                int last = min(first + (1 << (level + 1)) - 1, mGeneCount);
+
+                for(int i = first; i < last && mStarts[i] <= posEnd; ++i)
+                {
+                    if(mEnds[i] >= posStart)
+                    {
+                        if(matchCount == matchedIndices.length)
+                            matchedIndices = Arrays.copyOf(matchedIndices, matchCount * 2);
+
+                        matchedIndices[matchCount++] = i;
+                    }
+                }
+            }
+            else if(!visited)
+            {
+                // revisit this node after its left subtree, which is skipped if none of its genes reach the query start
+                int leftChild = node - (1 << (level - 1));
+
+                stackLevels[stackSize] = level;
+                stackNodes[stackSize] = node;
+                stackVisited[stackSize] = true;
+                ++stackSize;
+
+                if(leftChild >= mGeneCount || mMaxEnds[leftChild] >= posStart)
+                {
+                    stackLevels[stackSize] = level - 1;
+                    stackNodes[stackSize] = leftChild;
+                    stackVisited[stackSize] = false;
+                    ++stackSize;
+                }
+            }
+            else if(node < mGeneCount && mStarts[node] <= posEnd)
+            {
+                // genes in the right subtree start at or after this node, so only need checking if this node starts in range
+                if(mEnds[node] >= posStart)
+                {
+                    if(matchCount == matchedIndices.length)
+                        matchedIndices = Arrays.copyOf(matchedIndices, matchCount * 2);
+
+                    matchedIndices[matchCount++] = node;
+                }
+
+                stackLevels[stackSize] = level - 1;
+                stackNodes[stackSize] = node + (1 << (level - 1));
+                stackVisited[stackSize] = false;
+                ++stackSize;
+            }
+        }
+
+        if(matchCount == 0)
+            return genes;
+
+        int[] sourceIndices = new int[matchCount];
+
+        for(int i = 0; i < matchCount; ++i)
+        {
+            sourceIndices[i] = mSourceIndex[matchedIndices[i]];
+        }
+
+        Arrays.sort(sourceIndices);
+
+        for(int sourceIndex : sourceIndices)
+        {
+            genes.add(mSourceGenes.get(sourceIndex));
+        }
+
+        return genes;
+    }
+}
@@ -0,0 +1,140 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static java.lang.String.format;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// a read-only view over one chromosome of a packed ref genome: 2 bits per base, with runs of any other base (N and IUPAC codes)
+// held as exceptions. All access is by absolute index into the mapped buffer so a view is safe to share across threads
+public class PackedChromosome
+{
+    public final String Chromosome;
+
+    private final int mLength;
+    private final ByteBuffer mPackedBases;
+
+    // non-ACGT runs, sorted by start
+    private final int[] mExceptionStarts;
+    private final int[] mExceptionEnds;
+    private final byte[] mExceptionBases;
+
+    static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+
+    // each packed byte decodes to 4 bases, lowest bits first
+    private static final byte[][] DECODED_BYTES = new byte[256][4];
+
+    static
+    {
+        for(int value = 0; value < 256; ++value)
+        {
+            for(int i = 0; i < 4; ++i)
+            {
+                DECODED_BYTES[value][i] = BASES[(value >> (i * 2)) & 3];
+            }
+        }
+    }
+
+    public PackedChromosome(
+            final String chromosome, int length, final ByteBuffer packedBases,
+            final int[] exceptionStarts, final int[] exceptionEnds, final byte[] exceptionBases)
+    {
+        Chromosome = chromosome;
+        mLength = length;
+        mPackedBases = packedBases;
+        mExceptionStarts = exceptionStarts;
+        mExceptionEnds = exceptionEnds;
+        mExceptionBases = exceptionBases;
+    }
+
+    public int length() { return mLength; }
+
+    // 1-based position
+    public byte base(int position)
+    {
+        checkRange(position, position);
+
+        int exceptionIndex = exceptionIndex(position);
+
+        if(exceptionIndex >= 0 && position <= mExceptionEnds[exceptionIndex])
+            return mExceptionBases[exceptionIndex];
+
+        int index = position - 1;
+        return BASES[(mPackedBases.get(index >> 2) >> ((index & 3) * 2)) & 3];
+    }
+
+    // copy bases for the inclusive 1-based range into the destination, without any intermediate allocation
+    public void copyBases(int posStart, int posEnd, final byte[] dest, int destOffset)
+    {
+        checkRange(posStart, posEnd);
+
+        int startIndex = posStart - 1;
+        int endIndex = posEnd - 1;
+        int destIndex = destOffset;
+
+        int index = startIndex;
+
+        // leading bases up to a byte boundary
+        for(; index <= endIndex && (index & 3) != 0; ++index)
+        {
+            dest[destIndex++] = BASES[(mPackedBases.get(index >> 2) >> ((index & 3) * 2)) & 3];
+        }
+
+        // whole bytes
+        for(; index + 3 <= endIndex; index += 4)
+        {
+            byte[] decoded = DECODED_BYTES[mPackedBases.get(index >> 2) & 0xFF];
+            dest[destIndex++] = decoded[0];
+            dest[destIndex++] = decoded[1];
+            dest[destIndex++] = decoded[2];
+            dest[destIndex++] = decoded[3];
+        }
+
+        for(; index <= endIndex; ++index)
+        {
+            dest[destIndex++] = BASES[(mPackedBases.get(index >> 2) >> ((index & 3) * 2)) & 3];
+        }
+
+        // overlay any exception runs overlapping the range
+        int exceptionIndex = exceptionIndex(posStart);
+
+        if(exceptionIndex < 0)
+            exceptionIndex = 0;
+
+        for(; exceptionIndex < mExceptionStarts.length && mExceptionStarts[exceptionIndex] <= posEnd; ++exceptionIndex)
+        {
+            int overlapStart = Math.max(posStart, mExceptionStarts[exceptionIndex]);
+            int overlapEnd = Math.min(posEnd, mExceptionEnds[exceptionIndex]);
+
+            if(overlapStart > overlapEnd)
+                continue;
+
+            Arrays.fill(
+                    dest, destOffset + overlapStart - posStart, destOffset + overlapEnd - posStart + 1,
+                    mExceptionBases[exceptionIndex]);
+        }
+    }
+
+    public byte[] getBases(int posStart, int posEnd)
+    {
+        byte[] bases = new byte[posEnd - posStart + 1];
+        copyBases(posStart, posEnd, bases, 0);
+        return bases;
+    }
+
+    // index of the last exception run starting at or before the position, or -1
+    private int exceptionIndex(int position)
+    {
+        int index = Arrays.binarySearch(mExceptionStarts, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void checkRange(int posStart, int posEnd)
+    {
+        if(posStart < 1 || posEnd > mLength || posEnd < posStart - 1)
+        {
+            throw new IllegalArgumentException(format("invalid range(%d - %d) for chromosome(%s) length(%d)",
+                    posStart, posEnd, Chromosome, mLength));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.reference.FastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequence;
+
+// a ref genome held in a packed file, built once from the FASTA and then memory-mapped. Bases are stored at 2 bits each with runs
+// of other bases (N and IUPAC codes) kept as exceptions, and soft-masked (lower-case) bases are stored upper-case.
+// Access is lock-free so a single instance can be shared by all threads
+public class PackedRefGenome implements RefGenomeInterface
+{
+    public static final String REF_GENOME_PACKED = "ref_genome_packed";
+    public static final String REF_GENOME_PACKED_CFG_DESC = "Packed ref genome file, built from the ref genome FASTA if absent or stale";
+
+    private static final int FILE_MAGIC = 0x484D4632; // "HMF2"
+    private static final int FILE_VERSION = 1;
+
+    private final Map<String,PackedChromosome> mChromosomes;
+
+    private static final Logger LOGGER = LogManager.getLogger(PackedRefGenome.class);
+
+    public PackedRefGenome(final Map<String,PackedChromosome> chromosomes)
+    {
+        mChromosomes = chromosomes;
+    }
+
+    public static void addConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addConfigItem(REF_GENOME_PACKED, false, REF_GENOME_PACKED_CFG_DESC);
+    }
+
+    public Collection<PackedChromosome> chromosomes() { return mChromosomes.values(); }
+
+    public PackedChromosome chromosome(final String chromosome)
+    {
+        PackedChromosome packedChromosome = mChromosomes.get(chromosome);
+
+        if(packedChromosome == null)
+            throw new IllegalArgumentException(format("chromosome(%s) not in packed ref genome", chromosome));
+
+        return packedChromosome;
+    }
+
+    public byte base(final String chromosome, int position) { return chromosome(chromosome).base(position); }
+
+    @Override
+    public String getBaseString(final String chromosome, int posStart, int posEnd)
+    {
+        return new String(getBases(chromosome, posStart, posEnd));
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, final List<int[]> baseRanges)
+    {
+        PackedChromosome packedChromosome = chromosome(chromosome);
+
+        int totalLength = baseRanges.stream().mapToInt(x -> x[1] - x[0] + 1).sum();
+        byte[] bases = new byte[totalLength];
+
+        int offset = 0;
+        for(int[] baseRange : baseRanges)
+        {
+            packedChromosome.copyBases(baseRange[0], baseRange[1], bases, offset);
+            offset += baseRange[1] - baseRange[0] + 1;
+        }
+
+        return new String(bases);
+    }
+
+    @Override
+    public int getChromosomeLength(final String chromosome) { return chromosome(chromosome).length(); }
+
+    @Override
+    public byte[] getBases(final String chromosome, int posStart, int posEnd)
+    {
+        return chromosome(chromosome).getBases(posStart, posEnd);
+    }
+
+    @Override
+    public void copyBases(final String chromosome, int posStart, int posEnd, final byte[] dest, int destOffset)
+    {
+        chromosome(chromosome).copyBases(posStart, posEnd, dest, destOffset);
+    }
+
+    @Nullable
+    public static PackedRefGenome loadOrBuild(final String fastaFile, final String packedFile)
+    {
+        try
+        {
+            File packed = new File(packedFile);
+
+            if(!packed.exists() || packed.lastModified() < new File(fastaFile).lastModified())
+                build(fastaFile, packedFile);
+
+            return load(packedFile);
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("packed ref genome loading failed: {}", e.toString());
+            return null;
+        }
+    }
+
+    public static void build(final String fastaFile, final String packedFile) throws IOException
+    {
+        LOGGER.info("building packed ref genome({}) from {}", packedFile, fastaFile);
+
+        // written to a uniquely-named file alongside the target then moved into place, so processes building the same file
+        // concurrently never read or overwrite each other's partial output
+        File packed = new File(packedFile).getAbsoluteFile();
+        File tempFile = File.createTempFile(packed.getName() + ".", ".tmp", packed.getParentFile());
+
+        try
+        {
+            try(FastaSequenceFile fastaSequenceFile = new FastaSequenceFile(new File(fastaFile), true);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                output.writeInt(FILE_MAGIC);
+                output.writeInt(FILE_VERSION);
+
+                ReferenceSequence sequence;
+                while((sequence = fastaSequenceFile.nextSequence()) != null)
+                {
+                    writeChromosome(output, sequence.getName(), sequence.getBases());
+                }
+            }
+
+            Files.move(tempFile.toPath(), packed.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static void writeChromosome(final DataOutputStream output, final String chromosome, final byte[] bases) throws IOException
+    {
+        List<int[]> exceptionRuns = new ArrayList<>(); // start, end, base
+        byte[] packedBases = new byte[packedLength(bases.length)];
+
+        for(int i = 0; i < bases.length; ++i)
+        {
+            byte base = upperCase(bases[i]);
+            int code = baseCode(base);
+
+            if(code < 0)
+            {
+                int position = i + 1;
+                int[] lastRun = exceptionRuns.isEmpty() ? null : exceptionRuns.get(exceptionRuns.size() - 1);
+
+                if(lastRun != null && lastRun[1] == position - 1 && lastRun[2] == base)
+                    lastRun[1] = position;
+                else
+                    exceptionRuns.add(new int[] { position, position, base });
+
+                code = 0;
+            }
+
+            packedBases[i >> 2] |= (byte)(code << ((i & 3) * 2));
+        }
+
+        output.writeUTF(chromosome);
+        output.writeInt(bases.length);
+        output.writeInt(exceptionRuns.size());
+
+        for(int[] run : exceptionRuns)
+        {
+            output.writeInt(run[0]);
+            output.writeInt(run[1]);
+            output.writeByte(run[2]);
+        }
+
+        output.write(packedBases);
+
+        LOGGER.debug("packed chromosome({}) length({}) exceptionRuns({})", chromosome, bases.length, exceptionRuns.size());
+    }
+
+    public static PackedRefGenome load(final String packedFile) throws IOException
+    {
+        Map<String,PackedChromosome> chromosomes = new LinkedHashMap<>();
+
+        try(RandomAccessFile file = new RandomAccessFile(packedFile, "r"))
+        {
+            if(file.readInt() != FILE_MAGIC || file.readInt() != FILE_VERSION)
+                throw new IOException(format("invalid packed ref genome file(%s)", packedFile));
+
+            FileChannel channel = file.getChannel();
+
+            while(file.getFilePointer() < file.length())
+            {
+                String chromosome = file.readUTF();
+                int length = file.readInt();
+                int exceptionCount = file.readInt();
+
+                int[] exceptionStarts = new int[exceptionCount];
+                int[] exceptionEnds = new int[exceptionCount];
+                byte[] exceptionBases = new byte[exceptionCount];
+
+                ByteBuffer exceptionData = ByteBuffer.allocate(exceptionCount * 9);
+                file.readFully(exceptionData.array());
+
+                for(int i = 0; i < exceptionCount; ++i)
+                {
+                    exceptionStarts[i] = exceptionData.getInt();
+                    exceptionEnds[i] = exceptionData.getInt();
+                    exceptionBases[i] = exceptionData.get();
+                }
+
+                int packedLength = packedLength(length);
+                MappedByteBuffer packedBases = channel.map(FileChannel.MapMode.READ_ONLY, file.getFilePointer(), packedLength);
+                file.seek(file.getFilePointer() + packedLength);
+
+                chromosomes.put(chromosome, new PackedChromosome(
+                        chromosome, length, packedBases, exceptionStarts, exceptionEnds, exceptionBases));
+            }
+        }
+
+        LOGGER.debug("loaded packed ref genome({}) with {} chromosomes", packedFile, chromosomes.size());
+
+        return new PackedRefGenome(chromosomes);
+    }
+
+    private static int packedLength(int baseCount) { return (baseCount + 3) / 4; }
+
+    private static byte upperCase(byte base) { return base >= 'a' && base <= 'z' ? (byte)(base - 32) : base; }
+
+    private static int baseCode(byte base)
+    {
+        switch(base)
+        {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+}
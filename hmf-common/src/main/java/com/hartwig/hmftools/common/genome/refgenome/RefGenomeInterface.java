@@ -11,4 +11,11 @@ public interface RefGenomeInterface
     int getChromosomeLength(final String chromosome);
 
     byte[] getBases(final String chromosome, int posStart, int posEnd);
+
+    // fills a caller's buffer, for callers which reuse one buffer across many lookups
+    default void copyBases(final String chromosome, int posStart, int posEnd, final byte[] dest, int destOffset)
+    {
+        byte[] bases = getBases(chromosome, posStart, posEnd);
+        System.arraycopy(bases, 0, dest, destOffset, bases.length);
+    }
 }
@@ -44,6 +44,59 @@ public final class PCFFile
 
     @NotNull
     public static ListMultimap<Chromosome, PCFPosition> readPositions(int windowSize, final PCFSource source, final String filename) throws IOException
+    {
+        return toPositions(windowSize, source, readSegments(filename));
+    }
+
+    public static List<PCFSegment> readSegments(final String filename) throws IOException
+    {
+        List<PCFSegment> segments = Lists.newArrayList();
+
+        for(String line : Files.readAllLines(new File(filename).toPath()))
+        {
+            if(line.startsWith(HEADER_PREFIX))
+                continue;
+
+            String[] values = line.split(DELIMITER);
+
+            segments.add(new PCFSegment(
+                    values[1], values[2].charAt(0), Integer.parseInt(values[3]), Integer.parseInt(values[4]),
+                    Integer.parseInt(values[5]), parseMean(values[6])));
+        }
+
+        return segments;
+    }
+
+    private static double parseMean(final String value)
+    {
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch(NumberFormatException e)
+        {
+            return Double.NaN; // R writes missing values as NA
+        }
+    }
+
+    public static void write(final String filename, final String sampleId, final List<PCFSegment> segments) throws IOException
+    {
+        List<String> lines = Lists.newArrayListWithCapacity(segments.size() + 1);
+        lines.add(String.join(DELIMITER, HEADER_PREFIX, "chrom", "arm", "start.pos", "end.pos", "n.probes", "mean"));
+
+        for(PCFSegment segment : segments)
+        {
+            lines.add(String.join(DELIMITER, sampleId, segment.Chromosome, String.valueOf(segment.Arm),
+                    String.valueOf(segment.StartPosition), String.valueOf(segment.EndPosition), String.valueOf(segment.ProbeCount),
+                    String.format("%.4f", segment.Mean)));
+        }
+
+        Files.write(new File(filename).toPath(), lines);
+    }
+
+    // convert segments to the breakpoint positions used by PURPLE, each bounded by the windows either side of the breakpoint
+    @NotNull
+    public static ListMultimap<Chromosome, PCFPosition> toPositions(int windowSize, final PCFSource source, final List<PCFSegment> segments)
     {
         ListMultimap<Chromosome, PCFPosition> result = ArrayListMultimap.create();
         final Window window = new Window(windowSize);
@@ -54,47 +107,43 @@ public final class PCFFile
         int minPosition = 1;
         List<PCFPosition> chromosomeResult = Lists.newArrayList();
 
-        for(String line : Files.readAllLines(new File(filename).toPath()))
+        for(PCFSegment segment : segments)
         {
-            if(!line.startsWith(HEADER_PREFIX))
+            final String chromosomeName = segment.Chromosome;
+            if(HumanChromosome.contains(chromosomeName))
             {
-                String[] values = line.split(DELIMITER);
-                final String chromosomeName = values[1];
-                if(HumanChromosome.contains(chromosomeName))
+                if(!chromosomeName.equals(prevChromosome))
                 {
-                    if(!chromosomeName.equals(prevChromosome))
-                    {
-                        if(pcfPosition != null)
-                        {
-                            chromosomeResult.add(pcfPosition);
-                            result.putAll(HumanChromosome.fromString(prevChromosome), mergePositions(chromosomeResult));
-                        }
-                        chromosomeResult.clear();
-                        pcfPosition = null;
-                        minPosition = 1;
-                        prevChromosome = chromosomeName;
-                    }
-
-                    int start = window.start(Integer.parseInt(values[3]));
-                    int end = window.start(Integer.parseInt(values[4])) + windowSize;
                     if(pcfPosition != null)
                     {
-                        pcfPosition.setMaxPosition(start);
                         chromosomeResult.add(pcfPosition);
+                        result.putAll(HumanChromosome.fromString(prevChromosome), mergePositions(chromosomeResult));
                     }
+                    chromosomeResult.clear();
+                    pcfPosition = null;
+                    minPosition = 1;
+                    prevChromosome = chromosomeName;
+                }
 
-                    pcfPosition = new PCFPosition(source, chromosomeName, start);
-                    pcfPosition.setMinPosition(minPosition);
+                int start = window.start(segment.StartPosition);
+                int end = window.start(segment.EndPosition) + windowSize;
+                if(pcfPosition != null)
+                {
                     pcfPosition.setMaxPosition(start);
-
                     chromosomeResult.add(pcfPosition);
+                }
 
-                    minPosition = end;
+                pcfPosition = new PCFPosition(source, chromosomeName, start);
+                pcfPosition.setMinPosition(minPosition);
+                pcfPosition.setMaxPosition(start);
 
-                    pcfPosition = new PCFPosition(source, chromosomeName, end);
-                    pcfPosition.setMinPosition(end);
-                    pcfPosition.setMaxPosition(end);
-                }
+                chromosomeResult.add(pcfPosition);
+
+                minPosition = end;
+
+                pcfPosition = new PCFPosition(source, chromosomeName, end);
+                pcfPosition.setMinPosition(end);
+                pcfPosition.setMaxPosition(end);
             }
         }
 
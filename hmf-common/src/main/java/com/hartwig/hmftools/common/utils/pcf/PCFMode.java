@@ -0,0 +1,27 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+// how segmentation is run: in the JVM, via the copynumber R package, or both with the breakpoints of each compared
+public enum PCFMode
+{
+    JAVA,
+    R,
+    VALIDATE;
+
+    public static final String PCF_MODE = "pcf_mode";
+
+    public static void addConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addConfigItem(PCF_MODE, false, "PCF segmentation mode: JAVA (default), R or VALIDATE (runs both and compares breakpoints)",
+                JAVA.toString());
+    }
+
+    public static PCFMode from(final ConfigBuilder configBuilder)
+    {
+        return PCFMode.valueOf(configBuilder.getValue(PCF_MODE).toUpperCase());
+    }
+
+    public boolean runJava() { return this != R; }
+    public boolean runR() { return this != JAVA; }
+}
@@ -0,0 +1,32 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static java.lang.String.format;
+
+// a segment of a piecewise constant fit, as written to a PCF file by the copynumber R package
+public class PCFSegment
+{
+    public final String Chromosome;
+    public final char Arm;
+    public final int StartPosition;
+    public final int EndPosition;
+    public final int ProbeCount;
+    public final double Mean;
+
+    public static final char ARM_P = 'p';
+    public static final char ARM_Q = 'q';
+
+    public PCFSegment(final String chromosome, char arm, int startPosition, int endPosition, int probeCount, double mean)
+    {
+        Chromosome = chromosome;
+        Arm = arm;
+        StartPosition = startPosition;
+        EndPosition = endPosition;
+        ProbeCount = probeCount;
+        Mean = mean;
+    }
+
+    public String toString()
+    {
+        return format("%s%c:%d-%d probes(%d) mean(%.4f)", Chromosome, Arm, StartPosition, EndPosition, ProbeCount, Mean);
+    }
+}
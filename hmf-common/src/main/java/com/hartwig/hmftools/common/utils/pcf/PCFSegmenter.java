@@ -0,0 +1,253 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegment.ARM_P;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegment.ARM_Q;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.ToDoubleFunction;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// segments values per chromosome arm in the manner of the copynumber R package's pcf: values are scaled by a genome-wide noise
+// estimate, each arm is fitted independently and segment means are reported in the original scale
+public class PCFSegmenter
+{
+    public static final int DEFAULT_KMIN = 1;
+    public static final int DEFAULT_GAMMA = 100;
+
+    private static final double MIN_RATIO = 0.001;
+
+    private final RefGenomeCoordinates mCoordinates;
+    private final double mGamma;
+    private final int mKmin;
+
+    private static final Logger LOGGER = LogManager.getLogger(PCFSegmenter.class);
+
+    public PCFSegmenter(final RefGenomeVersion refGenVersion, double gamma, int kmin)
+    {
+        mCoordinates = refGenVersion.is37() ? RefGenomeCoordinates.COORDS_37 : RefGenomeCoordinates.COORDS_38;
+        mGamma = gamma;
+        mKmin = kmin;
+    }
+
+    // positions must be sorted within each chromosome, and values which map to NaN are excluded as missing. Chromosomes outside
+    // the human autosomes and sex chromosomes are not segmented
+    public <T extends GenomePosition> List<PCFSegment> segment(
+            final Collection<T> positions, final ToDoubleFunction<T> valueFunction, int threads)
+    {
+        Map<String,List<ArmValues>> chromosomeArms = new LinkedHashMap<>();
+        List<ArmValues> allArms = new ArrayList<>();
+
+        for(T position : positions)
+        {
+            if(!HumanChromosome.contains(position.chromosome()))
+                continue;
+
+            double value = valueFunction.applyAsDouble(position);
+
+            if(Double.isNaN(value))
+                continue;
+
+            char arm = position.position() < mCoordinates.centromere(position.chromosome()) ? ARM_P : ARM_Q;
+
+            List<ArmValues> arms = chromosomeArms.computeIfAbsent(position.chromosome(), k -> new ArrayList<>());
+            ArmValues armValues = arms.isEmpty() ? null : arms.get(arms.size() - 1);
+
+            if(armValues == null || armValues.Arm != arm)
+            {
+                armValues = new ArmValues(position.chromosome(), arm);
+                arms.add(armValues);
+                allArms.add(armValues);
+            }
+
+            armValues.add(position.position(), value);
+        }
+
+        int valueCount = allArms.stream().mapToInt(x -> x.Count).sum();
+        double[] allValues = new double[valueCount];
+        int index = 0;
+
+        for(ArmValues armValues : allArms)
+        {
+            System.arraycopy(armValues.Values, 0, allValues, index, armValues.Count);
+            index += armValues.Count;
+        }
+
+        double sd = PiecewiseConstantFit.madStandardDeviation(allValues);
+
+        if(!(sd > 0))
+        {
+            LOGGER.warn("values({}) have no variation, segmenting unscaled", valueCount);
+            sd = 1;
+        }
+
+        double scale = 1 / sd;
+        List<Callable> tasks = new ArrayList<>();
+
+        for(ArmValues armValues : allArms)
+        {
+            tasks.add(() -> armValues.segment(scale, mGamma, mKmin));
+        }
+
+        if(!TaskExecutor.executeTasks(tasks, threads))
+            throw new IllegalStateException("PCF segmentation failed");
+
+        List<String> chromosomes = new ArrayList<>(chromosomeArms.keySet());
+        chromosomes.sort(Comparator.comparingInt(x -> HumanChromosome.fromString(x).ordinal()));
+
+        List<PCFSegment> segments = new ArrayList<>();
+
+        for(String chromosome : chromosomes)
+        {
+            chromosomeArms.get(chromosome).forEach(x -> segments.addAll(x.Segments));
+        }
+
+        LOGGER.debug("segmented {} values into {} segments, sd({})", valueCount, segments.size(), String.format("%.4f", sd));
+
+        return segments;
+    }
+
+    // depth ratios are segmented in log2 space, with invalid ratios excluded and very small ratios floored
+    public static double log2RatioValue(double ratio)
+    {
+        if(!(ratio >= 0))
+            return Double.NaN;
+
+        return Math.log(Math.max(ratio, MIN_RATIO)) / Math.log(2);
+    }
+
+    // compare the segment start positions from two segmentations of the same values, logging those not shared. Returns the
+    // number of unmatched breakpoints, where starts within the given distance count as matched
+    public static int compareBreakpoints(
+            final String source, final List<PCFSegment> segments, final List<PCFSegment> otherSegments, int maxDistance)
+    {
+        Map<String,List<Integer>> starts = segmentStarts(segments);
+        Map<String,List<Integer>> otherStarts = segmentStarts(otherSegments);
+
+        int unmatched = countUnmatched(source, "java", starts, otherStarts, maxDistance)
+                + countUnmatched(source, "R", otherStarts, starts, maxDistance);
+
+        LOGGER.info("{} PCF validation: segments(java={} R={}) unmatched breakpoints({})",
+                source, segments.size(), otherSegments.size(), unmatched);
+
+        return unmatched;
+    }
+
+    private static Map<String,List<Integer>> segmentStarts(final List<PCFSegment> segments)
+    {
+        Map<String,List<Integer>> starts = new LinkedHashMap<>();
+        segments.forEach(x -> starts.computeIfAbsent(x.Chromosome, k -> new ArrayList<>()).add(x.StartPosition));
+        starts.values().forEach(Collections::sort);
+        return starts;
+    }
+
+    private static int countUnmatched(
+            final String source, final String type, final Map<String,List<Integer>> starts, final Map<String,List<Integer>> otherStarts,
+            int maxDistance)
+    {
+        int unmatched = 0;
+
+        for(Map.Entry<String,List<Integer>> entry : starts.entrySet())
+        {
+            List<Integer> others = otherStarts.getOrDefault(entry.getKey(), Collections.emptyList());
+
+            for(Integer start : entry.getValue())
+            {
+                int index = Collections.binarySearch(others, start);
+
+                if(index < 0)
+                {
+                    int insertIndex = -index - 1;
+
+                    boolean matched = (insertIndex < others.size() && others.get(insertIndex) - start <= maxDistance)
+                            || (insertIndex > 0 && start - others.get(insertIndex - 1) <= maxDistance);
+
+                    if(!matched)
+                    {
+                        ++unmatched;
+                        LOGGER.debug("{} PCF breakpoint({}:{}) only in {} segmentation", source, entry.getKey(), start, type);
+                    }
+                }
+            }
+        }
+
+        return unmatched;
+    }
+
+    private static class ArmValues
+    {
+        public final String Chromosome;
+        public final char Arm;
+
+        public int[] Positions = new int[64];
+        public double[] Values = new double[64];
+        public int Count = 0;
+
+        public List<PCFSegment> Segments = Collections.emptyList();
+
+        public ArmValues(final String chromosome, char arm)
+        {
+            Chromosome = chromosome;
+            Arm = arm;
+        }
+
+        public void add(int position, double value)
+        {
+            if(Count == Values.length)
+            {
+                Positions = Arrays.copyOf(Positions, Count * 2);
+                Values = Arrays.copyOf(Values, Count * 2);
+            }
+
+            Positions[Count] = position;
+            Values[Count] = value;
+            ++Count;
+        }
+
+        public Object segment(double scale, double gamma, int kmin)
+        {
+            double[] scaledValues = new double[Count];
+
+            for(int i = 0; i < Count; ++i)
+            {
+                scaledValues[i] = Values[i] * scale;
+            }
+
+            int[] starts = PiecewiseConstantFit.segmentStarts(scaledValues, gamma, kmin);
+
+            Segments = new ArrayList<>(starts.length);
+
+            for(int s = 0; s < starts.length; ++s)
+            {
+                int start = starts[s];
+                int end = s < starts.length - 1 ? starts[s + 1] : Count;
+
+                double sum = 0;
+
+                for(int i = start; i < end; ++i)
+                {
+                    sum += Values[i];
+                }
+
+                Segments.add(new PCFSegment(Chromosome, Arm, Positions[start], Positions[end - 1], end - start, sum / (end - start)));
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.util.Arrays;
+
+// penalised least-squares segmentation, as in the pcf routine of the copynumber R package: minimises the squared deviations of
+// the values from their segment means plus gamma for each breakpoint, with every segment holding at least kmin values
+public final class PiecewiseConstantFit
+{
+    private static final int MEDIAN_FILTER_HALF_WIDTH = 25;
+    private static final double MAD_SCALE_FACTOR = 1.4826;
+
+    // returns the index of the first value of each segment. The fit is exact: with kmin of 1 candidate segment starts are
+    // pruned functionally, keeping only those optimal for some segment mean, which stays close to linear however long the
+    // segments are. Otherwise starts are pruned once they can no longer be optimal (PELT), which degrades with segment length
+    public static int[] segmentStarts(final double[] values, double gamma, int kmin)
+    {
+        int n = values.length;
+
+        if(n == 0)
+            return new int[0];
+
+        if(n < 2 * kmin)
+            return new int[] { 0 };
+
+        double[] sums = new double[n + 1];
+        double[] sumSquares = new double[n + 1];
+
+        for(int i = 0; i < n; ++i)
+        {
+            sums[i + 1] = sums[i] + values[i];
+            sumSquares[i + 1] = sumSquares[i] + values[i] * values[i];
+        }
+
+        int[] lastStart = kmin == 1 ? functionalPruningFit(values, sums, sumSquares, gamma) : prunedFit(sums, sumSquares, gamma, kmin);
+
+        int segmentCount = 0;
+        int[] starts = new int[n];
+
+        for(int end = n; end > 0; end = lastStart[end])
+        {
+            starts[segmentCount++] = lastStart[end];
+        }
+
+        int[] segmentStarts = new int[segmentCount];
+
+        for(int i = 0; i < segmentCount; ++i)
+        {
+            segmentStarts[i] = starts[segmentCount - 1 - i];
+        }
+
+        return segmentStarts;
+    }
+
+    // the cost of a segment from start to end with the given mean, given the cost of the values before it
+    private static double candidateCost(
+            final double[] sums, final double[] sumSquares, double priorCost, int start, int end, double mean)
+    {
+        return priorCost + sumSquares[end] - sumSquares[start] - 2 * mean * (sums[end] - sums[start]) + (end - start) * mean * mean;
+    }
+
+    // each segment start's cost is a quadratic in the mean of the last segment. The lower envelope of these is held as intervals of
+    // the mean, each with the start which is optimal over it, and starts without an interval can be dropped. Adding a value adds the
+    // same quadratic to every start so leaves the envelope's intervals unchanged, and a new start is a constant which replaces the
+    // envelope wherever it is lower. Returns the start of the last segment in the optimal fit of the first j values
+    private static int[] functionalPruningFit(final double[] values, final double[] sums, final double[] sumSquares, double gamma)
+    {
+        int n = values.length;
+
+        double minValue = Arrays.stream(values).min().getAsDouble();
+        double maxValue = Arrays.stream(values).max().getAsDouble();
+
+        int[] lastStart = new int[n + 1];
+
+        if(minValue == maxValue)
+            return lastStart;
+
+        // the optimal cost of the values before each start plus the breakpoint penalty, with none for the first segment
+        double[] priorCosts = new double[n + 1];
+
+        // the envelope, in ascending order of the mean
+        Envelope envelope = new Envelope();
+        envelope.add(minValue, maxValue, 0);
+        Envelope nextEnvelope = new Envelope();
+
+        for(int j = 1; j <= n; ++j)
+        {
+            double minCost = Double.MAX_VALUE;
+            int minStart = 0;
+
+            for(int p = 0; p < envelope.Count; ++p)
+            {
+                int start = envelope.Starts[p];
+                double mean = Math.max(envelope.Lower[p], Math.min(envelope.Upper[p], (sums[j] - sums[start]) / (j - start)));
+                double cost = candidateCost(sums, sumSquares, priorCosts[start], start, j, mean);
+
+                if(cost < minCost)
+                {
+                    minCost = cost;
+                    minStart = start;
+                }
+            }
+
+            lastStart[j] = minStart;
+
+            if(j == n)
+                break;
+
+            double newCost = minCost + gamma;
+            priorCosts[j] = newCost;
+
+            // keep each start over the range of means where its cost is below that of a new segment starting at j
+            nextEnvelope.Count = 0;
+
+            for(int p = 0; p < envelope.Count; ++p)
+            {
+                int start = envelope.Starts[p];
+                double lower = envelope.Lower[p];
+                double upper = envelope.Upper[p];
+
+                int length = j - start;
+                double segmentMean = (sums[j] - sums[start]) / length;
+                double excessCost = newCost - candidateCost(sums, sumSquares, priorCosts[start], start, j, segmentMean);
+
+                if(excessCost <= 0)
+                {
+                    nextEnvelope.add(lower, upper, j);
+                    continue;
+                }
+
+                double halfWidth = Math.sqrt(excessCost / length);
+                double keptLower = Math.max(lower, segmentMean - halfWidth);
+                double keptUpper = Math.min(upper, segmentMean + halfWidth);
+
+                if(keptLower >= keptUpper)
+                {
+                    nextEnvelope.add(lower, upper, j);
+                    continue;
+                }
+
+                nextEnvelope.add(lower, keptLower, j);
+                nextEnvelope.add(keptLower, keptUpper, start);
+                nextEnvelope.add(keptUpper, upper, j);
+            }
+
+            Envelope swap = envelope;
+            envelope = nextEnvelope;
+            nextEnvelope = swap;
+        }
+
+        return lastStart;
+    }
+
+    private static class Envelope
+    {
+        public double[] Lower = new double[16];
+        public double[] Upper = new double[16];
+        public int[] Starts = new int[16];
+        public int Count = 0;
+
+        // adds an interval, extending the previous one if it has the same start
+        public void add(double lower, double upper, int start)
+        {
+            if(upper <= lower)
+                return;
+
+            if(Count > 0 && Starts[Count - 1] == start)
+            {
+                Upper[Count - 1] = upper;
+                return;
+            }
+
+            if(Count == Starts.length)
+            {
+                Lower = Arrays.copyOf(Lower, Count * 2);
+                Upper = Arrays.copyOf(Upper, Count * 2);
+                Starts = Arrays.copyOf(Starts, Count * 2);
+            }
+
+            Lower[Count] = lower;
+            Upper[Count] = upper;
+            Starts[Count] = start;
+            ++Count;
+        }
+    }
+
+    private static int[] prunedFit(final double[] sums, final double[] sumSquares, double gamma, int kmin)
+    {
+        int n = sums.length - 1;
+
+        // optimal cost of the first j values and the start of the last segment in that solution
+        double[] bestCost = new double[n + 1];
+        int[] lastStart = new int[n + 1];
+
+        // candidate starts for the last segment in ascending order, and the step at which each was found to be dominated
+        int[] candidates = new int[n + 1];
+        int candidateCount = 0;
+        int[] prunedAt = new int[n + 1];
+        Arrays.fill(prunedAt, Integer.MAX_VALUE);
+
+        double[] candidateCosts = new double[n + 1];
+
+        for(int j = kmin; j <= n; ++j)
+        {
+            // a start becomes available once the segment from it can hold kmin values and the values before it can be segmented
+            int newCandidate = j - kmin;
+
+            if(newCandidate == 0 || newCandidate >= kmin)
+                candidates[candidateCount++] = newCandidate;
+
+            double minCost = Double.MAX_VALUE;
+            int minStart = 0;
+            int retained = 0;
+
+            for(int c = 0; c < candidateCount; ++c)
+            {
+                int start = candidates[c];
+
+                // a start dominated at step p is only safe to drop once a segment from p onwards is long enough
+                if(prunedAt[start] <= j - kmin)
+                    continue;
+
+                candidates[retained] = start;
+
+                double cost = segmentCost(sums, sumSquares, start, j);
+
+                if(start > 0)
+                    cost += bestCost[start] + gamma;
+
+                candidateCosts[retained] = cost;
+                ++retained;
+
+                if(cost < minCost)
+                {
+                    minCost = cost;
+                    minStart = start;
+                }
+            }
+
+            candidateCount = retained;
+            bestCost[j] = minCost;
+            lastStart[j] = minStart;
+
+            // a start whose cost already exceeds the best plus a breakpoint can never do better than a break at j
+            double pruneThreshold = minCost + gamma;
+
+            for(int c = 0; c < candidateCount; ++c)
+            {
+                if(candidateCosts[c] > pruneThreshold && prunedAt[candidates[c]] == Integer.MAX_VALUE)
+                    prunedAt[candidates[c]] = j;
+            }
+        }
+
+        return lastStart;
+    }
+
+    // sum of squared deviations from the mean of the values in [start, end)
+    private static double segmentCost(final double[] sums, final double[] sumSquares, int start, int end)
+    {
+        double sum = sums[end] - sums[start];
+        return sumSquares[end] - sumSquares[start] - sum * sum / (end - start);
+    }
+
+    // the noise estimate used to scale values before segmentation: the MAD of the residuals from a running median, as
+    // calculated by getMad in the copynumber R package. Zeros are excluded since they are likely to be imputed
+    public static double madStandardDeviation(final double[] values)
+    {
+        double[] nonZeroValues = Arrays.stream(values).filter(x -> x != 0).toArray();
+
+        if(nonZeroValues.length == 0)
+            return 0;
+
+        double[] runningMedians = medianFilter(nonZeroValues, MEDIAN_FILTER_HALF_WIDTH);
+
+        double[] residuals = new double[nonZeroValues.length];
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = nonZeroValues[i] - runningMedians[i];
+        }
+
+        return medianAbsoluteDeviation(residuals);
+    }
+
+    // running median over a window of 2k+1 values, shrunk to fit the data, with the ends smoothed as by R's runmed
+    public static double[] medianFilter(final double[] values, int k)
+    {
+        int n = values.length;
+        int filterWidth = 2 * k + 1;
+
+        if(filterWidth > n)
+            filterWidth = n == 0 ? 1 : (n % 2 == 0 ? n - 1 : n);
+
+        int halfWidth = filterWidth / 2;
+        double[] medians = values.clone();
+
+        if(halfWidth < 1)
+            return medians;
+
+        // the window is kept sorted, with each step removing the oldest value and inserting the newest
+        double[] window = Arrays.copyOfRange(values, 0, filterWidth);
+        Arrays.sort(window);
+
+        medians[halfWidth] = window[halfWidth];
+
+        for(int i = halfWidth + 1; i < n - halfWidth; ++i)
+        {
+            double removed = values[i - halfWidth - 1];
+            double added = values[i + halfWidth];
+
+            int removeIndex = Arrays.binarySearch(window, removed);
+            System.arraycopy(window, removeIndex + 1, window, removeIndex, filterWidth - removeIndex - 1);
+
+            int insertIndex = Arrays.binarySearch(window, 0, filterWidth - 1, added);
+
+            if(insertIndex < 0)
+                insertIndex = -insertIndex - 1;
+
+            System.arraycopy(window, insertIndex, window, insertIndex + 1, filterWidth - insertIndex - 1);
+            window[insertIndex] = added;
+
+            medians[i] = window[halfWidth];
+        }
+
+        smoothEnds(medians, halfWidth);
+        return medians;
+    }
+
+    // Tukey's end-point rule as applied by R's smoothEnds, using medians of successively smaller windows towards each end
+    private static void smoothEnds(final double[] values, int halfWidth)
+    {
+        int n = values.length;
+        double[] original = values.clone();
+
+        if(halfWidth >= 2)
+        {
+            values[1] = median3(original[0], original[1], original[2]);
+            values[n - 2] = median3(original[n - 1], original[n - 2], original[n - 3]);
+
+            for(int i = 3; i <= halfWidth && 2 * i <= n; ++i)
+            {
+                values[i - 1] = oddMedian(original, 0, 2 * i - 1);
+                values[n - i] = oddMedian(original, n - 2 * i + 1, n);
+            }
+        }
+
+        values[0] = median3(original[0], values[1], 3 * values[1] - 2 * values[2]);
+        values[n - 1] = median3(original[n - 1], values[n - 2], 3 * values[n - 2] - 2 * values[n - 3]);
+    }
+
+    private static double median3(double a, double b, double c)
+    {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static double oddMedian(final double[] values, int start, int end)
+    {
+        double[] range = Arrays.copyOfRange(values, start, end);
+        Arrays.sort(range);
+        return range[range.length / 2];
+    }
+
+    public static double medianAbsoluteDeviation(final double[] values)
+    {
+        double median = median(values.clone());
+        double[] deviations = Arrays.stream(values).map(x -> Math.abs(x - median)).toArray();
+        return MAD_SCALE_FACTOR * median(deviations);
+    }
+
+    // sorts the values in place
+    private static double median(final double[] values)
+    {
+        Arrays.sort(values);
+        int n = values.length;
+        return n % 2 == 1 ? values[n / 2] : (values[n / 2 - 1] + values[n / 2]) * 0.5;
+    }
+}
@@ -0,0 +1,167 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblBinaryCache.binaryCacheFilename;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.POS_STRAND;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_3;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_3;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addTransExonData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createEnsemblGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createTransExons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.junit.Test;
+
+public class EnsemblBinaryCacheTest
+{
+    @Test
+    public void testWriteAndLoadBinaryCache() throws IOException
+    {
+        EnsemblDataCache sourceCache = createGeneDataCache();
+
+        GeneData gene1 = createEnsemblGeneData(GENE_ID_1, GENE_NAME_1, CHR_1, POS_STRAND, 1000, 5000);
+        gene1.setSynonyms("SYN_A;SYN_B");
+        GeneData gene2 = createEnsemblGeneData(GENE_ID_2, GENE_NAME_2, CHR_1, NEG_STRAND, 10000, 20000);
+        GeneData gene3 = createEnsemblGeneData(GENE_ID_3, GENE_NAME_3, CHR_2, POS_STRAND, 1000, 3000);
+
+        addGeneData(sourceCache, CHR_1, Lists.newArrayList(gene1, gene2));
+        addGeneData(sourceCache, CHR_2, Lists.newArrayList(gene3));
+
+        TranscriptData trans1 = createTransExons(
+                GENE_ID_1, 1, POS_STRAND, new int[] { 1000, 2000, 4000 }, 100, 1050, 4050, true, "protein_coding");
+
+        TranscriptData trans2 = createTransExons(
+                GENE_ID_1, 2, POS_STRAND, new int[] { 1500, 4000 }, 100, null, null, false, "retained_intron");
+
+        TranscriptData trans3 = createTransExons(
+                GENE_ID_2, 3, NEG_STRAND, new int[] { 10000, 15000, 19900 }, 100, 10050, 19950, true, "protein_coding");
+
+        addTransExonData(sourceCache, GENE_ID_1, Lists.newArrayList(trans1, trans2));
+        addTransExonData(sourceCache, GENE_ID_2, Lists.newArrayList(trans3));
+
+        sourceCache.getTranscriptProteinDataMap().put(1, Lists.newArrayList(
+                new TranscriptProteinData(1, 11, 101, 5, 20, "Domain A"), new TranscriptProteinData(1, 11, 102, 30, 40, "Domain B")));
+
+        File tempDir = Files.createTempDirectory("ensembl_cache_test").toFile();
+        String dataPath = tempDir.getAbsolutePath() + File.separator;
+        String binaryFile = binaryCacheFilename(dataPath);
+
+        EnsemblBinaryCache.write(binaryFile, sourceCache);
+
+        // the temporary file has been moved into place
+        assertEquals(1, tempDir.listFiles().length);
+
+        // load all data up-front
+        EnsemblDataCache ensemblDataCache = new EnsemblDataCache(dataPath, RefGenomeVersion.V37);
+        ensemblDataCache.setRequiredData(true, true, false, false);
+        ensemblDataCache.setRequireGeneSynonyms();
+        ensemblDataCache.setRequireNonEnsemblTranscripts();
+        assertTrue(ensemblDataCache.load(false));
+
+        assertEquals(2, ensemblDataCache.getChrGeneDataMap().get(CHR_1).size());
+        assertEquals(1, ensemblDataCache.getChrGeneDataMap().get(CHR_2).size());
+
+        GeneData loadedGene = ensemblDataCache.getGeneDataByName(GENE_NAME_1);
+        assertEquals(gene1.GeneId, loadedGene.GeneId);
+        assertEquals(gene1.GeneStart, loadedGene.GeneStart);
+        assertEquals(gene1.GeneEnd, loadedGene.GeneEnd);
+        assertEquals(gene1.Strand, loadedGene.Strand);
+        assertTrue(loadedGene.hasSynonym("SYN_B"));
+
+        assertTranscriptsMatch(sourceCache.getTranscripts(GENE_ID_1), ensemblDataCache.getTranscripts(GENE_ID_1));
+        assertTranscriptsMatch(sourceCache.getTranscripts(GENE_ID_2), ensemblDataCache.getTranscripts(GENE_ID_2));
+        assertTrue(ensemblDataCache.getTranscripts(GENE_ID_3).isEmpty());
+
+        List<TranscriptProteinData> proteinDataList = ensemblDataCache.getTranscriptProteinDataMap().get(1);
+        assertEquals(2, proteinDataList.size());
+        assertEquals(102, proteinDataList.get(1).ProteinFeatureId);
+        assertEquals("Domain B", proteinDataList.get(1).HitDescription);
+
+        // restrict genes and delay transcript loading, then load transcripts only for the requested genes as the text loader does
+        ensemblDataCache = new EnsemblDataCache(dataPath, RefGenomeVersion.V37);
+        ensemblDataCache.setRestrictedGeneIdList(Lists.newArrayList(GENE_ID_1, GENE_ID_2));
+        ensemblDataCache.setRequiredData(true, false, false, true);
+        ensemblDataCache.setRequireNonEnsemblTranscripts();
+        assertTrue(ensemblDataCache.load(true));
+
+        assertNull(ensemblDataCache.getChrGeneDataMap().get(CHR_2));
+        assertTrue(ensemblDataCache.getTranscriptDataMap().isEmpty());
+        assertNull(ensemblDataCache.getCanonicalTranscriptData(GENE_ID_1));
+
+        assertTrue(ensemblDataCache.loadTranscriptData(Lists.newArrayList(GENE_ID_1), Collections.emptyList()));
+
+        TranscriptData canonicalTrans = ensemblDataCache.getCanonicalTranscriptData(GENE_ID_1);
+        assertNotNull(canonicalTrans);
+        assertEquals(1, ensemblDataCache.getTranscriptDataMap().size());
+        assertEquals(1, ensemblDataCache.getTranscripts(GENE_ID_1).size());
+        assertTranscriptsMatch(Lists.newArrayList(trans1), ensemblDataCache.getTranscripts(GENE_ID_1));
+
+        // genes whose transcripts were not loaded are not decoded on access
+        assertNull(ensemblDataCache.getTranscripts(GENE_ID_2));
+        assertNull(ensemblDataCache.getCanonicalTranscriptData(GENE_ID_2));
+        assertTrue(ensemblDataCache.findGenesByRegion(CHR_1, 9000, 21000).isEmpty());
+        assertEquals(1, ensemblDataCache.getTranscriptDataMap().size());
+
+        new File(binaryFile).delete();
+        tempDir.delete();
+    }
+
+    private static void assertTranscriptsMatch(final List<TranscriptData> expected, final List<TranscriptData> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+
+        for(int i = 0; i < expected.size(); ++i)
+        {
+            TranscriptData expectedTrans = expected.get(i);
+            TranscriptData actualTrans = actual.get(i);
+
+            assertEquals(expectedTrans.TransId, actualTrans.TransId);
+            assertEquals(expectedTrans.TransName, actualTrans.TransName);
+            assertEquals(expectedTrans.IsCanonical, actualTrans.IsCanonical);
+            assertEquals(expectedTrans.Strand, actualTrans.Strand);
+            assertEquals(expectedTrans.TransStart, actualTrans.TransStart);
+            assertEquals(expectedTrans.TransEnd, actualTrans.TransEnd);
+            assertEquals(expectedTrans.CodingStart, actualTrans.CodingStart);
+            assertEquals(expectedTrans.CodingEnd, actualTrans.CodingEnd);
+            assertEquals(expectedTrans.BioType, actualTrans.BioType);
+            assertEquals(expectedTrans.exons().size(), actualTrans.exons().size());
+
+            for(int e = 0; e < expectedTrans.exons().size(); ++e)
+            {
+                ExonData expectedExon = expectedTrans.exons().get(e);
+                ExonData actualExon = actualTrans.exons().get(e);
+
+                assertEquals(expectedExon.Start, actualExon.Start);
+                assertEquals(expectedExon.End, actualExon.End);
+                assertEquals(expectedExon.Rank, actualExon.Rank);
+                assertEquals(expectedExon.PhaseStart, actualExon.PhaseStart);
+                assertEquals(expectedExon.PhaseEnd, actualExon.PhaseEnd);
+            }
+        }
+    }
+}
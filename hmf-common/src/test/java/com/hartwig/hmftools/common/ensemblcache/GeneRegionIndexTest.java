@@ -0,0 +1,163 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.EXON_RANK_MAX;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.EXON_RANK_MIN;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.POS_STRAND;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createEnsemblGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createTransExons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+
+import org.junit.Test;
+
+public class GeneRegionIndexTest
+{
+    @Test
+    public void testOverlapQueriesMatchLinearScan()
+    {
+        Random random = new Random(0);
+
+        for(int geneCount : new int[] { 0, 1, 2, 7, 16, 100, 1000 })
+        {
+            List<GeneData> genes = createRandomGenes(random, geneCount);
+            GeneRegionIndex geneIndex = new GeneRegionIndex(genes);
+
+            for(int i = 0; i < 500; ++i)
+            {
+                int posStart = random.nextInt(1_000_000);
+                int posEnd = posStart + random.nextInt(i % 2 == 0 ? 100 : 50_000);
+
+                List<GeneData> expected = genes.stream()
+                        .filter(x -> x.GeneStart <= posEnd && x.GeneEnd >= posStart).collect(Collectors.toList());
+
+                assertEquals(expected, geneIndex.findOverlapping(posStart, posEnd));
+            }
+
+            // bounds are inclusive
+            for(GeneData geneData : genes)
+            {
+                assertTrue(geneIndex.findOverlapping(geneData.GeneStart, geneData.GeneStart).contains(geneData));
+                assertTrue(geneIndex.findOverlapping(geneData.GeneEnd, geneData.GeneEnd).contains(geneData));
+            }
+        }
+    }
+
+    @Test
+    public void testCacheGeneQueries()
+    {
+        EnsemblDataCache geneTransCache = createGeneDataCache();
+
+        Random random = new Random(1);
+        List<GeneData> genes = createRandomGenes(random, 500);
+        addGeneData(geneTransCache, CHR_1, genes);
+
+        int upstreamDistance = 10_000;
+
+        for(int i = 0; i < 500; ++i)
+        {
+            int position = random.nextInt(1_000_000);
+
+            List<GeneData> expected = genes.stream().filter(x ->
+                    (x.Strand == POS_STRAND && position >= x.GeneStart - upstreamDistance && position <= x.GeneEnd)
+                    || (x.Strand == NEG_STRAND && position >= x.GeneStart && position <= x.GeneEnd + upstreamDistance))
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, geneTransCache.findGeneRegions(CHR_1, position, upstreamDistance));
+        }
+
+        assertTrue(geneTransCache.findGeneRegions(CHR_2, 1000, upstreamDistance).isEmpty());
+        assertTrue(geneTransCache.findGenesByRegion(CHR_2, 1000, 2000).isEmpty());
+
+        // genes added after a query are picked up
+        GeneData newGene = createEnsemblGeneData("ENSG999", "GENE_999", CHR_1, POS_STRAND, 2_000_000, 2_010_000);
+        genes.add(newGene);
+
+        List<GeneData> matchedGenes = geneTransCache.findGeneRegions(CHR_1, 2_005_000, upstreamDistance);
+        assertEquals(1, matchedGenes.size());
+        assertEquals(newGene, matchedGenes.get(0));
+
+        // downstream annotations
+        geneTransCache.addDownstreamGeneAnnotations(newGene, 5000);
+        matchedGenes = geneTransCache.findGeneRegions(CHR_1, 2_014_000, upstreamDistance);
+        assertEquals(1, matchedGenes.size());
+        assertTrue(geneTransCache.findGeneRegions(CHR_1, 2_016_000, upstreamDistance).isEmpty());
+
+        // genes by region require a transcript to be contained within the region
+        TranscriptData transData = createTransExons(
+                newGene.GeneId, 1, POS_STRAND, new int[] { 2_001_000, 2_005_000 }, 100, null, null, true, "");
+
+        geneTransCache.getTranscriptDataMap().put(newGene.GeneId, Lists.newArrayList(transData));
+
+        assertEquals(1, geneTransCache.findGenesByRegion(CHR_1, 2_000_500, 2_006_000).size());
+        assertTrue(geneTransCache.findGenesByRegion(CHR_1, 2_002_000, 2_006_000).isEmpty());
+    }
+
+    @Test
+    public void testExonRankings()
+    {
+        int[] exonStarts = new int[] { 1000, 2000, 3000, 4000 };
+        TranscriptData posTrans = createTransExons("ENSG001", 1, POS_STRAND, exonStarts, 100, null, null, true, "");
+        TranscriptData negTrans = createTransExons("ENSG002", 2, NEG_STRAND, exonStarts, 100, null, null, true, "");
+
+        int[] rankings = EnsemblDataCache.getExonRankings(POS_STRAND, posTrans.exons(), 500);
+        assertRankings(rankings, 0, 1);
+
+        rankings = EnsemblDataCache.getExonRankings(POS_STRAND, posTrans.exons(), 5000);
+        assertRankings(rankings, 4, -1);
+
+        rankings = EnsemblDataCache.getExonRankings(POS_STRAND, posTrans.exons(), 1000);
+        assertRankings(rankings, 1, 1);
+
+        rankings = EnsemblDataCache.getExonRankings(POS_STRAND, posTrans.exons(), 3100);
+        assertRankings(rankings, 3, 3);
+
+        rankings = EnsemblDataCache.getExonRankings(POS_STRAND, posTrans.exons(), 2500);
+        assertRankings(rankings, 2, 3);
+
+        rankings = EnsemblDataCache.getExonRankings(NEG_STRAND, negTrans.exons(), 2500);
+        assertRankings(rankings, 2, 3);
+
+        rankings = EnsemblDataCache.getExonRankings(NEG_STRAND, negTrans.exons(), 4100);
+        assertRankings(rankings, 1, 1);
+
+        rankings = EnsemblDataCache.getExonRankings(NEG_STRAND, negTrans.exons(), 5000);
+        assertRankings(rankings, 0, 1);
+    }
+
+    private static void assertRankings(final int[] rankings, int expectedMin, int expectedMax)
+    {
+        assertEquals(expectedMin, rankings[EXON_RANK_MIN]);
+        assertEquals(expectedMax, rankings[EXON_RANK_MAX]);
+    }
+
+    private static List<GeneData> createRandomGenes(final Random random, int geneCount)
+    {
+        List<GeneData> genes = Lists.newArrayList();
+
+        for(int i = 0; i < geneCount; ++i)
+        {
+            int geneStart = random.nextInt(1_000_000);
+            int geneLength = i % 10 == 0 ? random.nextInt(200_000) : random.nextInt(20_000);
+            byte strand = random.nextBoolean() ? POS_STRAND : NEG_STRAND;
+
+            genes.add(createEnsemblGeneData(
+                    String.format("ENSG%03d", i), String.format("GENE_%d", i), CHR_1, strand, geneStart, geneStart + geneLength));
+        }
+
+        return genes;
+    }
+}
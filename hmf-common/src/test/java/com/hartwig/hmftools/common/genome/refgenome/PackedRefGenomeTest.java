@@ -0,0 +1,67 @@
+package com.hartwig.hmftools.common.genome.refgenome;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PackedRefGenomeTest
+{
+    private static final String CHR_1_BASES = "ACGTTGCANNNNNNACGTacgtRYACGTNNA";
+    private static final String CHR_2_BASES = "GGGCCCAAATTTGCG";
+
+    @Test
+    public void testPackedRefGenome() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("ref_genome_test").toFile();
+        File fastaFile = new File(tempDir, "ref.fasta");
+        File packedFile = new File(tempDir, "ref.packed");
+
+        Files.writeString(fastaFile.toPath(), ">1 description\n" + CHR_1_BASES.substring(0, 20) + "\n"
+                + CHR_1_BASES.substring(20) + "\n>2\n" + CHR_2_BASES + "\n");
+
+        PackedRefGenome refGenome = PackedRefGenome.loadOrBuild(fastaFile.getAbsolutePath(), packedFile.getAbsolutePath());
+
+        // the temporary build file has been moved into place
+        assertEquals(2, tempDir.listFiles().length);
+
+        String chr1Bases = CHR_1_BASES.toUpperCase();
+
+        assertEquals(2, refGenome.chromosomes().size());
+        assertEquals(CHR_1_BASES.length(), refGenome.getChromosomeLength("1"));
+        assertEquals(CHR_2_BASES.length(), refGenome.getChromosomeLength("2"));
+
+        assertEquals(chr1Bases, refGenome.getBaseString("1", 1, CHR_1_BASES.length()));
+        assertEquals(CHR_2_BASES, refGenome.getBaseString("2", 1, CHR_2_BASES.length()));
+
+        // every sub-range, covering unaligned starts and ends, and ranges within and across N and IUPAC runs
+        for(int start = 1; start <= chr1Bases.length(); ++start)
+        {
+            assertEquals(chr1Bases.charAt(start - 1), (char)refGenome.base("1", start));
+
+            for(int end = start; end <= chr1Bases.length(); ++end)
+            {
+                assertEquals(chr1Bases.substring(start - 1, end), refGenome.getBaseString("1", start, end));
+            }
+        }
+
+        assertEquals("CGTNNNA", refGenome.getBaseString("1", List.of(new int[] {2, 4}, new int[] {12, 15})));
+
+        // copy into an existing buffer at an offset
+        byte[] buffer = new byte[10];
+        refGenome.chromosome("2").copyBases(4, 9, buffer, 2);
+        assertEquals("CCCAAA", new String(buffer, 2, 6));
+
+        RefGenomeInterface refGenomeInterface = refGenome;
+        refGenomeInterface.copyBases("1", 7, 10, buffer, 0);
+        assertEquals("CANN", new String(buffer, 0, 4));
+
+        packedFile.delete();
+        fastaFile.delete();
+        tempDir.delete();
+    }
+}
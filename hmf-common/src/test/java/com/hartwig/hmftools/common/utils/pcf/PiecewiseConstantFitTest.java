@@ -0,0 +1,172 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.genome.position.GenomePositions;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.junit.Test;
+
+public class PiecewiseConstantFitTest
+{
+    @Test
+    public void testSegmentStarts()
+    {
+        double[] values = new double[30];
+
+        for(int i = 10; i < 20; ++i)
+        {
+            values[i] = 5;
+        }
+
+        assertArrayEquals(new int[] { 0, 10, 20 }, PiecewiseConstantFit.segmentStarts(values, 1, 1));
+        assertArrayEquals(new int[] { 0 }, PiecewiseConstantFit.segmentStarts(new double[10], 1, 1));
+        assertArrayEquals(new int[0], PiecewiseConstantFit.segmentStarts(new double[0], 1, 1));
+
+        // a single outlier is a segment unless kmin or gamma prevent it
+        values = new double[] { 0, 0, 0, 0, 4, 0, 0, 0, 0 };
+        assertArrayEquals(new int[] { 0, 4, 5 }, PiecewiseConstantFit.segmentStarts(values, 1, 1));
+        assertArrayEquals(new int[] { 0 }, PiecewiseConstantFit.segmentStarts(values, 20, 1));
+
+        int[] starts = PiecewiseConstantFit.segmentStarts(values, 1, 2);
+        assertEquals(3, starts.length);
+        assertEquals(2, starts[2] - starts[1]);
+    }
+
+    @Test
+    public void testPrunedFitMatchesExhaustiveFit()
+    {
+        Random random = new Random(42);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            double[] values = new double[200 + random.nextInt(200)];
+            double level = 0;
+
+            for(int i = 0; i < values.length; ++i)
+            {
+                if(random.nextInt(40) == 0)
+                    level = random.nextGaussian() * 3;
+
+                values[i] = level + random.nextGaussian();
+            }
+
+            for(int kmin : new int[] { 1, 3, 5 })
+            {
+                double gamma = 1 + random.nextInt(20);
+
+                assertArrayEquals(exhaustiveSegmentStarts(values, gamma, kmin), PiecewiseConstantFit.segmentStarts(values, gamma, kmin));
+            }
+        }
+    }
+
+    @Test
+    public void testMedianFilter()
+    {
+        double[] values = { 1, 5, 2, 8, 3, 9, 4 };
+
+        // as given by R's runmed(x, 3, endrule = "median")
+        assertArrayEquals(new double[] { 1, 2, 5, 3, 8, 4, 4 }, PiecewiseConstantFit.medianFilter(values, 1), 1e-10);
+
+        // the filter width shrinks to fit the values
+        assertArrayEquals(new double[] { 1, 2, 3, 4, 4, 4, 4 }, PiecewiseConstantFit.medianFilter(values, 25), 1e-10);
+
+        assertEquals(1.4826, PiecewiseConstantFit.medianAbsoluteDeviation(new double[] { 1, 2, 3, 4, 5 }), 1e-10);
+    }
+
+    @Test
+    public void testSegmentArmsAndWriteFile() throws IOException
+    {
+        int centromere = RefGenomeCoordinates.COORDS_37.centromere("1");
+
+        List<GenomePosition> positions = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        Random random = new Random(1);
+
+        for(int i = 0; i < 100; ++i)
+        {
+            positions.add(GenomePositions.create("1", centromere - 50000 + i * 1000));
+            values.add(i < 25 ? 1 + random.nextGaussian() * 0.1 : 2 + random.nextGaussian() * 0.1);
+        }
+
+        PCFSegmenter segmenter = new PCFSegmenter(RefGenomeVersion.V37, 50, 1);
+        List<PCFSegment> segments = segmenter.segment(positions, x -> values.get(positions.indexOf(x)), 2);
+
+        assertEquals(3, segments.size());
+        assertEquals(PCFSegment.ARM_P, segments.get(0).Arm);
+        assertEquals(25, segments.get(0).ProbeCount);
+        assertEquals(1, segments.get(0).Mean, 0.05);
+        assertEquals(PCFSegment.ARM_P, segments.get(1).Arm);
+        assertEquals(centromere - 1000, segments.get(1).EndPosition);
+        assertEquals(PCFSegment.ARM_Q, segments.get(2).Arm);
+        assertEquals(centromere, segments.get(2).StartPosition);
+        assertEquals(2, segments.get(2).Mean, 0.05);
+
+        File file = File.createTempFile("pcf", ".pcf");
+        file.deleteOnExit();
+        PCFFile.write(file.getPath(), "SAMPLE", segments);
+
+        List<PCFSegment> readSegments = PCFFile.readSegments(file.getPath());
+        assertEquals(3, readSegments.size());
+        assertEquals(segments.get(2).StartPosition, readSegments.get(2).StartPosition);
+        assertEquals(segments.get(2).ProbeCount, readSegments.get(2).ProbeCount);
+
+        assertEquals(0, PCFSegmenter.compareBreakpoints("test", segments, readSegments, 0));
+        assertTrue(PCFSegmenter.compareBreakpoints("test", segments, readSegments.subList(0, 2), 0) > 0);
+    }
+
+    // the unpruned dynamic program
+    private static int[] exhaustiveSegmentStarts(final double[] values, double gamma, int kmin)
+    {
+        int n = values.length;
+        double[] bestCost = new double[n + 1];
+        int[] lastStart = new int[n + 1];
+
+        for(int j = kmin; j <= n; ++j)
+        {
+            bestCost[j] = Double.MAX_VALUE;
+
+            for(int start = 0; start <= j - kmin; ++start)
+            {
+                if(start > 0 && start < kmin)
+                    continue;
+
+                double sum = 0;
+                double sumSquares = 0;
+
+                for(int i = start; i < j; ++i)
+                {
+                    sum += values[i];
+                    sumSquares += values[i] * values[i];
+                }
+
+                double cost = sumSquares - sum * sum / (j - start) + (start > 0 ? bestCost[start] + gamma : 0);
+
+                if(cost < bestCost[j] - 1e-9)
+                {
+                    bestCost[j] = cost;
+                    lastStart[j] = start;
+                }
+            }
+        }
+
+        List<Integer> starts = new ArrayList<>();
+
+        for(int end = n; end > 0; end = lastStart[end])
+        {
+            starts.add(0, lastStart[end]);
+        }
+
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
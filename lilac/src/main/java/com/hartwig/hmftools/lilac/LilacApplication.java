@@ -30,6 +30,7 @@ import static com.hartwig.hmftools.lilac.fragment.NucleotideFragmentFactory.calc
 import static com.hartwig.hmftools.lilac.read.BamRecordReader.filterVariantFragments;
 import static com.hartwig.hmftools.lilac.seq.SequenceCount.extractHeterozygousLociSequences;
 import static com.hartwig.hmftools.lilac.evidence.NucleotideFiltering.calcNucleotideHeterogygousLoci;
+import static com.hartwig.hmftools.lilac.coverage.ComplexBuilder.combineComplexes;
 import static com.hartwig.hmftools.lilac.coverage.HlaComplex.findDuplicates;
 import static com.hartwig.hmftools.lilac.fragment.FragmentScope.CANDIDATE;
 import static com.hartwig.hmftools.lilac.fragment.FragmentScope.SOLUTION;
@@ -51,6 +52,7 @@ import com.hartwig.hmftools.lilac.coverage.ComplexBuilder;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverage;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverageCalculator;
 import com.hartwig.hmftools.lilac.coverage.ComplexCoverageRanking;
+import com.hartwig.hmftools.lilac.coverage.ComplexSearch;
 import com.hartwig.hmftools.lilac.coverage.HlaComplexFile;
 import com.hartwig.hmftools.lilac.evidence.PhasedEvidence;
 import com.hartwig.hmftools.lilac.evidence.PhasedEvidenceFactory;
@@ -391,12 +393,28 @@ public class LilacApplication
 
         logStageMemory("frag-alleles");
 
-        List<HlaComplex> complexes = complexBuilder.buildComplexes(mRefFragAlleles, confirmedRecoveredAlleles);
-        // allValid &= validateComplexes(complexes); // too expensive in current form even for validation, address in unit tests instead
+        List<List<HlaComplex>> geneComplexes = complexBuilder.buildGeneComplexes(mRefFragAlleles, confirmedRecoveredAlleles);
+        List<ComplexCoverage> calculatedComplexes;
 
-        LL_LOGGER.info("calculating coverage for complexes({}) and ref alleles({})", complexes.size(), mRefFragAlleles.size());
-        ComplexCoverageCalculator complexCalculator = new ComplexCoverageCalculator(mConfig);
-        List<ComplexCoverage> calculatedComplexes = complexCalculator.calculateComplexCoverages(mRefFragAlleles, complexes);
+        if(mConfig.TopScoreThreshold > 0)
+        {
+            // only the complexes which could be ranked within the score threshold need their coverage calculated
+            LL_LOGGER.info("searching complexes(A={} B={} C={}) with ref alleles({})",
+                    geneComplexes.get(0).size(), geneComplexes.get(1).size(), geneComplexes.get(2).size(), mRefFragAlleles.size());
+
+            ComplexSearch complexSearch = new ComplexSearch(mConfig, mRefData);
+            calculatedComplexes = complexSearch.findComplexes(mRefFragAlleles, geneComplexes, recoveredAlleles, candidateSequences);
+        }
+        else
+        {
+            List<HlaComplex> complexes = combineComplexes(
+                    combineComplexes(geneComplexes.get(0), geneComplexes.get(1)), geneComplexes.get(2));
+            // allValid &= validateComplexes(complexes); // too expensive in current form even for validation, address in unit tests instead
+
+            LL_LOGGER.info("calculating coverage for complexes({}) and ref alleles({})", complexes.size(), mRefFragAlleles.size());
+            ComplexCoverageCalculator complexCalculator = new ComplexCoverageCalculator(mConfig);
+            calculatedComplexes = complexCalculator.calculateComplexCoverages(mRefFragAlleles, complexes);
+        }
 
         ComplexCoverageRanking complexRanker = new ComplexCoverageRanking(mConfig.TopScoreThreshold, mRefData);
         mRankedComplexes.addAll(complexRanker.rankCandidates(calculatedComplexes, recoveredAlleles, candidateSequences));
@@ -149,6 +149,13 @@ public class ComplexBuilder
 
     public List<HlaComplex> buildComplexes(final List<FragmentAlleles> refFragAlleles, final List<HlaAllele> recoveredAlleles)
     {
+        List<List<HlaComplex>> geneComplexes = buildGeneComplexes(refFragAlleles, recoveredAlleles);
+        return combineComplexes(combineComplexes(geneComplexes.get(0), geneComplexes.get(1)), geneComplexes.get(2));
+    }
+
+    public List<List<HlaComplex>> buildGeneComplexes(final List<FragmentAlleles> refFragAlleles, final List<HlaAllele> recoveredAlleles)
+    {
+        // returns the candidate allele pairings for each of genes A, B and C, whose cross product forms the full set of complexes
         // filter out any wildcards
         Set<HlaAllele> wildcardAlleles = findWildcardAlleles(refFragAlleles);
         List<HlaAllele> unsupportedWildcards = findUnsupportedWildcards(refFragAlleles, wildcardAlleles);
@@ -161,7 +168,6 @@ public class ComplexBuilder
         List<HlaComplex> bOnlyComplexes = buildComplexesByGene(GENE_B, mUniqueGroupAlleles, mUniqueProteinAlleles);
         List<HlaComplex> cOnlyComplexes = buildComplexesByGene(GENE_C, mUniqueGroupAlleles, mUniqueProteinAlleles);
 
-        List<HlaComplex> complexes;
         long simpleComplexCount = (long)aOnlyComplexes.size() * bOnlyComplexes.size() * cOnlyComplexes.size();
 
         if (simpleComplexCount > COMPLEX_PERMS_THRESHOLD || simpleComplexCount < 0)
@@ -190,14 +196,10 @@ public class ComplexBuilder
 
             LL_LOGGER.info("  discarding {} unlikely candidates: {}", rejected.size(), HlaAllele.toString(rejected));
 
-            complexes = buildAlleleComplexes(mUniqueGroupAlleles, topCandidates);
-        }
-        else
-        {
-            complexes = buildAlleleComplexes(mUniqueGroupAlleles, mUniqueProteinAlleles);
+            return buildGeneAlleleComplexes(mUniqueGroupAlleles, topCandidates);
         }
 
-        return complexes;
+        return Lists.newArrayList(aOnlyComplexes, bOnlyComplexes, cOnlyComplexes);
     }
 
     private static ComplexCoverage calcGroupCoverage(final List<FragmentAlleles> fragAlleles, final List<HlaAllele> alleles)
@@ -212,12 +214,13 @@ public class ComplexBuilder
         return ComplexCoverage.create(AlleleCoverage.proteinCoverage(filteredFragments));
     }
 
-    private static List<HlaComplex> buildAlleleComplexes(final List<HlaAllele> confirmedGroups, final List<HlaAllele> candidates)
+    private static List<List<HlaComplex>> buildGeneAlleleComplexes(
+            final List<HlaAllele> confirmedGroups, final List<HlaAllele> candidates)
     {
         List<HlaComplex> a = buildComplexesByGene(GENE_A, confirmedGroups, candidates);
         List<HlaComplex> b = buildComplexesByGene(GENE_B, confirmedGroups, candidates);
         List<HlaComplex> c = buildComplexesByGene(GENE_C, confirmedGroups, candidates);
-        return combineComplexes(combineComplexes(a, b), c);
+        return Lists.newArrayList(a, b, c);
     }
 
     public static List<HlaComplex> buildComplexesByGene(
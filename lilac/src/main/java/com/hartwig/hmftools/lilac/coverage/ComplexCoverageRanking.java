@@ -5,7 +5,9 @@ import static java.lang.Math.log10;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
+import static com.hartwig.hmftools.lilac.LilacConstants.EXPECTED_ALLELE_COUNT;
 import static com.hartwig.hmftools.lilac.LilacConstants.FREQUENCY_SCORE_PENALTY;
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_IDS;
 import static com.hartwig.hmftools.lilac.LilacConstants.HOMOZYGOUS_SCORE_PENALTY;
 import static com.hartwig.hmftools.lilac.LilacConstants.RECOVERY_SCORE_PENALTY;
 import static com.hartwig.hmftools.lilac.LilacConstants.WILDCARD_SCORE_PENALTY;
@@ -16,7 +18,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.hartwig.hmftools.lilac.ReferenceData;
-import com.hartwig.hmftools.lilac.cohort.CohortFrequency;
 import com.hartwig.hmftools.lilac.hla.HlaAllele;
 import com.hartwig.hmftools.lilac.seq.HlaSequenceLoci;
 
@@ -49,10 +50,7 @@ public class ComplexCoverageRanking
 
         for(ComplexCoverage complexCoverage : complexes)
         {
-            calcCohortFrequency(complexCoverage);
-            calcRecoveryPenalty(complexCoverage, recoveredAlleles);
-            calcWildcardPenalty(complexCoverage, sequences);
-            calcComplexScore(complexCoverage);
+            scoreComplex(complexCoverage, recoveredAlleles, sequences);
         }
 
         if(mMaxScoreDifference == 0)
@@ -87,6 +85,37 @@ public class ComplexCoverageRanking
         return results;
     }
 
+    public void scoreComplex(
+            final ComplexCoverage complexCoverage, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        calcCohortFrequency(complexCoverage);
+        calcRecoveryPenalty(complexCoverage, recoveredAlleles);
+        calcWildcardPenalty(complexCoverage, sequences);
+        calcComplexScore(complexCoverage);
+    }
+
+    public double geneScoreFactor(
+            final List<HlaAllele> geneAlleles, final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        // a complex's score is its total coverage scaled by 1 plus the sum of this factor for each of its genes' alleles
+        boolean isHomozygous = geneAlleles.size() == 1;
+        int expectedGeneAlleles = EXPECTED_ALLELE_COUNT / GENE_IDS.size();
+        double factor = (expectedGeneAlleles - geneAlleles.size()) * HOMOZYGOUS_SCORE_PENALTY;
+
+        for(HlaAllele allele : geneAlleles)
+        {
+            double cohortPenalty = cohortPenalty(allele);
+            factor += (isHomozygous ? 2 : 1) * cohortPenalty * FREQUENCY_SCORE_PENALTY;
+
+            if(recoveredAlleles.contains(allele))
+                factor -= RECOVERY_SCORE_PENALTY;
+
+            factor -= alleleWildcardCount(allele, sequences) * WILDCARD_SCORE_PENALTY;
+        }
+
+        return factor;
+    }
+
     private void calcRecoveryPenalty(final ComplexCoverage complexCoverage, final List<HlaAllele> recoveredAlleles)
     {
         int recoveredCount = (int)complexCoverage.getAlleles().stream()
@@ -104,29 +133,35 @@ public class ComplexCoverageRanking
 
         for(HlaAllele allele : complexCoverage.getAlleles())
         {
-            if(!allele.hasWildcards())
-                continue;
-
-            HlaSequenceLoci sequenceLoci = sequences.stream().filter(x -> x.Allele.equals(allele)).findFirst().orElse(null);
-
-            if(sequenceLoci != null)
-                wildcardCount += sequenceLoci.wildcardCount();
+            wildcardCount += alleleWildcardCount(allele, sequences);
         }
 
         complexCoverage.setWildcardCount(wildcardCount);
     }
 
-    private void calcCohortFrequency(final ComplexCoverage complexCoverage)
+    private static int alleleWildcardCount(final HlaAllele allele, final List<HlaSequenceLoci> sequences)
     {
-        final CohortFrequency cohortFrequency = mRefData.getAlleleFrequencies();
+        if(!allele.hasWildcards())
+            return 0;
+
+        HlaSequenceLoci sequenceLoci = sequences.stream().filter(x -> x.Allele.equals(allele)).findFirst().orElse(null);
+        return sequenceLoci != null ? sequenceLoci.wildcardCount() : 0;
+    }
 
+    private double cohortPenalty(final HlaAllele allele)
+    {
+        double frequency = mRefData.getAlleleFrequencies().getAlleleFrequency(allele);
+        return log10(max(frequency, 0.0001));
+    }
+
+    private void calcCohortFrequency(final ComplexCoverage complexCoverage)
+    {
         double cohortFrequencyTotal = 0;
         final List<HlaAllele> alleles = complexCoverage.getAlleles();
 
         for(HlaAllele allele : alleles)
         {
-            double frequency = cohortFrequency.getAlleleFrequency(allele);
-            double cohortPenalty = log10(max(frequency, 0.0001));
+            double cohortPenalty = cohortPenalty(allele);
 
             cohortFrequencyTotal += cohortPenalty;
 
@@ -0,0 +1,301 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.lilac.LilacConfig.LL_LOGGER;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hartwig.hmftools.lilac.LilacConfig;
+import com.hartwig.hmftools.lilac.ReferenceData;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+import com.hartwig.hmftools.lilac.seq.HlaSequenceLoci;
+
+/* Finds the complexes which ComplexCoverageRanking would select from the cross product of each gene's allele pairings, without
+   calculating coverage for the full cross product:
+    - genes are chosen in turn, with each gene's pairings ordered by the number of fragments they support
+    - a complex's total coverage is at most the number of fragments supported by any of its alleles plus 1 for rounding, so a
+      partial complex's coverage is bounded by its supported fragments plus the best possible support from the remaining genes
+    - its score is bounded by that coverage times the best possible score factor from its genes' penalties
+    - a partial complex is discarded once this bound falls below both the ranking's inclusion threshold and the 2nd-best score
+      found so far, and it cannot exceed the top total coverage found so far, so the ranking of the evaluated complexes is
+      unchanged from ranking the full cross product
+*/
+public class ComplexSearch
+{
+    private final LilacConfig mConfig;
+    private final ComplexCoverageRanking mRanker;
+    private final double mMaxScoreDifference;
+
+    private List<HlaAllele> mRecoveredAlleles;
+    private List<HlaSequenceLoci> mSequences;
+    private FragmentAlleleMatrix mFragAlleleMatrix;
+
+    private final List<List<GeneComplex>> mGeneComplexes;
+    private int[] mRemainingMaxSupport; // by gene index, the sum of the maximum supported fragments of this and later genes
+    private double[] mRemainingMaxFactor;
+    private int mCoverageLimit;
+
+    // search bounds shared across tasks
+    private final List<ComplexCoverage> mResults;
+    private double mTopScore;
+    private double mSecondScore;
+    private int mTopCoverage;
+
+    private static final double SCORE_MARGIN = 0.001; // exceeds the ranking's score tolerance and any rounding in score calcs
+
+    public ComplexSearch(final LilacConfig config, final ReferenceData refData)
+    {
+        mConfig = config;
+        mMaxScoreDifference = config.TopScoreThreshold;
+        mRanker = new ComplexCoverageRanking(config.TopScoreThreshold, refData);
+
+        mGeneComplexes = Lists.newArrayList();
+        mResults = Lists.newArrayList();
+    }
+
+    private class GeneComplex
+    {
+        public final HlaComplex Complex;
+        public final long[] Support;
+        public final int SupportCount;
+        public final double ScoreFactor;
+
+        public GeneComplex(final HlaComplex complex)
+        {
+            Complex = complex;
+            Support = mFragAlleleMatrix.supportBits(complex.Alleles);
+
+            int supportCount = 0;
+
+            for(long word : Support)
+            {
+                supportCount += Long.bitCount(word);
+            }
+
+            SupportCount = supportCount;
+            ScoreFactor = mRanker.geneScoreFactor(complex.Alleles, mRecoveredAlleles, mSequences);
+        }
+    }
+
+    public List<ComplexCoverage> findComplexes(
+            final List<FragmentAlleles> fragmentAlleles, final List<List<HlaComplex>> geneComplexes,
+            final List<HlaAllele> recoveredAlleles, final List<HlaSequenceLoci> sequences)
+    {
+        mRecoveredAlleles = recoveredAlleles;
+        mSequences = sequences;
+
+        if(geneComplexes.stream().anyMatch(x -> x.isEmpty()))
+            return Lists.newArrayList();
+
+        List<HlaAllele> alleles = Lists.newArrayList();
+        geneComplexes.forEach(x -> x.forEach(y -> y.Alleles.stream().filter(z -> !alleles.contains(z)).forEach(z -> alleles.add(z))));
+        mFragAlleleMatrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+
+        int geneCount = geneComplexes.size();
+        mRemainingMaxSupport = new int[geneCount + 1];
+        mRemainingMaxFactor = new double[geneCount + 1];
+
+        long complexCount = 1;
+
+        for(List<HlaComplex> complexes : geneComplexes)
+        {
+            List<GeneComplex> geneComplexList = Lists.newArrayListWithCapacity(complexes.size());
+            complexes.forEach(x -> geneComplexList.add(new GeneComplex(x)));
+            geneComplexList.sort(Comparator.comparingInt(x -> -x.SupportCount));
+            mGeneComplexes.add(geneComplexList);
+
+            complexCount *= complexes.size();
+        }
+
+        for(int geneIndex = geneCount - 1; geneIndex >= 0; --geneIndex)
+        {
+            List<GeneComplex> geneComplexList = mGeneComplexes.get(geneIndex);
+
+            mRemainingMaxSupport[geneIndex] = mRemainingMaxSupport[geneIndex + 1] + geneComplexList.get(0).SupportCount;
+
+            mRemainingMaxFactor[geneIndex] = mRemainingMaxFactor[geneIndex + 1]
+                    + geneComplexList.stream().mapToDouble(x -> x.ScoreFactor).max().orElse(0);
+        }
+
+        mCoverageLimit = mRemainingMaxSupport[0] + 1;
+
+        List<GeneComplex> firstGeneComplexes = mGeneComplexes.get(0);
+
+        if(mConfig.Threads <= 1 || complexCount < 10000)
+        {
+            SearchTask searchTask = new SearchTask(firstGeneComplexes);
+            searchTask.call();
+        }
+        else
+        {
+            // distribute the first gene's pairings across tasks, keeping the best-supported pairings at the front of each task
+            List<SearchTask> searchTasks = Lists.newArrayList();
+            List<List<GeneComplex>> taskComplexes = Lists.newArrayList();
+
+            int taskCount = min(mConfig.Threads, firstGeneComplexes.size());
+
+            for(int i = 0; i < taskCount; ++i)
+            {
+                taskComplexes.add(Lists.newArrayList());
+            }
+
+            for(int i = 0; i < firstGeneComplexes.size(); ++i)
+            {
+                taskComplexes.get(i % taskCount).add(firstGeneComplexes.get(i));
+            }
+
+            taskComplexes.forEach(x -> searchTasks.add(new SearchTask(x)));
+
+            if(!runSearchTasks(searchTasks))
+                return Lists.newArrayList();
+        }
+
+        LL_LOGGER.info("complex search evaluated {} of {} complexes", mResults.size(), complexCount);
+
+        return mResults;
+    }
+
+    private boolean runSearchTasks(final List<SearchTask> searchTasks)
+    {
+        final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat("Lilac-%d").build();
+        ExecutorService executorService = Executors.newFixedThreadPool(searchTasks.size(), namedThreadFactory);
+
+        List<FutureTask<Long>> taskList = new ArrayList<>();
+
+        for(SearchTask searchTask : searchTasks)
+        {
+            FutureTask<Long> futureTask = new FutureTask<>(searchTask);
+            taskList.add(futureTask);
+            executorService.execute(futureTask);
+        }
+
+        try
+        {
+            for(FutureTask<Long> futureTask : taskList)
+            {
+                futureTask.get();
+            }
+
+            executorService.shutdown();
+            return true;
+        }
+        catch (Exception e)
+        {
+            LL_LOGGER.error("task execution error: {}", e.toString());
+            e.printStackTrace();
+            executorService.shutdown();
+            return false;
+        }
+    }
+
+    private synchronized boolean canPrune(double maxScore, int maxCoverage)
+    {
+        // until the top 2 complexes are known, any complex may still be ranked
+        if(mMaxScoreDifference <= 0 || mResults.size() < 2 || maxCoverage > mTopCoverage)
+            return false;
+
+        double scoreThreshold = min(mTopScore - mMaxScoreDifference * mCoverageLimit, mSecondScore) - SCORE_MARGIN;
+        return maxScore < scoreThreshold;
+    }
+
+    private synchronized void registerResult(final ComplexCoverage complexCoverage)
+    {
+        mResults.add(complexCoverage);
+
+        double score = complexCoverage.getScore();
+
+        if(mResults.size() == 1 || score > mTopScore)
+        {
+            mSecondScore = mResults.size() == 1 ? score : mTopScore;
+            mTopScore = score;
+        }
+        else if(mResults.size() == 2 || score > mSecondScore)
+        {
+            mSecondScore = score;
+        }
+
+        mTopCoverage = max(mTopCoverage, complexCoverage.TotalCoverage);
+    }
+
+    private class SearchTask implements Callable<Long>
+    {
+        private final List<GeneComplex> mFirstGeneComplexes;
+        private final long[][] mSupportBuffers; // fragments supported by the partial complex, by gene index
+        private final GeneComplex[] mChosen;
+
+        public SearchTask(final List<GeneComplex> firstGeneComplexes)
+        {
+            mFirstGeneComplexes = firstGeneComplexes;
+            mSupportBuffers = new long[mGeneComplexes.size() + 1][mFragAlleleMatrix.wordCount()];
+            mChosen = new GeneComplex[mGeneComplexes.size()];
+        }
+
+        @Override
+        public Long call()
+        {
+            searchGene(0, 0);
+            return (long)0;
+        }
+
+        private void searchGene(int geneIndex, double parentFactor)
+        {
+            List<GeneComplex> geneComplexes = geneIndex == 0 ? mFirstGeneComplexes : mGeneComplexes.get(geneIndex);
+            boolean isLastGene = geneIndex == mGeneComplexes.size() - 1;
+
+            // the root buffer is left empty, and each gene's buffer holds the support of the pairings chosen up to that gene
+            long[] parentSupport = mSupportBuffers[geneIndex];
+            long[] support = mSupportBuffers[geneIndex + 1];
+
+            for(GeneComplex geneComplex : geneComplexes)
+            {
+                int supportCount = 0;
+
+                for(int word = 0; word < support.length; ++word)
+                {
+                    support[word] = parentSupport[word] | geneComplex.Support[word];
+                    supportCount += Long.bitCount(support[word]);
+                }
+
+                double factor = parentFactor + geneComplex.ScoreFactor;
+
+                int maxCoverage = supportCount + mRemainingMaxSupport[geneIndex + 1] + 1;
+                double maxScore = maxCoverage * max(1 + factor + mRemainingMaxFactor[geneIndex + 1], 0);
+
+                if(canPrune(maxScore, maxCoverage))
+                    continue;
+
+                mChosen[geneIndex] = geneComplex;
+
+                if(isLastGene)
+                    evaluateComplex();
+                else
+                    searchGene(geneIndex + 1, factor);
+            }
+        }
+
+        private void evaluateComplex()
+        {
+            List<HlaAllele> alleles = Lists.newArrayList();
+
+            for(GeneComplex geneComplex : mChosen)
+            {
+                alleles.addAll(geneComplex.Complex.Alleles);
+            }
+
+            ComplexCoverage complexCoverage = ComplexCoverage.create(mFragAlleleMatrix.create(new HlaComplex(alleles)));
+            mRanker.scoreComplex(complexCoverage, mRecoveredAlleles, mSequences);
+            registerResult(complexCoverage);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.lilac.coverage;
 
-import static com.hartwig.hmftools.lilac.LilacConfig.LL_LOGGER;
-
 import java.util.List;
 import java.util.Map;
 
@@ -9,6 +7,9 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.lilac.hla.HlaAllele;
 
+// full and wild support of each fragment for each allele, held as a pair of bitsets per allele with a bit per fragment
+// complex coverage is calculated a word of fragments at a time, by counting the supporting alleles of each fragment with a
+// bit-sliced adder, then taking popcounts of each allele's support against the fragments with each total support count
 public class FragmentAlleleMatrix
 {
     private final List<FragmentAlleles> mFragmentAlleles;
@@ -18,20 +19,14 @@ public class FragmentAlleleMatrix
 
     private final int mAlleleCount;
     private final int mFragCount;
+    private final int mWordCount;
 
-    private final SupportType[][] mMatrix;
-
-    private static int FULL = 0;
-    private static int WILD = 1;
-    private static int ITEMS = WILD + 1;
+    private final long[][] mFullSupport; // by allele then fragment word
+    private final long[][] mWildSupport;
 
-    private enum SupportType
-    {
-        FULL,
-        WILD,
-        BOTH,
-        NONE;
-    }
+    // support counts per fragment are held in 4 bit planes, allowing complexes of up to 7 alleles
+    private static final int COUNT_PLANES = 4;
+    private static final int MAX_SUPPORT_COUNT = (1 << COUNT_PLANES) - 1;
 
     public FragmentAlleleMatrix(final List<FragmentAlleles> fragmentAlleles, final List<HlaAllele> alleles)
     {
@@ -42,16 +37,10 @@ public class FragmentAlleleMatrix
 
         mAlleleCount = alleles.size();
         mFragCount = fragmentAlleles.size();
+        mWordCount = (mFragCount + Long.SIZE - 1) / Long.SIZE;
 
-        mMatrix = new SupportType[mFragCount][mAlleleCount];
-
-        for(int f = 0; f < mFragCount; ++f)
-        {
-            for(int a = 0; a < mAlleleCount; ++a)
-            {
-                mMatrix[f][a] = SupportType.NONE;
-            }
-        }
+        mFullSupport = new long[mAlleleCount][mWordCount];
+        mWildSupport = new long[mAlleleCount][mWordCount];
 
         buildAlleleFragmentMatrix();
     }
@@ -68,6 +57,9 @@ public class FragmentAlleleMatrix
         {
             FragmentAlleles fragment = mFragmentAlleles.get(fragIndex);
 
+            int word = fragIndex / Long.SIZE;
+            long fragBit = 1L << (fragIndex % Long.SIZE);
+
             for(HlaAllele allele : fragment.getFull())
             {
                 Integer alleleIndex = mAlleleIndexMap.get(allele);
@@ -75,7 +67,7 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                mMatrix[fragIndex][alleleIndex] = SupportType.FULL;
+                mFullSupport[alleleIndex][word] |= fragBit;
             }
 
             for(HlaAllele allele : fragment.getWild())
@@ -85,28 +77,32 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                if(mMatrix[fragIndex][alleleIndex] == SupportType.FULL)
-                    mMatrix[fragIndex][alleleIndex] = SupportType.BOTH;
-                else
-                    mMatrix[fragIndex][alleleIndex] = SupportType.WILD;
+                mWildSupport[alleleIndex][word] |= fragBit;
             }
         }
     }
 
-    private class AlleleCounts
-    {
-        public final int AlleleIndex;
+    public int wordCount() { return mWordCount; }
 
-        public boolean Full = false;
-        public boolean Wild = false;
-        public int UniqueCoverage = 0;
-        public double CombinedCoverage = 0;
-        public double WildCoverage = 0;
+    public long[] supportBits(final List<HlaAllele> alleles)
+    {
+        // fragments with full or wild support from any of the alleles
+        long[] support = new long[mWordCount];
 
-        public AlleleCounts(int alleleIndex)
+        for(HlaAllele allele : alleles)
         {
-            AlleleIndex = alleleIndex;
+            Integer alleleIndex = mAlleleIndexMap.get(allele);
+
+            if(alleleIndex == null)
+                continue;
+
+            for(int word = 0; word < mWordCount; ++word)
+            {
+                support[word] |= mFullSupport[alleleIndex][word] | mWildSupport[alleleIndex][word];
+            }
         }
+
+        return support;
     }
 
     public List<AlleleCoverage> create(final HlaComplex complex)
@@ -114,7 +110,8 @@ public class FragmentAlleleMatrix
         List<HlaAllele> alleles = complex.Alleles;
         int alleleCount = alleles.size();
 
-        AlleleCounts[] alleleCounts = new AlleleCounts[alleleCount];
+        long[][] fullSupport = new long[alleleCount][];
+        long[][] wildSupport = new long[alleleCount][];
 
         for(int i = 0; i < alleleCount; ++i)
         {
@@ -122,57 +119,67 @@ public class FragmentAlleleMatrix
             if(alleleIndex == null)
                 return Lists.newArrayList();
 
-            alleleCounts[i] = new AlleleCounts(alleleIndex);
+            fullSupport[i] = mFullSupport[alleleIndex];
+            wildSupport[i] = mWildSupport[alleleIndex];
         }
 
-        for(int fragIndex = 0; fragIndex < mFragCount; ++fragIndex)
+        int maxSupportCount = alleleCount * 2;
+
+        if(maxSupportCount > MAX_SUPPORT_COUNT)
+            throw new IllegalArgumentException(String.format("complex allele count(%d) exceeds matrix limit", alleleCount));
+
+        // fragment counts for each allele by the total full and wild support of the fragment
+        int[] uniqueCounts = new int[alleleCount];
+        int[][] fullCounts = new int[alleleCount][maxSupportCount + 1];
+        int[][] wildCounts = new int[alleleCount][maxSupportCount + 1];
+
+        long[] countPlanes = new long[COUNT_PLANES];
+
+        for(int word = 0; word < mWordCount; ++word)
         {
-            int fullCount = 0;
-            int fullAlleleIndex = -1;
-            int wildCount = 0;
+            long anySupport = 0;
+
+            for(int p = 0; p < COUNT_PLANES; ++p)
+            {
+                countPlanes[p] = 0;
+            }
 
             for(int i = 0; i < alleleCount; ++i)
             {
-                alleleCounts[i].Full = false;
-                alleleCounts[i].Wild = false;
+                long full = fullSupport[i][word];
+                long wild = wildSupport[i][word];
+                anySupport |= full | wild;
 
-                int alleleIndex = alleleCounts[i].AlleleIndex;
+                addToCount(countPlanes, full);
+                addToCount(countPlanes, wild);
+            }
 
-                SupportType supportType = mMatrix[fragIndex][alleleIndex];
+            if(anySupport == 0)
+                continue;
 
-                if(supportType == SupportType.FULL || supportType == SupportType.BOTH)
-                {
-                    alleleCounts[i].Full = true;
-                    ++fullCount;
-                    fullAlleleIndex = i;
-                }
+            for(int supportCount = 1; supportCount <= maxSupportCount; ++supportCount)
+            {
+                long countMask = anySupport;
 
-                if(supportType == SupportType.WILD || supportType == SupportType.BOTH)
+                for(int p = 0; p < COUNT_PLANES; ++p)
                 {
-                    alleleCounts[i].Wild = true;
-                    ++wildCount;
+                    countMask &= ((supportCount >> p) & 1) != 0 ? countPlanes[p] : ~countPlanes[p];
                 }
-            }
 
-            if(fullCount == 1 && wildCount == 0)
-            {
-                ++alleleCounts[fullAlleleIndex].UniqueCoverage;
-            }
-            else if(fullCount > 0 || wildCount > 0)
-            {
-                double contribution = 1.0 / (fullCount + wildCount);
+                if(countMask == 0)
+                    continue;
 
                 for(int i = 0; i < alleleCount; ++i)
                 {
-                    if(alleleCounts[i].Full)
-                    {
-                        alleleCounts[i].CombinedCoverage += contribution;
-                    }
-
-                    if(alleleCounts[i].Wild)
-                    {
-                        alleleCounts[i].WildCoverage += contribution;
-                    }
+                    int fullCount = Long.bitCount(fullSupport[i][word] & countMask);
+
+                    // a fragment with only a single full allele's support is unique to that allele
+                    if(supportCount == 1)
+                        uniqueCounts[i] += fullCount;
+                    else
+                        fullCounts[i][supportCount] += fullCount;
+
+                    wildCounts[i][supportCount] += Long.bitCount(wildSupport[i][word] & countMask);
                 }
             }
         }
@@ -181,10 +188,32 @@ public class FragmentAlleleMatrix
 
         for(int i = 0; i < alleleCount; ++i)
         {
-            alleleCoverages.add(new AlleleCoverage(
-                    alleles.get(i), alleleCounts[i].UniqueCoverage, alleleCounts[i].CombinedCoverage, alleleCounts[i].WildCoverage));
+            double combinedCoverage = 0;
+            double wildCoverage = 0;
+
+            for(int supportCount = 1; supportCount <= maxSupportCount; ++supportCount)
+            {
+                double contribution = 1.0 / supportCount;
+                combinedCoverage += fullCounts[i][supportCount] * contribution;
+                wildCoverage += wildCounts[i][supportCount] * contribution;
+            }
+
+            alleleCoverages.add(new AlleleCoverage(alleles.get(i), uniqueCounts[i], combinedCoverage, wildCoverage));
         }
 
         return alleleCoverages;
     }
+
+    private static void addToCount(final long[] countPlanes, long bits)
+    {
+        // ripple-carry add of a single bit per fragment to the per-fragment counts
+        long carry = bits;
+
+        for(int p = 0; p < COUNT_PLANES && carry != 0; ++p)
+        {
+            long nextCarry = countPlanes[p] & carry;
+            countPlanes[p] ^= carry;
+            carry = nextCarry;
+        }
+    }
 }
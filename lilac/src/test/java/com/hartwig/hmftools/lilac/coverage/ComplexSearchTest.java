@@ -0,0 +1,78 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static com.hartwig.hmftools.lilac.LilacConstants.GENE_IDS;
+import static com.hartwig.hmftools.lilac.coverage.ComplexBuilder.buildComplexesByGene;
+import static com.hartwig.hmftools.lilac.coverage.ComplexBuilder.combineComplexes;
+import static com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixTest.syntheticAlleles;
+import static com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixTest.syntheticFragmentAlleles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.lilac.LilacConfig;
+import com.hartwig.hmftools.lilac.ReferenceData;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+import com.hartwig.hmftools.lilac.seq.HlaSequenceLoci;
+
+import org.junit.Test;
+
+public class ComplexSearchTest
+{
+    @Test
+    public void testSearchMatchesFullRanking()
+    {
+        LilacConfig config = new LilacConfig("SAMPLE_ID");
+        ReferenceData refData = new ReferenceData("", config);
+
+        List<HlaAllele> alleles = syntheticAlleles(7);
+
+        // give some alleles a cohort frequency so scores differ by more than coverage alone
+        for(int i = 0; i < alleles.size(); i += 3)
+        {
+            refData.getAlleleFrequencies().getAlleleFrequencies().put(alleles.get(i), 0.01 * (i + 1));
+        }
+
+        List<HlaAllele> recoveredAlleles = Lists.newArrayList(alleles.get(1), alleles.get(9));
+        List<HlaSequenceLoci> sequences = Lists.newArrayList();
+
+        for(long seed = 1; seed <= 5; ++seed)
+        {
+            List<FragmentAlleles> fragmentAlleles = syntheticFragmentAlleles(alleles, 1500, seed);
+
+            List<List<HlaComplex>> geneComplexes = GENE_IDS.stream()
+                    .map(x -> buildComplexesByGene(x, Lists.newArrayList(), alleles)).collect(Collectors.toList());
+
+            List<HlaComplex> allComplexes = combineComplexes(
+                    combineComplexes(geneComplexes.get(0), geneComplexes.get(1)), geneComplexes.get(2));
+
+            FragmentAlleleMatrix matrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+
+            List<ComplexCoverage> allCoverages = allComplexes.stream()
+                    .map(x -> ComplexCoverage.create(matrix.create(x))).collect(Collectors.toList());
+
+            List<ComplexCoverage> expected = new ComplexCoverageRanking(config.TopScoreThreshold, refData)
+                    .rankCandidates(allCoverages, recoveredAlleles, sequences);
+
+            ComplexSearch complexSearch = new ComplexSearch(config, refData);
+            List<ComplexCoverage> searchCoverages = complexSearch.findComplexes(fragmentAlleles, geneComplexes, recoveredAlleles, sequences);
+
+            assertTrue(searchCoverages.size() < allComplexes.size());
+
+            List<ComplexCoverage> actual = new ComplexCoverageRanking(config.TopScoreThreshold, refData)
+                    .rankCandidates(searchCoverages, recoveredAlleles, sequences);
+
+            assertEquals(expected.size(), actual.size());
+
+            for(int i = 0; i < expected.size(); ++i)
+            {
+                assertEquals(expected.get(i).getAlleles(), actual.get(i).getAlleles());
+                assertEquals(expected.get(i).TotalCoverage, actual.get(i).TotalCoverage);
+                assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-9);
+            }
+        }
+    }
+}
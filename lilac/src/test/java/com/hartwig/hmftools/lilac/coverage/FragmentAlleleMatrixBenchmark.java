@@ -0,0 +1,75 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixTest.syntheticAlleles;
+import static com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixTest.syntheticComplexes;
+import static com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixTest.syntheticFragmentAlleles;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// times complex coverage calculation from the fragment-allele matrix, over synthetic fragments and candidate alleles of a size
+// typical of a sample after allele and fragment filtering
+// run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hartwig.hmftools.lilac.coverage.FragmentAlleleMatrixBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class FragmentAlleleMatrixBenchmark
+{
+    @Param({ "20000" })
+    public int FragmentCount;
+
+    @Param({ "1000" })
+    public int ComplexCount;
+
+    private static final int ALLELES_PER_GENE = 40;
+
+    private FragmentAlleleMatrix mMatrix;
+    private List<HlaComplex> mComplexes;
+
+    @Setup
+    public void setup()
+    {
+        List<HlaAllele> alleles = syntheticAlleles(ALLELES_PER_GENE);
+        List<FragmentAlleles> fragmentAlleles = syntheticFragmentAlleles(alleles, FragmentCount, 42);
+        mMatrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+        mComplexes = syntheticComplexes(alleles, ComplexCount, 7);
+    }
+
+    @Benchmark
+    public void complexCoverage(final Blackhole blackhole)
+    {
+        for(HlaComplex complex : mComplexes)
+        {
+            blackhole.consume(ComplexCoverage.create(mMatrix.create(complex)));
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(FragmentAlleleMatrixBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,174 @@
+package com.hartwig.hmftools.lilac.coverage;
+
+import static com.hartwig.hmftools.lilac.misc.LilacTestUtils.createFragment;
+
+import static junit.framework.TestCase.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.lilac.hla.HlaAllele;
+
+import org.junit.Test;
+
+public class FragmentAlleleMatrixTest
+{
+    @Test
+    public void testMatrixMatchesFragmentScan()
+    {
+        List<HlaAllele> alleles = syntheticAlleles(30);
+        List<FragmentAlleles> fragmentAlleles = syntheticFragmentAlleles(alleles, 1000, 42);
+
+        FragmentAlleleMatrix matrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+
+        for(HlaComplex complex : syntheticComplexes(alleles, 200, 7))
+        {
+            List<AlleleCoverage> expected = calcFragmentCoverage(fragmentAlleles, complex);
+            List<AlleleCoverage> actual = matrix.create(complex);
+
+            assertEquals(expected.size(), actual.size());
+
+            for(int i = 0; i < expected.size(); ++i)
+            {
+                assertEquals(expected.get(i).Allele, actual.get(i).Allele);
+                assertEquals(expected.get(i).UniqueCoverage, actual.get(i).UniqueCoverage);
+                assertEquals(expected.get(i).SharedCoverage, actual.get(i).SharedCoverage, 1e-9);
+                assertEquals(expected.get(i).WildCoverage, actual.get(i).WildCoverage, 1e-9);
+            }
+        }
+
+        // an allele outside the matrix gives no coverage
+        HlaComplex unknownComplex = new HlaComplex(Lists.newArrayList(alleles.get(0), HlaAllele.fromString("C*99:99")));
+        assertEquals(0, matrix.create(unknownComplex).size());
+    }
+
+    // reference calculation, assessing each fragment's support for the complex's alleles in turn
+    private static List<AlleleCoverage> calcFragmentCoverage(final List<FragmentAlleles> fragmentAlleles, final HlaComplex complex)
+    {
+        int alleleCount = complex.Alleles.size();
+        int[] uniqueCoverage = new int[alleleCount];
+        double[] combinedCoverage = new double[alleleCount];
+        double[] wildCoverage = new double[alleleCount];
+
+        for(FragmentAlleles fragment : fragmentAlleles)
+        {
+            int fullCount = 0;
+            int wildCount = 0;
+            int fullAlleleIndex = -1;
+
+            for(int i = 0; i < alleleCount; ++i)
+            {
+                if(fragment.getFull().contains(complex.Alleles.get(i)))
+                {
+                    ++fullCount;
+                    fullAlleleIndex = i;
+                }
+
+                if(fragment.getWild().contains(complex.Alleles.get(i)))
+                    ++wildCount;
+            }
+
+            if(fullCount == 1 && wildCount == 0)
+            {
+                ++uniqueCoverage[fullAlleleIndex];
+            }
+            else if(fullCount > 0 || wildCount > 0)
+            {
+                double contribution = 1.0 / (fullCount + wildCount);
+
+                for(int i = 0; i < alleleCount; ++i)
+                {
+                    if(fragment.getFull().contains(complex.Alleles.get(i)))
+                        combinedCoverage[i] += contribution;
+
+                    if(fragment.getWild().contains(complex.Alleles.get(i)))
+                        wildCoverage[i] += contribution;
+                }
+            }
+        }
+
+        List<AlleleCoverage> alleleCoverages = Lists.newArrayList();
+
+        for(int i = 0; i < alleleCount; ++i)
+        {
+            alleleCoverages.add(new AlleleCoverage(complex.Alleles.get(i), uniqueCoverage[i], combinedCoverage[i], wildCoverage[i]));
+        }
+
+        return alleleCoverages;
+    }
+
+    public static List<HlaAllele> syntheticAlleles(int allelesPerGene)
+    {
+        List<HlaAllele> alleles = Lists.newArrayList();
+
+        for(String gene : new String[] { "A", "B", "C" })
+        {
+            for(int i = 1; i <= allelesPerGene; ++i)
+            {
+                alleles.add(HlaAllele.fromString(String.format("%s*%02d:%02d", gene, i / 10 + 1, i % 10 + 1)));
+            }
+        }
+
+        return alleles;
+    }
+
+    public static List<FragmentAlleles> syntheticFragmentAlleles(final List<HlaAllele> alleles, int fragmentCount, long seed)
+    {
+        // each fragment supports a few alleles of one gene, mostly with full support and occasionally with wildcard support
+        Random random = new Random(seed);
+        int allelesPerGene = alleles.size() / 3;
+
+        List<FragmentAlleles> fragmentAlleles = Lists.newArrayListWithCapacity(fragmentCount);
+
+        for(int f = 0; f < fragmentCount; ++f)
+        {
+            int geneOffset = random.nextInt(3) * allelesPerGene;
+            List<HlaAllele> full = Lists.newArrayList();
+            List<HlaAllele> wild = Lists.newArrayList();
+
+            int supportCount = 1 + random.nextInt(5);
+
+            for(int i = 0; i < supportCount; ++i)
+            {
+                HlaAllele allele = alleles.get(geneOffset + random.nextInt(allelesPerGene));
+
+                if(full.contains(allele) || wild.contains(allele))
+                    continue;
+
+                if(random.nextDouble() < 0.2)
+                    wild.add(allele);
+                else
+                    full.add(allele);
+            }
+
+            fragmentAlleles.add(new FragmentAlleles(createFragment(String.valueOf(f)), full, wild));
+        }
+
+        return fragmentAlleles;
+    }
+
+    public static List<HlaComplex> syntheticComplexes(final List<HlaAllele> alleles, int complexCount, long seed)
+    {
+        // two alleles per gene, which may be homozygous
+        Random random = new Random(seed);
+        int allelesPerGene = alleles.size() / 3;
+
+        List<HlaComplex> complexes = Lists.newArrayListWithCapacity(complexCount);
+
+        for(int c = 0; c < complexCount; ++c)
+        {
+            List<HlaAllele> complexAlleles = Lists.newArrayList();
+
+            for(int g = 0; g < 3; ++g)
+            {
+                complexAlleles.add(alleles.get(g * allelesPerGene + random.nextInt(allelesPerGene)));
+                complexAlleles.add(alleles.get(g * allelesPerGene + random.nextInt(allelesPerGene)));
+            }
+
+            complexes.add(new HlaComplex(complexAlleles));
+        }
+
+        return complexes;
+    }
+}
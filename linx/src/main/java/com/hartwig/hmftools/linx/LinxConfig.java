@@ -54,6 +54,8 @@ public class LinxConfig
     public final String FragileSiteFile;
     public final String LineElementFile;
     public final int ChainingSvLimit; // for analysis and chaining
+    public final int ChainingStepLimit; // per-cluster budgets for chaining, after which only assembled links are chained
+    public final double ChainingTimeLimit;
     public final boolean IsGermline;
 
     public boolean LogVerbose;
@@ -80,6 +82,8 @@ public class LinxConfig
     // clustering analysis options
     private static final String CLUSTER_BASE_DISTANCE = "proximity_distance";
     private static final String CHAINING_SV_LIMIT = "chaining_sv_limit";
+    private static final String CHAINING_STEP_LIMIT = "chaining_step_limit";
+    private static final String CHAINING_TIME_LIMIT = "chaining_time_limit";
     private static final String ANNOTATION_EXTENSIONS = "annotations";
     private static final String FAIL_ON_MISSING_SAMPLE = "fail_on_missing";
 
@@ -165,6 +169,8 @@ public class LinxConfig
         Threads = parseThreads(configBuilder);
 
         ChainingSvLimit = configBuilder.getInteger(CHAINING_SV_LIMIT);
+        ChainingStepLimit = configBuilder.getInteger(CHAINING_STEP_LIMIT);
+        ChainingTimeLimit = configBuilder.getDecimal(CHAINING_TIME_LIMIT);
 
         RestrictedGeneIds = Lists.newArrayList();
         if(configBuilder.hasValue(GENE_ID_FILE))
@@ -243,6 +249,8 @@ public class LinxConfig
         LogVerbose = false;
         Output = new LinxOutput();
         ChainingSvLimit = 0;
+        ChainingStepLimit = 0;
+        ChainingTimeLimit = 0;
         DriverGenes = Lists.newArrayList();
         RestrictedGeneIds = Lists.newArrayList();
         RunDrivers = true;
@@ -266,6 +274,8 @@ public class LinxConfig
 
         configBuilder.addInteger(CLUSTER_BASE_DISTANCE, "Clustering base distance", DEFAULT_PROXIMITY_DISTANCE);
         configBuilder.addInteger(CHAINING_SV_LIMIT, "Max cluster size for chaining", 0);
+        configBuilder.addInteger(CHAINING_STEP_LIMIT, "Max linking steps per cluster before only chaining assembled links", 0);
+        configBuilder.addDecimal(CHAINING_TIME_LIMIT, "Max chaining time per cluster in seconds before only chaining assembled links", 0);
         configBuilder.addConfigItem(ANNOTATION_EXTENSIONS, "String list of annotations");
 
         configBuilder.addPath(GENE_ID_FILE, false, GENE_ID_FILE_DESC);
@@ -134,6 +134,9 @@ public class SampleAnalyser implements Callable
         mPerfCounters.put(PERF_COUNTER_WRITE, new PerformanceCounter(PERF_COUNTER_WRITE));
         mPerfCounters.put(PERF_COUNTER_ANNOTATE, new PerformanceCounter(PERF_COUNTER_ANNOTATE));
 
+        PerformanceCounter chainingPc = mAnalyser.getClusterChainingPerfCounter();
+        mPerfCounters.put(chainingPc.getName(), chainingPc);
+
         if(mConfig.RunFusions)
         {
             PerformanceCounter fusionPc = mFusionAnalyser.getPerfCounter();
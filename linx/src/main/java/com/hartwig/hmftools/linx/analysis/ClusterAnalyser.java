@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.linx.analysis;
 
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
 import static com.hartwig.hmftools.linx.analysis.AnnotationExtension.UNDER_CLUSTERING;
 import static com.hartwig.hmftools.linx.analysis.ClusterAnnotations.annotateClusterChains;
@@ -13,8 +15,7 @@ import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.associateBreaken
 import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.populateChromosomeBreakendMap;
 import static com.hartwig.hmftools.linx.analysis.ClusteringPrep.setSimpleVariantLengths;
 import static com.hartwig.hmftools.linx.analysis.SimpleClustering.checkClusterDuplicates;
-import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.DELETED_TOTAL;
-import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.RANGE_TOTAL;
+import static com.hartwig.hmftools.linx.analysis.ClusterChainingTask.clusterIntervalName;
 import static com.hartwig.hmftools.linx.chaining.LinkFinder.createAssemblyLinkedPairs;
 import static com.hartwig.hmftools.linx.types.ArmCluster.buildArmClusters;
 import static com.hartwig.hmftools.linx.types.ResolvedType.LINE;
@@ -22,12 +23,17 @@ import static com.hartwig.hmftools.linx.types.ResolvedType.NONE;
 import static com.hartwig.hmftools.linx.types.ResolvedType.SIMPLE_GRP;
 import static com.hartwig.hmftools.linx.types.SvCluster.CLUSTER_ANNOT_DM;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.linx.CohortDataWriter;
 import com.hartwig.hmftools.linx.LinxConfig;
 import com.hartwig.hmftools.linx.annotators.LineElementAnnotator;
@@ -56,11 +62,14 @@ public class ClusterAnalyser {
     private final List<SvCluster> mArtifactClusters; // excluded from all analysis, but written as output
     private final List<SvVarData> mAllVariants;
     private final ChainFinder mChainFinder;
+    private final CohortDataWriter mCohortDataWriter;
+    private int mChainingThreads;
 
     private boolean mRunValidationChecks;
 
     PerformanceCounter mPcClustering;
     PerformanceCounter mPcChaining;
+    PerformanceCounter mPcClusterChaining; // per-cluster times from full chaining
 
     private static final int SMALL_CLUSTER_SIZE = 3;
 
@@ -79,6 +88,8 @@ public class ClusterAnalyser {
         mLineElementAnnotator = null;
         mSampleId = "";
         mAllVariants = Lists.newArrayList();
+        mCohortDataWriter = cohortDataWriter;
+        mChainingThreads = config.Threads;
         mChainFinder = new ChainFinder(cohortDataWriter);
         mDmFinder = new DoubleMinuteFinder(config, cohortDataWriter, mState.getChrBreakendMap());
         mBfbFinder = new BfbFinder();
@@ -87,12 +98,14 @@ public class ClusterAnalyser {
             mChainFinder.initialiseOutput(mConfig);
 
         mChainFinder.setUseAllelePloidies(true); // can probably remove and assume always in place
+        mChainFinder.setChainingLimits(mConfig.ChainingStepLimit, mConfig.ChainingTimeLimit);
         mChainFinder.setLogVerbose(mConfig.LogVerbose);
 
         mRunValidationChecks = false; // enabled in unit tests and after changes to merging-rule flow
 
         mPcClustering = new PerformanceCounter("Clustering");
         mPcChaining = new PerformanceCounter("Chaining");
+        mPcClusterChaining = new PerformanceCounter("ClusterChaining");
     }
 
     public final ClusteringState getState() { return mState; }
@@ -119,8 +132,10 @@ public class ClusterAnalyser {
     // access for unit testing
     public final ChainFinder getChainFinder() { return mChainFinder; }
     public final DoubleMinuteFinder getDoubleMinuteFinder() { return mDmFinder; }
+    public final PerformanceCounter getClusterChainingPerfCounter() { return mPcClusterChaining; }
 
     public void setRunValidationChecks(boolean toggle) { mRunValidationChecks = toggle; }
+    public void setChainingThreads(int threads) { mChainingThreads = threads; }
 
     public void setSampleData(final String sampleId, List<SvVarData> allVariants)
     {
@@ -211,7 +226,13 @@ public class ClusterAnalyser {
         mPcClustering.stop();
 
         mPcChaining.resume();
-        findLinksAndChains();
+
+        if(!findLinksAndChains())
+        {
+            LNX_LOGGER.error("sample({}) exiting with cluster-chaining errors", mSampleId);
+            return false;
+        }
+
         dissolveSimpleGroups();
         mPcChaining.stop();
 
@@ -354,8 +375,10 @@ public class ClusterAnalyser {
         }
     }
 
-    private void findLinksAndChains()
+    private boolean findLinksAndChains()
     {
+        List<SvCluster> chainingClusters = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(cluster.getResolvedType() == LINE) // only simple assembly links for LINE clusters
@@ -380,12 +403,65 @@ public class ClusterAnalyser {
 
             // no need to re-find assembled TIs
 
-            // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, false);
+            chainingClusters.add(cluster);
+        }
+
+        // then look for fully-linked clusters, ie chains involving all SVs
+        if(useConcurrentChaining(chainingClusters))
+        {
+            if(!findChainsConcurrently(chainingClusters))
+                return false;
+        }
+        else
+        {
+            for(SvCluster cluster : chainingClusters)
+            {
+                mPcClusterChaining.start(clusterIntervalName(cluster));
+                findChains(cluster, false);
+                mPcClusterChaining.stop();
+            }
+        }
 
+        // resolve in cluster order regardless of the order in which chaining completed
+        for(SvCluster cluster : chainingClusters)
+        {
             setClusterResolvedState(cluster, true);
             cluster.logDetails();
         }
+
+        return true;
+    }
+
+    private boolean useConcurrentChaining(final List<SvCluster> chainingClusters)
+    {
+        // multi-sample runs are already parallelised by sample, and verbose logging changes the global log level during chaining
+        return mChainingThreads > 1 && !mConfig.hasMultipleSamples() && !mConfig.LogVerbose && chainingClusters.size() > 1;
+    }
+
+    private boolean findChainsConcurrently(final List<SvCluster> chainingClusters)
+    {
+        // clusters share no chaining state, so each task takes the next cluster off the queue - largest first to limit the tail
+        Queue<SvCluster> clusterQueue = new ConcurrentLinkedQueue<>();
+        chainingClusters.stream().sorted(Comparator.comparingInt(SvCluster::getSvCount).reversed()).forEach(x -> clusterQueue.add(x));
+
+        int threads = min(mChainingThreads, chainingClusters.size());
+
+        List<ClusterChainingTask> chainingTasks = Lists.newArrayList();
+
+        for(int i = 0; i < threads; ++i)
+        {
+            chainingTasks.add(new ClusterChainingTask(mConfig, mSampleId, clusterQueue, mCohortDataWriter));
+        }
+
+        LNX_LOGGER.debug("sample({}) chaining {} clusters across {} threads", mSampleId, chainingClusters.size(), threads);
+
+        final List<Callable> callableList = chainingTasks.stream().collect(Collectors.toList());
+
+        if(!TaskExecutor.executeTasks(callableList, threads))
+            return false;
+
+        chainingTasks.forEach(x -> mPcClusterChaining.merge(x.getPerfCounter()));
+        return true;
     }
 
     private void dissolveSimpleGroups()
@@ -423,31 +499,7 @@ public class ClusterAnalyser {
 
     private void findChains(SvCluster cluster, boolean assembledLinksOnly)
     {
-        if(mConfig.ChainingSvLimit > 0 && cluster.getSvCount() > mConfig.ChainingSvLimit)
-        {
-            LNX_LOGGER.debug("sample({}) skipping chaining large cluster({}) with SV count({})",
-                    mSampleId, cluster.id(), cluster.getSvCount());
-            return;
-        }
-
-        cluster.getChains().clear();
-        mChainFinder.initialise(cluster);
-        mChainFinder.formChains(assembledLinksOnly);
-        mChainFinder.addChains(cluster);
-
-        if(!assembledLinksOnly)
-            mChainFinder.getDiagnostics().diagnoseChains();
-
-        final long[] rangeData = mChainFinder.calcRangeData();
-
-        if(rangeData != null)
-        {
-            cluster.getMetrics().ValidAlleleJcnSegmentPerc = mChainFinder.getValidAllelePloidySegmentPerc();
-            cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
-            cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
-        }
-
-        mChainFinder.clear(); // release any refs to clusters and SVs
+        ClusterChainingTask.findChains(mConfig, mSampleId, mChainFinder, cluster, assembledLinksOnly);
     }
 
     public void annotateClusters()
@@ -486,6 +538,7 @@ public class ClusterAnalyser {
     {
         mPcClustering.logStats();
         mPcChaining.logStats();
+        mPcClusterChaining.logIntervalStats();
     }
 
 }
@@ -0,0 +1,109 @@
+package com.hartwig.hmftools.linx.analysis;
+
+import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
+import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.DELETED_TOTAL;
+import static com.hartwig.hmftools.linx.chaining.ChainJcnLimits.RANGE_TOTAL;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.linx.CohortDataWriter;
+import com.hartwig.hmftools.linx.LinxConfig;
+import com.hartwig.hmftools.linx.chaining.ChainFinder;
+import com.hartwig.hmftools.linx.types.SvCluster;
+
+// chains clusters taken from a shared queue, each task with its own chain-finder state so that independent clusters from the
+// same sample can be chained concurrently - all results are stored on the clusters themselves
+public class ClusterChainingTask implements Callable
+{
+    private final LinxConfig mConfig;
+    private final String mSampleId;
+    private final Queue<SvCluster> mClusters;
+    private final ChainFinder mChainFinder;
+    private final PerformanceCounter mPerfCounter;
+
+    public ClusterChainingTask(
+            final LinxConfig config, final String sampleId, final Queue<SvCluster> clusters, final CohortDataWriter cohortDataWriter)
+    {
+        mConfig = config;
+        mSampleId = sampleId;
+        mClusters = clusters;
+
+        mChainFinder = new ChainFinder(cohortDataWriter);
+
+        if(mConfig.hasMultipleSamples())
+            mChainFinder.initialiseOutput(mConfig);
+
+        mChainFinder.setUseAllelePloidies(true);
+        mChainFinder.setChainingLimits(mConfig.ChainingStepLimit, mConfig.ChainingTimeLimit);
+        mChainFinder.setSampleId(sampleId);
+
+        mPerfCounter = new PerformanceCounter("ClusterChaining");
+    }
+
+    public PerformanceCounter getPerfCounter() { return mPerfCounter; }
+
+    @Override
+    public Long call()
+    {
+        while(true)
+        {
+            SvCluster cluster = mClusters.poll();
+
+            if(cluster == null)
+                break;
+
+            mPerfCounter.start(clusterIntervalName(cluster));
+            findChains(mConfig, mSampleId, mChainFinder, cluster, false);
+            mPerfCounter.stop();
+        }
+
+        return (long)0;
+    }
+
+    public static String clusterIntervalName(final SvCluster cluster)
+    {
+        return String.format("cluster_%d_svs_%d", cluster.id(), cluster.getSvCount());
+    }
+
+    public static void findChains(
+            final LinxConfig config, final String sampleId, final ChainFinder chainFinder, final SvCluster cluster,
+            boolean assembledLinksOnly)
+    {
+        if(config.ChainingSvLimit > 0 && cluster.getSvCount() > config.ChainingSvLimit)
+        {
+            LNX_LOGGER.debug("sample({}) skipping chaining large cluster({}) with SV count({})",
+                    sampleId, cluster.id(), cluster.getSvCount());
+            return;
+        }
+
+        cluster.getChains().clear();
+        chainFinder.initialise(cluster);
+        chainFinder.formChains(assembledLinksOnly);
+
+        if(chainFinder.chainingLimitExceeded())
+        {
+            // fall back to the limited chaining of assembled links only
+            assembledLinksOnly = true;
+            chainFinder.initialise(cluster);
+            chainFinder.formChains(assembledLinksOnly);
+        }
+
+        chainFinder.addChains(cluster);
+
+        if(!assembledLinksOnly)
+            chainFinder.getDiagnostics().diagnoseChains();
+
+        final long[] rangeData = chainFinder.calcRangeData();
+
+        if(rangeData != null)
+        {
+            cluster.getMetrics().ValidAlleleJcnSegmentPerc = chainFinder.getValidAllelePloidySegmentPerc();
+            cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
+            cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
+        }
+
+        chainFinder.clear(); // release any refs to clusters and SVs
+    }
+}
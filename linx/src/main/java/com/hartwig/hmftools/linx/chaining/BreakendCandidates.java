@@ -0,0 +1,55 @@
+package com.hartwig.hmftools.linx.chaining;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.linx.types.LinkedPair;
+import com.hartwig.hmftools.linx.types.SvBreakend;
+
+public class BreakendCandidates
+{
+    public final double Jcn; // unlinked JCN, limited by any chains ending on this breakend
+    public final List<LinkCandidate> Candidates; // in possible-link order, so shortest first
+    public final List<LinkCandidate> JcnMatchCandidates; // those matching or overlapping this breakend's unlinked JCN
+    private double mMaxPairJcn;
+
+    public BreakendCandidates(double jcn)
+    {
+        Jcn = jcn;
+        Candidates = Lists.newArrayList();
+        JcnMatchCandidates = Lists.newArrayList();
+        mMaxPairJcn = 0;
+    }
+
+    public void add(final LinkCandidate candidate)
+    {
+        Candidates.add(candidate);
+
+        if(candidate.JcnMatchType != ProposedLinks.PM_NONE)
+            JcnMatchCandidates.add(candidate);
+
+        mMaxPairJcn = max(mMaxPairJcn, min(Jcn, candidate.OtherJcn));
+    }
+
+    // the highest JCN any of this breakend's links could be made with
+    public double maxPairJcn() { return mMaxPairJcn; }
+
+    public static class LinkCandidate
+    {
+        public final LinkedPair Pair;
+        public final SvBreakend OtherBreakend;
+        public final double OtherJcn;
+        public final String JcnMatchType;
+
+        public LinkCandidate(final LinkedPair pair, final SvBreakend otherBreakend, double otherJcn, final String jcnMatchType)
+        {
+            Pair = pair;
+            OtherBreakend = otherBreakend;
+            OtherJcn = otherJcn;
+            JcnMatchType = jcnMatchType;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.isStart;
 import static com.hartwig.hmftools.common.sv.StructuralVariantType.DEL;
 import static com.hartwig.hmftools.common.sv.StructuralVariantType.INF;
+import static com.hartwig.hmftools.common.utils.PerformanceCounter.NANOS_IN_SECOND;
 import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
 import static com.hartwig.hmftools.linx.analysis.AnnotationExtension.LINE_CHAINS;
 import static com.hartwig.hmftools.linx.analysis.SvUtilities.copyNumbersEqual;
@@ -104,6 +105,11 @@ public class ChainFinder
     private boolean mRunValidation;
     private boolean mUseAlleleJCNs;
 
+    // optional budget on the linking routine per cluster - if exceeded, only assembled links are chained
+    private int mStepLimit;
+    private long mTimeLimitNanos;
+    private boolean mLimitExceeded;
+
     public static final String LR_METHOD_DM_CLOSE = "DM_CLOSE";
 
     // self-analysis only
@@ -145,6 +151,9 @@ public class ChainFinder
         mIsValid = true;
         mSampleId= "";
         mUseAlleleJCNs = false;
+        mStepLimit = 0;
+        mTimeLimitNanos = 0;
+        mLimitExceeded = false;
 
         mDiagnostics = new ChainDiagnostics(
                 cohortDataWriter, mLinkAllocator.getSvConnections(), mLinkAllocator.getSvCompletedConnections(), mChains, mUniqueChains,
@@ -181,6 +190,7 @@ public class ChainFinder
         mReplicatedBreakends.clear();
 
         mIsValid = true;
+        mLimitExceeded = false;
 
         mDiagnostics.clear();
         mLineChainer.clear();
@@ -279,6 +289,16 @@ public class ChainFinder
     public void setRunValidation(boolean toggle) { mRunValidation = toggle; }
     public void setUseAllelePloidies(boolean toggle) { mUseAlleleJCNs = toggle; }
 
+    public void setChainingLimits(int stepLimit, double timeLimitSeconds)
+    {
+        mStepLimit = stepLimit;
+        mTimeLimitNanos = (long)(timeLimitSeconds * NANOS_IN_SECOND);
+    }
+
+    public boolean chainingLimitExceeded() { return mLimitExceeded; }
+
+    public void setUseCandidateCache(boolean toggle) { mRuleSelector.setUseCandidateCache(toggle); }
+
     public final List<SvChain> getUniqueChains()
     {
         return mUniqueChains;
@@ -419,13 +439,27 @@ public class ChainFinder
             mClusterJcnLimits.determineBreakendJCNs();
 
         determinePossibleLinks();
+        mLinkAllocator.initialiseLimitedOptionBreakends();
 
         mDiagnostics.setPriorityData(Lists.newArrayList(mComplexDupCandidates.keySet()), mFoldbacks);
 
         int iterationsWithoutNewLinks = 0; // protection against loops
+        int steps = 0;
+        long startTime = mTimeLimitNanos > 0 ? System.nanoTime() : 0;
 
         while (true)
         {
+            ++steps;
+
+            if((mStepLimit > 0 && steps > mStepLimit) || (mTimeLimitNanos > 0 && System.nanoTime() - startTime > mTimeLimitNanos))
+            {
+                LNX_LOGGER.info("sample({}) cluster({}) svCount({}) chaining exceeded limits after {} steps, links({})",
+                        mSampleId, mClusterId, mSvList.size(), steps - 1, mLinkAllocator.getLinkIndex());
+
+                mLimitExceeded = true;
+                return;
+            }
+
             mLinkAllocator.clearSkippedState();
             int lastAddedIndex = mLinkAllocator.getLinkIndex();
 
@@ -23,10 +23,14 @@ import static com.hartwig.hmftools.linx.chaining.LinkSkipType.JCN_MISMATCH;
 
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.linx.cn.JcnCalcData;
 import com.hartwig.hmftools.linx.types.LinkedPair;
 import com.hartwig.hmftools.linx.types.SvBreakend;
@@ -44,6 +48,16 @@ public class ChainLinkAllocator
     private final List<LinkedPair> mUniquePairs; // cache of unique pairs added through chaining
     private int mNextChainId;
 
+    // indexes maintained as links are made, so that lookups only consider pairs sharing a breakend
+    private final Map<SvBreakend,List<LinkedPair>> mSkippedPairsByBreakend;
+    private final Map<SvBreakend,List<LinkedPair>> mUniquePairsByBreakend;
+
+    // breakends with at most one remaining possible link, in the order the single-option rule evaluates them
+    private final NavigableSet<SvBreakend> mLimitedOptionBreakends;
+
+    // breakends whose unlinked JCN or possible links have changed, so the rule selector can refresh only their link candidates
+    private final Set<SvBreakend> mUpdatedBreakends;
+
     // chaining state for each SV
     private final SvChainConnections mSvConnections;
     private final List<ChainState> mSvCompletedConnections; // fully exhausted SVs are moved into this collection
@@ -69,6 +83,10 @@ public class ChainLinkAllocator
         mSvCompletedConnections = Lists.newArrayList();
         mUniquePairs = Lists.newArrayList();
         mSkippedPairs = Maps.newHashMap();
+        mSkippedPairsByBreakend = Maps.newHashMap();
+        mUniquePairsByBreakend = Maps.newHashMap();
+        mLimitedOptionBreakends = new TreeSet<>(new ChainRuleSelector.BreakendComparator());
+        mUpdatedBreakends = Sets.newHashSet();
         mIsValid = true;
         mNextChainId = 0;
     }
@@ -77,6 +95,8 @@ public class ChainLinkAllocator
     public final List<ChainState> getSvCompletedConnections() { return mSvCompletedConnections; }
 
     public final List<LinkedPair> getUniquePairs() { return mUniquePairs; }
+    public final NavigableSet<SvBreakend> getLimitedOptionBreakends() { return mLimitedOptionBreakends; }
+    public final Set<SvBreakend> getUpdatedBreakends() { return mUpdatedBreakends; }
 
     public int getNextChainId() { return mNextChainId; }
     public int getLinkIndex() { return mLinkIndex; }
@@ -102,9 +122,29 @@ public class ChainLinkAllocator
         mNextChainId = 0;
 
         mUniquePairs.clear();
-        mSkippedPairs.clear();
+        mUniquePairsByBreakend.clear();
+        clearSkippedPairs();
         mSvConnections.clear();
         mSvCompletedConnections.clear();
+        mLimitedOptionBreakends.clear();
+        mUpdatedBreakends.clear();
+    }
+
+    public void initialiseLimitedOptionBreakends()
+    {
+        // called once the possible links have been determined, and then maintained as they are removed
+        mLimitedOptionBreakends.clear();
+        mSvBreakendPossibleLinks.keySet().forEach(x -> updateLimitedOptions(x));
+    }
+
+    private void updateLimitedOptions(final SvBreakend breakend)
+    {
+        List<LinkedPair> possibleLinks = mSvBreakendPossibleLinks.get(breakend);
+
+        if(possibleLinks != null && possibleLinks.size() <= 1)
+            mLimitedOptionBreakends.add(breakend);
+        else
+            mLimitedOptionBreakends.remove(breakend);
     }
 
     public static boolean belowJcnThreshold(final SvVarData var)
@@ -400,7 +440,7 @@ public class ChainLinkAllocator
         {
             if(mChainsSplit)
             {
-                mSkippedPairs.clear(); // any skipped links can now be re-evaluated
+                clearSkippedPairs(); // any skipped links can now be re-evaluated
             }
             else
             {
@@ -409,7 +449,7 @@ public class ChainLinkAllocator
                         .map(x -> x.getKey())
                         .collect(Collectors.toList());
 
-                pairsToRemove.stream().forEach(x -> mSkippedPairs.remove(x));
+                pairsToRemove.stream().forEach(x -> removeSkippedPair(x));
             }
         }
     }
@@ -426,6 +466,8 @@ public class ChainLinkAllocator
 
         LinkedPair newPair = proposedLinks.Links.get(0);
 
+        final Map<SvBreakend,Map<SvChain,Double>> priorOpenBreakendChains = getOpenBreakendChains();
+
         final String topRule = proposedLinks.topRule().toString();
         proposedLinks.Links.forEach(x -> x.setLinkReason(topRule, mLinkIndex));
 
@@ -687,6 +729,7 @@ public class ChainLinkAllocator
 
         // moved to after chain reconciliation so can test whether breakends in open in chains or not
         registerNewLink(proposedLinks);
+        registerChainChanges(priorOpenBreakendChains);
         ++mLinkIndex;
 
         return true;
@@ -896,7 +939,7 @@ public class ChainLinkAllocator
         {
             mJcnLimits.assignLinkJcn(newPair, proposedLink.jcn());
 
-            mSkippedPairs.remove(newPair);
+            removeSkippedPair(newPair);
 
             removeOppositeLinks(newPair);
 
@@ -919,6 +962,9 @@ public class ChainLinkAllocator
                     return;
                 }
 
+                // both breakends' unlinked JCN can depend on the SV's connections
+                addUpdatedBreakends(var);
+
                 boolean beIsStart = breakend.usesStart();
 
                 if(svConn == null || svConn.breakendExhaustedVsMax(beIsStart))
@@ -969,6 +1015,7 @@ public class ChainLinkAllocator
             if(!matchesExistingPair(newPair))
             {
                 mUniquePairs.add(newPair);
+                addPairByBreakend(mUniquePairsByBreakend, newPair);
             }
         }
 
@@ -1036,10 +1083,13 @@ public class ChainLinkAllocator
             return;
 
         mSvBreakendPossibleLinks.remove(breakend);
+        mLimitedOptionBreakends.remove(breakend);
+        mUpdatedBreakends.add(breakend);
 
         for(LinkedPair pair : possibleLinks)
         {
             final SvBreakend otherBreakend = pair.getOtherBreakend(breakend);
+            mUpdatedBreakends.add(otherBreakend);
 
             List<LinkedPair> otherPossibles = mSvBreakendPossibleLinks.get(otherBreakend);
 
@@ -1050,6 +1100,8 @@ public class ChainLinkAllocator
 
             if(otherPossibles.isEmpty())
                 mSvBreakendPossibleLinks.remove(otherBreakend);
+
+            updateLimitedOptions(otherBreakend);
         }
     }
 
@@ -1072,6 +1124,7 @@ public class ChainLinkAllocator
             if(possibleLinks.isEmpty())
             {
                 mSvBreakendPossibleLinks.remove(otherBreakend);
+                mLimitedOptionBreakends.remove(otherBreakend);
                 continue;
             }
 
@@ -1085,16 +1138,59 @@ public class ChainLinkAllocator
                 if(otherPair.hasBreakend(otherBreakend) && otherPair.hasBreakend(otherPairBreakend))
                 {
                     possibleLinks.remove(otherPair);
+                    mUpdatedBreakends.add(otherBreakend);
 
                     if(possibleLinks.isEmpty())
                         mSvBreakendPossibleLinks.remove(otherBreakend);
 
+                    updateLimitedOptions(otherBreakend);
                     break;
                 }
             }
         }
     }
 
+    private void addUpdatedBreakends(final SvVarData var)
+    {
+        mUpdatedBreakends.add(var.getBreakend(true));
+
+        if(!var.isSglBreakend())
+            mUpdatedBreakends.add(var.getBreakend(false));
+    }
+
+    private Map<SvBreakend,Map<SvChain,Double>> getOpenBreakendChains()
+    {
+        // the chains ending on each breakend and the JCN they take from it, which limits its unlinked JCN
+        Map<SvBreakend,Map<SvChain,Double>> openBreakendChains = Maps.newHashMap();
+
+        for(final SvChain chain : mChains)
+        {
+            for(int se = SE_START; se <= SE_END; ++se)
+            {
+                final SvBreakend breakend = chain.getOpenBreakend(se);
+
+                if(breakend != null)
+                    openBreakendChains.computeIfAbsent(breakend, k -> Maps.newHashMap()).merge(chain, chain.jcn(), Double::sum);
+            }
+        }
+
+        return openBreakendChains;
+    }
+
+    private void registerChainChanges(final Map<SvBreakend,Map<SvChain,Double>> priorOpenBreakendChains)
+    {
+        // links can extend, split, replicate or join chains, so compare their open breakends rather than track each change
+        final Map<SvBreakend,Map<SvChain,Double>> openBreakendChains = getOpenBreakendChains();
+
+        for(Map.Entry<SvBreakend,Map<SvChain,Double>> entry : priorOpenBreakendChains.entrySet())
+        {
+            if(!entry.getValue().equals(openBreakendChains.get(entry.getKey())))
+                mUpdatedBreakends.add(entry.getKey());
+        }
+
+        openBreakendChains.keySet().stream().filter(x -> !priorOpenBreakendChains.containsKey(x)).forEach(x -> mUpdatedBreakends.add(x));
+    }
+
     private void checkSvComplete(final ChainState svConn)
     {
         if(svConn.breakendExhausted(true) && (svConn.SV.isSglBreakend() || svConn.breakendExhausted(false)))
@@ -1201,18 +1297,52 @@ public class ChainLinkAllocator
 
     public boolean matchesExistingPair(final LinkedPair pair)
     {
-        for(LinkedPair existingPair : mUniquePairs)
+        return hasMatchingPair(mUniquePairsByBreakend, pair);
+    }
+
+    public boolean hasSkippedPairs(final LinkedPair pair)
+    {
+        return hasMatchingPair(mSkippedPairsByBreakend, pair);
+    }
+
+    private static boolean hasMatchingPair(final Map<SvBreakend,List<LinkedPair>> pairsByBreakend, final LinkedPair pair)
+    {
+        // a matching pair shares both breakends, so only those registered against the first need to be checked
+        List<LinkedPair> pairs = pairsByBreakend.get(pair.firstBreakend());
+        return pairs != null && pairs.stream().anyMatch(x -> x.matches(pair));
+    }
+
+    private static void addPairByBreakend(final Map<SvBreakend,List<LinkedPair>> pairsByBreakend, final LinkedPair pair)
+    {
+        pairsByBreakend.computeIfAbsent(pair.firstBreakend(), k -> Lists.newArrayList()).add(pair);
+
+        if(pair.secondBreakend() != pair.firstBreakend())
+            pairsByBreakend.computeIfAbsent(pair.secondBreakend(), k -> Lists.newArrayList()).add(pair);
+    }
+
+    private void removeSkippedPair(final LinkedPair pair)
+    {
+        if(mSkippedPairs.remove(pair) == null)
+            return;
+
+        for(int se = SE_START; se <= SE_END; ++se)
         {
-            if(pair.matches(existingPair))
-                return true;
-        }
+            List<LinkedPair> pairs = mSkippedPairsByBreakend.get(pair.getBreakend(se));
 
-        return false;
+            if(pairs != null)
+            {
+                pairs.remove(pair);
+
+                if(pairs.isEmpty())
+                    mSkippedPairsByBreakend.remove(pair.getBreakend(se));
+            }
+        }
     }
 
-    public boolean hasSkippedPairs(final LinkedPair pair)
+    private void clearSkippedPairs()
     {
-        return mSkippedPairs.keySet().stream().anyMatch(x -> x.matches(pair));
+        mSkippedPairs.clear();
+        mSkippedPairsByBreakend.clear();
     }
 
     public int getSkippedPairCount(final LinkSkipType type)
@@ -1232,6 +1362,7 @@ public class ChainLinkAllocator
 
         mPairSkipped = true;
         mSkippedPairs.put(pair, type);
+        addPairByBreakend(mSkippedPairsByBreakend, pair);
     }
 
     public void removeSkippedPairs(final List<ProposedLinks> proposedLinks)
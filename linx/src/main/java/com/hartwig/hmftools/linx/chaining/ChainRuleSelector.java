@@ -38,9 +38,12 @@ import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.isStart;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.linx.chaining.BreakendCandidates.LinkCandidate;
 import com.hartwig.hmftools.linx.types.DbPair;
 import com.hartwig.hmftools.linx.types.SvBreakend;
 import com.hartwig.hmftools.linx.types.LinkedPair;
@@ -57,6 +60,11 @@ public class ChainRuleSelector
     private List<FoldbackBreakendPair> mFoldbackBreakendPairs; // a pair of breakends forming a breakend, either chained or single
     private boolean mFoldbacksInitialised;
 
+    // link candidates for each breakend used by the JCN and nearest rules, refreshed only for breakends affected by new links
+    private final Map<SvBreakend,BreakendCandidates> mBreakendCandidates;
+    private final Map<SvBreakend,Set<SvBreakend>> mCandidateDependents; // breakends whose candidates include this breakend
+    private boolean mUseCandidateCache;
+
     // references from chain-finder
     private final Map<SvBreakend,List<LinkedPair>> mSvBreakendPossibleLinks;
     private final ChainJcnLimits mJcnLimits;
@@ -89,8 +97,13 @@ public class ChainRuleSelector
         mRulesToApply = Lists.newArrayList();
         mFoldbackBreakendPairs = Lists.newArrayList();
         mFoldbacksInitialised = false;
+        mBreakendCandidates = Maps.newHashMap();
+        mCandidateDependents = Maps.newHashMap();
+        mUseCandidateCache = true;
     }
 
+    public void setUseCandidateCache(boolean toggle) { mUseCandidateCache = toggle; }
+
     public void initialise(int clusterId, boolean clusterHasReplication)
     {
         mHasReplication = clusterHasReplication;
@@ -118,6 +131,8 @@ public class ChainRuleSelector
 
         mFoldbacksInitialised = false;
         mFoldbackBreakendPairs.clear();
+        mBreakendCandidates.clear();
+        mCandidateDependents.clear();
     }
 
     public List<ProposedLinks> findProposedLinks()
@@ -128,6 +143,8 @@ public class ChainRuleSelector
         // some special cases
         List<ProposedLinks> proposedLinks = Lists.newArrayList();
 
+        refreshBreakendCandidates();
+
         for(int i = 0; i < mRulesToApply.size(); ++i)
         {
             final ChainingRule rule = mRulesToApply.get(i);
@@ -249,9 +266,8 @@ public class ChainRuleSelector
             }
         }
 
-        List<SvBreakend> sortedBreakends = mSvBreakendPossibleLinks.keySet().stream().sorted(new BreakendComparator()).collect(Collectors.toList());
-
-        for(SvBreakend limitingBreakend : sortedBreakends)
+        // the allocator maintains the breakends with a single remaining option as possible links are removed, already sorted
+        for(SvBreakend limitingBreakend : mLinkAllocator.getLimitedOptionBreakends())
         {
             List<LinkedPair> breakendPairs = mSvBreakendPossibleLinks.get(limitingBreakend);
 
@@ -906,7 +922,7 @@ public class ChainRuleSelector
                 return proposedLinks;
         }
 
-        List<LinkedPair> addedLinks = Lists.newArrayList();
+        Set<LinkedPair> addedLinks = Sets.newHashSet();
 
         for(ChainState svConn : mSvConnectionsMap.values())
         {
@@ -925,41 +941,27 @@ public class ChainRuleSelector
                     continue;
 
                 final SvBreakend breakend = var.getBreakend(isStart);
-                final List<LinkedPair> svLinks = mSvBreakendPossibleLinks.get(breakend);
+                final BreakendCandidates candidates = getBreakendCandidates(breakend, breakendPloidy);
 
-                if(svLinks == null)
+                if(candidates == null)
                     continue;
 
                 ProposedLinks bestProposedLink = null;
 
-                for(final LinkedPair pair : svLinks)
+                // only the candidates whose JCN matches or overlaps this breakend's are considered
+                for(final LinkCandidate candidate : candidates.JcnMatchCandidates)
                 {
+                    final LinkedPair pair = candidate.Pair;
+
                     if(mLinkAllocator.hasSkippedPairs(pair))
                         continue;
 
                     if(addedLinks.contains(pair))
                         continue;
 
-                    SvBreakend otherBreakend = pair.getOtherBreakend(breakend);
-
-                    double otherBreakendPloidy = mLinkAllocator.getUnlinkedBreakendCount(otherBreakend, true);
-
-                    if(otherBreakendPloidy == 0)
-                        continue;
-
-                    String ploidyMatch = PM_NONE;
-                    if(copyNumbersEqual(otherBreakendPloidy, breakendPloidy))
-                    {
-                        ploidyMatch = PM_MATCHED;
-                    }
-                    else if(jcnOverlap(var.jcnUncertainty(), breakendPloidy, otherBreakendPloidy, otherBreakend.jcnUncertainty()))
-                    {
-                        ploidyMatch = PM_OVERLAP;
-                    }
-                    else
-                    {
-                        continue;
-                    }
+                    SvBreakend otherBreakend = candidate.OtherBreakend;
+                    double otherBreakendPloidy = candidate.OtherJcn;
+                    String ploidyMatch = candidate.JcnMatchType;
 
                     if(bestProposedLink != null && bestProposedLink.topRule() == JCN_OVERLAP && ploidyMatch != PM_MATCHED)
                     {
@@ -1134,27 +1136,29 @@ public class ChainRuleSelector
                     continue;
 
                 final SvBreakend breakend = var.getBreakend(isStart);
-                final List<LinkedPair> svLinks = mSvBreakendPossibleLinks.get(breakend);
+                final BreakendCandidates candidates = getBreakendCandidates(breakend, breakendPloidy);
+
+                if(candidates == null)
+                    continue;
 
-                breakendPloidy = mLinkAllocator.getUnlinkedBreakendCount(breakend, true);
+                breakendPloidy = candidates.Jcn;
 
-                if(svLinks == null)
+                // skip breakends where no link could reach the current max
+                if(!copyNumbersEqual(currentMaxPloidy, candidates.maxPairJcn()) && candidates.maxPairJcn() < currentMaxPloidy)
                     continue;
 
-                for(final LinkedPair pair : svLinks)
+                for(final LinkCandidate candidate : candidates.Candidates)
                 {
+                    final LinkedPair pair = candidate.Pair;
+
                     if(addedLinks.contains(pair))
                         continue;
 
                     if(mLinkAllocator.hasSkippedPairs(pair))
                         continue;
 
-                    SvBreakend otherBreakend = pair.getOtherBreakend(breakend);
-
-                    double otherBreakendPloidy = mLinkAllocator.getUnlinkedBreakendCount(otherBreakend, true);
-
-                    if(otherBreakendPloidy == 0)
-                        continue;
+                    SvBreakend otherBreakend = candidate.OtherBreakend;
+                    double otherBreakendPloidy = candidate.OtherJcn;
 
                     double minPairPloidy = min(otherBreakendPloidy, breakendPloidy);
 
@@ -1204,25 +1208,22 @@ public class ChainRuleSelector
                         continue;
 
                     final SvBreakend breakend = var.getBreakend(isStart);
+                    final BreakendCandidates candidates = getBreakendCandidates(breakend, breakendPloidy);
 
-                    breakendPloidy = mLinkAllocator.getUnlinkedBreakendCount(breakend, true);
-
-                    final List<LinkedPair> svLinks = mSvBreakendPossibleLinks.get(breakend);
-
-                    if(svLinks == null)
+                    if(candidates == null)
                         continue;
 
-                    for(final LinkedPair pair : svLinks)
+                    breakendPloidy = candidates.Jcn;
+
+                    for(final LinkCandidate candidate : candidates.Candidates)
                     {
+                        final LinkedPair pair = candidate.Pair;
+
                         if(mLinkAllocator.hasSkippedPairs(pair))
                             continue;
 
-                        SvBreakend otherBreakend = pair.getOtherBreakend(breakend);
-
-                        double otherBreakendPloidy = mLinkAllocator.getUnlinkedBreakendCount(otherBreakend, true);
-
-                        if(otherBreakendPloidy == 0)
-                            continue;
+                        SvBreakend otherBreakend = candidate.OtherBreakend;
+                        double otherBreakendPloidy = candidate.OtherJcn;
 
                         ProposedLinks proposedLink = new ProposedLinks(pair, NEAREST);
                         proposedLink.addBreakendPloidies(breakend, breakendPloidy, otherBreakend, otherBreakendPloidy);
@@ -1287,6 +1288,70 @@ public class ChainRuleSelector
         return shortestLinks;
     }
 
+    private void refreshBreakendCandidates()
+    {
+        // drop the candidates of any breakend whose JCN or possible links changed with the last links made,
+        // and of those breakends which had it as a candidate
+        final Set<SvBreakend> updatedBreakends = mLinkAllocator.getUpdatedBreakends();
+
+        if(!mUseCandidateCache)
+        {
+            mBreakendCandidates.clear();
+            mCandidateDependents.clear();
+        }
+        else
+        {
+            for(SvBreakend breakend : updatedBreakends)
+            {
+                mBreakendCandidates.remove(breakend);
+
+                Set<SvBreakend> dependents = mCandidateDependents.remove(breakend);
+
+                if(dependents != null)
+                    dependents.forEach(x -> mBreakendCandidates.remove(x));
+            }
+        }
+
+        updatedBreakends.clear();
+    }
+
+    private BreakendCandidates getBreakendCandidates(final SvBreakend breakend, double unlinkedJcn)
+    {
+        if(!mSvBreakendPossibleLinks.containsKey(breakend))
+            return null;
+
+        BreakendCandidates candidates = mBreakendCandidates.get(breakend);
+
+        if(candidates != null)
+            return candidates;
+
+        candidates = new BreakendCandidates(mLinkAllocator.getUnlinkedBreakendCount(breakend, true));
+
+        for(final LinkedPair pair : mSvBreakendPossibleLinks.get(breakend))
+        {
+            SvBreakend otherBreakend = pair.getOtherBreakend(breakend);
+
+            mCandidateDependents.computeIfAbsent(otherBreakend, k -> Sets.newHashSet()).add(breakend);
+
+            double otherJcn = mLinkAllocator.getUnlinkedBreakendCount(otherBreakend, true);
+
+            if(otherJcn == 0)
+                continue;
+
+            String jcnMatchType = PM_NONE;
+
+            if(copyNumbersEqual(otherJcn, unlinkedJcn))
+                jcnMatchType = PM_MATCHED;
+            else if(jcnOverlap(breakend.getSV().jcnUncertainty(), unlinkedJcn, otherJcn, otherBreakend.jcnUncertainty()))
+                jcnMatchType = PM_OVERLAP;
+
+            candidates.add(new LinkCandidate(pair, otherBreakend, otherJcn, jcnMatchType));
+        }
+
+        mBreakendCandidates.put(breakend, candidates);
+        return candidates;
+    }
+
     private boolean anyLinksHaveJcnSupport(final List<ProposedLinks> proposedLinks)
     {
         return proposedLinks.stream().anyMatch(x -> x.hasRule(CA_JCN_SUPPORT));
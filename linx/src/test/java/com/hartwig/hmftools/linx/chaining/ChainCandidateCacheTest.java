@@ -0,0 +1,107 @@
+package com.hartwig.hmftools.linx.chaining;
+
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.DEL;
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.DUP;
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.INV;
+import static com.hartwig.hmftools.linx.chaining.ChainUtils.getSequenceStr;
+import static com.hartwig.hmftools.linx.utils.SvTestUtils.createTestSv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.linx.types.LinkedPair;
+import com.hartwig.hmftools.linx.types.SvCluster;
+import com.hartwig.hmftools.linx.utils.LinxTester;
+
+import org.junit.Test;
+
+public class ChainCandidateCacheTest
+{
+    private static final int CLUSTER_COUNT = 10;
+    private static final int REPLICATED_CLUSTER_COUNT = 7;
+    private static final int CLUSTER_SV_COUNT = 24;
+
+    @Test
+    public void testCachedCandidatesMatchFullScan()
+    {
+        List<String> scanResults = chainClusters(false);
+        List<String> cachedResults = chainClusters(true);
+
+        assertEquals(scanResults, cachedResults);
+
+        // most clusters are replicated so the JCN-based rules are exercised, and the others fall through to the nearest rule
+        assertTrue(scanResults.stream().anyMatch(x -> x.contains("JCN_MATCH") || x.contains("JCN_OVERLAP")));
+        assertTrue(scanResults.stream().anyMatch(x -> x.contains("JCN_MAX")));
+        assertTrue(scanResults.stream().anyMatch(x -> x.contains("NEAREST")));
+    }
+
+    private static List<String> chainClusters(boolean useCandidateCache)
+    {
+        LinxTester tester = new LinxTester();
+        tester.Analyser.setChainingThreads(1);
+        tester.Analyser.getChainFinder().setUseCandidateCache(useCandidateCache);
+
+        // a set of overlapping SVs on each chromosome, each forming a single cluster, with varying JCN for the replicated ones
+        for(int c = 1; c <= CLUSTER_COUNT; ++c)
+        {
+            String chromosome = String.valueOf(c);
+            Random random = new Random(c);
+
+            for(int i = 0; i < CLUSTER_SV_COUNT; ++i)
+            {
+                int posStart = 1000 + random.nextInt(100) * 500;
+                int posEnd = posStart + 500 + random.nextInt(40) * 500;
+                double jcn = c <= REPLICATED_CLUSTER_COUNT ? 1 + random.nextInt(4) : 1;
+
+                switch(random.nextInt(4))
+                {
+                    case 0:
+                        tester.AllVariants.add(createTestSv(tester.nextVarId(), chromosome, chromosome, posStart, posEnd, 1, -1, DEL, jcn));
+                        break;
+
+                    case 1:
+                        tester.AllVariants.add(createTestSv(tester.nextVarId(), chromosome, chromosome, posStart, posEnd, -1, 1, DUP, jcn));
+                        break;
+
+                    case 2:
+                        tester.AllVariants.add(createTestSv(tester.nextVarId(), chromosome, chromosome, posStart, posEnd, 1, 1, INV, jcn));
+                        break;
+
+                    default:
+                        tester.AllVariants.add(createTestSv(tester.nextVarId(), chromosome, chromosome, posStart, posEnd, -1, -1, INV, jcn));
+                        break;
+                }
+            }
+        }
+
+        tester.preClusteringInit();
+        assertTrue(tester.Analyser.clusterAndAnalyse());
+
+        List<String> results = Lists.newArrayList();
+
+        for(SvCluster cluster : tester.Analyser.getClusters())
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("cluster(%d) type(%s) svs(%d) chains(%d)",
+                    cluster.id(), cluster.getResolvedType(), cluster.getSvCount(), cluster.getChains().size()));
+
+            for(SvChain chain : cluster.getChains())
+            {
+                sb.append(String.format(" chain(%d jcn=%.2f %s)", chain.id(), chain.jcn(), getSequenceStr(chain)));
+
+                for(LinkedPair pair : chain.getLinkedPairs())
+                {
+                    sb.append(String.format(" pair(%s %s %d)", pair.toString(), pair.getLinkReason(), pair.getLinkIndex()));
+                }
+            }
+
+            results.add(sb.toString());
+        }
+
+        return results;
+    }
+}
@@ -212,6 +212,27 @@ public class ChainingActualTest
          cluster(0) incomplete chains(1 incons=1) chainEnds(arms=0 repeats=0) unlinkedSVs(0 armCount(4 incons=0)) tiCount(short=0 long=0)        */
     }
 
+    @Test
+    public void testChainingLimitFallback()
+    {
+        // the same COLO829T cluster, but with a step budget too small to complete chaining
+        LinxTester tester = new LinxTester();
+        tester.Analyser.getChainFinder().setChainingLimits(2, 0);
+
+        tester.AllVariants.addAll(SampleDataLoader.loadSampleTestData("COLO829T"));
+        tester.preClusteringInit();
+        tester.Analyser.clusterAndAnalyse();
+
+        assertEquals(1, tester.Analyser.getClusters().size());
+        final SvCluster cluster = tester.Analyser.getClusters().get(0);
+        assertEquals(8, cluster.getSvCount());
+
+        // only the assembled links are chained
+        assertTrue(!cluster.getChains().isEmpty());
+        assertTrue(cluster.getChains().stream().allMatch(x -> x.getLinkedPairs().stream().allMatch(y -> y.isAssembled())));
+        assertTrue(cluster.getChains().stream().mapToInt(x -> x.getLinkCount()).sum() < 10);
+    }
+
     @Test
     public void testActualSimpleChaining1()
     {
@@ -0,0 +1,76 @@
+package com.hartwig.hmftools.linx.chaining;
+
+import static com.hartwig.hmftools.linx.chaining.ChainUtils.getSequenceStr;
+import static com.hartwig.hmftools.linx.utils.SvTestUtils.createDel;
+import static com.hartwig.hmftools.linx.utils.SvTestUtils.createDup;
+import static com.hartwig.hmftools.linx.utils.SvTestUtils.createInv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.linx.types.SvCluster;
+import com.hartwig.hmftools.linx.utils.LinxTester;
+
+import org.junit.Test;
+
+public class ConcurrentChainingTest
+{
+    private static final int CLUSTER_COUNT = 8;
+
+    @Test
+    public void testConcurrentMatchesSequentialChaining()
+    {
+        List<String> sequentialResults = chainClusters(1);
+        List<String> concurrentResults = chainClusters(4);
+
+        assertEquals(sequentialResults, concurrentResults);
+
+        long chainedClusters = sequentialResults.stream().filter(x -> x.contains("chains(1)") || x.contains("chains(2)")).count();
+        assertTrue(chainedClusters >= CLUSTER_COUNT);
+    }
+
+    private static List<String> chainClusters(int threads)
+    {
+        LinxTester tester = new LinxTester();
+        tester.Analyser.setChainingThreads(threads);
+
+        // the same complex cluster on a set of chromosomes, each chained independently
+        for(int c = 1; c <= CLUSTER_COUNT; ++c)
+        {
+            String chromosome = String.valueOf(c);
+
+            tester.AllVariants.add(createInv(tester.nextVarId(), chromosome, 1000, 3000, 1));
+            tester.AllVariants.add(createDup(tester.nextVarId(), chromosome, 2000, 9000));
+            tester.AllVariants.add(createDel(tester.nextVarId(), chromosome, 4000, 7000));
+            tester.AllVariants.add(createInv(tester.nextVarId(), chromosome, 5000, 6000, -1));
+            tester.AllVariants.add(createInv(tester.nextVarId(), chromosome, 8000, 10000, -1));
+        }
+
+        tester.preClusteringInit();
+        assertTrue(tester.Analyser.clusterAndAnalyse());
+
+        // each cluster is timed as it is chained
+        assertEquals(CLUSTER_COUNT, tester.Analyser.getClusterChainingPerfCounter().getIntervalCount());
+
+        List<String> results = Lists.newArrayList();
+
+        for(SvCluster cluster : tester.Analyser.getClusters())
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("cluster(%d) type(%s) svs(%d) chains(%d)",
+                    cluster.id(), cluster.getResolvedType(), cluster.getSvCount(), cluster.getChains().size()));
+
+            for(SvChain chain : cluster.getChains())
+            {
+                sb.append(String.format(" chain(%d links=%d %s)", chain.id(), chain.getLinkCount(), getSequenceStr(chain)));
+            }
+
+            results.add(sb.toString());
+        }
+
+        return results;
+    }
+}
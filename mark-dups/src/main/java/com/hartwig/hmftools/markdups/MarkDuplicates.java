@@ -332,8 +332,8 @@ public class MarkDuplicates
 
                 if(lockTime > LOCK_ACQUIRE_LONG_TIME_MS)
                 {
-                    MD_LOGGER.debug("partition({}) lock-acquisition time({}ms)",
-                            partitionData.partitionStr(), format("%.1f", lockTime));
+                    MD_LOGGER.debug("partition({}) lock-acquisition time({}ms) {}",
+                            partitionData.partitionStr(), format("%.1f", lockTime), partitionData.lockStatsStr());
                 }
             }
 
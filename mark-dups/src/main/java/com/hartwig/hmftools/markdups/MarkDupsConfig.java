@@ -90,6 +90,7 @@ public class MarkDupsConfig
     public final int Threads;
 
     public final String BamToolPath;
+    public final boolean InProcessMerge; // merge and index per-thread BAMs in-process rather than with the BAM tool
 
     // debug
     public final boolean KeepInterimBams;
@@ -125,6 +126,7 @@ public class MarkDupsConfig
     private static final String UNMAP_REGIONS = "unmap_regions";
     private static final String WRITE_STATS = "write_stats";
     private static final String DROP_DUPLICATES = "drop_duplicates";
+    private static final String INPROCESS_MERGE = "inprocess_merge";
 
     // debug
     private static final String KEEP_INTERIM_BAMS = "keep_interim_bams";
@@ -193,6 +195,7 @@ public class MarkDupsConfig
         mReadLength = configBuilder.getInteger(READ_LENGTH);
 
         BamToolPath = configBuilder.getValue(BAMTOOL_PATH);
+        InProcessMerge = configBuilder.hasFlag(INPROCESS_MERGE);
 
         NoMateCigar = configBuilder.hasFlag(NO_MATE_CIGAR);
         UMIs = UmiConfig.from(configBuilder);
@@ -292,6 +295,7 @@ public class MarkDupsConfig
         configBuilder.addFlag(KEEP_INTERIM_BAMS, "Do no delete per-thread BAMs");
 
         BamToolName.addConfig(configBuilder);
+        configBuilder.addFlag(INPROCESS_MERGE, "Merge and index per-thread BAMs in-process rather than with the BAM tool");
 
         configBuilder.addFlag(FORM_CONSENSUS, "Form consensus reads from duplicate groups without UMIs");
         configBuilder.addFlag(NO_MATE_CIGAR, "Mate CIGAR not set by aligner, make no attempt to use it");
@@ -343,6 +347,7 @@ public class MarkDupsConfig
         SpecificRegionsFilterType = FilterReadsType.MATE_AND_SUPP;
 
         BamToolPath = null;
+        InProcessMerge = false;
 
         UnmapRegions = new ReadUnmapper(Maps.newHashMap());
 
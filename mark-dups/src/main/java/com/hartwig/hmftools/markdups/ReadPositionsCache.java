@@ -9,15 +9,12 @@ import static com.hartwig.hmftools.common.bam.SamRecordUtils.UNMAP_ATTRIBUTE;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.hartwig.hmftools.markdups.common.Fragment;
+import com.hartwig.hmftools.markdups.common.PositionMap;
+import com.hartwig.hmftools.markdups.common.ReadIdMap;
 
 import htsjdk.samtools.SAMRecord;
 
@@ -26,9 +23,9 @@ public class ReadPositionsCache
     // a ring buffer to store reads at each read starting position
     private String mChromosome;
     private final FragmentGroup[] mForwardPositions;
-    private final Map<Integer,FragmentGroup> mReversePositions;
-    private final Map<String,Fragment> mFragments;
-    private final Map<String,SAMRecord> mPendingUnmapped;
+    private final PositionMap<FragmentGroup> mReversePositions;
+    private final ReadIdMap<Fragment> mFragments;
+    private final ReadIdMap<SAMRecord> mPendingUnmapped;
     private final Consumer<List<Fragment>> mReadGroupHandler;
     private int mMinPosition;
     private int mMinPositionIndex;
@@ -59,9 +56,9 @@ public class ReadPositionsCache
         mReadGroupHandler = evictionHandler;
         mCapacity = capacity;
         mForwardPositions = new FragmentGroup[mCapacity];
-        mReversePositions = Maps.newHashMap();
-        mFragments = Maps.newHashMap();
-        mPendingUnmapped = Maps.newHashMap();
+        mReversePositions = new PositionMap<>();
+        mFragments = new ReadIdMap<>();
+        mPendingUnmapped = new ReadIdMap<>();
         mMinPosition = 0;
         mMinPositionIndex = 0;
         mUseMateCigar = useMateCigar;
@@ -144,7 +141,7 @@ public class ReadPositionsCache
 
     public List<SAMRecord> getPendingUnmapped()
     {
-        List<SAMRecord> pendingUnmapped = mPendingUnmapped.values().stream().collect(Collectors.toList());
+        List<SAMRecord> pendingUnmapped = mPendingUnmapped.values();
         mPendingUnmapped.clear();
         return pendingUnmapped;
     }
@@ -173,11 +170,10 @@ public class ReadPositionsCache
 
             if(read.getMateUnmappedFlag() && !read.hasAttribute(UNMAP_ATTRIBUTE))
             {
-                mateRead = mPendingUnmapped.get(read.getReadName());
+                mateRead = mPendingUnmapped.remove(read.getReadName());
 
                 if(mateRead != null)
                 {
-                    mPendingUnmapped.remove(read.getReadName());
                     fragment.addRead(mateRead);
                     ++mFragmemtUnmappedMatchCount;
                 }
@@ -293,20 +289,11 @@ public class ReadPositionsCache
             return;
 
         // flush out any reverse strand position which is now earlier than the current forward strand read start position
-        Set<Integer> flushedPositions = Sets.newHashSet();
-        for(Map.Entry<Integer,FragmentGroup> entry : mReversePositions.entrySet())
+        mReversePositions.removeIf(reversePosition -> abs(reversePosition) < position, element ->
         {
-            int reversePosition = abs(entry.getKey());
-            if(reversePosition < position)
-            {
-                flushedPositions.add(entry.getKey());
-
-                removeMappedFragments(entry.getValue().Fragments);
-                mReadGroupHandler.accept(entry.getValue().Fragments);
-            }
-        }
-
-        flushedPositions.forEach(x -> mReversePositions.remove(x));
+            removeMappedFragments(element.Fragments);
+            mReadGroupHandler.accept(element.Fragments);
+        });
 
         checkFragmentLog();
     }
@@ -44,7 +44,8 @@ public class DuplicateGroup
     private final List<SAMRecord>[] mReadGroups;
     private final boolean[] mReadGroupComplete;
     private final ReadTypeId[] mPrimaryReadTypeIndex; // details for primary and mate reads
-    private final String mCoordinatesKey;
+    private final FragmentCoordinates mCoordinates;
+    private String mCoordinatesKey; // formed on request
 
     private SAMRecord mPrimaryTemplateRead; // read on which the primary consensus read is based
     private String mGroupReadId;
@@ -62,7 +63,8 @@ public class DuplicateGroup
         mReadGroupComplete = new boolean[MAX_READ_TYPES];
         mPrimaryReadTypeIndex = new ReadTypeId[PRIMARY_READ_TYPES];
         mFragmentCount = 0;
-        mCoordinatesKey = fragment.coordinates().keyOriented();
+        mCoordinates = fragment.coordinates();
+        mCoordinatesKey = null;
         mPrimaryTemplateRead = null;
         mGroupReadId = null;
         mDualStrand = false;
@@ -72,7 +74,13 @@ public class DuplicateGroup
     public void addFragment(final Fragment fragment) { mFragments.add(fragment); }
     public int fragmentCount() { return mFragmentCount > 0 ? mFragmentCount : mFragments.size(); }
 
-    public String coordinatesKey() { return mCoordinatesKey; }
+    public String coordinatesKey()
+    {
+        if(mCoordinatesKey == null)
+            mCoordinatesKey = mCoordinates.keyOriented();
+
+        return mCoordinatesKey;
+    }
     public FragmentCoordinates fragmentCoordinates() { return !mFragments.isEmpty() ? mFragments.get(0).coordinates() : null; }
 
     public String umiId() { return mUmiId; }
@@ -448,7 +456,7 @@ public class DuplicateGroup
     public String toString()
     {
         if(mFragmentCount == 0)
-            return format("id(%s) fragments(%d) coords(%s)", mUmiId, mFragments.size(), mCoordinatesKey);
+            return format("id(%s) fragments(%d) coords(%s)", mUmiId, mFragments.size(), coordinatesKey());
 
         StringJoiner sj = new StringJoiner(", ");
         for(ReadType readType : ReadType.values())
@@ -465,6 +473,6 @@ public class DuplicateGroup
             sj.add(format("%s=%d %s", readType, readGroup.size(), state));
         }
 
-        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mUmiId, mFragmentCount, mCoordinatesKey, sj);
+        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mUmiId, mFragmentCount, coordinatesKey(), sj);
     }
 }
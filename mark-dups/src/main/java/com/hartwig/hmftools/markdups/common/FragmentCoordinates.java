@@ -5,29 +5,95 @@ import static java.lang.String.format;
 
 public class FragmentCoordinates
 {
-    public final String Key;
+    // duplicate matching uses the packed coordinates, with the string key only formed on request for logging and output
+    public final long ReadCoordinate; // packed lower read coordinate
+    public final long MateCoordinate; // packed upper mate coordinate, fragment length if unpaired or mate unmapped, or none if incomplete
     public final int InitialPosition; // negative/reverse strand positions are negated
     public final boolean IsForward; // forward = F1R2, reverse is F2R1 - relates to collapsing and dual-strand classification
     public final boolean Incomplete;
 
-    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates("", 0, true, true);
+    private final String mReadChromosome;
+    private final String mMateChromosome;
+    private String mKey;
+
+    private static final long NO_COORDINATE = 0;
+
+    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates(
+            "", NO_COORDINATE, null, NO_COORDINATE, 0, true, true);
 
     public static final char FRAGMENT_REVERSED_ID = 'N';
 
-    public FragmentCoordinates(final String key, final int initialPosition, boolean isForward)
+    public FragmentCoordinates(
+            final String readChromosome, long readCoordinate, final String mateChromosome, long mateCoordinate, int initialPosition,
+            boolean isForward)
     {
-        this(key, initialPosition, isForward, false);
+        this(readChromosome, readCoordinate, mateChromosome, mateCoordinate, initialPosition, isForward, false);
     }
 
-    public FragmentCoordinates(final String key, int initialPosition, boolean isForward, boolean incomplete)
+    public FragmentCoordinates(
+            final String readChromosome, long readCoordinate, final String mateChromosome, long mateCoordinate, int initialPosition,
+            boolean isForward, boolean incomplete)
     {
-        Key = key;
+        mReadChromosome = readChromosome;
+        ReadCoordinate = readCoordinate;
+        mMateChromosome = mateChromosome;
+        MateCoordinate = mateCoordinate;
         InitialPosition = initialPosition;
         IsForward = isForward;
         Incomplete = incomplete;
+        mKey = null;
+    }
+
+    public static FragmentCoordinates fromFragmentLength(
+            final String readChromosome, long readCoordinate, int initialPosition, int fragmentLength)
+    {
+        // fragment lengths are held as negative values so they cannot match a packed mate coordinate
+        return new FragmentCoordinates(readChromosome, readCoordinate, null, -(abs((long)fragmentLength) + 1), initialPosition, true);
+    }
+
+    public static FragmentCoordinates incomplete(final String readChromosome, long readCoordinate, int initialPosition, boolean isForward)
+    {
+        return new FragmentCoordinates(readChromosome, readCoordinate, null, NO_COORDINATE, initialPosition, isForward, true);
+    }
+
+    public static long packCoordinate(int chromosomeIndex, int position, boolean isForward)
+    {
+        // chromosome index in the upper bits, offset by one so a packed coordinate is never zero, then the 5' unclipped position and strand
+        return ((long)(chromosomeIndex + 1) << 33) | ((position & 0xFFFFFFFFL) << 1) | (isForward ? 0 : 1);
+    }
+
+    public static int unpackPosition(long packedCoordinate) { return (int)(packedCoordinate >>> 1); }
+    public static boolean unpackIsForward(long packedCoordinate) { return (packedCoordinate & 1) == 0; }
+
+    public String key()
+    {
+        if(mKey == null)
+            mKey = formKey();
+
+        return mKey;
+    }
+
+    private String formKey()
+    {
+        if(ReadCoordinate == NO_COORDINATE)
+            return "";
+
+        String readCoordStr = formCoordinate(
+                mReadChromosome, unpackPosition(ReadCoordinate), unpackIsForward(ReadCoordinate));
+
+        if(MateCoordinate == NO_COORDINATE)
+            return readCoordStr;
+
+        if(MateCoordinate < 0)
+            return formKey(readCoordStr, (int)(-MateCoordinate - 1));
+
+        String mateCoordStr = formCoordinate(
+                mMateChromosome, unpackPosition(MateCoordinate), unpackIsForward(MateCoordinate));
+
+        return formKey(readCoordStr, mateCoordStr);
     }
 
-    public String keyOriented() { return IsForward ? Key : format("%s_%c", Key, FRAGMENT_REVERSED_ID); }
+    public String keyOriented() { return IsForward ? key() : format("%s_%c", key(), FRAGMENT_REVERSED_ID); }
 
     public String toString()
     {
@@ -36,7 +102,8 @@ public class FragmentCoordinates
 
     public boolean matches(final FragmentCoordinates other, boolean requireOrientation)
     {
-        return Key.equals(other.Key) && (!requireOrientation || IsForward == other.IsForward);
+        return ReadCoordinate == other.ReadCoordinate && MateCoordinate == other.MateCoordinate
+                && (!requireOrientation || IsForward == other.IsForward);
     }
 
     public static String formCoordinate(final String chromosome, final int position, final boolean isForward)
@@ -5,8 +5,7 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.getFivePrimeUnclippedPosition;
-import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formCoordinate;
-import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formKey;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.packCoordinate;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.DUPLICATE;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.NONE;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.CANDIDATE;
@@ -56,12 +55,13 @@ public class FragmentUtils
                 getFivePrimeUnclippedPosition(firstRead.getAlignmentStart(), firstRead.getCigarString(), readForwardStrand);
 
         int readStrandPosition = readForwardStrand ? readCoordinate : -readCoordinate;
-        String readCoordStr = formCoordinate(firstRead.getReferenceName(), readCoordinate, readForwardStrand);
+        long readCoord = packCoordinate(firstRead.getReferenceIndex(), readCoordinate, readForwardStrand);
 
         if(!firstRead.getReadPairedFlag() || firstRead.getReadUnmappedFlag() || firstRead.getMateUnmappedFlag())
         {
             // include the fragment length
-            return new FragmentCoordinates(formKey(readCoordStr, firstRead.getInferredInsertSize()), readStrandPosition, true);
+            return FragmentCoordinates.fromFragmentLength(
+                    firstRead.getReferenceName(), readCoord, readStrandPosition, firstRead.getInferredInsertSize());
         }
 
         if(mateRead == null)
@@ -69,7 +69,8 @@ public class FragmentUtils
             if(!useMateCigar || !firstRead.hasAttribute(MATE_CIGAR_ATTRIBUTE))
             {
                 // the fragment orientation will  be accurately set once both reads are collated
-                return new FragmentCoordinates(readCoordStr, readStrandPosition, firstRead.getFirstOfPairFlag(), true);
+                return FragmentCoordinates.incomplete(
+                        firstRead.getReferenceName(), readCoord, readStrandPosition, firstRead.getFirstOfPairFlag());
             }
         }
 
@@ -91,7 +92,7 @@ public class FragmentUtils
         }
 
         int mateStrandPosition = mateForwardStrand ? mateCoordinate : -mateCoordinate;
-        String mateCoordStr = formCoordinate(firstRead.getMateReferenceName(), mateCoordinate, mateForwardStrand);
+        long mateCoord = packCoordinate(firstRead.getMateReferenceIndex(), mateCoordinate, mateForwardStrand);
 
         boolean readLowerPos;
         if(firstRead.getReferenceIndex() == firstRead.getMateReferenceIndex())
@@ -106,8 +107,10 @@ public class FragmentUtils
         boolean lowerReadFirst = readLowerPos ? firstRead.getFirstOfPairFlag() : !firstRead.getFirstOfPairFlag();
 
         return readLowerPos ?
-                new FragmentCoordinates(formKey(readCoordStr, mateCoordStr), readStrandPosition, lowerReadFirst)
-                : new FragmentCoordinates(formKey(mateCoordStr, readCoordStr), mateStrandPosition, lowerReadFirst);
+                new FragmentCoordinates(
+                        firstRead.getReferenceName(), readCoord, firstRead.getMateReferenceName(), mateCoord, readStrandPosition, lowerReadFirst)
+                : new FragmentCoordinates(
+                        firstRead.getMateReferenceName(), mateCoord, firstRead.getReferenceName(), readCoord, mateStrandPosition, lowerReadFirst);
     }
 
     public static FragmentStatus calcFragmentStatus(final Fragment first, final Fragment second, boolean requireOrientationMatch)
@@ -17,11 +17,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.markdups.MarkDupsConfig;
@@ -47,46 +53,77 @@ public class PartitionData
 
     private final DuplicateGroupBuilder mDuplicateGroupBuilder;
 
-    // any update to the maps is done under a lock
-    private Lock mLock;
-    private long mLastCacheCount;
-    private long mLockAcquireTime;
+    // reads and fragments which only touch state for their own read ID are handled under the shared group lock plus a lock striped
+    // by read ID, while anything which may affect a duplicate group or candidate duplicates takes the group lock exclusively
+    private final ReadWriteLock mGroupLock;
+    private final Lock[] mReadIdLocks;
+    private final AtomicLong mLastCacheCount; // updated under the shared lock too, so only one thread logs each change
     private boolean mPerfChecks;
 
+    private final LongAdder mSharedLockCount;
+    private final LongAdder mSharedLockTime;
+    private final LongAdder mExclusiveLockCount;
+    private final LongAdder mExclusiveLockTime;
+
     private Set<DuplicateGroup> mUpdatedDuplicateGroups;
     private Set<CandidateDuplicates> mUpdatedCandidateDuplicates;
 
     private static final int LOG_CACHE_COUNT = 50000;
+    private static final int READ_ID_LOCK_STRIPES = 64;
 
     public PartitionData(final String chrPartition, final MarkDupsConfig config)
     {
         mChrPartition = chrPartition;
-        mFragmentStatus = Maps.newHashMap();
-        mIncompleteFragments = Maps.newHashMap();
+        mFragmentStatus = new ConcurrentHashMap<>();
+        mIncompleteFragments = new ConcurrentHashMap<>();
         mCandidateDuplicatesMap = Maps.newHashMap();
-        mDuplicateGroupMap = Maps.newHashMap();
+        mDuplicateGroupMap = new ConcurrentHashMap<>();
         mDuplicateGroupBuilder = new DuplicateGroupBuilder(config);
         mUpdatedDuplicateGroups = Sets.newHashSet();
         mUpdatedCandidateDuplicates = Sets.newHashSet();
 
-        mLock = new ReentrantLock();
-        mLockAcquireTime = 0;
+        mGroupLock = new ReentrantReadWriteLock();
+        mReadIdLocks = new Lock[READ_ID_LOCK_STRIPES];
+
+        for(int i = 0; i < mReadIdLocks.length; ++i)
+        {
+            mReadIdLocks[i] = new ReentrantLock();
+        }
+
+        mLastCacheCount = new AtomicLong();
         mPerfChecks = false;
+        mSharedLockCount = new LongAdder();
+        mSharedLockTime = new LongAdder();
+        mExclusiveLockCount = new LongAdder();
+        mExclusiveLockTime = new LongAdder();
     }
 
     public String partitionStr() { return mChrPartition; }
     public Statistics statistics() { return mDuplicateGroupBuilder.statistics(); }
 
     public void togglePerfChecks() { mPerfChecks = true; }
-    public double totalLockTimeMs() { return mLockAcquireTime / NANO_IN_MILLISECOND; }
+    public double totalLockTimeMs() { return (mSharedLockTime.sum() + mExclusiveLockTime.sum()) / NANO_IN_MILLISECOND; }
+
+    public String lockStatsStr()
+    {
+        return format("shared(%d wait=%.1fms) exclusive(%d wait=%.1fms)",
+                mSharedLockCount.sum(), mSharedLockTime.sum() / NANO_IN_MILLISECOND,
+                mExclusiveLockCount.sum(), mExclusiveLockTime.sum() / NANO_IN_MILLISECOND);
+    }
 
     public void processPrimaryFragments(
             final List<Fragment> resolvedFragments, final List<CandidateDuplicates> candidateDuplicatesList, final List<DuplicateGroup> duplicateGroups)
     {
         // gather any cached mate reads, attempt to resolve any candidate duplicates and feed back the resultant set of resolved fragments
+        if(candidateDuplicatesList.isEmpty() && (duplicateGroups == null || duplicateGroups.isEmpty()))
+        {
+            processResolvedFragments(resolvedFragments);
+            return;
+        }
+
         try
         {
-            acquireLock();
+            acquireExclusiveLock();
 
             // UMIs are filtered here since the fragments themselves don't need to collect incomplete reads nor set resolved status
             resolvedFragments.stream().filter(x -> x.umi() == null).forEach(x -> processResolvedFragment(x));
@@ -108,7 +145,39 @@ public class PartitionData
         finally
         {
             checkCachedCounts();
-            mLock.unlock();
+            mGroupLock.writeLock().unlock();
+        }
+    }
+
+    private void processResolvedFragments(final List<Fragment> resolvedFragments)
+    {
+        // resolved fragments only pick up and store state for their own read IDs
+        try
+        {
+            acquireSharedLock();
+
+            for(Fragment fragment : resolvedFragments)
+            {
+                if(fragment.umi() != null)
+                    continue;
+
+                Lock readIdLock = readIdLock(fragment.id());
+                readIdLock.lock();
+
+                try
+                {
+                    processResolvedFragment(fragment);
+                }
+                finally
+                {
+                    readIdLock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            checkCachedCounts();
+            mGroupLock.readLock().unlock();
         }
     }
 
@@ -209,21 +278,53 @@ public class PartitionData
 
     public PartitionResults processIncompleteFragments(final List<SAMRecord> reads)
     {
+        PartitionResults partitionResults = new PartitionResults();
+
+        // reads which may affect a group are deferred, in their original order, to be handled under the exclusive lock
+        List<SAMRecord> groupReads = null;
+        boolean hasUpdatedGroups;
+
         try
         {
-            acquireLock();
-
-            PartitionResults partitionResults = new PartitionResults();
+            acquireSharedLock();
 
             for(SAMRecord read : reads)
             {
-                ReadMatch readMatch = handleIncompleteFragment(read);
+                ReadMatch readMatch = handleIncompleteFragmentShared(read);
+
+                if(readMatch == null)
+                {
+                    if(groupReads == null)
+                        groupReads = Lists.newArrayList();
 
-                if(readMatch.Status != null && readMatch.Status.isResolved())
+                    groupReads.add(read);
+                }
+                else
                 {
-                    Fragment fragment = new Fragment(read);
-                    fragment.setStatus(readMatch.Status);
-                    partitionResults.addResolvedFragment(fragment);
+                    addResolvedRead(partitionResults, read, readMatch);
+                }
+            }
+
+            hasUpdatedGroups = hasUpdatedGroups();
+        }
+        finally
+        {
+            mGroupLock.readLock().unlock();
+        }
+
+        if(groupReads == null && !hasUpdatedGroups)
+            return partitionResults;
+
+        try
+        {
+            acquireExclusiveLock();
+
+            if(groupReads != null)
+            {
+                for(SAMRecord read : groupReads)
+                {
+                    ReadMatch readMatch = handleIncompleteFragment(read);
+                    addResolvedRead(partitionResults, read, readMatch);
                 }
             }
 
@@ -233,16 +334,54 @@ public class PartitionData
         }
         finally
         {
-            mLock.unlock();
+            mGroupLock.writeLock().unlock();
+        }
+    }
+
+    private static void addResolvedRead(final PartitionResults partitionResults, final SAMRecord read, final ReadMatch readMatch)
+    {
+        if(readMatch.Status != null && readMatch.Status.isResolved())
+        {
+            Fragment fragment = new Fragment(read);
+            fragment.setStatus(readMatch.Status);
+            partitionResults.addResolvedFragment(fragment);
         }
     }
 
     public PartitionResults processIncompleteFragment(final SAMRecord read)
     {
+        ReadMatch readMatch;
+        boolean hasUpdatedGroups;
+
         try
         {
-            acquireLock();
-            ReadMatch readMatch = handleIncompleteFragment(read);
+            acquireSharedLock();
+            readMatch = handleIncompleteFragmentShared(read);
+
+            // groups updated by earlier primary fragments are passed back with the next resolved read
+            hasUpdatedGroups = readMatch != null && readMatch.Matched && readMatch.Status != NONE && hasUpdatedGroups();
+        }
+        finally
+        {
+            mGroupLock.readLock().unlock();
+        }
+
+        if(readMatch != null && !hasUpdatedGroups)
+        {
+            if(!readMatch.Matched)
+                return null;
+
+            PartitionResults partitionResults = new PartitionResults();
+            partitionResults.setFragmentStatus(readMatch.Status);
+            return partitionResults;
+        }
+
+        try
+        {
+            acquireExclusiveLock();
+
+            if(readMatch == null)
+                readMatch = handleIncompleteFragment(read);
 
             if(!readMatch.Matched)
                 return null;
@@ -260,10 +399,56 @@ public class PartitionData
         }
         finally
         {
-            mLock.unlock();
+            mGroupLock.writeLock().unlock();
+        }
+    }
+
+    private ReadMatch handleIncompleteFragmentShared(final SAMRecord read)
+    {
+        // handles a supplementary or higher mate read if only state for its own read ID is affected, otherwise returns null
+        // so it can be handled under the exclusive lock - the caller holds the shared lock
+        Lock readIdLock = readIdLock(read.getReadName());
+        readIdLock.lock();
+
+        try
+        {
+            ResolvedFragmentState resolvedState = mFragmentStatus.get(read.getReadName());
+
+            if(resolvedState != null)
+            {
+                resolvedState.update(read);
+
+                if(resolvedState.allReceived())
+                    mFragmentStatus.remove(read.getReadName());
+
+                return new ReadMatch(true, resolvedState.Status);
+            }
+
+            if(mDuplicateGroupMap.containsKey(read.getReadName()))
+                return null;
+
+            Fragment existingFragment = mIncompleteFragments.get(read.getReadName());
+
+            if(existingFragment != null)
+            {
+                if(existingFragment.status() == CANDIDATE)
+                    return null;
+
+                existingFragment.addRead(read);
+                return NO_READ_MATCH;
+            }
+
+            mIncompleteFragments.put(read.getReadName(), new Fragment(read));
+            return NO_READ_MATCH;
+        }
+        finally
+        {
+            readIdLock.unlock();
         }
     }
 
+    private boolean hasUpdatedGroups() { return !mUpdatedDuplicateGroups.isEmpty() || !mUpdatedCandidateDuplicates.isEmpty(); }
+
     private ReadMatch handleIncompleteFragment(final SAMRecord read)
     {
         // a supplementary or higher mate read - returns any resolved fragments resulting from add this new read
@@ -499,10 +684,13 @@ public class PartitionData
     {
         long cacheCount = mIncompleteFragments.size() + mFragmentStatus.size();
 
-        if(abs(mLastCacheCount - cacheCount) < LOG_CACHE_COUNT)
+        long lastCacheCount = mLastCacheCount.get();
+
+        if(abs(lastCacheCount - cacheCount) < LOG_CACHE_COUNT)
             return;
 
-        mLastCacheCount = cacheCount;
+        if(!mLastCacheCount.compareAndSet(lastCacheCount, cacheCount))
+            return;
 
         MD_LOGGER.debug("partition({}) check state: {}}", mChrPartition, cacheCountsStr());
     }
@@ -532,27 +720,36 @@ public class PartitionData
     {
         try
         {
-            acquireLock();
+            acquireExclusiveLock();
 
             MD_LOGGER.debug("partition({}) log state: {}", mChrPartition, cacheCountsStr());
         }
         finally
         {
-            mLock.unlock();
+            mGroupLock.writeLock().unlock();
         }
     }
 
-    private void acquireLock()
+    private Lock readIdLock(final String readId)
+    {
+        return mReadIdLocks[Math.floorMod(readId.hashCode(), READ_ID_LOCK_STRIPES)];
+    }
+
+    private void acquireSharedLock() { acquireLock(mGroupLock.readLock(), mSharedLockCount, mSharedLockTime); }
+    private void acquireExclusiveLock() { acquireLock(mGroupLock.writeLock(), mExclusiveLockCount, mExclusiveLockTime); }
+
+    private void acquireLock(final Lock lock, final LongAdder lockCount, final LongAdder lockTime)
     {
         if(!mPerfChecks)
         {
-            mLock.lock();
+            lock.lock();
             return;
         }
 
         long startTime = System.nanoTime();
-        mLock.lock();
-        mLockAcquireTime += System.nanoTime() - startTime;
+        lock.lock();
+        lockTime.add(System.nanoTime() - startTime);
+        lockCount.increment();
     }
 
     public String toString()
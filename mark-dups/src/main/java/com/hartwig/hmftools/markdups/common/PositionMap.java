@@ -0,0 +1,214 @@
+package com.hartwig.hmftools.markdups.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import com.google.common.collect.Lists;
+
+public class PositionMap<V>
+{
+    // an open-addressing map keyed by primitive read position, avoiding boxed keys and per-entry nodes - a slot is occupied
+    // when its value is set, so any position including zero can be used as a key
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+    private int mMask;
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    public PositionMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PositionMap(int initialCapacity)
+    {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() { return mSize; }
+    public boolean isEmpty() { return mSize == 0; }
+
+    public V get(int position)
+    {
+        int index = slot(position);
+
+        while(mValues[index] != null)
+        {
+            if(mKeys[index] == position)
+                return (V)mValues[index];
+
+            index = (index + 1) & mMask;
+        }
+
+        return null;
+    }
+
+    public void put(int position, final V value)
+    {
+        int index = slot(position);
+
+        while(mValues[index] != null)
+        {
+            if(mKeys[index] == position)
+            {
+                mValues[index] = value;
+                return;
+            }
+
+            index = (index + 1) & mMask;
+        }
+
+        mKeys[index] = position;
+        mValues[index] = value;
+        ++mSize;
+
+        if(mSize * 2 > mKeys.length)
+            resize(mKeys.length * 2);
+    }
+
+    public V remove(int position)
+    {
+        int index = slot(position);
+
+        while(mValues[index] != null)
+        {
+            if(mKeys[index] == position)
+            {
+                V value = (V)mValues[index];
+                removeAt(index);
+                return value;
+            }
+
+            index = (index + 1) & mMask;
+        }
+
+        return null;
+    }
+
+    public void removeIf(final IntPredicate positionFilter, final Consumer<V> removedHandler)
+    {
+        // removes in place without a copy of the keys - an entry shifted back into a removed slot is checked before moving on,
+        // and entries from the start of a wrapped probe chain may be checked twice, which a deterministic filter allows
+        int index = 0;
+
+        while(index < mValues.length)
+        {
+            if(mValues[index] != null && positionFilter.test(mKeys[index]))
+            {
+                V value = (V)mValues[index];
+                removeAt(index);
+                removedHandler.accept(value);
+            }
+            else
+            {
+                ++index;
+            }
+        }
+    }
+
+    public int[] keys()
+    {
+        int[] keys = new int[mSize];
+        int keyIndex = 0;
+
+        for(int i = 0; i < mValues.length; ++i)
+        {
+            if(mValues[i] != null)
+                keys[keyIndex++] = mKeys[i];
+        }
+
+        return keys;
+    }
+
+    public List<V> values()
+    {
+        List<V> values = Lists.newArrayListWithCapacity(mSize);
+
+        for(int i = 0; i < mValues.length; ++i)
+        {
+            if(mValues[i] != null)
+                values.add((V)mValues[i]);
+        }
+
+        return values;
+    }
+
+    public void clear()
+    {
+        if(mSize == 0)
+            return;
+
+        Arrays.fill(mValues, null);
+        mSize = 0;
+    }
+
+    private int slot(int position)
+    {
+        // positions are near-sequential so mix the bits before masking
+        int hash = position * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mMask;
+    }
+
+    private void removeAt(int index)
+    {
+        --mSize;
+
+        int gap = index;
+        int next = (gap + 1) & mMask;
+
+        while(mValues[next] != null)
+        {
+            int home = slot(mKeys[next]);
+
+            boolean canShift = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+
+            if(canShift)
+            {
+                mKeys[gap] = mKeys[next];
+                mValues[gap] = mValues[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mMask;
+        }
+
+        mValues[gap] = null;
+    }
+
+    private void allocate(int capacity)
+    {
+        mKeys = new int[capacity];
+        mValues = new Object[capacity];
+        mMask = capacity - 1;
+        mSize = 0;
+    }
+
+    private void resize(int capacity)
+    {
+        int[] keys = mKeys;
+        Object[] values = mValues;
+
+        allocate(capacity);
+
+        for(int i = 0; i < keys.length; ++i)
+        {
+            if(values[i] == null)
+                continue;
+
+            int index = slot(keys[i]);
+
+            while(mValues[index] != null)
+            {
+                index = (index + 1) & mMask;
+            }
+
+            mKeys[index] = keys[i];
+            mValues[index] = values[i];
+            ++mSize;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.hartwig.hmftools.markdups.common;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+public class ReadIdMap<V>
+{
+    // an open-addressing map keyed by read ID, holding each key's hash alongside it so probes only compare strings on a hash match,
+    // and with no per-entry allocation - removal shifts later entries back rather than leaving tombstones
+    private String[] mKeys;
+    private int[] mHashes;
+    private Object[] mValues;
+    private int mSize;
+    private int mMask;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    public ReadIdMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ReadIdMap(int initialCapacity)
+    {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() { return mSize; }
+    public boolean isEmpty() { return mSize == 0; }
+
+    public V get(final String readId)
+    {
+        int hash = hash(readId);
+        int index = hash & mMask;
+
+        while(mKeys[index] != null)
+        {
+            if(mHashes[index] == hash && mKeys[index].equals(readId))
+                return (V)mValues[index];
+
+            index = (index + 1) & mMask;
+        }
+
+        return null;
+    }
+
+    public void put(final String readId, final V value)
+    {
+        int hash = hash(readId);
+        int index = hash & mMask;
+
+        while(mKeys[index] != null)
+        {
+            if(mHashes[index] == hash && mKeys[index].equals(readId))
+            {
+                mValues[index] = value;
+                return;
+            }
+
+            index = (index + 1) & mMask;
+        }
+
+        mKeys[index] = readId;
+        mHashes[index] = hash;
+        mValues[index] = value;
+        ++mSize;
+
+        // keep the load factor at or below one half
+        if(mSize * 2 > mKeys.length)
+            resize(mKeys.length * 2);
+    }
+
+    public V remove(final String readId)
+    {
+        int hash = hash(readId);
+        int index = hash & mMask;
+
+        while(mKeys[index] != null)
+        {
+            if(mHashes[index] == hash && mKeys[index].equals(readId))
+            {
+                V value = (V)mValues[index];
+                removeAt(index);
+                return value;
+            }
+
+            index = (index + 1) & mMask;
+        }
+
+        return null;
+    }
+
+    public List<V> values()
+    {
+        List<V> values = Lists.newArrayListWithCapacity(mSize);
+
+        for(int i = 0; i < mKeys.length; ++i)
+        {
+            if(mKeys[i] != null)
+                values.add((V)mValues[i]);
+        }
+
+        return values;
+    }
+
+    public void clear()
+    {
+        if(mSize == 0)
+            return;
+
+        Arrays.fill(mKeys, null);
+        Arrays.fill(mValues, null);
+        mSize = 0;
+    }
+
+    private void removeAt(int index)
+    {
+        --mSize;
+
+        // shift back any subsequent entries in the probe chain whose home slot is at or before the vacated slot
+        int gap = index;
+        int next = (gap + 1) & mMask;
+
+        while(mKeys[next] != null)
+        {
+            int home = mHashes[next] & mMask;
+
+            boolean canShift = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+
+            if(canShift)
+            {
+                mKeys[gap] = mKeys[next];
+                mHashes[gap] = mHashes[next];
+                mValues[gap] = mValues[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mMask;
+        }
+
+        mKeys[gap] = null;
+        mValues[gap] = null;
+    }
+
+    private void allocate(int capacity)
+    {
+        mKeys = new String[capacity];
+        mHashes = new int[capacity];
+        mValues = new Object[capacity];
+        mMask = capacity - 1;
+        mSize = 0;
+    }
+
+    private void resize(int capacity)
+    {
+        String[] keys = mKeys;
+        int[] hashes = mHashes;
+        Object[] values = mValues;
+
+        allocate(capacity);
+
+        for(int i = 0; i < keys.length; ++i)
+        {
+            if(keys[i] == null)
+                continue;
+
+            int index = hashes[i] & mMask;
+
+            while(mKeys[index] != null)
+            {
+                index = (index + 1) & mMask;
+            }
+
+            mKeys[index] = keys[i];
+            mHashes[index] = hashes[i];
+            mValues[index] = values[i];
+            ++mSize;
+        }
+    }
+
+    private static int hash(final String readId)
+    {
+        // spread the string hash since read IDs often share long prefixes
+        int hash = readId.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
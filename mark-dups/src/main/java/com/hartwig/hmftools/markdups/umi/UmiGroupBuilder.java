@@ -17,6 +17,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.markdups.common.DuplicateGroup;
 import com.hartwig.hmftools.markdups.common.Fragment;
+import com.hartwig.hmftools.markdups.common.FragmentCoordinates;
 import com.hartwig.hmftools.markdups.common.FragmentStatus;
 
 public class UmiGroupBuilder
@@ -186,15 +187,15 @@ public class UmiGroupBuilder
 
     private class CoordinateGroup
     {
-        public final String CoordKey;
+        public final FragmentCoordinates Coords;
 
         // store any mix of duplicate groups or single fragments
         public List<Object> ForwardGroups;
         public List<Object> ReverseGroups;
 
-        public CoordinateGroup(final String coordKey)
+        public CoordinateGroup(final FragmentCoordinates coords)
         {
-            CoordKey = coordKey;
+            Coords = coords;
             ForwardGroups = null;
             ReverseGroups = null;
         }
@@ -252,7 +253,7 @@ public class UmiGroupBuilder
 
             if(formCoordGroups)
             {
-                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragments.get(0).coordinates().Key);
+                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragments.get(0).coordinates());
 
                 // add in order of descending by fragment count for non-duplex collapsing
                 Collections.sort(umiGroups, new UmiUtils.SizeComparator());
@@ -269,7 +270,7 @@ public class UmiGroupBuilder
             // add in single fragments
             for(Fragment fragment : singleFragments)
             {
-                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragment.coordinates().Key);
+                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragment.coordinates());
                 coordGroup.addFragment(fragment);
             }
 
@@ -366,15 +367,15 @@ public class UmiGroupBuilder
         return finalUmiGroups;
     }
 
-    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final String coordKey)
+    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final FragmentCoordinates coords)
     {
         for(CoordinateGroup coordinateGroup : coordinateGroups)
         {
-            if(coordinateGroup.CoordKey.equals(coordKey))
+            if(coordinateGroup.Coords.matches(coords, false))
                 return coordinateGroup;
         }
 
-        CoordinateGroup newGroup = new CoordinateGroup(coordKey);
+        CoordinateGroup newGroup = new CoordinateGroup(coords);
         coordinateGroups.add(newGroup);
         return newGroup;
     }
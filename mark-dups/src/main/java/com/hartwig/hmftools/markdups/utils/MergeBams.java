@@ -2,6 +2,8 @@ package com.hartwig.hmftools.markdups.utils;
 
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.APP_NAME;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
@@ -22,6 +24,7 @@ public class MergeBams
 
     private static final String INPUT_BAMS = "input_bams";
     private static final String OUTPUT_BAM = "output_bam";
+    private static final String WRITE_INDEX = "write_index";
 
     public MergeBams(final ConfigBuilder configBuilder)
     {
@@ -31,7 +34,8 @@ public class MergeBams
 
         String refGenome = configBuilder.getValue(REF_GENOME);
 
-        mBamMerger = new BamMerger(outputBam, inputBams, refGenome);
+        mBamMerger = new BamMerger(
+                outputBam, inputBams, refGenome, parseThreads(configBuilder), configBuilder.hasFlag(WRITE_INDEX));
      }
 
     public void run()
@@ -51,6 +55,8 @@ public class MergeBams
 
         configBuilder.addConfigItem(INPUT_BAMS, true, "List of input BAMs to be merged, separated ','");
         configBuilder.addConfigItem(OUTPUT_BAM, true, "Output BAM filename");
+        configBuilder.addFlag(WRITE_INDEX, "Write the output BAM's index");
+        addThreadOptions(configBuilder);
 
         RefGenomeSource.addRefGenomeFile(configBuilder, true);
         addLoggingOptions(configBuilder);
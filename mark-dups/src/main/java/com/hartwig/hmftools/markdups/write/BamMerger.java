@@ -8,11 +8,8 @@ import java.io.File;
 import java.util.List;
 
 import com.google.common.collect.Lists;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
 import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.SAMFileWriter;
-import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
@@ -25,11 +22,11 @@ public class BamMerger
     private final List<BamReader> mActiveBamReaders;
     private final List<BamReader> mFinishedBamReaders;
     private final String mRefGenomeFile;
-    private final SAMFileWriter mSamFileWriter;
+    private final ParallelBamWriter mBamWriter;
 
     private int mReorderCount;
 
-    public BamMerger(final String outputBam, final List<String> inputBams, final String refGenomeFile)
+    public BamMerger(final String outputBam, final List<String> inputBams, final String refGenomeFile, int threads, boolean writeIndex)
     {
         mOutputBam = outputBam;
         mInputBams = inputBams;
@@ -38,7 +35,8 @@ public class BamMerger
         mActiveBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
         mFinishedBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
 
-        mSamFileWriter = initialiseWriter();
+        // the merged BAM's blocks are compressed on the thread pool, and its index formed as it is written
+        mBamWriter = initialiseWriter(threads, writeIndex);
         mReorderCount = 0;
     }
 
@@ -46,9 +44,27 @@ public class BamMerger
 
     public boolean merge()
     {
-        if(mInputBams.isEmpty() || mSamFileWriter == null)
+        if(mInputBams.isEmpty() || mBamWriter == null)
             return false;
 
+        boolean merged = false;
+
+        try
+        {
+            merged = mergeBams();
+        }
+        finally
+        {
+            // release the writer's compression threads if the merge failed or had nothing to write
+            if(!merged)
+                mBamWriter.abort();
+        }
+
+        return merged;
+    }
+
+    private boolean mergeBams()
+    {
         // open and prepare each BAM, adding in start order
         for(String bamFile : mInputBams)
         {
@@ -82,7 +98,7 @@ public class BamMerger
 
         while(!mActiveBamReaders.isEmpty())
         {
-            mSamFileWriter.addAlignment(topWriter.current());
+            mBamWriter.addAlignment(topWriter.current());
             ++recordCount;
 
             if((recordCount % LOG_COUNT) == 0)
@@ -123,7 +139,7 @@ public class BamMerger
         MD_LOGGER.info("merged {} BAM files with {} records, reorder count({})",
                 mInputBams.size(), recordCount, mReorderCount);
 
-        mSamFileWriter.close();
+        mBamWriter.close();
 
         return true;
     }
@@ -142,7 +158,7 @@ public class BamMerger
         mActiveBamReaders.add(index, bamReader);
     }
 
-    private SAMFileWriter initialiseWriter()
+    private ParallelBamWriter initialiseWriter(int threads, boolean writeIndex)
     {
         if(mInputBams.isEmpty() || mOutputBam == null)
             return null;
@@ -155,7 +171,7 @@ public class BamMerger
         // need to check this - must be unsorted to write as
         fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
 
-        return new SAMFileWriterFactory().makeBAMWriter(fileHeader, true, new File(mOutputBam));
+        return new ParallelBamWriter(fileHeader, mOutputBam, writeIndex, threads);
     }
 
     private class BamReader
@@ -173,7 +189,7 @@ public class BamMerger
         {
             File file = new File(bamFile);
             mFilename = file.getName();
-            mSamReader = SamReaderFactory.makeDefault().referenceSequence(new File(mRefGenomeFile)).open(file);
+            mSamReader = SamReaderFactory.makeDefault().referenceSequence(new File(mRefGenomeFile)).setUseAsyncIo(true).open(file);
             mCurrentRecord = null;
             mCurentChromosome = "";
             mCurentChromosomeRank = -1;
@@ -220,8 +236,9 @@ public class BamMerger
                 }
                 else if(!mCurentChromosome.equals(mCurrentRecord.getReferenceName()))
                 {
+                    // order by the header's sequence dictionary, as required for the index
                     mCurentChromosome = mCurrentRecord.getReferenceName();
-                    mCurentChromosomeRank = HumanChromosome.chromosomeRank(mCurentChromosome);
+                    mCurentChromosomeRank = mCurrentRecord.getReferenceIndex();
                 }
             }
             else
@@ -84,7 +84,8 @@ public abstract class BamWriter
                 processRecord(read);
                 mConsensusReadCount.incrementAndGet();
 
-                mReadDataWriter.writeReadData(read, PRIMARY, group.coordinatesKey(), 0, group.umiId());
+                if(mReadDataWriter.writesRead(read, PRIMARY))
+                    mReadDataWriter.writeReadData(read, PRIMARY, group.coordinatesKey(), 0, group.umiId());
 
                 continue;
             }
@@ -92,7 +93,10 @@ public abstract class BamWriter
             if(mConfig.UMIs.Enabled)
                 read.setAttribute(UMI_ATTRIBUTE, group.umiId());
 
-            writeRead(read, DUPLICATE, group.coordinatesKey(), 0, group.umiId());
+            if(mReadDataWriter.writesRead(read, DUPLICATE))
+                mReadDataWriter.writeReadData(read, DUPLICATE, group.coordinatesKey(), 0, group.umiId());
+
+            writeNonConsensusRead(read, DUPLICATE);
         }
     }
 
@@ -127,21 +131,23 @@ public abstract class BamWriter
 
     private void writeRead(final SAMRecord read, final FragmentStatus fragmentStatus, @Nullable final Fragment fragment)
     {
-        writeRead(
-                read, fragmentStatus,
-                fragment != null ? fragment.coordinates().Key : "",
-                fragment != null ? fragment.averageBaseQual() : 0,
-                fragment != null ? fragment.umi() : "");
+        // the coordinates key is only formed for reads which are logged, and before the duplicate flag is overwritten
+        if(mReadDataWriter.writesRead(read, fragmentStatus))
+        {
+            mReadDataWriter.writeReadData(
+                    read, fragmentStatus,
+                    fragment != null ? fragment.coordinates().key() : "",
+                    fragment != null ? fragment.averageBaseQual() : 0,
+                    fragment != null ? fragment.umi() : "");
+        }
+
+        writeNonConsensusRead(read, fragmentStatus);
     }
 
-    private void writeRead(
-            final SAMRecord read, final FragmentStatus fragmentStatus, final String fragmentCoordinates,
-            final double avgBaseQual, final String umiId)
+    private void writeNonConsensusRead(final SAMRecord read, final FragmentStatus fragmentStatus)
     {
         mNonConsensusReadCount.incrementAndGet();
 
-        mReadDataWriter.writeReadData(read, fragmentStatus, fragmentCoordinates, avgBaseQual, umiId);
-
         if(fragmentStatus == DUPLICATE)
         {
             if(mConfig.DropDuplicates)
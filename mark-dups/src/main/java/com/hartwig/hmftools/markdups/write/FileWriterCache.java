@@ -248,21 +248,33 @@ public class FileWriterCache
         if(!sortingOk)
             return false;
 
+        boolean mergeInProcess = mBamWriters.size() > 1 && mConfig.InProcessMerge;
+
         if(mBamWriters.size() > 1)
         {
-            if(!mergeBams(finalBamFilename, bamsToMerge))
+            if(!mergeBams(finalBamFilename, bamsToMerge, mergeInProcess))
                 return false;
         }
 
         if(!mConfig.KeepInterimBams)
             deleteInterimBams(interimBams);
 
+        // the in-process merge indexes the final BAM as it is written
+        if(mergeInProcess)
+            return true;
+
         return indexFinalBam(finalBamFilename);
     }
 
-    private boolean mergeBams(final String finalBamFilename, final List<String> sortedThreadBams)
+    private boolean mergeBams(final String finalBamFilename, final List<String> sortedThreadBams, boolean mergeInProcess)
     {
-        return BamOperations.mergeBams(bamToolName(), bamToolPath(), finalBamFilename, sortedThreadBams, mConfig.Threads);
+        if(!mergeInProcess)
+            return BamOperations.mergeBams(bamToolName(), bamToolPath(), finalBamFilename, sortedThreadBams, mConfig.Threads);
+
+        MD_LOGGER.debug("merging {} sorted BAMs in-process", sortedThreadBams.size());
+
+        BamMerger bamMerger = new BamMerger(finalBamFilename, sortedThreadBams, mConfig.RefGenomeFile, mConfig.Threads, true);
+        return bamMerger.merge();
     }
 
     private void deleteInterimBams(final List<String> interimBams)
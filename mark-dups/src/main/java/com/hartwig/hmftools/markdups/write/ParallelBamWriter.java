@@ -0,0 +1,410 @@
+package com.hartwig.hmftools.markdups.write;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
+
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_ID1;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_ID2;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BGZF_LEN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_FLG;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_ID1;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_ID2;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_XFL;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.GZIP_XLEN;
+import static htsjdk.samtools.util.BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMFileWriter;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileSource;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.RuntimeIOException;
+
+public class ParallelBamWriter
+{
+    // writes a coordinate-sorted BAM from a single calling thread, with its BGZF blocks deflated on a thread pool and written in order,
+    // and the BAM index built as each block's compressed address becomes known
+    private final String mFilename;
+    private final OutputStream mOutputStream;
+    private final BAMRecordCodec mRecordCodec;
+    private final BlockBuffer mBlockBuffer;
+    private final BAMIndexer mIndexer;
+
+    private final ExecutorService mCompressionPool;
+    private final Deque<Future<byte[]>> mPendingBlocks;
+    private final int mMaxPendingBlocks;
+    private final ThreadLocal<BlockCompressor> mCompressors;
+
+    // block index state - records are held until the compressed address of the block they end in is known
+    private final Deque<IndexRecord> mPendingIndexRecords;
+    private long[] mBlockAddresses;
+    private int mBlocksWritten;
+    private long mCompressedBytesWritten;
+
+    private long mRecordCount;
+
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    public ParallelBamWriter(final SAMFileHeader header, final String filename, boolean writeIndex, int threads)
+    {
+        mFilename = filename;
+
+        try
+        {
+            mOutputStream = new BufferedOutputStream(new FileOutputStream(filename), MAX_COMPRESSED_BLOCK_SIZE * BLOCKS_PER_THREAD);
+
+            // the header is written in its own blocks so the first alignment starts on a block boundary
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            BAMFileWriter.writeHeader(headerBytes, header);
+            headerBytes.writeTo(mOutputStream);
+            mCompressedBytesWritten = headerBytes.size();
+        }
+        catch(IOException e)
+        {
+            throw new RuntimeIOException(format("failed to create BAM(%s): %s", filename, e));
+        }
+
+        mRecordCodec = new BAMRecordCodec(header);
+        mBlockBuffer = new BlockBuffer();
+        mRecordCodec.setOutputStream(mBlockBuffer, filename);
+
+        mIndexer = writeIndex ? new BAMIndexer(new File(indexFilename(filename)), header) : null;
+
+        int poolThreads = Math.max(threads, 1);
+        mCompressionPool = Executors.newFixedThreadPool(poolThreads);
+        mPendingBlocks = new ArrayDeque<>();
+        mMaxPendingBlocks = poolThreads * BLOCKS_PER_THREAD;
+        mCompressors = ThreadLocal.withInitial(BlockCompressor::new);
+
+        mPendingIndexRecords = new ArrayDeque<>();
+        mBlockAddresses = new long[1024];
+        mBlocksWritten = 0;
+        mRecordCount = 0;
+    }
+
+    public static String indexFilename(final String bamFilename) { return bamFilename + ".bai"; }
+
+    public String filename() { return mFilename; }
+    public long recordCount() { return mRecordCount; }
+
+    public void addAlignment(final SAMRecord record)
+    {
+        int startBlock = mBlockBuffer.blockIndex();
+        int startOffset = mBlockBuffer.blockOffset();
+
+        mRecordCodec.encode(record);
+        ++mRecordCount;
+
+        if(mIndexer != null)
+        {
+            mPendingIndexRecords.add(new IndexRecord(record, startBlock, startOffset, mBlockBuffer.blockIndex(), mBlockBuffer.blockOffset()));
+            processIndexRecords();
+        }
+    }
+
+    public void close()
+    {
+        try
+        {
+            mBlockBuffer.submitBlock();
+
+            while(!mPendingBlocks.isEmpty())
+            {
+                writeNextBlock();
+            }
+
+            mOutputStream.write(EMPTY_GZIP_BLOCK);
+            mOutputStream.close();
+
+            if(mIndexer != null)
+            {
+                processIndexRecords();
+                mIndexer.finish();
+            }
+        }
+        catch(IOException e)
+        {
+            throw new RuntimeIOException(format("failed to close BAM(%s): %s", mFilename, e));
+        }
+        finally
+        {
+            mCompressionPool.shutdown();
+        }
+
+        MD_LOGGER.debug("BAM({}) written with {} records in {} blocks", mFilename, mRecordCount, mBlocksWritten);
+    }
+
+    public void abort()
+    {
+        // stops any block compression without completing the BAM
+        mCompressionPool.shutdownNow();
+
+        try
+        {
+            mOutputStream.close();
+        }
+        catch(IOException e)
+        {
+            MD_LOGGER.warn("failed to close aborted BAM({}): {}", mFilename, e.toString());
+        }
+    }
+
+    private void submitBlock(final byte[] uncompressed, int length)
+    {
+        mPendingBlocks.add(mCompressionPool.submit(() -> mCompressors.get().compress(uncompressed, length)));
+
+        // write out any completed blocks, waiting on the oldest once too many are in flight
+        while(!mPendingBlocks.isEmpty() && (mPendingBlocks.size() > mMaxPendingBlocks || mPendingBlocks.peekFirst().isDone()))
+        {
+            writeNextBlock();
+        }
+
+        processIndexRecords();
+    }
+
+    private void writeNextBlock()
+    {
+        try
+        {
+            byte[] compressed = mPendingBlocks.removeFirst().get();
+
+            if(mBlocksWritten >= mBlockAddresses.length)
+            {
+                long[] blockAddresses = new long[mBlockAddresses.length * 2];
+                System.arraycopy(mBlockAddresses, 0, blockAddresses, 0, mBlockAddresses.length);
+                mBlockAddresses = blockAddresses;
+            }
+
+            mBlockAddresses[mBlocksWritten++] = mCompressedBytesWritten;
+
+            mOutputStream.write(compressed);
+            mCompressedBytesWritten += compressed.length;
+        }
+        catch(IOException e)
+        {
+            throw new RuntimeIOException(format("failed to write BAM(%s): %s", mFilename, e));
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            throw new RuntimeException(format("BAM(%s) block compression failed: %s", mFilename, e));
+        }
+    }
+
+    private long blockAddress(int blockIndex)
+    {
+        // a block's address is known once all prior blocks are written
+        if(blockIndex < mBlocksWritten)
+            return mBlockAddresses[blockIndex];
+
+        if(blockIndex == mBlocksWritten && mPendingBlocks.isEmpty())
+            return mCompressedBytesWritten;
+
+        return -1;
+    }
+
+    private void processIndexRecords()
+    {
+        while(!mPendingIndexRecords.isEmpty())
+        {
+            IndexRecord indexRecord = mPendingIndexRecords.peekFirst();
+
+            long endAddress = blockAddress(indexRecord.EndBlock);
+
+            if(endAddress < 0)
+                return;
+
+            long startAddress = blockAddress(indexRecord.StartBlock);
+
+            Chunk chunk = new Chunk(startAddress << 16 | indexRecord.StartOffset, endAddress << 16 | indexRecord.EndOffset);
+            indexRecord.Record.setFileSource(new SAMFileSource(null, new BAMFileSpan(chunk)));
+            mIndexer.processAlignment(indexRecord.Record);
+
+            mPendingIndexRecords.removeFirst();
+        }
+    }
+
+    private class BlockBuffer extends OutputStream
+    {
+        // accumulates encoded records into blocks of the standard uncompressed size, handing each full block to the pool
+        private byte[] mBuffer;
+        private int mOffset;
+        private int mBlockIndex;
+
+        public BlockBuffer()
+        {
+            mBuffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+            mOffset = 0;
+            mBlockIndex = 0;
+        }
+
+        public int blockIndex() { return mBlockIndex; }
+        public int blockOffset() { return mOffset; }
+
+        @Override
+        public void write(int b)
+        {
+            mBuffer[mOffset++] = (byte)b;
+
+            if(mOffset == mBuffer.length)
+                submitBlock();
+        }
+
+        @Override
+        public void write(final byte[] bytes, int offset, int length)
+        {
+            while(length > 0)
+            {
+                int copyLength = Math.min(length, mBuffer.length - mOffset);
+                System.arraycopy(bytes, offset, mBuffer, mOffset, copyLength);
+                mOffset += copyLength;
+                offset += copyLength;
+                length -= copyLength;
+
+                if(mOffset == mBuffer.length)
+                    submitBlock();
+            }
+        }
+
+        public void submitBlock()
+        {
+            if(mOffset == 0)
+                return;
+
+            byte[] block = mBuffer;
+            int length = mOffset;
+
+            mBuffer = new byte[DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+            mOffset = 0;
+            ++mBlockIndex;
+
+            ParallelBamWriter.this.submitBlock(block, length);
+        }
+    }
+
+    private static class BlockCompressor
+    {
+        // one per pool thread, forming a complete BGZF block and falling back to no compression if the data does not fit
+        private final Deflater mDeflater;
+        private final Deflater mNoCompressionDeflater;
+        private final CRC32 mCrc;
+        private final byte[] mCompressedBuffer;
+
+        public BlockCompressor()
+        {
+            mDeflater = new Deflater(DEFAULT_COMPRESSION_LEVEL, true);
+            mNoCompressionDeflater = new Deflater(Deflater.NO_COMPRESSION, true);
+            mCrc = new CRC32();
+            mCompressedBuffer = new byte[MAX_COMPRESSED_BLOCK_SIZE - BLOCK_HEADER_LENGTH];
+        }
+
+        public byte[] compress(final byte[] uncompressed, int length)
+        {
+            int compressedSize = deflate(mDeflater, uncompressed, length);
+
+            if(compressedSize < 0)
+                compressedSize = deflate(mNoCompressionDeflater, uncompressed, length);
+
+            mCrc.reset();
+            mCrc.update(uncompressed, 0, length);
+
+            int totalBlockSize = BLOCK_HEADER_LENGTH + compressedSize + BLOCK_FOOTER_LENGTH;
+
+            byte[] block = new byte[totalBlockSize];
+            int index = 0;
+
+            block[index++] = GZIP_ID1;
+            block[index++] = (byte)GZIP_ID2;
+            block[index++] = GZIP_CM_DEFLATE;
+            block[index++] = GZIP_FLG;
+            index += 4; // modification time
+            block[index++] = GZIP_XFL;
+            block[index++] = (byte)GZIP_OS_UNKNOWN;
+            index = writeShort(block, index, GZIP_XLEN);
+            block[index++] = BGZF_ID1;
+            block[index++] = BGZF_ID2;
+            index = writeShort(block, index, BGZF_LEN);
+            index = writeShort(block, index, totalBlockSize - 1);
+
+            System.arraycopy(mCompressedBuffer, 0, block, index, compressedSize);
+            index += compressedSize;
+
+            index = writeInt(block, index, (int)mCrc.getValue());
+            writeInt(block, index, length);
+
+            return block;
+        }
+
+        private int deflate(final Deflater deflater, final byte[] uncompressed, int length)
+        {
+            int maxCompressedSize = mCompressedBuffer.length - BLOCK_FOOTER_LENGTH;
+
+            deflater.reset();
+            deflater.setInput(uncompressed, 0, length);
+            deflater.finish();
+
+            int compressedSize = deflater.deflate(mCompressedBuffer, 0, maxCompressedSize);
+
+            return deflater.finished() ? compressedSize : -1;
+        }
+
+        private static int writeShort(final byte[] buffer, int index, int value)
+        {
+            buffer[index++] = (byte)value;
+            buffer[index++] = (byte)(value >> 8);
+            return index;
+        }
+
+        private static int writeInt(final byte[] buffer, int index, int value)
+        {
+            buffer[index++] = (byte)value;
+            buffer[index++] = (byte)(value >> 8);
+            buffer[index++] = (byte)(value >> 16);
+            buffer[index++] = (byte)(value >> 24);
+            return index;
+        }
+    }
+
+    private static class IndexRecord
+    {
+        public final SAMRecord Record;
+        public final int StartBlock;
+        public final int StartOffset;
+        public final int EndBlock;
+        public final int EndOffset;
+
+        public IndexRecord(final SAMRecord record, int startBlock, int startOffset, int endBlock, int endOffset)
+        {
+            Record = record;
+            StartBlock = startBlock;
+            StartOffset = startOffset;
+            EndBlock = endBlock;
+            EndOffset = endOffset;
+        }
+    }
+}
@@ -79,27 +79,28 @@ public class ReadDataWriter
         return null;
     }
 
+    public boolean writesRead(final SAMRecord read, final FragmentStatus fragmentStatus)
+    {
+        // callers check this first so that fragment coordinate keys are only formed for reads which are logged
+        if(mWriter == null)
+            return false;
+
+        if(mConfig.LogReadType == DUPLICATES)
+            return read.getDuplicateReadFlag() || fragmentStatus.isDuplicate();
+
+        if(mConfig.LogReadType == MISMATCHES)
+            return fragmentStatus == UNSET || read.getDuplicateReadFlag() != (fragmentStatus == DUPLICATE);
+
+        return true;
+    }
+
     public synchronized void writeReadData(
             final SAMRecord read, final FragmentStatus fragmentStatus, final String fragmentCoordinates,
             final double avgBaseQual, final String umiId)
     {
-        if(mWriter == null)
+        if(!writesRead(read, fragmentStatus))
             return;
 
-        if(mConfig.LogReadType == DUPLICATES)
-        {
-            if(!read.getDuplicateReadFlag() && !fragmentStatus.isDuplicate())
-                return;
-        }
-        else if(mConfig.LogReadType == MISMATCHES)
-        {
-            if(fragmentStatus != UNSET)
-            {
-                if(read.getDuplicateReadFlag() == (fragmentStatus == DUPLICATE))
-                    return;
-            }
-        }
-
         try
         {
             mWriter.write(format("%s\t%s\t%d\t%d\t%s",
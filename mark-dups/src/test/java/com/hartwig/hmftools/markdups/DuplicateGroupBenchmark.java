@@ -0,0 +1,212 @@
+package com.hartwig.hmftools.markdups;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_BASES;
+import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_CIGAR;
+import static com.hartwig.hmftools.markdups.TestUtils.createFragment;
+import static com.hartwig.hmftools.markdups.common.DuplicateGroupBuilder.findDuplicateFragments;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formCoordinate;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formKey;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.unpackIsForward;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.unpackPosition;
+import static com.hartwig.hmftools.markdups.common.FragmentStatus.UNSET;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.test.ReadIdGenerator;
+import com.hartwig.hmftools.markdups.common.CandidateDuplicates;
+import com.hartwig.hmftools.markdups.common.Fragment;
+import com.hartwig.hmftools.markdups.common.FragmentCoordinates;
+import com.hartwig.hmftools.markdups.common.ReadIdMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// duplicate classification over position groups of fragments sharing a lower read coordinate, with mates spread over a small window
+// so that groups hold a mix of duplicates and non-duplicates, plus a comparison of the string coordinate keys and read-ID caches
+// which the packed coordinates and open-addressing maps replaced
+// run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hartwig.hmftools.markdups.DuplicateGroupBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class DuplicateGroupBenchmark
+{
+    @Param({ "8", "64" })
+    public int GroupSize;
+
+    private static final int GROUP_COUNT = 500;
+    private static final int MATE_WINDOW = 10;
+
+    private List<List<Fragment>> mPositionGroups;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        ReadIdGenerator readIdGen = new ReadIdGenerator();
+
+        mPositionGroups = Lists.newArrayListWithCapacity(GROUP_COUNT);
+
+        for(int g = 0; g < GROUP_COUNT; ++g)
+        {
+            int readStart = 1000 + g * 200;
+            List<Fragment> fragments = Lists.newArrayListWithCapacity(GroupSize);
+
+            for(int i = 0; i < GroupSize; ++i)
+            {
+                String mateChr = random.nextInt(20) == 0 ? CHR_2 : CHR_1;
+                int mateStart = readStart + 300 + random.nextInt(MATE_WINDOW);
+
+                Fragment fragment = createFragment(
+                        readIdGen.nextId(), CHR_1, readStart, TEST_READ_BASES, TEST_READ_CIGAR, mateChr, mateStart,
+                        false, false, null);
+
+                fragment.intialiseCoordinates(false);
+                fragments.add(fragment);
+            }
+
+            mPositionGroups.add(fragments);
+        }
+    }
+
+    @Benchmark
+    public void findDuplicates(final Blackhole blackhole)
+    {
+        List<Fragment> resolvedFragments = Lists.newArrayList();
+        List<List<Fragment>> duplicateGroups = Lists.newArrayList();
+        List<CandidateDuplicates> candidateDuplicatesList = Lists.newArrayList();
+
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            positionFragments.forEach(x -> x.setStatus(UNSET));
+
+            findDuplicateFragments(
+                    Lists.newArrayList(positionFragments), resolvedFragments, duplicateGroups, candidateDuplicatesList, false);
+
+            blackhole.consume(duplicateGroups.size());
+
+            resolvedFragments.clear();
+            duplicateGroups.clear();
+            candidateDuplicatesList.clear();
+        }
+    }
+
+    @Benchmark
+    public void groupByStringKey(final Blackhole blackhole)
+    {
+        // the previous form of coordinate matching, building a string key per fragment
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            Map<String,List<Fragment>> keyGroups = Maps.newHashMap();
+
+            for(Fragment fragment : positionFragments)
+            {
+                FragmentCoordinates coords = fragment.coordinates();
+
+                String readCoordStr = formCoordinate(
+                        fragment.reads().get(0).getReferenceName(), unpackPosition(coords.ReadCoordinate),
+                        unpackIsForward(coords.ReadCoordinate));
+
+                String mateCoordStr = formCoordinate(
+                        fragment.reads().get(0).getMateReferenceName(), unpackPosition(coords.MateCoordinate),
+                        unpackIsForward(coords.MateCoordinate));
+
+                keyGroups.computeIfAbsent(formKey(readCoordStr, mateCoordStr), k -> Lists.newArrayList()).add(fragment);
+            }
+
+            blackhole.consume(keyGroups.size());
+        }
+    }
+
+    @Benchmark
+    public void groupByPackedKey(final Blackhole blackhole)
+    {
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            List<List<Fragment>> keyGroups = Lists.newArrayList();
+
+            for(Fragment fragment : positionFragments)
+            {
+                List<Fragment> matchedGroup = null;
+
+                for(List<Fragment> keyGroup : keyGroups)
+                {
+                    if(keyGroup.get(0).coordinates().matches(fragment.coordinates(), false))
+                    {
+                        matchedGroup = keyGroup;
+                        break;
+                    }
+                }
+
+                if(matchedGroup == null)
+                    keyGroups.add(Lists.newArrayList(fragment));
+                else
+                    matchedGroup.add(fragment);
+            }
+
+            blackhole.consume(keyGroups.size());
+        }
+    }
+
+    @Benchmark
+    public void readIdHashMap(final Blackhole blackhole)
+    {
+        Map<String,Fragment> fragmentMap = Maps.newHashMap();
+
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            positionFragments.forEach(x -> fragmentMap.put(x.id(), x));
+        }
+
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            positionFragments.forEach(x -> blackhole.consume(fragmentMap.remove(x.id())));
+        }
+    }
+
+    @Benchmark
+    public void readIdOpenAddressingMap(final Blackhole blackhole)
+    {
+        ReadIdMap<Fragment> fragmentMap = new ReadIdMap<>();
+
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            positionFragments.forEach(x -> fragmentMap.put(x.id(), x));
+        }
+
+        for(List<Fragment> positionFragments : mPositionGroups)
+        {
+            positionFragments.forEach(x -> blackhole.consume(fragmentMap.remove(x.id())));
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(DuplicateGroupBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -79,7 +79,7 @@ public class FragmentUtilsTest
 
         fragment.addRead(mateRead);
 
-        assertEquals("1_100_100", fragment.coordinates().Key);
+        assertEquals("1_100_100", fragment.coordinates().key());
         assertFalse(fragment.coordinates().Incomplete);
     }
 
@@ -118,7 +118,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         FragmentCoordinates fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_1_299_R", fragmentCoords.Key);
+        assertEquals("1_100_1_299_R", fragmentCoords.key());
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // mate on earlier chromosome
@@ -140,7 +140,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_1_200", fragmentCoords.Key);
+        assertEquals("1_199_R_1_200", fragmentCoords.key());
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // unmapped mate
@@ -149,7 +149,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_400", fragmentCoords.Key);
+        assertEquals("1_100_400", fragmentCoords.key());
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // fragment reversed
@@ -158,7 +158,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_400", fragmentCoords.Key);
+        assertEquals("1_199_R_400", fragmentCoords.key());
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // missing mate CIGAR attribute
@@ -166,7 +166,7 @@ public class FragmentUtilsTest
                 false, false, null);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_200", fragmentCoords.Key);
+        assertEquals("1_200", fragmentCoords.key());
         assertTrue(fragmentCoords.Incomplete);
     }
 
@@ -0,0 +1,104 @@
+package com.hartwig.hmftools.markdups;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.SAM_DICTIONARY_V37;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecord;
+import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_BASES;
+import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_CIGAR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import com.hartwig.hmftools.common.test.ReadIdGenerator;
+import com.hartwig.hmftools.markdups.write.ParallelBamWriter;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+
+public class ParallelBamWriterTest
+{
+    @Test
+    public void testWriteAndIndexBam() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("markdups_test").toFile();
+        String bamFile = new File(tempDir, "parallel_writer.bam").getAbsolutePath();
+
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(SAM_DICTIONARY_V37);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        ReadIdGenerator readIdGen = new ReadIdGenerator();
+
+        // enough reads to span many BGZF blocks, with records straddling block boundaries
+        int readsPerChromosome = 20000;
+
+        ParallelBamWriter bamWriter = new ParallelBamWriter(header, bamFile, true, 4);
+
+        for(String chromosome : new String[] { CHR_1, CHR_2 })
+        {
+            for(int i = 0; i < readsPerChromosome; ++i)
+            {
+                int readStart = 1000 + i * 10;
+
+                SAMRecord read = createSamRecord(
+                        readIdGen.nextId(), chromosome, readStart, TEST_READ_BASES, TEST_READ_CIGAR, chromosome, readStart + 300,
+                        false, false, null);
+
+                bamWriter.addAlignment(read);
+            }
+        }
+
+        bamWriter.close();
+
+        assertEquals(2 * readsPerChromosome, bamWriter.recordCount());
+        assertTrue(new File(ParallelBamWriter.indexFilename(bamFile)).exists());
+
+        SamReader samReader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(new File(bamFile));
+        assertTrue(samReader.hasIndex());
+
+        int totalCount = 0;
+
+        try(SAMRecordIterator iterator = samReader.iterator())
+        {
+            while(iterator.hasNext())
+            {
+                iterator.next();
+                ++totalCount;
+            }
+        }
+
+        assertEquals(2 * readsPerChromosome, totalCount);
+
+        // query a region late in the second chromosome via the index - reads overlapping positions 150000-150999
+        int regionCount = 0;
+
+        try(SAMRecordIterator iterator = samReader.queryOverlapping(CHR_2, 150000, 150999))
+        {
+            while(iterator.hasNext())
+            {
+                SAMRecord read = iterator.next();
+                assertEquals(CHR_2, read.getReferenceName());
+                ++regionCount;
+            }
+        }
+
+        assertEquals(109, regionCount);
+
+        samReader.close();
+
+        new File(bamFile).delete();
+        new File(ParallelBamWriter.indexFilename(bamFile)).delete();
+        tempDir.delete();
+    }
+}
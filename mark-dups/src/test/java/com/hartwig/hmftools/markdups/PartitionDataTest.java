@@ -35,6 +35,8 @@ import com.hartwig.hmftools.markdups.common.ResolvedFragmentState;
 
 import org.junit.Test;
 
+import htsjdk.samtools.SAMRecord;
+
 public class PartitionDataTest
 {
     private final ReadIdGenerator mReadIdGen;
@@ -153,6 +155,58 @@ public class PartitionDataTest
         assertFalse(partitionData.fragmentStatusMap().containsKey(read.id()));
     }
 
+    @Test
+    public void testConcurrentMateHandOff() throws InterruptedException
+    {
+        // primary fragments are resolved by the partition's own thread while their mates arrive from other partitions' threads
+        PartitionData partitionData = new PartitionData(LOCAL_PARTITION_STR, mConfig);
+        partitionData.togglePerfChecks();
+
+        int fragmentCount = 2000;
+        List<Fragment> primaryFragments = Lists.newArrayList();
+        List<List<SAMRecord>> mateReadBatches = Lists.newArrayList(Lists.newArrayList(), Lists.newArrayList());
+
+        mReadIdGen.reset();
+
+        for(int i = 0; i < fragmentCount; ++i)
+        {
+            Fragment read = createFragment(mReadIdGen.nextId(), CHR_1, 100 + i, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 5000 + i,
+                    false, false, null);
+
+            read.setStatus(NONE);
+            primaryFragments.add(read);
+
+            Fragment mateRead = createFragment(read.id(), CHR_1, 5000 + i, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 100 + i,
+                    true, false, null);
+
+            mateReadBatches.get(i % 2).add(mateRead.reads().get(0));
+        }
+
+        List<Thread> threads = Lists.newArrayList();
+
+        threads.add(new Thread(() -> primaryFragments.forEach(x ->
+                partitionData.processPrimaryFragments(Lists.newArrayList(x), Collections.EMPTY_LIST))));
+
+        for(List<SAMRecord> mateReads : mateReadBatches)
+        {
+            threads.add(new Thread(() -> Lists.partition(mateReads, 10).forEach(x -> partitionData.processIncompleteFragments(x))));
+        }
+
+        for(Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        // every fragment has been brought together with its mate, leaving no cached state
+        assertTrue(partitionData.fragmentStatusMap().isEmpty());
+        assertTrue(partitionData.incompleteFragmentMap().isEmpty());
+    }
+
     private List<Fragment> createBasicFragments()
     {
         mReadIdGen.reset();
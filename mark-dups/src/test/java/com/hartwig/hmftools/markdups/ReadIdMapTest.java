@@ -0,0 +1,112 @@
+package com.hartwig.hmftools.markdups;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.markdups.common.PositionMap;
+import com.hartwig.hmftools.markdups.common.ReadIdMap;
+
+import org.junit.Test;
+
+public class ReadIdMapTest
+{
+    @Test
+    public void testReadIdMap()
+    {
+        ReadIdMap<Integer> readIdMap = new ReadIdMap<>(16);
+        Map<String,Integer> expected = Maps.newHashMap();
+
+        // enough entries to force several resizes and long probe chains, with interleaved removals
+        Random random = new Random(1);
+
+        for(int i = 0; i < 5000; ++i)
+        {
+            String readId = "A00624:8:HHKYHDSXX:1:1101:" + random.nextInt(2000);
+
+            if(random.nextBoolean())
+            {
+                readIdMap.put(readId, i);
+                expected.put(readId, i);
+            }
+            else
+            {
+                assertEquals(expected.remove(readId), readIdMap.remove(readId));
+            }
+
+            assertEquals(expected.size(), readIdMap.size());
+        }
+
+        for(Map.Entry<String,Integer> entry : expected.entrySet())
+        {
+            assertEquals(entry.getValue(), readIdMap.get(entry.getKey()));
+        }
+
+        assertEquals(expected.size(), readIdMap.values().size());
+        assertTrue(readIdMap.values().containsAll(expected.values()));
+
+        readIdMap.clear();
+        assertTrue(readIdMap.isEmpty());
+        assertNull(readIdMap.get(expected.keySet().iterator().next()));
+    }
+
+    @Test
+    public void testPositionMap()
+    {
+        PositionMap<String> positionMap = new PositionMap<>(16);
+        Map<Integer,String> expected = Maps.newHashMap();
+
+        Random random = new Random(1);
+
+        for(int i = 0; i < 5000; ++i)
+        {
+            // reverse-strand positions are negative and zero is a valid key
+            int position = -random.nextInt(1000);
+
+            if(random.nextBoolean())
+            {
+                positionMap.put(position, String.valueOf(i));
+                expected.put(position, String.valueOf(i));
+            }
+            else
+            {
+                assertEquals(expected.remove(position), positionMap.remove(position));
+            }
+
+            assertEquals(expected.size(), positionMap.size());
+        }
+
+        int[] keys = positionMap.keys();
+        assertEquals(expected.size(), keys.length);
+
+        for(int key : keys)
+        {
+            assertEquals(expected.get(key), positionMap.get(key));
+        }
+
+        // in-place removal must visit every matching entry once, including those shifted back by earlier removals
+        List<String> removed = Lists.newArrayList();
+        positionMap.removeIf(x -> x > -500, removed::add);
+
+        List<String> expectedRemoved = expected.entrySet().stream()
+                .filter(x -> x.getKey() > -500).map(Map.Entry::getValue).collect(Collectors.toList());
+
+        assertEquals(expectedRemoved.size(), removed.size());
+        assertTrue(removed.containsAll(expectedRemoved));
+
+        expected.keySet().removeIf(x -> x > -500);
+        assertEquals(expected.size(), positionMap.size());
+
+        for(Map.Entry<Integer,String> entry : expected.entrySet())
+        {
+            assertEquals(entry.getValue(), positionMap.get(entry.getKey()));
+        }
+    }
+}
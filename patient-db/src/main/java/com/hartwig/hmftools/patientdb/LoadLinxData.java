@@ -12,12 +12,14 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import static com.hartwig.hmftools.patientdb.LoadPurpleData.hasMissingFiles;
 import static com.hartwig.hmftools.patientdb.CommonUtils.LOGGER;
 import static com.hartwig.hmftools.patientdb.CommonUtils.logVersion;
+import static com.hartwig.hmftools.patientdb.SampleLoadHashes.INCREMENTAL_LOAD;
 import static com.hartwig.hmftools.patientdb.dao.DatabaseAccess.addDatabaseCmdLineArgs;
 import static com.hartwig.hmftools.patientdb.dao.DatabaseAccess.createDatabaseAccess;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -43,6 +45,9 @@ public class LoadLinxData
     private static final String SOMATIC_ONLY = "somatic_only";
     private static final String GERMLINE_ONLY = "germline_only";
 
+    private static final String SOURCE_SOMATIC = "LINX_SOMATIC";
+    private static final String SOURCE_GERMLINE = "LINX_GERMLINE";
+
     public static void main(@NotNull String[] args) throws ParseException, IOException
     {
         ConfigBuilder configBuilder = new ConfigBuilder();
@@ -72,13 +77,15 @@ public class LoadLinxData
             boolean loadGermline = !configBuilder.hasFlag(SOMATIC_ONLY);
             boolean loadSomatic = !configBuilder.hasFlag(GERMLINE_ONLY);
 
+            SampleLoadHashes loadHashes = new SampleLoadHashes(dbAccess, sampleId, configBuilder.hasFlag(INCREMENTAL_LOAD));
+
             dbAccess.context().transaction(tr ->
             {
                 if(loadSomatic)
-                    loadSomaticData(dbAccess, sampleId, linxDir);
+                    loadSomaticData(dbAccess, sampleId, linxDir, loadHashes);
 
                 if(loadGermline)
-                    loadGermlineData(dbAccess, sampleId, linxGermlineDir);
+                    loadGermlineData(dbAccess, sampleId, linxGermlineDir, loadHashes);
             });
 
             LOGGER.info("Linx data loading complete");
@@ -90,11 +97,10 @@ public class LoadLinxData
         }
     }
 
-    private static void loadSomaticData(final DatabaseAccess dbAccess, final String sampleId, final String linxDir)
+    private static void loadSomaticData(
+            final DatabaseAccess dbAccess, final String sampleId, final String linxDir, final SampleLoadHashes loadHashes)
             throws IOException
     {
-        LOGGER.info("sample({}) loading Linx somatic data", sampleId);
-
         final String svAnnotationFile = LinxSvAnnotation.generateFilename(linxDir, sampleId, false);
         final String svClusterFile = LinxCluster.generateFilename(linxDir, sampleId, false);
         final String svLinkFile = LinxLink.generateFilename(linxDir, sampleId, false);
@@ -115,6 +121,11 @@ public class LoadLinxData
         if(hasMissingFiles(requiredFiles, "somatic"))
             System.exit(1);
 
+        if(!loadHashes.requiresLoad(SOURCE_SOMATIC, Collections.emptyList(), requiredFiles))
+            return;
+
+        LOGGER.info("sample({}) loading Linx somatic data", sampleId);
+
         List<LinxSvAnnotation> svAnnotations = LinxSvAnnotation.read(svAnnotationFile);
         LOGGER.info("sample({}) loading {} SV annotation records", sampleId, svAnnotations.size());
         dbAccess.writeSvLinxData(sampleId, svAnnotations);
@@ -140,13 +151,14 @@ public class LoadLinxData
         List<DriverCatalog> driverCatalog = DriverCatalogFile.read(driverCatalogFile);
         LOGGER.info("sample({}) loading {} somatic driver catalog records", sampleId, driverCatalog.size());
         dbAccess.writeLinxDriverCatalog(sampleId, driverCatalog, DRIVERS_LINX_SOMATIC);
+
+        loadHashes.onLoadComplete(SOURCE_SOMATIC);
     }
 
-    private static void loadGermlineData(final DatabaseAccess dbAccess, final String sampleId, final String linxDir)
+    private static void loadGermlineData(
+            final DatabaseAccess dbAccess, final String sampleId, final String linxDir, final SampleLoadHashes loadHashes)
             throws IOException
     {
-        LOGGER.info("sample({}) loading Linx germline data", sampleId);
-
         final String germlineSvFile = LinxGermlineSv.generateFilename(linxDir, sampleId);
         final String germlineBreakendFile = LinxBreakend.generateFilename(linxDir, sampleId, true);
         final String driverCatalogFile = LinxDriver.generateCatalogFilename(linxDir, sampleId, false);
@@ -162,6 +174,14 @@ public class LoadLinxData
         if(hasMissingFiles(requiredFiles, "germline"))
             System.exit(1);
 
+        if(!loadHashes.requiresLoad(SOURCE_GERMLINE, Collections.emptyList(), Lists.newArrayList(
+                germlineSvFile, germlineBreakendFile, driverCatalogFile)))
+        {
+            return;
+        }
+
+        LOGGER.info("sample({}) loading Linx germline data", sampleId);
+
         List<DriverCatalog> driverCatalog = DriverCatalogFile.read(driverCatalogFile);
         LOGGER.info("sample({}) loading {} germline driver catalog records", sampleId, driverCatalog.size());
         dbAccess.writeLinxDriverCatalog(sampleId, driverCatalog, DRIVERS_LINX_GERMLINE);
@@ -176,6 +196,8 @@ public class LoadLinxData
             LOGGER.info("sample({}) loading {} germline breakend records", sampleId, germlineBreakends.size());
             dbAccess.writeGermlineBreakends(sampleId, germlineBreakends);
         }
+
+        loadHashes.onLoadComplete(SOURCE_GERMLINE);
     }
 
     private static void addConfig(final ConfigBuilder configBuilder)
@@ -186,6 +208,7 @@ public class LoadLinxData
         configBuilder.addFlag(SOMATIC_ONLY, "Only load somatic data");
         configBuilder.addFlag(GERMLINE_ONLY, "Only load germline data");
         addDatabaseCmdLineArgs(configBuilder, true);
+        SampleLoadHashes.addConfig(configBuilder);
         ConfigUtils.addLoggingOptions(configBuilder);
     }
 }
@@ -13,6 +13,9 @@ import static com.hartwig.hmftools.common.utils.config.CommonConfig.SAMPLE_DESC;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import static com.hartwig.hmftools.patientdb.CommonUtils.LOGGER;
 import static com.hartwig.hmftools.patientdb.CommonUtils.logVersion;
+import static com.hartwig.hmftools.patientdb.SampleLoadHashes.INCREMENTAL_LOAD;
+import static com.hartwig.hmftools.patientdb.dao.BulkLoadConfig.DEFAULT_LOAD_BATCH_SIZE;
+import static com.hartwig.hmftools.patientdb.dao.BulkLoadConfig.DEFAULT_QUEUE_SIZE;
 import static com.hartwig.hmftools.patientdb.dao.DatabaseAccess.addDatabaseCmdLineArgs;
 import static com.hartwig.hmftools.patientdb.dao.DatabaseAccess.databaseAccess;
 
@@ -20,6 +23,7 @@ import static htsjdk.tribble.AbstractFeatureReader.getFeatureReader;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -35,6 +39,7 @@ import com.hartwig.hmftools.common.purple.PurityContextFile;
 import com.hartwig.hmftools.common.purple.PurpleCommon;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumberFile;
+import com.hartwig.hmftools.common.purple.PurpleQCFile;
 import com.hartwig.hmftools.common.sv.EnrichedStructuralVariant;
 import com.hartwig.hmftools.common.sv.EnrichedStructuralVariantFactory;
 import com.hartwig.hmftools.common.sv.StructuralVariant;
@@ -45,8 +50,9 @@ import com.hartwig.hmftools.common.utils.config.ConfigUtils;
 import com.hartwig.hmftools.common.variant.SomaticVariant;
 import com.hartwig.hmftools.common.variant.SomaticVariantFactory;
 import com.hartwig.hmftools.common.variant.filter.AlwaysPassFilter;
-import com.hartwig.hmftools.patientdb.dao.BufferedWriter;
+import com.hartwig.hmftools.patientdb.dao.BulkLoadConfig;
 import com.hartwig.hmftools.patientdb.dao.DatabaseAccess;
+import com.hartwig.hmftools.patientdb.dao.TableWriter;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -62,6 +68,12 @@ public class LoadPurpleData
     private static final String SOMATIC_ONLY = "somatic_only";
     private static final String GERMLINE_ONLY = "germline_only";
 
+    private static final String SOURCE_COMMON = "PURPLE_COMMON";
+    private static final String SOURCE_SOMATIC = "PURPLE_SOMATIC";
+    private static final String SOURCE_GERMLINE = "PURPLE_GERMLINE";
+
+    private static final BulkLoadConfig NO_BULK_LOAD = new BulkLoadConfig(0, false, DEFAULT_LOAD_BATCH_SIZE, DEFAULT_QUEUE_SIZE);
+
     public static void main(@NotNull String[] args)
     {
         ConfigBuilder configBuilder = new ConfigBuilder();
@@ -108,17 +120,32 @@ public class LoadPurpleData
                     purpleDir);
 
             final String sample = sampleId;
+            SampleLoadHashes loadHashes = new SampleLoadHashes(dbAccess, sample, configBuilder.hasFlag(INCREMENTAL_LOAD));
+            BulkLoadConfig bulkLoadConfig = new BulkLoadConfig(configBuilder);
 
-            dbAccess.context().transaction(tr ->
+            if(loadHashes.incremental())
             {
-                loadCommonData(sample, dbAccess, purpleDir);
+                // incremental loads merge changes within the sample's transaction, which the pipelined loaders cannot join
+                if(bulkLoadConfig.enabled())
+                    LOGGER.warn("pipelined loading is not used for incremental loads");
 
-                if(loadSomatic)
-                    loadSomaticData(sample, referenceId, rnaId, dbAccess, purpleDir);
+                dbAccess.context().transaction(tr ->
+                        loadData(sample, referenceId, rnaId, loadSomatic, loadGermline, dbAccess, purpleDir, loadHashes, NO_BULK_LOAD));
+            }
+            else if(bulkLoadConfig.enabled())
+            {
+                // the pipelined loaders insert on their own pooled connections, which would block on the rows deleted by an open
+                // transaction on the main connection, so in this mode each table is loaded and committed independently
+                LOGGER.info("loading large tables with {} connections{}",
+                        bulkLoadConfig.Connections, bulkLoadConfig.LoadDataInfile ? " using infile loading" : "");
 
-                if(loadGermline)
-                    loadGermlineData(sample, referenceId, rnaId, dbAccess, purpleDir);
-            });
+                loadData(sample, referenceId, rnaId, loadSomatic, loadGermline, dbAccess, purpleDir, loadHashes, bulkLoadConfig);
+            }
+            else
+            {
+                dbAccess.context().transaction(tr ->
+                        loadData(sample, referenceId, rnaId, loadSomatic, loadGermline, dbAccess, purpleDir, loadHashes, bulkLoadConfig));
+            }
 
             LOGGER.info("Purple data loading complete");
         }
@@ -129,18 +156,42 @@ public class LoadPurpleData
         }
     }
 
+    private static void loadData(
+            final String sampleId, final String referenceId, final String rnaId, boolean loadSomatic, boolean loadGermline,
+            final DatabaseAccess dbAccess, final String purpleDir, final SampleLoadHashes loadHashes,
+            final BulkLoadConfig bulkLoadConfig) throws Exception
+    {
+        loadCommonData(sampleId, dbAccess, purpleDir, loadHashes);
+
+        if(loadSomatic)
+            loadSomaticData(sampleId, referenceId, rnaId, dbAccess, purpleDir, loadHashes, bulkLoadConfig);
+
+        if(loadGermline)
+            loadGermlineData(sampleId, referenceId, rnaId, dbAccess, purpleDir, loadHashes, bulkLoadConfig);
+    }
+
     private static void loadCommonData(
-            final String sampleId, final DatabaseAccess dbAccess, final String purpleDir) throws Exception
+            final String sampleId, final DatabaseAccess dbAccess, final String purpleDir, final SampleLoadHashes loadHashes)
+            throws Exception
     {
+        List<String> files = Lists.newArrayList(
+                PurityContextFile.generateFilenameForReading(purpleDir, sampleId), PurpleQCFile.generateFilename(purpleDir, sampleId));
+
+        if(!loadHashes.requiresLoad(SOURCE_COMMON, Collections.emptyList(), files))
+            return;
+
         LOGGER.info("loading common data");
         PurityContext purityContext = PurityContextFile.read(purpleDir, sampleId);
 
         dbAccess.writePurity(sampleId, purityContext, purityContext.qc());
+
+        loadHashes.onLoadComplete(SOURCE_COMMON);
     }
 
     private static void loadSomaticData(
             final String sampleId, final String referenceId, final String rnaId,
-            final DatabaseAccess dbAccess, final String purpleDir) throws Exception
+            final DatabaseAccess dbAccess, final String purpleDir, final SampleLoadHashes loadHashes,
+            final BulkLoadConfig bulkLoadConfig) throws Exception
     {
         // check all somatic files exist before attempting to load
         final String geneCopyNumberFile = GeneCopyNumberFile.generateFilename(purpleDir, sampleId);
@@ -162,13 +213,26 @@ public class LoadPurpleData
         if(hasMissingFiles(requiredFiles, "somatic"))
             System.exit(1);
 
+        List<String> loadedFiles = Lists.newArrayList(requiredFiles);
+        loadedFiles.add(FittedPurityRangeFile.generateFilenameForReading(purpleDir, sampleId));
+
+        if(!loadHashes.requiresLoad(SOURCE_SOMATIC, Lists.newArrayList(referenceId, rnaId), loadedFiles))
+            return;
+
         List<GeneCopyNumber> geneCopyNumbers = GeneCopyNumberFile.read(geneCopyNumberFile);
         List<PurpleCopyNumber> copyNumbers = PurpleCopyNumberFile.read(copyNumberFile);
         List<FittedPurity> bestFitPerPurity = FittedPurityRangeFile.readBestFitPerPurity(purpleDir, sampleId);
         List<DriverCatalog> somaticDriverCatalog = DriverCatalogFile.read(somaticDriversFile);
 
         dbAccess.writeBestFitPerPurity(sampleId, bestFitPerPurity);
-        dbAccess.writeCopynumbers(sampleId, copyNumbers);
+
+        if(loadHashes.incremental())
+            writeRows(copyNumbers, dbAccess.copyNumberMerger(sampleId));
+        else if(bulkLoadConfig.enabled())
+            writeRows(copyNumbers, dbAccess.copyNumberLoader(sampleId, bulkLoadConfig));
+        else
+            dbAccess.writeCopynumbers(sampleId, copyNumbers);
+
         dbAccess.writeGeneCopyNumbers(sampleId, geneCopyNumbers);
         dbAccess.writePurpleDriverCatalog(sampleId, somaticDriverCatalog, null);
 
@@ -188,22 +252,52 @@ public class LoadPurpleData
         }
 
         LOGGER.info("loading {} SVs", structuralVariants.size());
-        dbAccess.writeStructuralVariants(sampleId, structuralVariants);
 
-        BufferedWriter<SomaticVariant> somaticWriter = dbAccess.somaticVariantWriter(sampleId);
+        TableWriter<SomaticVariant> somaticWriter;
+
+        if(loadHashes.incremental())
+        {
+            writeRows(structuralVariants, dbAccess.structuralVariantMerger(sampleId));
+            somaticWriter = dbAccess.somaticVariantMerger(sampleId);
+        }
+        else if(bulkLoadConfig.enabled())
+        {
+            writeRows(structuralVariants, dbAccess.structuralVariantLoader(sampleId, bulkLoadConfig));
+
+            // variants are parsed on this thread while earlier batches are converted and inserted
+            somaticWriter = dbAccess.somaticVariantLoader(sampleId, bulkLoadConfig);
+        }
+        else
+        {
+            dbAccess.writeStructuralVariants(sampleId, structuralVariants);
+            somaticWriter = dbAccess.somaticVariantWriter(sampleId);
+        }
 
         SomaticVariantFactory somaticVariantFactory = new SomaticVariantFactory();
 
-        somaticVariantFactory.fromVCFFile(sampleId, referenceId, rnaId, somaticVcf, referenceId != null, somaticWriter);
+        // a failed parse aborts the writer, since closing it would complete a partial load
+        try
+        {
+            somaticVariantFactory.fromVCFFile(sampleId, referenceId, rnaId, somaticVcf, referenceId != null, somaticWriter);
+        }
+        catch(Exception e)
+        {
+            somaticWriter.abort();
+            throw e;
+        }
+
         somaticWriter.close();
 
         LOGGER.info("loaded {} somatic variants, filtered({})",
                 somaticVariantFactory.getCreatedCount(), somaticVariantFactory.getFilteredCount());
+
+        loadHashes.onLoadComplete(SOURCE_SOMATIC);
     }
 
     private static void loadGermlineData(
             final String sampleId, final String referenceId, final String rnaId,
-            final DatabaseAccess dbAccess, final String purpleDir) throws Exception
+            final DatabaseAccess dbAccess, final String purpleDir, final SampleLoadHashes loadHashes,
+            final BulkLoadConfig bulkLoadConfig) throws Exception
     {
         final String germlineVcf = PurpleCommon.purpleGermlineVcfFile(purpleDir, sampleId);
         final String germlineDeletionsFile = GermlineDeletion.generateFilename(purpleDir, sampleId);
@@ -222,6 +316,9 @@ public class LoadPurpleData
         if(hasMissingFiles(requiredFiles, "germline"))
             System.exit(1);
 
+        if(!loadHashes.requiresLoad(SOURCE_GERMLINE, Lists.newArrayList(referenceId, rnaId), requiredFiles))
+            return;
+
         List<GermlineDeletion> germlineDeletions = GermlineDeletion.read(germlineDeletionsFile);
 
         List<DriverCatalog> germlineDriverCatalog = DriverCatalogFile.read(germlineDriverFile);
@@ -231,22 +328,53 @@ public class LoadPurpleData
         dbAccess.writeGermlineDeletions(sampleId, germlineDeletions);
         dbAccess.writePurpleDriverCatalog(sampleId, null, germlineDriverCatalog);
 
-        int variantCount = 0;
+        TableWriter<VariantContext> germlineWriter;
+
+        if(loadHashes.incremental())
+            germlineWriter = dbAccess.germlineVariantMerger(sampleId, referenceId, rnaId);
+        else if(bulkLoadConfig.enabled())
+            germlineWriter = dbAccess.germlineVariantLoader(sampleId, referenceId, rnaId, bulkLoadConfig);
+        else
+            germlineWriter = dbAccess.germlineVariantWriter(sampleId, referenceId, rnaId);
 
-        try(AbstractFeatureReader<VariantContext, LineIterator> reader = getFeatureReader(germlineVcf, new VCFCodec(), false);
+        int variantCount = 0;
 
-        BufferedWriter<VariantContext> dbWriter = dbAccess.germlineVariantWriter(sampleId, referenceId, rnaId))
+        try(AbstractFeatureReader<VariantContext, LineIterator> reader = getFeatureReader(germlineVcf, new VCFCodec(), false))
         {
-            dbWriter.initialise();
+            germlineWriter.initialise();
 
             for(VariantContext context : reader.iterator())
             {
-                dbWriter.accept(context);
+                germlineWriter.accept(context);
                 ++variantCount;
             }
         }
+        catch(Exception e)
+        {
+            germlineWriter.abort();
+            throw e;
+        }
+
+        germlineWriter.close();
 
         LOGGER.info("loaded {} germline variants", variantCount);
+
+        loadHashes.onLoadComplete(SOURCE_GERMLINE);
+    }
+
+    private static <T> void writeRows(final List<T> rows, final TableWriter<T> tableWriter)
+    {
+        try
+        {
+            rows.forEach(tableWriter);
+        }
+        catch(RuntimeException e)
+        {
+            tableWriter.abort();
+            throw e;
+        }
+
+        tableWriter.close();
     }
 
     public static boolean hasMissingFiles(final List<String> requiredFiles, final String sourceType)
@@ -276,6 +404,8 @@ public class LoadPurpleData
         configBuilder.addFlag(SOMATIC_ONLY, "Only load somatic data");
         configBuilder.addFlag(GERMLINE_ONLY, "Only load germline data");
         addDatabaseCmdLineArgs(configBuilder, true);
+        BulkLoadConfig.addConfig(configBuilder);
+        SampleLoadHashes.addConfig(configBuilder);
         ConfigUtils.addLoggingOptions(configBuilder);
     }
 }
@@ -0,0 +1,124 @@
+package com.hartwig.hmftools.patientdb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static com.hartwig.hmftools.patientdb.CommonUtils.LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.version.VersionInfo;
+import com.hartwig.hmftools.patientdb.dao.DatabaseAccess;
+
+import org.jetbrains.annotations.Nullable;
+
+/* Tracks a hash of the content loaded for each of a sample's data sources, so that an incremental load can skip sources whose
+   files are unchanged since they were last loaded. A non-incremental load clears the source's hash, since it may have loaded other
+   files. Hashes are written with the data they describe, so both are committed or rolled back together.
+   The loader version is part of each hash, so a new release reloads all sources in case its loading or schema has changed.
+*/
+public class SampleLoadHashes
+{
+    private final DatabaseAccess mDbAccess;
+    private final String mSampleId;
+    private final boolean mIncremental;
+    private final Map<String,String> mPendingHashes;
+
+    public static final String INCREMENTAL_LOAD = "db_incremental";
+
+    private static final String LOADER_VERSION = new VersionInfo("patientdb.version").version();
+
+    public SampleLoadHashes(final DatabaseAccess dbAccess, final String sampleId, boolean incremental)
+    {
+        mDbAccess = dbAccess;
+        mSampleId = sampleId;
+        mIncremental = incremental;
+        mPendingHashes = Maps.newHashMap();
+    }
+
+    public boolean incremental() { return mIncremental; }
+
+    public static void addConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addFlag(
+                INCREMENTAL_LOAD, "Skip data unchanged since its last load, and otherwise only change rows which differ in large tables");
+    }
+
+    // returns false if the source's settings and files match those of the last incremental load
+    public boolean requiresLoad(final String source, final List<String> settings, final List<String> filenames) throws IOException
+    {
+        if(!mIncremental)
+        {
+            mDbAccess.deleteLoadHash(mSampleId, source);
+            return true;
+        }
+
+        String contentHash = contentHash(settings, filenames);
+
+        if(contentHash.equals(mDbAccess.readLoadHash(mSampleId, source)))
+        {
+            LOGGER.info("sample({}) skipping {} data - unchanged since last load", mSampleId, source);
+            return false;
+        }
+
+        mPendingHashes.put(source, contentHash);
+        return true;
+    }
+
+    public void onLoadComplete(final String source)
+    {
+        String contentHash = mPendingHashes.remove(source);
+
+        if(contentHash != null)
+            mDbAccess.writeLoadHash(mSampleId, source, contentHash);
+    }
+
+    public static String contentHash(final List<String> settings, final List<String> filenames) throws IOException
+    {
+        return contentHash(LOADER_VERSION, settings, filenames);
+    }
+
+    @VisibleForTesting
+    public static String contentHash(final String loaderVersion, final List<String> settings, final List<String> filenames)
+            throws IOException
+    {
+        // files are identified by name rather than path so that moving a sample's files does not force a reload
+        Hasher hasher = Hashing.sha256().newHasher();
+
+        hasher.putString(loaderVersion, UTF_8).putByte((byte)0);
+
+        for(String setting : settings)
+        {
+            hasher.putString(valueOrEmpty(setting), UTF_8).putByte((byte)0);
+        }
+
+        for(String filename : filenames)
+        {
+            File file = new File(filename);
+            hasher.putString(file.getName(), UTF_8).putByte((byte)0);
+
+            if(file.exists())
+            {
+                hasher.putLong(file.length());
+                Files.asByteSource(file).copyTo(Funnels.asOutputStream(hasher));
+            }
+            else
+            {
+                hasher.putLong(-1);
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
+    private static String valueOrEmpty(@Nullable final String value) { return value != null ? value : ""; }
+}
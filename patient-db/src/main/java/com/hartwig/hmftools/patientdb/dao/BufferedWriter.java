@@ -6,9 +6,8 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Consumer;
 
-public class BufferedWriter<T> implements Consumer<T>, AutoCloseable
+public class BufferedWriter<T> implements TableWriter<T>
 {
     private final BufferedWriterConsumer<T> mConsumer;
     private final Timestamp mTimestamp;
@@ -29,6 +28,7 @@ public class BufferedWriter<T> implements Consumer<T>, AutoCloseable
         mBuffer = new ArrayList<>(batchInsertSize + 1);
     }
 
+    @Override
     public void initialise()
     {
         mInitialised = true;
@@ -57,6 +57,13 @@ public class BufferedWriter<T> implements Consumer<T>, AutoCloseable
         mBuffer.clear();
     }
 
+    @Override
+    public void abort()
+    {
+        // buffers already written are rolled back with the caller's transaction
+        mBuffer.clear();
+    }
+
     @Override
     public void close()
     {
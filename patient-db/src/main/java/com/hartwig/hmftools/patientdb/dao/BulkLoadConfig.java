@@ -0,0 +1,53 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static java.lang.Math.max;
+
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+public class BulkLoadConfig
+{
+    public final int Connections;
+    public final boolean LoadDataInfile;
+    public final int BatchSize;
+    public final int QueueSize;
+
+    public static final String DB_LOAD_CONNECTIONS = "db_load_connections";
+    public static final String DB_LOAD_INFILE = "db_load_infile";
+    public static final String DB_LOAD_BATCH_SIZE = "db_load_batch_size";
+
+    public static final int DEFAULT_LOAD_BATCH_SIZE = 10000;
+
+    // batches held between each pipeline stage, bounding memory when parsing runs ahead of inserting
+    public static final int DEFAULT_QUEUE_SIZE = 4;
+
+    public BulkLoadConfig(final ConfigBuilder configBuilder)
+    {
+        LoadDataInfile = configBuilder.hasFlag(DB_LOAD_INFILE);
+
+        // infile loading uses the pipelined loader even if no additional connections were requested
+        int connections = configBuilder.getInteger(DB_LOAD_CONNECTIONS);
+        Connections = LoadDataInfile ? max(connections, 1) : connections;
+
+        BatchSize = configBuilder.getInteger(DB_LOAD_BATCH_SIZE);
+        QueueSize = DEFAULT_QUEUE_SIZE;
+    }
+
+    public BulkLoadConfig(int connections, boolean loadDataInfile, int batchSize, int queueSize)
+    {
+        Connections = connections;
+        LoadDataInfile = loadDataInfile;
+        BatchSize = batchSize;
+        QueueSize = queueSize;
+    }
+
+    public boolean enabled() { return Connections > 0; }
+
+    public static void addConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addInteger(
+                DB_LOAD_CONNECTIONS, "Load large tables with a pipelined loader using this many connections, default 0 = disabled", 0);
+
+        configBuilder.addFlag(DB_LOAD_INFILE, "Load large tables with LOAD DATA LOCAL INFILE");
+        configBuilder.addInteger(DB_LOAD_BATCH_SIZE, "Rows per batch for pipelined loading", DEFAULT_LOAD_BATCH_SIZE);
+    }
+}
@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import javax.sql.DataSource;
+
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.purple.CopyNumberMethod;
@@ -17,12 +19,32 @@ import com.hartwig.hmftools.common.purple.SegmentSupport;
 
 import org.jetbrains.annotations.NotNull;
 import org.jooq.DSLContext;
-import org.jooq.InsertValuesStep18;
+import org.jooq.Field;
+import org.jooq.InsertValuesStepN;
 import org.jooq.Record;
 import org.jooq.Result;
 
 class CopyNumberDAO {
 
+    private static final Field<?>[] INSERT_FIELDS = { COPYNUMBER.SAMPLEID,
+            COPYNUMBER.CHROMOSOME,
+            COPYNUMBER.START,
+            COPYNUMBER.END,
+            COPYNUMBER.COPYNUMBERMETHOD,
+            COPYNUMBER.SEGMENTSTARTSUPPORT,
+            COPYNUMBER.SEGMENTENDSUPPORT,
+            COPYNUMBER.BAFCOUNT,
+            COPYNUMBER.OBSERVEDBAF,
+            COPYNUMBER.BAF,
+            COPYNUMBER.COPYNUMBER_,
+            COPYNUMBER.MINORALLELECOPYNUMBER,
+            COPYNUMBER.MAJORALLELECOPYNUMBER,
+            COPYNUMBER.DEPTHWINDOWCOUNT,
+            COPYNUMBER.GCCONTENT,
+            COPYNUMBER.MINSTART,
+            COPYNUMBER.MAXSTART,
+            COPYNUMBER.MODIFIED };
+
     @NotNull
     private final DSLContext context;
 
@@ -64,33 +86,32 @@ class CopyNumberDAO {
         context.delete(COPYNUMBER).where(COPYNUMBER.SAMPLEID.eq(sample)).execute();
 
         for (List<PurpleCopyNumber> splitCopyNumbers : Iterables.partition(copyNumbers, DB_BATCH_INSERT_SIZE)) {
-            InsertValuesStep18 inserter = context.insertInto(COPYNUMBER,
-                    COPYNUMBER.SAMPLEID,
-                    COPYNUMBER.CHROMOSOME,
-                    COPYNUMBER.START,
-                    COPYNUMBER.END,
-                    COPYNUMBER.COPYNUMBERMETHOD,
-                    COPYNUMBER.SEGMENTSTARTSUPPORT,
-                    COPYNUMBER.SEGMENTENDSUPPORT,
-                    COPYNUMBER.BAFCOUNT,
-                    COPYNUMBER.OBSERVEDBAF,
-                    COPYNUMBER.BAF,
-                    COPYNUMBER.COPYNUMBER_,
-                    COPYNUMBER.MINORALLELECOPYNUMBER,
-                    COPYNUMBER.MAJORALLELECOPYNUMBER,
-                    COPYNUMBER.DEPTHWINDOWCOUNT,
-                    COPYNUMBER.GCCONTENT,
-                    COPYNUMBER.MINSTART,
-                    COPYNUMBER.MAXSTART,
-                    COPYNUMBER.MODIFIED);
-            splitCopyNumbers.forEach(x -> addCopynumberRecord(timestamp, inserter, sample, x));
+            InsertValuesStepN inserter = context.insertInto(COPYNUMBER, INSERT_FIELDS);
+            splitCopyNumbers.forEach(x -> inserter.values(toRow(timestamp, sample, x)));
             inserter.execute();
         }
     }
 
-    private static void addCopynumberRecord(@NotNull Timestamp timestamp, @NotNull InsertValuesStep18 inserter, @NotNull String sample,
-            @NotNull PurpleCopyNumber region) {
-        inserter.values(sample,
+    @NotNull
+    TableMerger<PurpleCopyNumber> merger(@NotNull String sample) {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableMerger<>(context, COPYNUMBER, INSERT_FIELDS, COPYNUMBER.MODIFIED,
+                new Field<?>[] { COPYNUMBER.CHROMOSOME, COPYNUMBER.START }, x -> toRow(timestamp, sample, x),
+                COPYNUMBER.SAMPLEID.eq(sample), DB_BATCH_INSERT_SIZE);
+    }
+
+    @NotNull
+    TableLoader<PurpleCopyNumber> loader(@NotNull String sample, @NotNull BulkLoadConfig config, @NotNull DataSource dataSource) {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableLoader<>(COPYNUMBER, INSERT_FIELDS, x -> toRow(timestamp, sample, x), COPYNUMBER.SAMPLEID.eq(sample), config,
+                dataSource, context.dialect(), context.settings());
+    }
+
+    @NotNull
+    private static Object[] toRow(@NotNull Timestamp timestamp, @NotNull String sample, @NotNull PurpleCopyNumber region) {
+        return new Object[] { sample,
                 region.chromosome(),
                 region.start(),
                 region.end(),
@@ -107,7 +128,7 @@ class CopyNumberDAO {
                 DatabaseUtil.decimal(region.gcContent()),
                 region.minStart(),
                 region.maxStart(),
-                timestamp);
+                timestamp };
     }
 
     void deleteCopyNumberForSample(@NotNull String sample) {
@@ -8,6 +8,8 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.sql.DataSource;
+
 import com.hartwig.hmftools.common.amber.AmberAnonymous;
 import com.hartwig.hmftools.common.cider.Cdr3LocusSummary;
 import com.hartwig.hmftools.common.cider.Cdr3Sequence;
@@ -54,6 +56,7 @@ import com.hartwig.hmftools.patientdb.clinical.ecrf.datamodel.ValidationFinding;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -87,6 +90,14 @@ public class DatabaseAccess implements AutoCloseable
     @NotNull
     private final Connection connection;
     @NotNull
+    private final String userName;
+    @NotNull
+    private final String password;
+    @NotNull
+    private final String url;
+    @Nullable
+    private BasicDataSource loadDataSource;
+    @NotNull
     private final DSLContext context;
     @NotNull
     private final EcrfDAO ecrfDAO;
@@ -140,6 +151,8 @@ public class DatabaseAccess implements AutoCloseable
     private final CiderDAO ciderDAO;
     @NotNull
     private final TealDAO tealDAO;
+    @NotNull
+    private final LoadHashDAO loadHashDAO;
 
     public DatabaseAccess(@NotNull final String userName, @NotNull final String password, @NotNull final String url) throws SQLException
     {
@@ -147,6 +160,10 @@ public class DatabaseAccess implements AutoCloseable
         System.setProperty("org.jooq.no-tips", "true");
 
         this.connection = DriverManager.getConnection(url, userName, password);
+        this.userName = userName;
+        this.password = password;
+        this.url = url;
+        this.loadDataSource = null;
         String catalog = connection.getCatalog();
         LOGGER.debug("Connecting to database '{}'", catalog);
         this.context = DSL.using(connection, SQLDialect.MYSQL, settings(catalog));
@@ -177,6 +194,7 @@ public class DatabaseAccess implements AutoCloseable
         this.virusInterpreterDAO = new VirusInterpreterDAO(context);
         this.ciderDAO = new CiderDAO(context);
         this.tealDAO = new TealDAO(context);
+        this.loadHashDAO = new LoadHashDAO(context);
     }
 
     public static void addDatabaseCmdLineArgs(final ConfigBuilder configBuilder, boolean isRequired)
@@ -283,12 +301,31 @@ public class DatabaseAccess implements AutoCloseable
         return context;
     }
 
+    @Nullable
+    public String readLoadHash(@NotNull String sample, @NotNull String source)
+    {
+        return loadHashDAO.readHash(sample, source);
+    }
+
+    public void writeLoadHash(@NotNull String sample, @NotNull String source, @NotNull String contentHash)
+    {
+        loadHashDAO.writeHash(sample, source, contentHash);
+    }
+
+    public void deleteLoadHash(@NotNull String sample, @NotNull String source)
+    {
+        loadHashDAO.deleteHash(sample, source);
+    }
+
     @Override
     public void close()
     {
         try
         {
             connection.close();
+
+            if(loadDataSource != null)
+                loadDataSource.close();
         }
         catch(SQLException e)
         {
@@ -296,6 +333,29 @@ public class DatabaseAccess implements AutoCloseable
         }
     }
 
+    @NotNull
+    private synchronized DataSource loadDataSource(@NotNull BulkLoadConfig config)
+    {
+        // pooled connections for the pipelined table loaders, one per inserting thread plus one for deleting prior rows
+        if(loadDataSource == null)
+        {
+            String poolUrl = url;
+
+            if(config.LoadDataInfile && !poolUrl.contains("allowLoadLocalInfile"))
+                poolUrl += (poolUrl.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true";
+
+            loadDataSource = new BasicDataSource();
+            loadDataSource.setUrl(poolUrl);
+            loadDataSource.setUsername(userName);
+            loadDataSource.setPassword(password);
+            loadDataSource.setMaxTotal(config.Connections + 1);
+
+            LOGGER.debug("created load connection pool with {} connections", config.Connections + 1);
+        }
+
+        return loadDataSource;
+    }
+
     @Nullable
     private static Settings settings(@NotNull String catalog)
     {
@@ -314,6 +374,19 @@ public class DatabaseAccess implements AutoCloseable
         return germlineVariantDAO.writer(tumorSample, referenceSample, rnaSample);
     }
 
+    @NotNull
+    public TableMerger<VariantContext> germlineVariantMerger(String tumorSample, String referenceSample, String rnaSample)
+    {
+        return germlineVariantDAO.merger(tumorSample, referenceSample, rnaSample);
+    }
+
+    @NotNull
+    public TableLoader<VariantContext> germlineVariantLoader(
+            String tumorSample, String referenceSample, String rnaSample, @NotNull BulkLoadConfig config)
+    {
+        return germlineVariantDAO.loader(tumorSample, referenceSample, rnaSample, config, loadDataSource(config));
+    }
+
     @NotNull
     public List<String> readPurpleSampleList()
     {
@@ -431,6 +504,18 @@ public class DatabaseAccess implements AutoCloseable
         copyNumberDAO.writeCopyNumber(sample, copyNumbers);
     }
 
+    @NotNull
+    public TableMerger<PurpleCopyNumber> copyNumberMerger(@NotNull String sample)
+    {
+        return copyNumberDAO.merger(sample);
+    }
+
+    @NotNull
+    public TableLoader<PurpleCopyNumber> copyNumberLoader(@NotNull String sample, @NotNull BulkLoadConfig config)
+    {
+        return copyNumberDAO.loader(sample, config, loadDataSource(config));
+    }
+
     public void writeAmberMapping(@NotNull String sample, List<AmberMapping> mapping)
     {
         amberDAO.writeMapping(sample, mapping);
@@ -485,11 +570,35 @@ public class DatabaseAccess implements AutoCloseable
         return somaticVariantDAO.writer(sampleId);
     }
 
+    @NotNull
+    public TableMerger<SomaticVariant> somaticVariantMerger(@NotNull final String sampleId)
+    {
+        return somaticVariantDAO.merger(sampleId);
+    }
+
+    @NotNull
+    public TableLoader<SomaticVariant> somaticVariantLoader(@NotNull final String sampleId, @NotNull BulkLoadConfig config)
+    {
+        return somaticVariantDAO.loader(sampleId, config, loadDataSource(config));
+    }
+
     public void writeStructuralVariants(@NotNull String sampleId, @NotNull List<StructuralVariantData> variants)
     {
         structuralVariantDAO.write(sampleId, variants);
     }
 
+    @NotNull
+    public TableMerger<StructuralVariantData> structuralVariantMerger(@NotNull String sampleId)
+    {
+        return structuralVariantDAO.merger(sampleId);
+    }
+
+    @NotNull
+    public TableLoader<StructuralVariantData> structuralVariantLoader(@NotNull String sampleId, @NotNull BulkLoadConfig config)
+    {
+        return structuralVariantDAO.loader(sampleId, config, loadDataSource(config));
+    }
+
     public void writeSvClusters(@NotNull String sample, @NotNull List<LinxCluster> clusters)
     {
         structuralVariantClusterDAO.writeClusters(sample, clusters);
@@ -731,6 +840,9 @@ public class DatabaseAccess implements AutoCloseable
         LOGGER.info("Deleting TEAL data for sample: {}", sample);
         tealDAO.deleteTealDataForSample(sample);
 
+        LOGGER.info("Deleting load hashes for sample: {}", sample);
+        loadHashDAO.deleteHashesForSample(sample);
+
         LOGGER.info("All data for sample '{}' has been deleted", sample);
     }
 }
@@ -2,6 +2,7 @@ package com.hartwig.hmftools.patientdb.dao;
 
 import static com.hartwig.hmftools.common.genotype.GenotypeStatus.UNKNOWN;
 import static com.hartwig.hmftools.common.sv.StructuralVariantType.SGL;
+import static com.hartwig.hmftools.patientdb.dao.DatabaseUtil.DB_BATCH_INSERT_SIZE;
 import static com.hartwig.hmftools.patientdb.dao.DatabaseUtil.checkStringLength;
 import static com.hartwig.hmftools.patientdb.database.hmfpatients.Tables.GERMLINEVARIANT;
 import static com.hartwig.hmftools.patientdb.database.hmfpatients.Tables.STRUCTURALVARIANTGERMLINE;
@@ -11,6 +12,8 @@ import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
 
+import javax.sql.DataSource;
+
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.linx.LinxBreakend;
 import com.hartwig.hmftools.common.linx.LinxGermlineSv;
@@ -30,6 +33,7 @@ import com.hartwig.hmftools.common.variant.impact.VariantImpact;
 import org.apache.logging.log4j.util.Strings;
 import org.jetbrains.annotations.NotNull;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.InsertValuesStep19;
 import org.jooq.InsertValuesStepN;
 import org.jooq.Record;
@@ -40,6 +44,50 @@ import htsjdk.variant.variantcontext.VariantContext;
 
 public class GermlineVariantDAO
 {
+    private static final Field<?>[] INSERT_FIELDS = {
+            GERMLINEVARIANT.MODIFIED,
+            GERMLINEVARIANT.SAMPLEID,
+            GERMLINEVARIANT.CHROMOSOME,
+            GERMLINEVARIANT.POSITION,
+            GERMLINEVARIANT.FILTER,
+            GERMLINEVARIANT.TYPE,
+            GERMLINEVARIANT.REF,
+            GERMLINEVARIANT.ALT,
+            GERMLINEVARIANT.QUAL,
+            GERMLINEVARIANT.TIER,
+            GERMLINEVARIANT.GERMLINEGENOTYPE,
+            GERMLINEVARIANT.GERMLINEALLELEREADCOUNT,
+            GERMLINEVARIANT.GERMLINETOTALREADCOUNT,
+            GERMLINEVARIANT.RNAALLELEREADCOUNT,
+            GERMLINEVARIANT.RNATOTALREADCOUNT,
+            GERMLINEVARIANT.TUMORALLELEREADCOUNT,
+            GERMLINEVARIANT.TUMORTOTALREADCOUNT,
+            GERMLINEVARIANT.LOCALPHASESET,
+            GERMLINEVARIANT.ADJUSTEDVAF,
+            GERMLINEVARIANT.VARIANTCOPYNUMBER,
+            GERMLINEVARIANT.COPYNUMBER,
+            GERMLINEVARIANT.BIALLELIC,
+            GERMLINEVARIANT.MINORALLELECOPYNUMBER,
+            GERMLINEVARIANT.CLINVARINFO,
+            GERMLINEVARIANT.PATHOGENICITY,
+            GERMLINEVARIANT.PATHOGENIC,
+            GERMLINEVARIANT.GENE,
+            GERMLINEVARIANT.GENESAFFECTED,
+            GERMLINEVARIANT.CANONICALEFFECT,
+            GERMLINEVARIANT.CANONICALCODINGEFFECT,
+            GERMLINEVARIANT.CANONICALHGVSCODINGIMPACT,
+            GERMLINEVARIANT.CANONICALHGVSPROTEINIMPACT,
+            GERMLINEVARIANT.SPLICEREGION,
+            GERMLINEVARIANT.OTHERTRANSCRIPTEFFECTS,
+            GERMLINEVARIANT.WORSTCODINGEFFECT,
+            GERMLINEVARIANT.MICROHOMOLOGY,
+            GERMLINEVARIANT.REPEATSEQUENCE,
+            GERMLINEVARIANT.REPEATCOUNT,
+            GERMLINEVARIANT.TRINUCLEOTIDECONTEXT,
+            GERMLINEVARIANT.HOTSPOT,
+            GERMLINEVARIANT.MAPPABILITY,
+            GERMLINEVARIANT.REPORTED };
+
     @NotNull
     private final DSLContext context;
 
@@ -72,8 +120,8 @@ public class GermlineVariantDAO
     private void writeAll(@NotNull final Timestamp timestamp, String tumorSample, String referenceSample, String rnaSample,
             @NotNull List<VariantContext> variants)
     {
-        final InsertValuesStepN inserter = createInserter();
-        variants.forEach(variant -> addRecord(timestamp, inserter, tumorSample, referenceSample, rnaSample, variant));
+        final InsertValuesStepN inserter = context.insertInto(GERMLINEVARIANT, INSERT_FIELDS);
+        variants.forEach(variant -> inserter.values(toRow(timestamp, tumorSample, referenceSample, rnaSample, variant)));
         inserter.execute();
     }
 
@@ -88,56 +136,30 @@ public class GermlineVariantDAO
     }
 
     @NotNull
-    private InsertValuesStepN createInserter()
+    public TableMerger<VariantContext> merger(String tumorSample, String referenceSample, String rnaSample)
     {
-        return context.insertInto(GERMLINEVARIANT,
-                GERMLINEVARIANT.MODIFIED,
-                GERMLINEVARIANT.SAMPLEID,
-                GERMLINEVARIANT.CHROMOSOME,
-                GERMLINEVARIANT.POSITION,
-                GERMLINEVARIANT.FILTER,
-                GERMLINEVARIANT.TYPE,
-                GERMLINEVARIANT.REF,
-                GERMLINEVARIANT.ALT,
-                GERMLINEVARIANT.QUAL,
-                GERMLINEVARIANT.TIER,
-                GERMLINEVARIANT.GERMLINEGENOTYPE,
-                GERMLINEVARIANT.GERMLINEALLELEREADCOUNT,
-                GERMLINEVARIANT.GERMLINETOTALREADCOUNT,
-                GERMLINEVARIANT.RNAALLELEREADCOUNT,
-                GERMLINEVARIANT.RNATOTALREADCOUNT,
-                GERMLINEVARIANT.TUMORALLELEREADCOUNT,
-                GERMLINEVARIANT.TUMORTOTALREADCOUNT,
-                GERMLINEVARIANT.LOCALPHASESET,
-                GERMLINEVARIANT.ADJUSTEDVAF,
-                GERMLINEVARIANT.VARIANTCOPYNUMBER,
-                GERMLINEVARIANT.COPYNUMBER,
-                GERMLINEVARIANT.BIALLELIC,
-                GERMLINEVARIANT.MINORALLELECOPYNUMBER,
-                GERMLINEVARIANT.CLINVARINFO,
-                GERMLINEVARIANT.PATHOGENICITY,
-                GERMLINEVARIANT.PATHOGENIC,
-                GERMLINEVARIANT.GENE,
-                GERMLINEVARIANT.GENESAFFECTED,
-                GERMLINEVARIANT.CANONICALEFFECT,
-                GERMLINEVARIANT.CANONICALCODINGEFFECT,
-                GERMLINEVARIANT.CANONICALHGVSCODINGIMPACT,
-                GERMLINEVARIANT.CANONICALHGVSPROTEINIMPACT,
-                GERMLINEVARIANT.SPLICEREGION,
-                GERMLINEVARIANT.OTHERTRANSCRIPTEFFECTS,
-                GERMLINEVARIANT.WORSTCODINGEFFECT,
-                GERMLINEVARIANT.MICROHOMOLOGY,
-                GERMLINEVARIANT.REPEATSEQUENCE,
-                GERMLINEVARIANT.REPEATCOUNT,
-                GERMLINEVARIANT.TRINUCLEOTIDECONTEXT,
-                GERMLINEVARIANT.HOTSPOT,
-                GERMLINEVARIANT.MAPPABILITY,
-                GERMLINEVARIANT.REPORTED);
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableMerger<>(
+                context, GERMLINEVARIANT, INSERT_FIELDS, GERMLINEVARIANT.MODIFIED,
+                new Field<?>[] { GERMLINEVARIANT.CHROMOSOME, GERMLINEVARIANT.POSITION },
+                variant -> toRow(timestamp, tumorSample, referenceSample, rnaSample, variant),
+                GERMLINEVARIANT.SAMPLEID.eq(tumorSample), DB_BATCH_INSERT_SIZE);
     }
 
-    private static void addRecord(
-            Timestamp timestamp, InsertValuesStepN inserter, String tumorSample, String referenceSample,
-            String rnaSample, VariantContext variantContext)
+    @NotNull
+    public TableLoader<VariantContext> loader(
+            String tumorSample, String referenceSample, String rnaSample, final BulkLoadConfig config, final DataSource dataSource)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableLoader<>(
+                GERMLINEVARIANT, INSERT_FIELDS, variant -> toRow(timestamp, tumorSample, referenceSample, rnaSample, variant),
+                GERMLINEVARIANT.SAMPLEID.eq(tumorSample), config, dataSource, context.dialect(), context.settings());
+    }
+
+    private static Object[] toRow(
+            Timestamp timestamp, String tumorSample, String referenceSample, String rnaSample, VariantContext variantContext)
     {
         final VariantContextDecorator decorator = new VariantContextDecorator(variantContext);
         final AllelicDepth tumorDepth = decorator.allelicDepth(tumorSample);
@@ -146,7 +168,7 @@ public class GermlineVariantDAO
         final VariantImpact variantImpact = decorator.variantImpact();
         final PathogenicSummary pathogenicSummary = decorator.pathogenicSummary();
 
-        inserter.values(timestamp,
+        return new Object[] { timestamp,
                 tumorSample,
                 decorator.chromosome(),
                 decorator.position(),
@@ -187,8 +209,7 @@ public class GermlineVariantDAO
                 decorator.trinucleotideContext(),
                 decorator.hotspot().toString(),
                 decorator.mappability(),
-                decorator.reported()
-        );
+                decorator.reported() };
     }
 
     protected static String checkTrimHgsvString(final String hgvsStr, @NotNull TableField<?, String> field)
@@ -0,0 +1,52 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static com.hartwig.hmftools.patientdb.database.hmfpatients.Tables.LOADHASH;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.DSLContext;
+
+class LoadHashDAO
+{
+    @NotNull
+    private final DSLContext context;
+
+    LoadHashDAO(@NotNull final DSLContext context)
+    {
+        this.context = context;
+    }
+
+    @Nullable
+    String readHash(@NotNull String sampleId, @NotNull String source)
+    {
+        return context.select(LOADHASH.CONTENTHASH)
+                .from(LOADHASH)
+                .where(LOADHASH.SAMPLEID.eq(sampleId))
+                .and(LOADHASH.SOURCE.eq(source))
+                .fetchOne(LOADHASH.CONTENTHASH);
+    }
+
+    void writeHash(@NotNull String sampleId, @NotNull String source, @NotNull String contentHash)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        deleteHash(sampleId, source);
+
+        context.insertInto(LOADHASH, LOADHASH.MODIFIED, LOADHASH.SAMPLEID, LOADHASH.SOURCE, LOADHASH.CONTENTHASH)
+                .values(timestamp.toLocalDateTime(), sampleId, source, contentHash)
+                .execute();
+    }
+
+    void deleteHash(@NotNull String sampleId, @NotNull String source)
+    {
+        context.delete(LOADHASH).where(LOADHASH.SAMPLEID.eq(sampleId)).and(LOADHASH.SOURCE.eq(source)).execute();
+    }
+
+    void deleteHashesForSample(@NotNull String sampleId)
+    {
+        context.delete(LOADHASH).where(LOADHASH.SAMPLEID.eq(sampleId)).execute();
+    }
+}
@@ -9,9 +9,12 @@ import static com.hartwig.hmftools.patientdb.dao.GermlineVariantDAO.checkTrimHgs
 import static com.hartwig.hmftools.patientdb.database.hmfpatients.Tables.SOMATICVARIANT;
 
 import java.sql.Timestamp;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import javax.sql.DataSource;
+
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.purple.GermlineStatus;
 import com.hartwig.hmftools.common.variant.AllelicDepth;
@@ -28,6 +31,7 @@ import com.hartwig.hmftools.common.variant.VariantType;
 import org.apache.logging.log4j.util.Strings;
 import org.jetbrains.annotations.NotNull;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.InsertValuesStepN;
 import org.jooq.Record;
 import org.jooq.Record1;
@@ -40,6 +44,53 @@ public class SomaticVariantDAO
 
     private static final int DB_BATCH_INSERT_SIZE = 10000;
 
+    private static final Field<?>[] INSERT_FIELDS = {
+            SOMATICVARIANT.SAMPLEID,
+            SOMATICVARIANT.CHROMOSOME,
+            SOMATICVARIANT.POSITION,
+            SOMATICVARIANT.FILTER,
+            SOMATICVARIANT.TYPE,
+            SOMATICVARIANT.REF,
+            SOMATICVARIANT.ALT,
+            SOMATICVARIANT.GENE,
+            SOMATICVARIANT.GENESAFFECTED,
+            SOMATICVARIANT.REPORTED,
+            SOMATICVARIANT.WORSTCODINGEFFECT,
+            SOMATICVARIANT.CANONICALEFFECT,
+            SOMATICVARIANT.CANONICALCODINGEFFECT,
+            SOMATICVARIANT.CANONICALHGVSCODINGIMPACT,
+            SOMATICVARIANT.CANONICALHGVSPROTEINIMPACT,
+            SOMATICVARIANT.SPLICEREGION,
+            SOMATICVARIANT.OTHERTRANSCRIPTEFFECTS,
+            SOMATICVARIANT.ALLELEREADCOUNT,
+            SOMATICVARIANT.TOTALREADCOUNT,
+            SOMATICVARIANT.COPYNUMBER,
+            SOMATICVARIANT.ADJUSTEDVAF,
+            SOMATICVARIANT.VARIANTCOPYNUMBER,
+            SOMATICVARIANT.TRINUCLEOTIDECONTEXT,
+            SOMATICVARIANT.MICROHOMOLOGY,
+            SOMATICVARIANT.REPEATSEQUENCE,
+            SOMATICVARIANT.REPEATCOUNT,
+            SOMATICVARIANT.SUBCLONALLIKELIHOOD,
+            SOMATICVARIANT.BIALLELIC,
+            SOMATICVARIANT.HOTSPOT,
+            SOMATICVARIANT.MAPPABILITY,
+            SOMATICVARIANT.GERMLINESTATUS,
+            SOMATICVARIANT.MINORALLELECOPYNUMBER,
+            SOMATICVARIANT.RECOVERED,
+            SOMATICVARIANT.KATAEGIS,
+            SOMATICVARIANT.TIER,
+            SOMATICVARIANT.REFERENCEALLELEREADCOUNT,
+            SOMATICVARIANT.REFERENCETOTALREADCOUNT,
+            SOMATICVARIANT.RNAALLELEREADCOUNT,
+            SOMATICVARIANT.RNATOTALREADCOUNT,
+            SOMATICVARIANT.QUAL,
+            SOMATICVARIANT.LOCALPHASESET,
+            SOMATICVARIANT.CLINVARINFO,
+            SOMATICVARIANT.GNOMADFREQUENCY,
+            SOMATICVARIANT.SOMATICLIKELIHOOD,
+            SOMATICVARIANT.MODIFIED };
+
     SomaticVariantDAO(@NotNull final DSLContext context)
     {
         this.context = context;
@@ -155,57 +206,33 @@ public class SomaticVariantDAO
 
     void writeAll(@NotNull final Timestamp timestamp, @NotNull String sample, @NotNull List<SomaticVariant> variants)
     {
-        final InsertValuesStepN inserter = context.insertInto(SOMATICVARIANT,
-                SOMATICVARIANT.SAMPLEID,
-                SOMATICVARIANT.CHROMOSOME,
-                SOMATICVARIANT.POSITION,
-                SOMATICVARIANT.FILTER,
-                SOMATICVARIANT.TYPE,
-                SOMATICVARIANT.REF,
-                SOMATICVARIANT.ALT,
-                SOMATICVARIANT.GENE,
-                SOMATICVARIANT.GENESAFFECTED,
-                SOMATICVARIANT.REPORTED,
-                SOMATICVARIANT.WORSTCODINGEFFECT,
-                SOMATICVARIANT.CANONICALEFFECT,
-                SOMATICVARIANT.CANONICALCODINGEFFECT,
-                SOMATICVARIANT.CANONICALHGVSCODINGIMPACT,
-                SOMATICVARIANT.CANONICALHGVSPROTEINIMPACT,
-                SOMATICVARIANT.SPLICEREGION,
-                SOMATICVARIANT.OTHERTRANSCRIPTEFFECTS,
-                SOMATICVARIANT.ALLELEREADCOUNT,
-                SOMATICVARIANT.TOTALREADCOUNT,
-                SOMATICVARIANT.COPYNUMBER,
-                SOMATICVARIANT.ADJUSTEDVAF,
-                SOMATICVARIANT.VARIANTCOPYNUMBER,
-                SOMATICVARIANT.TRINUCLEOTIDECONTEXT,
-                SOMATICVARIANT.MICROHOMOLOGY,
-                SOMATICVARIANT.REPEATSEQUENCE,
-                SOMATICVARIANT.REPEATCOUNT,
-                SOMATICVARIANT.SUBCLONALLIKELIHOOD,
-                SOMATICVARIANT.BIALLELIC,
-                SOMATICVARIANT.HOTSPOT,
-                SOMATICVARIANT.MAPPABILITY,
-                SOMATICVARIANT.GERMLINESTATUS,
-                SOMATICVARIANT.MINORALLELECOPYNUMBER,
-                SOMATICVARIANT.RECOVERED,
-                SOMATICVARIANT.KATAEGIS,
-                SOMATICVARIANT.TIER,
-                SOMATICVARIANT.REFERENCEALLELEREADCOUNT,
-                SOMATICVARIANT.REFERENCETOTALREADCOUNT,
-                SOMATICVARIANT.RNAALLELEREADCOUNT,
-                SOMATICVARIANT.RNATOTALREADCOUNT,
-                SOMATICVARIANT.QUAL,
-                SOMATICVARIANT.LOCALPHASESET,
-                SOMATICVARIANT.CLINVARINFO,
-                SOMATICVARIANT.GNOMADFREQUENCY,
-                SOMATICVARIANT.SOMATICLIKELIHOOD,
-                SOMATICVARIANT.MODIFIED);
-        variants.forEach(variant -> addRecord(timestamp, inserter, sample, variant));
+        final InsertValuesStepN inserter = context.insertInto(SOMATICVARIANT, INSERT_FIELDS);
+        variants.forEach(variant -> inserter.values(toRow(timestamp, sample, variant)));
         inserter.execute();
     }
 
-    private static void addRecord(Timestamp timestamp, InsertValuesStepN inserter, String sample, SomaticVariant variant)
+    @NotNull
+    public TableMerger<SomaticVariant> merger(final String tumorSample)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableMerger<>(
+                context, SOMATICVARIANT, INSERT_FIELDS, SOMATICVARIANT.MODIFIED,
+                new Field<?>[] { SOMATICVARIANT.CHROMOSOME, SOMATICVARIANT.POSITION }, variant -> toRow(timestamp, tumorSample, variant),
+                SOMATICVARIANT.SAMPLEID.eq(tumorSample), DB_BATCH_INSERT_SIZE);
+    }
+
+    @NotNull
+    public TableLoader<SomaticVariant> loader(final String tumorSample, final BulkLoadConfig config, final DataSource dataSource)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableLoader<>(
+                SOMATICVARIANT, INSERT_FIELDS, variant -> toRow(timestamp, tumorSample, variant),
+                SOMATICVARIANT.SAMPLEID.eq(tumorSample), config, dataSource, context.dialect(), context.settings());
+    }
+
+    private static Object[] toRow(final Timestamp timestamp, final String sample, final SomaticVariant variant)
     {
         // append reportable status for each transcript where non-canonical may be reportable
         String otherReportedEffects = variant.otherReportedEffects();
@@ -226,7 +253,7 @@ public class SomaticVariantDAO
                 otherReportedEffects = otherReportedEffects + ";CANONICAL_NOT_REPORTED";
         }
 
-        inserter.values(sample,
+        return new Object[] { sample,
                 variant.chromosome(),
                 variant.position(),
                 variant.filter(),
@@ -270,7 +297,7 @@ public class SomaticVariantDAO
                 variant.clinvarInfo(),
                 variant.gnomadFrequency(),
                 variant.somaticLikelihood() == SomaticLikelihood.UNKNOWN ? Strings.EMPTY : variant.somaticLikelihood().toString(),
-                timestamp);
+                timestamp };
     }
 
     void deleteSomaticVariantForSample(String sample)
@@ -12,6 +12,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.StringJoiner;
 
+import javax.sql.DataSource;
+
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.sv.ImmutableStructuralVariantData;
@@ -20,6 +22,7 @@ import com.hartwig.hmftools.common.sv.StructuralVariantType;
 
 import org.jetbrains.annotations.NotNull;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.InsertValuesStepN;
 import org.jooq.Record;
 import org.jooq.Record1;
@@ -29,6 +32,63 @@ class StructuralVariantDAO
 {
     private static final int MAX_LINKED_BY = 1024;
 
+    private static final Field<?>[] INSERT_FIELDS = {
+            STRUCTURALVARIANT.SAMPLEID,
+            STRUCTURALVARIANT.SVID,
+            STRUCTURALVARIANT.STARTCHROMOSOME,
+            STRUCTURALVARIANT.ENDCHROMOSOME,
+            STRUCTURALVARIANT.STARTPOSITION,
+            STRUCTURALVARIANT.ENDPOSITION,
+            STRUCTURALVARIANT.STARTORIENTATION,
+            STRUCTURALVARIANT.ENDORIENTATION,
+            STRUCTURALVARIANT.STARTHOMOLOGYSEQUENCE,
+            STRUCTURALVARIANT.ENDHOMOLOGYSEQUENCE,
+            STRUCTURALVARIANT.INSERTSEQUENCE,
+            STRUCTURALVARIANT.TYPE,
+            STRUCTURALVARIANT.STARTAF,
+            STRUCTURALVARIANT.ADJUSTEDAFSTART,
+            STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERSTART,
+            STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERCHANGESTART,
+            STRUCTURALVARIANT.ENDAF,
+            STRUCTURALVARIANT.ADJUSTEDAFEND,
+            STRUCTURALVARIANT.ADJUSTEDCOPYNUMBEREND,
+            STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERCHANGEEND,
+            STRUCTURALVARIANT.JUNCTIONCOPYNUMBER,
+            STRUCTURALVARIANT.FILTER,
+            STRUCTURALVARIANT.IMPRECISE,
+            STRUCTURALVARIANT.QUALSCORE,
+            STRUCTURALVARIANT.EVENT,
+            STRUCTURALVARIANT.STARTTUMORVARIANTFRAGMENTCOUNT,
+            STRUCTURALVARIANT.STARTTUMORREFERENCEFRAGMENTCOUNT,
+            STRUCTURALVARIANT.STARTNORMALVARIANTFRAGMENTCOUNT,
+            STRUCTURALVARIANT.STARTNORMALREFERENCEFRAGMENTCOUNT,
+            STRUCTURALVARIANT.ENDTUMORVARIANTFRAGMENTCOUNT,
+            STRUCTURALVARIANT.ENDTUMORREFERENCEFRAGMENTCOUNT,
+            STRUCTURALVARIANT.ENDNORMALVARIANTFRAGMENTCOUNT,
+            STRUCTURALVARIANT.ENDNORMALREFERENCEFRAGMENTCOUNT,
+            STRUCTURALVARIANT.STARTINTERVALOFFSETSTART,
+            STRUCTURALVARIANT.STARTINTERVALOFFSETEND,
+            STRUCTURALVARIANT.ENDINTERVALOFFSETSTART,
+            STRUCTURALVARIANT.ENDINTERVALOFFSETEND,
+            STRUCTURALVARIANT.INEXACTHOMOLOGYOFFSETSTART,
+            STRUCTURALVARIANT.INEXACTHOMOLOGYOFFSETEND,
+            STRUCTURALVARIANT.VCFID,
+            STRUCTURALVARIANT.STARTLINKEDBY,
+            STRUCTURALVARIANT.ENDLINKEDBY,
+            STRUCTURALVARIANT.RECOVERED,
+            STRUCTURALVARIANT.RECOVERYMETHOD,
+            STRUCTURALVARIANT.RECOVERYFILTER,
+            STRUCTURALVARIANT.STARTREFCONTEXT,
+            STRUCTURALVARIANT.ENDREFCONTEXT,
+            STRUCTURALVARIANT.INSERTSEQUENCEALIGNMENTS,
+            STRUCTURALVARIANT.INSERTSEQUENCEREPEATCLASS,
+            STRUCTURALVARIANT.INSERTSEQUENCEREPEATTYPE,
+            STRUCTURALVARIANT.INSERTSEQUENCEREPEATORIENTATION,
+            STRUCTURALVARIANT.INSERTSEQUENCEREPEATCOVERAGE,
+            STRUCTURALVARIANT.STARTANCHORINGSUPPORTDISTANCE,
+            STRUCTURALVARIANT.ENDANCHORINGSUPPORTDISTANCE,
+            STRUCTURALVARIANT.MODIFIED };
+
     @NotNull
     private final DSLContext context;
 
@@ -156,73 +216,38 @@ class StructuralVariantDAO
 
         for(List<StructuralVariantData> batch : Iterables.partition(variants, DB_BATCH_INSERT_SIZE))
         {
-            InsertValuesStepN inserter = context.insertInto(STRUCTURALVARIANT,
-                    STRUCTURALVARIANT.SAMPLEID,
-                    STRUCTURALVARIANT.SVID,
-                    STRUCTURALVARIANT.STARTCHROMOSOME,
-                    STRUCTURALVARIANT.ENDCHROMOSOME,
-                    STRUCTURALVARIANT.STARTPOSITION,
-                    STRUCTURALVARIANT.ENDPOSITION,
-                    STRUCTURALVARIANT.STARTORIENTATION,
-                    STRUCTURALVARIANT.ENDORIENTATION,
-                    STRUCTURALVARIANT.STARTHOMOLOGYSEQUENCE,
-                    STRUCTURALVARIANT.ENDHOMOLOGYSEQUENCE,
-                    STRUCTURALVARIANT.INSERTSEQUENCE,
-                    STRUCTURALVARIANT.TYPE,
-                    STRUCTURALVARIANT.STARTAF,
-                    STRUCTURALVARIANT.ADJUSTEDAFSTART,
-                    STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERSTART,
-                    STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERCHANGESTART,
-                    STRUCTURALVARIANT.ENDAF,
-                    STRUCTURALVARIANT.ADJUSTEDAFEND,
-                    STRUCTURALVARIANT.ADJUSTEDCOPYNUMBEREND,
-                    STRUCTURALVARIANT.ADJUSTEDCOPYNUMBERCHANGEEND,
-                    STRUCTURALVARIANT.JUNCTIONCOPYNUMBER,
-                    STRUCTURALVARIANT.FILTER,
-                    STRUCTURALVARIANT.IMPRECISE,
-                    STRUCTURALVARIANT.QUALSCORE,
-                    STRUCTURALVARIANT.EVENT,
-                    STRUCTURALVARIANT.STARTTUMORVARIANTFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.STARTTUMORREFERENCEFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.STARTNORMALVARIANTFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.STARTNORMALREFERENCEFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.ENDTUMORVARIANTFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.ENDTUMORREFERENCEFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.ENDNORMALVARIANTFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.ENDNORMALREFERENCEFRAGMENTCOUNT,
-                    STRUCTURALVARIANT.STARTINTERVALOFFSETSTART,
-                    STRUCTURALVARIANT.STARTINTERVALOFFSETEND,
-                    STRUCTURALVARIANT.ENDINTERVALOFFSETSTART,
-                    STRUCTURALVARIANT.ENDINTERVALOFFSETEND,
-                    STRUCTURALVARIANT.INEXACTHOMOLOGYOFFSETSTART,
-                    STRUCTURALVARIANT.INEXACTHOMOLOGYOFFSETEND,
-                    STRUCTURALVARIANT.VCFID,
-                    STRUCTURALVARIANT.STARTLINKEDBY,
-                    STRUCTURALVARIANT.ENDLINKEDBY,
-                    STRUCTURALVARIANT.RECOVERED,
-                    STRUCTURALVARIANT.RECOVERYMETHOD,
-                    STRUCTURALVARIANT.RECOVERYFILTER,
-                    STRUCTURALVARIANT.STARTREFCONTEXT,
-                    STRUCTURALVARIANT.ENDREFCONTEXT,
-                    STRUCTURALVARIANT.INSERTSEQUENCEALIGNMENTS,
-                    STRUCTURALVARIANT.INSERTSEQUENCEREPEATCLASS,
-                    STRUCTURALVARIANT.INSERTSEQUENCEREPEATTYPE,
-                    STRUCTURALVARIANT.INSERTSEQUENCEREPEATORIENTATION,
-                    STRUCTURALVARIANT.INSERTSEQUENCEREPEATCOVERAGE,
-                    STRUCTURALVARIANT.STARTANCHORINGSUPPORTDISTANCE,
-                    STRUCTURALVARIANT.ENDANCHORINGSUPPORTDISTANCE,
-                    STRUCTURALVARIANT.MODIFIED);
-            batch.forEach(entry -> addRecord(timestamp, inserter, sample, entry));
+            InsertValuesStepN inserter = context.insertInto(STRUCTURALVARIANT, INSERT_FIELDS);
+            batch.forEach(entry -> inserter.values(toRow(timestamp, sample, entry)));
             inserter.execute();
         }
     }
 
-    private static void addRecord(@NotNull Timestamp timestamp, @NotNull InsertValuesStepN inserter, @NotNull String sample,
-            @NotNull StructuralVariantData variant)
+    @NotNull
+    TableMerger<StructuralVariantData> merger(@NotNull String sample)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableMerger<>(
+                context, STRUCTURALVARIANT, INSERT_FIELDS, STRUCTURALVARIANT.MODIFIED, new Field<?>[] { STRUCTURALVARIANT.SVID },
+                x -> toRow(timestamp, sample, x), STRUCTURALVARIANT.SAMPLEID.eq(sample), DB_BATCH_INSERT_SIZE);
+    }
+
+    @NotNull
+    TableLoader<StructuralVariantData> loader(@NotNull String sample, @NotNull BulkLoadConfig config, @NotNull DataSource dataSource)
+    {
+        Timestamp timestamp = new Timestamp(new Date().getTime());
+
+        return new TableLoader<>(
+                STRUCTURALVARIANT, INSERT_FIELDS, x -> toRow(timestamp, sample, x), STRUCTURALVARIANT.SAMPLEID.eq(sample), config,
+                dataSource, context.dialect(), context.settings());
+    }
+
+    @NotNull
+    private static Object[] toRow(@NotNull Timestamp timestamp, @NotNull String sample, @NotNull StructuralVariantData variant)
     {
         boolean isSingle = variant.type() == SGL;
 
-        inserter.values(sample,
+        return new Object[] { sample,
                 variant.id(),
                 variant.startChromosome(),
                 isSingle ? null : variant.endChromosome(),
@@ -276,7 +301,7 @@ class StructuralVariantDAO
                 variant.insertSequenceRepeatCoverage(),
                 variant.startAnchoringSupportDistance(),
                 isSingle ? 0 : variant.endAnchoringSupportDistance(),
-                timestamp);
+                timestamp };
     }
 
     void deleteStructuralVariantsForSample(@NotNull String sample)
@@ -0,0 +1,469 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStepN;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+
+/* Loads a table's rows through a pipeline of stages connected by bounded queues:
+    - the caller's thread parses its source and passes each entry to accept(), which groups them into batches
+    - a conversion thread turns each batch of entries into rows of field values
+    - one inserting thread per pooled connection writes row batches, either as multi-row inserts or with LOAD DATA LOCAL INFILE
+   Rows for the sample are deleted before loading starts. Batches commit independently, so rows may be inserted in a different order
+   to the source, and a failed load can leave the table partially loaded. A caller whose source fails calls abort() in place of
+   close(), which stops the load and deletes the sample's rows again.
+*/
+public class TableLoader<T> implements TableWriter<T>
+{
+    private final Table<?> mTable;
+    private final Field<?>[] mFields;
+    private final Function<T,Object[]> mRowConverter;
+    private final Condition mDeleteCondition;
+    private final BulkLoadConfig mConfig;
+    private final DataSource mDataSource;
+    private final SQLDialect mDialect;
+    private final Settings mSettings;
+    private final int mInserterCount;
+
+    private final BlockingQueue<List<T>> mEntryQueue;
+    private final BlockingQueue<List<Object[]>> mRowQueue;
+    private final List<T> mEntriesEnd; // marks the end of entries and rows on their queues
+    private final List<Object[]> mRowsEnd;
+    private final AtomicBoolean mFailed;
+
+    private ExecutorService mExecutorService;
+    private final List<Future<Long>> mStageFutures;
+    private List<T> mCurrentBatch;
+    private boolean mStarted;
+    private boolean mClosed;
+
+    // throughput metrics
+    private final AtomicLong mRowCount;
+    private final AtomicLong mBatchCount;
+    private final AtomicLong mConvertNanos;
+    private final AtomicLong mInsertNanos;
+    private long mStartTimeNanos;
+    private long mElapsedNanos;
+
+    private static final long QUEUE_POLL_MS = 100;
+
+    private static final Logger LOGGER = LogManager.getLogger(TableLoader.class);
+
+    public TableLoader(
+            final Table<?> table, final Field<?>[] fields, final Function<T,Object[]> rowConverter,
+            @Nullable final Condition deleteCondition, final BulkLoadConfig config, final DataSource dataSource,
+            final SQLDialect dialect, @Nullable final Settings settings)
+    {
+        mTable = table;
+        mFields = fields;
+        mRowConverter = rowConverter;
+        mDeleteCondition = deleteCondition;
+        mConfig = config;
+        mDataSource = dataSource;
+        mDialect = dialect;
+        mSettings = settings;
+        mInserterCount = max(config.Connections, 1);
+
+        mEntryQueue = new ArrayBlockingQueue<>(config.QueueSize);
+        mRowQueue = new ArrayBlockingQueue<>(config.QueueSize);
+        mEntriesEnd = new ArrayList<>();
+        mRowsEnd = new ArrayList<>();
+        mFailed = new AtomicBoolean(false);
+
+        mExecutorService = null;
+        mStageFutures = Lists.newArrayList();
+        mCurrentBatch = new ArrayList<>(config.BatchSize);
+        mStarted = false;
+        mClosed = false;
+
+        mRowCount = new AtomicLong();
+        mBatchCount = new AtomicLong();
+        mConvertNanos = new AtomicLong();
+        mInsertNanos = new AtomicLong();
+        mStartTimeNanos = 0;
+        mElapsedNanos = 0;
+    }
+
+    public String tableName() { return mTable.getName(); }
+    public long rowCount() { return mRowCount.get(); }
+    public long batchCount() { return mBatchCount.get(); }
+
+    public double rowsPerSecond()
+    {
+        long elapsedNanos = mClosed ? mElapsedNanos : System.nanoTime() - mStartTimeNanos;
+        return elapsedNanos > 0 ? mRowCount.get() * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public void initialise()
+    {
+        if(mStarted)
+            return;
+
+        mStarted = true;
+        mStartTimeNanos = System.nanoTime();
+
+        if(mDeleteCondition != null)
+        {
+            try(Connection connection = mDataSource.getConnection())
+            {
+                connection.setAutoCommit(true);
+                DSL.using(connection, mDialect, mSettings).delete(mTable).where(mDeleteCondition).execute();
+            }
+            catch(SQLException e)
+            {
+                throw new IllegalStateException(format("table(%s) delete failed: %s", tableName(), e), e);
+            }
+        }
+
+        final ThreadFactory namedThreadFactory = new ThreadFactoryBuilder().setNameFormat(tableName() + "-loader-%d").build();
+        mExecutorService = Executors.newFixedThreadPool(mInserterCount + 1, namedThreadFactory);
+
+        mStageFutures.add(mExecutorService.submit(this::convertEntries));
+
+        for(int i = 0; i < mInserterCount; ++i)
+        {
+            mStageFutures.add(mExecutorService.submit(this::insertRows));
+        }
+    }
+
+    @Override
+    public void accept(final T entry)
+    {
+        if(!mStarted)
+            initialise();
+
+        mCurrentBatch.add(entry);
+
+        if(mCurrentBatch.size() >= mConfig.BatchSize)
+        {
+            offer(mEntryQueue, mCurrentBatch);
+            mCurrentBatch = new ArrayList<>(mConfig.BatchSize);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if(mClosed)
+            return;
+
+        if(!mStarted)
+            initialise();
+
+        try
+        {
+            if(!mCurrentBatch.isEmpty())
+                offer(mEntryQueue, mCurrentBatch);
+
+            offer(mEntryQueue, mEntriesEnd);
+        }
+        catch(IllegalStateException e)
+        {
+            // a stage has failed, and its exception is reported below
+        }
+
+        mCurrentBatch = null;
+
+        Throwable stageException = waitForStages();
+
+        mClosed = true;
+        mElapsedNanos = System.nanoTime() - mStartTimeNanos;
+
+        if(stageException != null)
+            throw new IllegalStateException(format("table(%s) load failed: %s", tableName(), stageException), stageException);
+
+        LOGGER.info("table({}) loaded {} rows in {} batches, {} rows/sec, secs(total={} convert={} insert={}) connections({}) infile({})",
+                tableName(), mRowCount.get(), mBatchCount.get(), format("%.0f", rowsPerSecond()),
+                format("%.2f", mElapsedNanos / 1e9), format("%.2f", mConvertNanos.get() / 1e9),
+                format("%.2f", mInsertNanos.get() / 1e9), mInserterCount, mConfig.LoadDataInfile);
+    }
+
+    @Override
+    public void abort()
+    {
+        if(mClosed)
+            return;
+
+        mClosed = true;
+        mCurrentBatch = null;
+
+        if(!mStarted)
+            return;
+
+        // stop the stages without loading queued entries, then remove the rows which have already been committed
+        mFailed.set(true);
+        mEntryQueue.clear();
+        mRowQueue.clear();
+
+        waitForStages();
+        mElapsedNanos = System.nanoTime() - mStartTimeNanos;
+
+        if(mDeleteCondition == null)
+        {
+            LOGGER.warn("table({}) load aborted, {} rows already loaded", tableName(), mRowCount.get());
+            return;
+        }
+
+        try(Connection connection = mDataSource.getConnection())
+        {
+            connection.setAutoCommit(true);
+            DSL.using(connection, mDialect, mSettings).delete(mTable).where(mDeleteCondition).execute();
+            LOGGER.warn("table({}) load aborted, {} loaded rows removed", tableName(), mRowCount.get());
+        }
+        catch(SQLException e)
+        {
+            LOGGER.error("table({}) load aborted, failed to remove {} loaded rows: {}", tableName(), mRowCount.get(), e.toString());
+        }
+    }
+
+    private Throwable waitForStages()
+    {
+        Throwable stageException = null;
+
+        try
+        {
+            for(Future<Long> future : mStageFutures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch(ExecutionException e)
+                {
+                    if(stageException == null)
+                        stageException = e.getCause();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+
+                    if(stageException == null)
+                        stageException = e;
+                }
+            }
+        }
+        finally
+        {
+            mExecutorService.shutdown();
+        }
+
+        return stageException;
+    }
+
+    private <E> void offer(final BlockingQueue<E> queue, final E item)
+    {
+        // stop waiting on a full queue if a later stage fails, since it will no longer drain the queue
+        try
+        {
+            while(!queue.offer(item, QUEUE_POLL_MS, TimeUnit.MILLISECONDS))
+            {
+                if(mFailed.get())
+                    throw new IllegalStateException(format("table(%s) load failed", tableName()));
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(format("table(%s) load interrupted", tableName()), e);
+        }
+    }
+
+    private <E> E take(final BlockingQueue<E> queue) throws InterruptedException
+    {
+        while(true)
+        {
+            E item = queue.poll(QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+
+            if(item != null)
+                return item;
+
+            if(mFailed.get())
+                return null;
+        }
+    }
+
+    private Long convertEntries() throws Exception
+    {
+        try
+        {
+            while(true)
+            {
+                List<T> entries = take(mEntryQueue);
+
+                if(entries == null)
+                    return 0L;
+
+                if(entries == mEntriesEnd)
+                    break;
+
+                long startNanos = System.nanoTime();
+
+                List<Object[]> rows = new ArrayList<>(entries.size());
+                entries.forEach(x -> rows.add(mRowConverter.apply(x)));
+
+                mConvertNanos.addAndGet(System.nanoTime() - startNanos);
+
+                offer(mRowQueue, rows);
+            }
+
+            // one end marker for each inserting thread
+            for(int i = 0; i < mInserterCount; ++i)
+            {
+                offer(mRowQueue, mRowsEnd);
+            }
+
+            return 0L;
+        }
+        catch(Exception e)
+        {
+            mFailed.set(true);
+            throw e;
+        }
+    }
+
+    private Long insertRows() throws Exception
+    {
+        try(Connection connection = mDataSource.getConnection())
+        {
+            connection.setAutoCommit(true);
+            DSLContext context = DSL.using(connection, mDialect, mSettings);
+
+            while(true)
+            {
+                List<Object[]> rows = take(mRowQueue);
+
+                if(rows == null || rows == mRowsEnd)
+                    break;
+
+                long startNanos = System.nanoTime();
+
+                if(mConfig.LoadDataInfile)
+                    loadDataInfile(connection, context, rows);
+                else
+                    insertBatch(context, rows);
+
+                mInsertNanos.addAndGet(System.nanoTime() - startNanos);
+                mRowCount.addAndGet(rows.size());
+                mBatchCount.incrementAndGet();
+            }
+
+            return 0L;
+        }
+        catch(Exception e)
+        {
+            mFailed.set(true);
+            throw e;
+        }
+    }
+
+    private void insertBatch(final DSLContext context, final List<Object[]> rows)
+    {
+        InsertValuesStepN inserter = context.insertInto(mTable, mFields);
+        rows.forEach(x -> inserter.values(x));
+        inserter.execute();
+    }
+
+    private void loadDataInfile(final Connection connection, final DSLContext context, final List<Object[]> rows) throws SQLException
+    {
+        StringJoiner columns = new StringJoiner(",");
+
+        for(Field<?> field : mFields)
+        {
+            columns.add(context.render(DSL.name(field.getName())));
+        }
+
+        // the driver streams the rows from memory in place of reading a local file
+        String sql = format("LOAD DATA LOCAL INFILE 'rows' INTO TABLE %s (%s)", context.render(mTable), columns);
+
+        StringBuilder sb = new StringBuilder();
+        rows.forEach(x -> appendInfileRow(sb, x));
+
+        try(Statement statement = connection.createStatement())
+        {
+            statement.unwrap(JdbcStatement.class).setLocalInfileInputStream(
+                    new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+
+            statement.execute(sql);
+        }
+    }
+
+    protected static void appendInfileRow(final StringBuilder sb, final Object[] row)
+    {
+        // rows use LOAD DATA's default format: tab-separated fields, backslash escapes and \N for null
+        for(int i = 0; i < row.length; ++i)
+        {
+            if(i > 0)
+                sb.append('\t');
+
+            Object value = row[i];
+
+            if(value == null)
+            {
+                sb.append("\\N");
+            }
+            else if(value instanceof Boolean)
+            {
+                sb.append((Boolean)value ? '1' : '0');
+            }
+            else
+            {
+                // enums are written by name, as jOOQ binds them for regular inserts
+                String valueStr = value instanceof Enum ? ((Enum<?>)value).name() : value.toString();
+
+                for(int c = 0; c < valueStr.length(); ++c)
+                {
+                    char ch = valueStr.charAt(c);
+
+                    switch(ch)
+                    {
+                        case '\\': sb.append("\\\\"); break;
+                        case '\t': sb.append("\\t"); break;
+                        case '\n': sb.append("\\n"); break;
+                        case '\r': sb.append("\\r"); break;
+                        case '\0': sb.append("\\0"); break;
+                        default: sb.append(ch);
+                    }
+                }
+            }
+        }
+
+        sb.append('\n');
+    }
+}
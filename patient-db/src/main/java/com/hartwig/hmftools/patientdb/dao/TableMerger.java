@@ -0,0 +1,220 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.selectOne;
+import static org.jooq.impl.DSL.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStepN;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.SQLDataType;
+
+/* Reloads a sample's rows in a table by changing only those rows which differ from the new data:
+    - new rows are inserted into a temporary staging table, keyed by the given key fields and each row's staging index
+    - the sample's existing rows with no identical staged row are deleted
+    - staged rows with no identical existing row are inserted
+   Rows are compared on every loaded field except the modified timestamp, so unchanged rows keep their original timestamp and IDs.
+   All statements run on the caller's context, so a merge is atomic when run within the caller's transaction.
+   Fields must be qualified by their table, as generated table fields are, to be distinguished from the staging table's fields.
+*/
+public class TableMerger<T> implements TableWriter<T>
+{
+    private final DSLContext mContext;
+    private final Table<?> mTable;
+    private final Field<?>[] mFields;
+    private final Function<T,Object[]> mRowConverter;
+    private final Condition mSampleCondition;
+    private final int mBatchSize;
+
+    private final Table<Record> mStageTable;
+    private final Field<?>[] mStageFields;
+    private final Field<Long> mStageRowIndex;
+    private final Field<?>[] mStageInsertFields;
+    private final Field<?>[] mStagePrimaryKey;
+    private final Condition mRowsMatch;
+
+    private final List<T> mCurrentBatch;
+    private boolean mInitialised;
+    private boolean mClosed;
+
+    private long mStagedCount;
+    private int mDeletedCount;
+    private int mInsertedCount;
+
+    private static final Logger LOGGER = LogManager.getLogger(TableMerger.class);
+
+    public TableMerger(
+            final DSLContext context, final Table<?> table, final Field<?>[] fields, final Field<?> modifiedField,
+            final Field<?>[] keyFields, final Function<T,Object[]> rowConverter, final Condition sampleCondition, int batchSize)
+    {
+        mContext = context;
+        mTable = table;
+        mFields = fields;
+        mRowConverter = rowConverter;
+        mSampleCondition = sampleCondition;
+        mBatchSize = batchSize;
+
+        mStageTable = table(name(table.getName() + "Stage"));
+        mStageFields = Arrays.stream(fields).map(this::stageField).toArray(Field<?>[]::new);
+        mStageRowIndex = field(name(mStageTable.getName(), "stageRowIndex"), SQLDataType.BIGINT.nullable(false));
+        mStageInsertFields = Stream.concat(Arrays.stream(mStageFields), Stream.of(mStageRowIndex)).toArray(Field<?>[]::new);
+
+        mStagePrimaryKey = Stream.concat(Arrays.stream(keyFields).map(this::stageField), Stream.of(mStageRowIndex))
+                .toArray(Field<?>[]::new);
+
+        Condition rowsMatch = noCondition();
+
+        for(int i = 0; i < fields.length; ++i)
+        {
+            if(fields[i].equals(modifiedField))
+                continue;
+
+            rowsMatch = rowsMatch.and(nullSafeEquals(fields[i], mStageFields[i]));
+        }
+
+        mRowsMatch = rowsMatch;
+
+        mCurrentBatch = new ArrayList<>(batchSize);
+        mInitialised = false;
+        mClosed = false;
+
+        mStagedCount = 0;
+        mDeletedCount = 0;
+        mInsertedCount = 0;
+    }
+
+    public String tableName() { return mTable.getName(); }
+    public long stagedCount() { return mStagedCount; }
+    public int deletedCount() { return mDeletedCount; }
+    public int insertedCount() { return mInsertedCount; }
+    public long unchangedCount() { return mStagedCount - mInsertedCount; }
+
+    @Override
+    public void initialise()
+    {
+        if(mInitialised)
+            return;
+
+        mInitialised = true;
+
+        // temporary tables are private to the connection, and creating or dropping them does not commit an open transaction,
+        // whereas a separate create index statement would, so the staging table's key is declared with the table
+        mContext.dropTemporaryTableIfExists(mStageTable).execute();
+        createStageTable().execute();
+    }
+
+    @Override
+    public void accept(final T entry)
+    {
+        if(!mInitialised)
+            initialise();
+
+        mCurrentBatch.add(entry);
+
+        if(mCurrentBatch.size() >= mBatchSize)
+            stageBatch();
+    }
+
+    private void stageBatch()
+    {
+        InsertValuesStepN inserter = mContext.insertInto(mStageTable, mStageInsertFields);
+        long rowIndex = mStagedCount;
+
+        for(T entry : mCurrentBatch)
+        {
+            Object[] values = mRowConverter.apply(entry);
+            Object[] stageValues = Arrays.copyOf(values, values.length + 1);
+            stageValues[values.length] = rowIndex++;
+            inserter.values(stageValues);
+        }
+
+        inserter.execute();
+
+        mStagedCount += mCurrentBatch.size();
+        mCurrentBatch.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        if(mClosed)
+            return;
+
+        if(!mInitialised)
+            initialise();
+
+        mClosed = true;
+
+        if(!mCurrentBatch.isEmpty())
+            stageBatch();
+
+        mDeletedCount = deleteChangedRows().execute();
+        mInsertedCount = insertChangedRows().execute();
+
+        mContext.dropTemporaryTable(mStageTable).execute();
+
+        LOGGER.info("table({}) merged {} rows: unchanged({}) deleted({}) inserted({})",
+                tableName(), mStagedCount, unchangedCount(), mDeletedCount, mInsertedCount);
+    }
+
+    @Override
+    public void abort()
+    {
+        // the sample's rows are left unchanged, and the staging table is dropped with the connection or on the next initialise
+        mClosed = true;
+        mCurrentBatch.clear();
+    }
+
+    @VisibleForTesting
+    Query createStageTable()
+    {
+        return mContext.createTemporaryTable(mStageTable).columns(mStageInsertFields).primaryKey(mStagePrimaryKey);
+    }
+
+    @VisibleForTesting
+    Query deleteChangedRows()
+    {
+        // the sample's rows without an identical staged row
+        return mContext.deleteFrom(mTable)
+                .where(mSampleCondition)
+                .andNotExists(selectOne().from(mStageTable).where(mRowsMatch));
+    }
+
+    @VisibleForTesting
+    Query insertChangedRows()
+    {
+        // staged rows without an identical row for the sample
+        return mContext.insertInto(mTable, mFields)
+                .select(select(mStageFields)
+                        .from(mStageTable)
+                        .whereNotExists(selectOne().from(mTable).where(mSampleCondition).and(mRowsMatch)));
+    }
+
+    private Field<?> stageField(final Field<?> field)
+    {
+        return field(name(mStageTable.getName(), field.getName()), field.getDataType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F> Condition nullSafeEquals(final Field<F> field, final Field<?> other)
+    {
+        return field.isNotDistinctFrom((Field<F>)other);
+    }
+}
@@ -0,0 +1,16 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import java.util.function.Consumer;
+
+// writes a sample's rows to a table, replacing any existing rows for the sample
+public interface TableWriter<T> extends Consumer<T>, AutoCloseable
+{
+    // clears or prepares the sample's rows, and is called on the first entry if not called explicitly
+    void initialise();
+
+    // discards the load after a failure in the caller, without writing any remaining entries, and makes close() a no-op
+    void abort();
+
+    @Override
+    void close();
+}
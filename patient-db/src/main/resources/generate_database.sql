@@ -1390,3 +1390,12 @@ CREATE TABLE `telomereLength`
 );
 
 CREATE UNIQUE INDEX `telomereLength_sampleId` ON `telomereLength` (`sampleId`);
+
+DROP TABLE IF EXISTS `loadHash`;
+CREATE TABLE `loadHash`
+(    `modified` DATETIME NOT NULL,
+     `sampleId` VARCHAR(50) NOT NULL,
+     `source` VARCHAR(50) NOT NULL,
+     `contentHash` VARCHAR(64) NOT NULL,
+     PRIMARY KEY (`sampleId`, `source`)
+);
@@ -0,0 +1,14 @@
+####
+# SQL updates for Pipeline release 5.35
+# NOTE: only add updates to this script if the tools impacted by them will be released with this pipeline release
+
+# content hashes of each sample's loaded files, used to skip reloading unchanged data
+
+DROP TABLE IF EXISTS loadHash;
+CREATE TABLE loadHash
+(   modified DATETIME NOT NULL,
+    sampleId VARCHAR(50) NOT NULL,
+    source VARCHAR(50) NOT NULL,
+    contentHash VARCHAR(64) NOT NULL,
+    PRIMARY KEY (sampleId, source)
+);
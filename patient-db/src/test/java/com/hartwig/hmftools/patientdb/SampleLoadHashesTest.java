@@ -0,0 +1,61 @@
+package com.hartwig.hmftools.patientdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class SampleLoadHashesTest
+{
+    @Test
+    public void testContentHash() throws IOException
+    {
+        File dir1 = Files.createTempDirectory("load_hash_1").toFile();
+        File dir2 = Files.createTempDirectory("load_hash_2").toFile();
+        dir1.deleteOnExit();
+        dir2.deleteOnExit();
+
+        File file1 = writeFile(dir1, "SAMPLE.purple.cnv.somatic.tsv", "chromosome\tstart\n1\t100\n");
+        File file2 = writeFile(dir2, "SAMPLE.purple.cnv.somatic.tsv", "chromosome\tstart\n1\t100\n");
+        List<String> settings = Lists.newArrayList("REF", null);
+
+        String hash = SampleLoadHashes.contentHash(settings, Lists.newArrayList(file1.getPath()));
+
+        // the same content in another directory has the same hash
+        assertEquals(hash, SampleLoadHashes.contentHash(settings, Lists.newArrayList(file2.getPath())));
+
+        assertNotEquals(hash, SampleLoadHashes.contentHash(Collections.emptyList(), Lists.newArrayList(file1.getPath())));
+
+        // a different loader version invalidates the hash
+        assertNotEquals(
+                SampleLoadHashes.contentHash("1.0", settings, Lists.newArrayList(file1.getPath())),
+                SampleLoadHashes.contentHash("1.1", settings, Lists.newArrayList(file1.getPath())));
+
+        // a missing file is distinct from an empty one
+        File missingFile = new File(dir1, "SAMPLE.missing.tsv");
+        File emptyFile = writeFile(dir2, "SAMPLE.missing.tsv", "");
+
+        assertNotEquals(
+                SampleLoadHashes.contentHash(settings, Lists.newArrayList(missingFile.getPath())),
+                SampleLoadHashes.contentHash(settings, Lists.newArrayList(emptyFile.getPath())));
+
+        writeFile(dir2, file2.getName(), "chromosome\tstart\n1\t101\n");
+        assertNotEquals(hash, SampleLoadHashes.contentHash(settings, Lists.newArrayList(file2.getPath())));
+    }
+
+    private static File writeFile(final File dir, final String filename, final String content) throws IOException
+    {
+        File file = new File(dir, filename);
+        Files.write(file.toPath(), content.getBytes());
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,170 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableLoaderTest
+{
+    private static final Table<?> TEST_TABLE = table(name("loaderTest"));
+    private static final Field<String> SAMPLE_ID = field(name("sampleId"), SQLDataType.VARCHAR(50));
+    private static final Field<Integer> POSITION = field(name("position"), SQLDataType.INTEGER);
+    private static final Field<String> INFO = field(name("info"), SQLDataType.VARCHAR(50));
+
+    private static final Field<?>[] FIELDS = { SAMPLE_ID, POSITION, INFO };
+
+    private static final String SAMPLE = "SAMPLE_01";
+    private static final String OTHER_SAMPLE = "SAMPLE_02";
+
+    private BasicDataSource mDataSource;
+    private DSLContext mContext;
+
+    @Before
+    public void setup() throws SQLException
+    {
+        mDataSource = new BasicDataSource();
+        mDataSource.setUrl("jdbc:h2:mem:loader_test;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        mDataSource.setMaxTotal(4);
+
+        mContext = DSL.using(mDataSource, SQLDialect.H2);
+        mContext.createTable(TEST_TABLE).columns(FIELDS).execute();
+    }
+
+    @After
+    public void tearDown() throws SQLException
+    {
+        mContext.dropTableIfExists(TEST_TABLE).execute();
+        mDataSource.close();
+    }
+
+    private TableLoader<Integer> createLoader(final Table<?> table, final BulkLoadConfig config)
+    {
+        return new TableLoader<>(
+                table, FIELDS, x -> new Object[] { SAMPLE, x, "info_" + x }, SAMPLE_ID.eq(SAMPLE), config, mDataSource,
+                SQLDialect.H2, null);
+    }
+
+    @Test
+    public void testPipelinedLoad()
+    {
+        // rows for this sample are replaced, other samples' rows are kept
+        mContext.insertInto(TEST_TABLE, FIELDS).values(SAMPLE, -1, "old").values(OTHER_SAMPLE, 1, "other").execute();
+
+        BulkLoadConfig config = new BulkLoadConfig(3, false, 7, 2);
+        int rowCount = 1000;
+
+        TableLoader<Integer> loader = createLoader(TEST_TABLE, config);
+
+        for(int i = 0; i < rowCount; ++i)
+        {
+            loader.accept(i);
+        }
+
+        loader.close();
+
+        assertEquals(rowCount, loader.rowCount());
+        assertEquals((rowCount + config.BatchSize - 1) / config.BatchSize, loader.batchCount());
+
+        assertEquals(rowCount, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(SAMPLE)));
+        assertEquals(1, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(OTHER_SAMPLE)));
+        assertEquals(0, mContext.fetchCount(TEST_TABLE, POSITION.eq(-1)));
+        assertEquals(rowCount, mContext.fetchCount(mContext.selectDistinct(POSITION).from(TEST_TABLE).where(SAMPLE_ID.eq(SAMPLE))));
+        assertEquals("info_500", mContext.select(INFO).from(TEST_TABLE).where(POSITION.eq(500)).fetchOne(INFO));
+    }
+
+    @Test
+    public void testEmptyLoadDeletesSampleRows()
+    {
+        mContext.insertInto(TEST_TABLE, FIELDS).values(SAMPLE, 1, "old").execute();
+
+        TableLoader<Integer> loader = createLoader(TEST_TABLE, new BulkLoadConfig(1, false, 10, 2));
+        loader.close();
+
+        assertEquals(0, loader.rowCount());
+        assertEquals(0, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(SAMPLE)));
+    }
+
+    @Test
+    public void testAbortedLoadRemovesSampleRows()
+    {
+        mContext.insertInto(TEST_TABLE, FIELDS).values(OTHER_SAMPLE, 1, "other").execute();
+
+        TableLoader<Integer> loader = createLoader(TEST_TABLE, new BulkLoadConfig(2, false, 10, 2));
+
+        for(int i = 0; i < 500; ++i)
+        {
+            loader.accept(i);
+        }
+
+        loader.abort();
+        loader.close();
+
+        assertEquals(0, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(SAMPLE)));
+        assertEquals(1, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(OTHER_SAMPLE)));
+    }
+
+    @Test
+    public void testFailedLoad()
+    {
+        TableLoader<Integer> loader = new TableLoader<>(
+                table(name("missingTable")), FIELDS, x -> new Object[] { SAMPLE, x, "info" }, null,
+                new BulkLoadConfig(2, false, 5, 2), mDataSource, SQLDialect.H2, null);
+
+        try
+        {
+            // the producer stops waiting on full queues once the inserters have failed
+            for(int i = 0; i < 1000; ++i)
+            {
+                loader.accept(i);
+            }
+        }
+        catch(IllegalStateException e)
+        {
+            assertTrue(e.getMessage().contains("missingTable"));
+        }
+
+        try
+        {
+            loader.close();
+            fail("expected load failure");
+        }
+        catch(IllegalStateException e)
+        {
+            assertTrue(e.getMessage().contains("missingTable"));
+        }
+    }
+
+    @Test
+    public void testInfileRowFormat()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        TableLoader.appendInfileRow(sb, new Object[] { "S1", 10, null, true, false, 1.5, "a\tb\\c\nd", TestType.VALUE_ONE });
+
+        assertEquals("S1\t10\t\\N\t1\t0\t1.5\ta\\tb\\\\c\\nd\tVALUE_ONE\n", sb.toString());
+    }
+
+    private enum TestType
+    {
+        VALUE_ONE;
+
+        @Override
+        public String toString() { return "value one"; }
+    }
+}
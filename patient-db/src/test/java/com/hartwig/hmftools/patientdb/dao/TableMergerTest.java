@@ -0,0 +1,178 @@
+package com.hartwig.hmftools.patientdb.dao;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableMergerTest
+{
+    // fields are qualified by their table, as generated table fields are, to be distinct from the staging table's fields
+    private static final String TABLE_NAME = "mergerTest";
+    private static final Table<?> TEST_TABLE = table(name(TABLE_NAME));
+    private static final Field<Integer> ID = field(name(TABLE_NAME, "id"), SQLDataType.INTEGER.identity(true));
+    private static final Field<LocalDateTime> MODIFIED = field(name(TABLE_NAME, "modified"), SQLDataType.LOCALDATETIME.nullable(false));
+    private static final Field<String> SAMPLE_ID = field(name(TABLE_NAME, "sampleId"), SQLDataType.VARCHAR(50).nullable(false));
+    private static final Field<Integer> POSITION = field(name(TABLE_NAME, "position"), SQLDataType.INTEGER.nullable(false));
+    private static final Field<String> INFO = field(name(TABLE_NAME, "info"), SQLDataType.VARCHAR(50));
+
+    private static final Field<?>[] FIELDS = { MODIFIED, SAMPLE_ID, POSITION, INFO };
+
+    private static final String SAMPLE = "SAMPLE_01";
+    private static final String OTHER_SAMPLE = "SAMPLE_02";
+
+    private static final LocalDateTime ORIGINAL_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private Connection mConnection;
+    private DSLContext mContext;
+
+    @Before
+    public void setup() throws SQLException
+    {
+        mConnection = DriverManager.getConnection("jdbc:h2:mem:merger_test;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        mContext = DSL.using(mConnection, SQLDialect.H2);
+
+        mContext.createTable(TEST_TABLE).columns(ID, MODIFIED, SAMPLE_ID, POSITION, INFO).execute();
+
+        mContext.insertInto(TEST_TABLE, FIELDS)
+                .values(ORIGINAL_TIME, SAMPLE, 1, "a")
+                .values(ORIGINAL_TIME, SAMPLE, 2, "a")
+                .values(ORIGINAL_TIME, SAMPLE, 3, null)
+                .values(ORIGINAL_TIME, SAMPLE, 4, "a")
+                .values(ORIGINAL_TIME, SAMPLE, 5, "a")
+                .values(ORIGINAL_TIME, OTHER_SAMPLE, 5, "a")
+                .execute();
+    }
+
+    @After
+    public void tearDown() throws SQLException
+    {
+        mContext.dropTableIfExists(TEST_TABLE).execute();
+        mConnection.close();
+    }
+
+    private TableMerger<Object[]> createMerger(final DSLContext context)
+    {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+
+        return new TableMerger<>(
+                context, TEST_TABLE, FIELDS, MODIFIED, new Field<?>[] { POSITION },
+                x -> new Object[] { timestamp, SAMPLE, x[0], x[1] }, SAMPLE_ID.eq(SAMPLE), 2);
+    }
+
+    @Test
+    public void testMergeChangesOnlyDifferingRows()
+    {
+        Map<Integer,Integer> originalIds = mContext.select(POSITION, ID).from(TEST_TABLE).where(SAMPLE_ID.eq(SAMPLE)).fetchMap(POSITION, ID);
+
+        // position 4 changes, 5 is removed and 6 is new
+        List<Object[]> newRows = Lists.newArrayList(
+                new Object[] { 1, "a" }, new Object[] { 2, "a" }, new Object[] { 3, null }, new Object[] { 4, "b" }, new Object[] { 6, "a" });
+
+        TableMerger<Object[]> merger = createMerger(mContext);
+
+        mContext.transaction(tr ->
+        {
+            try(TableMerger<Object[]> writer = merger)
+            {
+                newRows.forEach(writer);
+            }
+        });
+
+        assertEquals(5, merger.stagedCount());
+        assertEquals(3, merger.unchangedCount());
+        assertEquals(2, merger.deletedCount());
+        assertEquals(2, merger.insertedCount());
+
+        Map<Integer,String> info = mContext.select(POSITION, INFO).from(TEST_TABLE).where(SAMPLE_ID.eq(SAMPLE)).fetchMap(POSITION, INFO);
+        assertEquals(5, info.size());
+        assertEquals("a", info.get(1));
+        assertNull(info.get(3));
+        assertEquals("b", info.get(4));
+        assertEquals("a", info.get(6));
+
+        // unchanged rows keep their IDs and timestamps
+        for(int position = 1; position <= 3; ++position)
+        {
+            assertEquals(originalIds.get(position), mContext.select(ID).from(TEST_TABLE)
+                    .where(SAMPLE_ID.eq(SAMPLE)).and(POSITION.eq(position)).fetchOne(ID));
+
+            assertEquals(ORIGINAL_TIME, mContext.select(MODIFIED).from(TEST_TABLE)
+                    .where(SAMPLE_ID.eq(SAMPLE)).and(POSITION.eq(position)).fetchOne(MODIFIED));
+        }
+
+        assertEquals(1, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(OTHER_SAMPLE)));
+    }
+
+    @Test
+    public void testMergeIdenticalAndEmptyData()
+    {
+        TableMerger<Object[]> merger = createMerger(mContext);
+
+        List<Object[]> sameRows = Lists.newArrayList(
+                new Object[] { 1, "a" }, new Object[] { 2, "a" }, new Object[] { 3, null }, new Object[] { 4, "a" }, new Object[] { 5, "a" });
+
+        sameRows.forEach(merger);
+        merger.close();
+
+        assertEquals(5, merger.unchangedCount());
+        assertEquals(0, merger.deletedCount());
+        assertEquals(0, merger.insertedCount());
+
+        // a merge with no rows clears the sample
+        TableMerger<Object[]> emptyMerger = createMerger(mContext);
+        emptyMerger.close();
+
+        assertEquals(5, emptyMerger.deletedCount());
+        assertEquals(0, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(SAMPLE)));
+        assertEquals(1, mContext.fetchCount(TEST_TABLE, SAMPLE_ID.eq(OTHER_SAMPLE)));
+    }
+
+    @Test
+    public void testMergeStatementRendering()
+    {
+        DSLContext mysqlContext = DSL.using(SQLDialect.MYSQL);
+        TableMerger<Object[]> merger = createMerger(mysqlContext);
+
+        // the staging table is keyed on the key fields and row index, without the main table's ID
+        assertEquals("create temporary table `mergerTestStage` (`modified` timestamp not null, `sampleId` varchar(50) not null, "
+                + "`position` int not null, `info` varchar(50), `stageRowIndex` bigint not null, "
+                + "primary key (`position`, `stageRowIndex`))", mysqlContext.render(merger.createStageTable()));
+
+        // rows match null-safely on every field except the modified timestamp
+        String rowsMatch = "(`mergerTest`.`sampleId` <=> `mergerTestStage`.`sampleId`) "
+                + "and (`mergerTest`.`position` <=> `mergerTestStage`.`position`) "
+                + "and (`mergerTest`.`info` <=> `mergerTestStage`.`info`)";
+
+        String deleteSql = mysqlContext.render(merger.deleteChangedRows());
+        assertEquals("delete from `mergerTest` where (`mergerTest`.`sampleId` = ? and not (exists "
+                + "(select 1 as `one` from `mergerTestStage` where (" + rowsMatch + "))))", deleteSql);
+
+        String insertSql = mysqlContext.render(merger.insertChangedRows());
+        assertEquals("insert into `mergerTest` (`modified`, `sampleId`, `position`, `info`) "
+                + "select `mergerTestStage`.`modified`, `mergerTestStage`.`sampleId`, `mergerTestStage`.`position`, "
+                + "`mergerTestStage`.`info` from `mergerTestStage` where not (exists (select 1 as `one` from `mergerTest` "
+                + "where (`mergerTest`.`sampleId` = ? and " + rowsMatch + ")))", insertSql);
+    }
+}
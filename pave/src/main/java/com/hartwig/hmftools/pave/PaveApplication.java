@@ -1,6 +1,7 @@
 package com.hartwig.hmftools.pave;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
 import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
@@ -14,6 +15,8 @@ import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
@@ -66,40 +69,51 @@ public class PaveApplication
 
         long startTimeMs = System.currentTimeMillis();
 
-        List<ChromosomeTask> chromosomeTasks = Lists.newArrayList();
+        RegionOutputBuffer outputBuffer = new RegionOutputBuffer(mVcfWriter, mTranscriptWriter, mConfig.Threads);
+
+        List<RegionTask> regionTasks = Lists.newArrayList();
         List<String> initialRefChromosomes = Lists.newArrayList();
 
+        RefGenomeCoordinates coordinates = mConfig.RefGenVersion.is37() ? RefGenomeCoordinates.COORDS_37 : RefGenomeCoordinates.COORDS_38;
+
         for(HumanChromosome chromosome : HumanChromosome.values())
         {
             String chrStr = mConfig.RefGenVersion.versionedChromosome(chromosome.toString());
 
             if(!mConfig.SpecificRegions.isEmpty() && mConfig.SpecificRegions.stream().noneMatch(x -> x.Chromosome.equals(chrStr)))
-            {
-                mVcfWriter.onChromosomeComplete(chromosome);
                 continue;
-            }
 
-            ChromosomeTask chromosomeTask = new ChromosomeTask(chromosome, mConfig, mReferenceData, mVcfWriter, mTranscriptWriter);
+            int chromosomeLength = coordinates.Lengths.get(chromosome);
 
-            chromosomeTasks.add(chromosomeTask);
+            for(int regionStart = 1; regionStart <= chromosomeLength; regionStart += mConfig.PartitionSize)
+            {
+                ChrBaseRegion region = new ChrBaseRegion(chrStr, regionStart, min(regionStart + mConfig.PartitionSize - 1, chromosomeLength));
+
+                if(!mConfig.SpecificRegions.isEmpty() && mConfig.SpecificRegions.stream().noneMatch(x -> x.overlaps(region)))
+                    continue;
 
-            // initialise the reference data for the set of chromosomes which will be processed immediately to avoid data locking
-            if(initialRefChromosomes.size() < max(mConfig.Threads, 1))
-                initialRefChromosomes.add(chrStr);
+                regionTasks.add(new RegionTask(regionTasks.size(), region, chromosomeLength, mConfig, mReferenceData, outputBuffer));
+                mReferenceData.registerRegion(chrStr);
+
+                // initialise the reference data for the chromosomes which will be processed immediately to avoid data locking
+                if(regionTasks.size() <= max(mConfig.Threads, 1) && !initialRefChromosomes.contains(chrStr))
+                    initialRefChromosomes.add(chrStr);
+            }
         }
 
         // PV_LOGGER.debug("initialising reference data");
         mReferenceData.initialiseChromosomeData(initialRefChromosomes, mConfig.Threads);
 
-        PV_LOGGER.info("sample({}) processing VCF file({})", mConfig.SampleId, mConfig.VcfFile);
+        PV_LOGGER.info("sample({}) processing VCF file({}) in {} regions", mConfig.SampleId, mConfig.VcfFile, regionTasks.size());
 
-        final List<Callable> callableList = chromosomeTasks.stream().collect(Collectors.toList());
+        final List<Callable> callableList = regionTasks.stream().collect(Collectors.toList());
 
         if(!TaskExecutor.executeTasks(callableList, mConfig.Threads))
         {
             System.exit(1);
         }
 
+        outputBuffer.close();
         mTranscriptWriter.close();
         mVcfWriter.close();
 
@@ -12,6 +12,7 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_DIR;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConstants.DEFAULT_PARTITION_SIZE;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -50,6 +51,7 @@ public class PaveConfig
     public final boolean ForcePathogenicPass;
     public final List<ChrBaseRegion> SpecificRegions;
     public final int Threads;
+    public final int PartitionSize;
 
     public static final String VCF_FILE = "vcf_file";
     private static final String OUTPUT_VCF_FILE = "output_vcf_file";
@@ -66,6 +68,7 @@ public class PaveConfig
     private static final String WRITE_TRANSCRIPT_DATA = "write_transcript_data";
     private static final String SET_REPORTABLE = "set_reportable";
     private static final String FORCE_PATHOGENIC_PASS = "force_pathogenic_pass";
+    private static final String PARTITION_SIZE = "partition_size";
 
     public static final Logger PV_LOGGER = LogManager.getLogger(PaveConfig.class);
 
@@ -86,6 +89,7 @@ public class PaveConfig
         SetReportable = configBuilder.hasFlag(SET_REPORTABLE);
         ForcePathogenicPass = configBuilder.hasFlag(FORCE_PATHOGENIC_PASS);
         Threads = parseThreads(configBuilder);
+        PartitionSize = configBuilder.getInteger(PARTITION_SIZE);
 
         SpecificRegions = Lists.newArrayList();
 
@@ -115,6 +119,9 @@ public class PaveConfig
         if(VcfFile == null)
             return false;
 
+        if(PartitionSize <= 0)
+            return false;
+
         return true;
     }
 
@@ -145,6 +152,7 @@ public class PaveConfig
         ClinvarAnnotation.addConfig(configBuilder);
         Blacklistings.addConfig(configBuilder);
         addThreadOptions(configBuilder);
+        configBuilder.addInteger(PARTITION_SIZE, "Size of the chromosome regions annotated by each task", DEFAULT_PARTITION_SIZE);
         addSpecificChromosomesRegionsConfig(configBuilder);
 
         addOutputDir(configBuilder);
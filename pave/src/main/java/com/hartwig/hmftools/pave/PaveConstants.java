@@ -19,4 +19,8 @@ public class PaveConstants
     // currently only TERT sets coding impact upstream of the coding start
     public static final List<String> PROMOTOR_UPSTREAM_GENE_IDS = Lists.newArrayList("ENSG00000164362");
     public static final int PROMOTOR_UPSTREAM_DISTANCE = 300;
+
+    // multi-threading
+    public static final int DEFAULT_PARTITION_SIZE = 10_000_000;
+    public static final int PHASE_SET_LOOKBACK_DISTANCE = 10_000;
 }
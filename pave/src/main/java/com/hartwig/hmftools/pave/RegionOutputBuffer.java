@@ -0,0 +1,126 @@
+package com.hartwig.hmftools.pave;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+// holds each region's annotated variants until all prior regions are complete, so the VCF and transcript files are written in
+// genomic order regardless of which regions finish first
+// a region task waits to begin until it is within a fixed window of the next region to be written, which bounds the regions held
+public class RegionOutputBuffer
+{
+    private final BiConsumer<List<VariantContext>,List<VariantData>> mRegionWriter;
+    private final int mWindowSize;
+
+    private final Map<Integer,RegionOutput> mPendingRegions;
+    private int mNextRegionIndex;
+    private int mMaxPendingRegions;
+
+    public static final int WRITE_WINDOW_REGIONS_PER_THREAD = 4;
+
+    public RegionOutputBuffer(final VcfWriter vcfWriter, final TranscriptWriter transcriptWriter, int threads)
+    {
+        this((vcfVariants, transcriptVariants) -> writeRegion(vcfWriter, transcriptWriter, vcfVariants, transcriptVariants), threads);
+    }
+
+    @VisibleForTesting
+    public RegionOutputBuffer(final BiConsumer<List<VariantContext>,List<VariantData>> regionWriter, int threads)
+    {
+        mRegionWriter = regionWriter;
+        mWindowSize = max(threads, 1) * WRITE_WINDOW_REGIONS_PER_THREAD;
+        mPendingRegions = Maps.newHashMap();
+        mNextRegionIndex = 0;
+        mMaxPendingRegions = 0;
+    }
+
+    public int windowSize() { return mWindowSize; }
+    @VisibleForTesting
+    public synchronized int pendingCount() { return mPendingRegions.size(); }
+
+    public synchronized boolean waitForWriteWindow(int regionIndex)
+    {
+        // tasks are started in region order, so the next region to be written is always held by a task which is not waiting
+        while(regionIndex >= mNextRegionIndex + mWindowSize)
+        {
+            try
+            {
+                wait();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public synchronized void onRegionComplete(
+            int regionIndex, final List<VariantContext> vcfVariants, final List<VariantData> transcriptVariants)
+    {
+        mPendingRegions.put(regionIndex, new RegionOutput(vcfVariants, transcriptVariants));
+        mMaxPendingRegions = max(mMaxPendingRegions, mPendingRegions.size());
+
+        RegionOutput regionOutput = mPendingRegions.remove(mNextRegionIndex);
+
+        if(regionOutput == null)
+            return;
+
+        while(regionOutput != null)
+        {
+            mRegionWriter.accept(regionOutput.VcfVariants, regionOutput.TranscriptVariants);
+
+            ++mNextRegionIndex;
+            regionOutput = mPendingRegions.remove(mNextRegionIndex);
+        }
+
+        notifyAll();
+    }
+
+    private static void writeRegion(
+            final VcfWriter vcfWriter, final TranscriptWriter transcriptWriter,
+            final List<VariantContext> vcfVariants, final List<VariantData> transcriptVariants)
+    {
+        vcfVariants.forEach(x -> vcfWriter.writeVariant(x));
+
+        for(VariantData variant : transcriptVariants)
+        {
+            for(String geneName : variant.getImpacts().keySet())
+            {
+                transcriptWriter.writeVariantData(variant, geneName);
+            }
+        }
+    }
+
+    public synchronized void close()
+    {
+        if(!mPendingRegions.isEmpty())
+        {
+            PV_LOGGER.error("{} regions not written, next expected region index({})", mPendingRegions.size(), mNextRegionIndex);
+        }
+
+        PV_LOGGER.debug("wrote {} regions, max pending({})", mNextRegionIndex, mMaxPendingRegions);
+    }
+
+    private class RegionOutput
+    {
+        public final List<VariantContext> VcfVariants;
+        public final List<VariantData> TranscriptVariants;
+
+        public RegionOutput(final List<VariantContext> vcfVariants, final List<VariantData> transcriptVariants)
+        {
+            VcfVariants = vcfVariants;
+            TranscriptVariants = transcriptVariants;
+        }
+    }
+}
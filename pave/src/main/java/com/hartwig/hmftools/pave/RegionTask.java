@@ -0,0 +1,330 @@
+package com.hartwig.hmftools.pave;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.variant.SomaticVariantFactory.PASS_FILTER;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.PHASE_SET_LOOKBACK_DISTANCE;
+import static com.hartwig.hmftools.pave.impact.PaveUtils.createRightAlignedVariant;
+import static com.hartwig.hmftools.pave.impact.PaveUtils.findVariantImpacts;
+import static com.hartwig.hmftools.pave.VariantData.NO_LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.pave.VcfWriter.buildVariant;
+import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_ARTEFACT_FILTER;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.pathogenic.PathogenicSummaryFactory;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+import com.hartwig.hmftools.common.variant.impact.VariantImpact;
+import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+import com.hartwig.hmftools.pave.annotation.MappabilityChrCache;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+import com.hartwig.hmftools.pave.annotation.ReferenceData;
+import com.hartwig.hmftools.pave.impact.ImpactClassifier;
+import com.hartwig.hmftools.pave.impact.VariantImpactBuilder;
+
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/* Annotates the variants starting in one partition of a chromosome. Output is buffered and handed to the region output buffer, which
+   writes regions in genomic order.
+   Phased variants are classified together once their phase set is complete, so a phase set which crosses a partition boundary is kept
+   with the region in which it starts: that region reads on past its end to finish the phase set, and the next region skips over it.
+*/
+public class RegionTask implements Callable
+{
+    private final int mRegionIndex;
+    private final ChrBaseRegion mRegion;
+    private final int mChromosomeLength;
+    private final PaveConfig mConfig;
+    private final RegionOutputBuffer mOutputBuffer;
+
+    private final ReferenceData mReferenceData;
+    private final ImpactClassifier mImpactClassifier;
+    private final VariantImpactBuilder mImpactBuilder;
+
+    // local chromosome annotation caches
+    private GnomadChrCache mGnomadCache;
+    private ClinvarChrCache mClinvarCache;
+    private MappabilityChrCache mMappability;
+    private PonChrCache mStandardPon;
+    private PonChrCache mArtefactsPon;
+    private final GeneCacheIndexing mGeneCacheIndexing;
+
+    private final List<VariantContext> mVcfVariants;
+    private final List<VariantData> mTranscriptVariants;
+
+    public RegionTask(
+            int regionIndex, final ChrBaseRegion region, int chromosomeLength, final PaveConfig config,
+            final ReferenceData referenceData, final RegionOutputBuffer outputBuffer)
+    {
+        mRegionIndex = regionIndex;
+        mRegion = region;
+        mChromosomeLength = chromosomeLength;
+        mConfig = config;
+        mOutputBuffer = outputBuffer;
+        mReferenceData = referenceData;
+
+        mImpactBuilder = new VariantImpactBuilder(mReferenceData.GeneDataCache);
+        mImpactClassifier = new ImpactClassifier(mReferenceData.RefGenome);
+
+        mGnomadCache = null;
+        mClinvarCache = null;
+        mMappability = null;
+        mStandardPon = null;
+        mArtefactsPon = null;
+        mGeneCacheIndexing = mReferenceData.GeneDataCache.createIndexing(mRegion.Chromosome);
+
+        mVcfVariants = Lists.newArrayList();
+        mTranscriptVariants = Lists.newArrayList();
+    }
+
+    public ChrBaseRegion region() { return mRegion; }
+
+    @Override
+    public Long call()
+    {
+        if(!mOutputBuffer.waitForWriteWindow(mRegionIndex))
+            return (long)0;
+
+        VcfFileReader vcfFileReader = new VcfFileReader(mConfig.VcfFile, true);
+
+        if(!vcfFileReader.fileValid())
+        {
+            PV_LOGGER.error("invalid somatic VCF file({})", mConfig.VcfFile);
+            System.exit(1);
+        }
+
+        String chromosome = mRegion.Chromosome;
+        mGnomadCache = mReferenceData.Gnomad.getChromosomeCache(chromosome);
+        mClinvarCache = mReferenceData.Clinvar.getChromosomeCache(chromosome);
+        mMappability = mReferenceData.VariantMappability.getChromosomeCache(chromosome);
+        mStandardPon = mReferenceData.StandardPon.getChromosomeCache(chromosome);
+        mArtefactsPon = mReferenceData.ArtefactsPon.getChromosomeCache(chromosome);
+
+        PV_LOGGER.trace("region({}) starting variant annotation", mRegion);
+
+        int variantCount = processRegionVariants(vcfFileReader, mRegion, mChromosomeLength, this::isCandidate, this::processVariant);
+
+        processPhasedVariants(NO_LOCAL_PHASE_SET);
+
+        vcfFileReader.close();
+
+        PV_LOGGER.debug("region({}) complete for {} variants", mRegion, variantCount);
+
+        mOutputBuffer.onRegionComplete(mRegionIndex, mVcfVariants, mTranscriptVariants);
+
+        mReferenceData.onRegionComplete(chromosome);
+
+        return (long)0;
+    }
+
+    private boolean isCandidate(final VariantContext variantContext)
+    {
+        // applies the same checks as processing so that phase sets are followed across region boundaries consistently
+        if(!HumanChromosome.contains(variantContext.getContig()))
+            return false;
+
+        if(!mConfig.SpecificRegions.isEmpty())
+        {
+            if(mConfig.SpecificRegions.stream().noneMatch(x -> x.containsPosition(variantContext.getContig(), variantContext.getStart())))
+                return false;
+        }
+
+        if(mConfig.ReadPassOnly)
+        {
+            if(!variantContext.getFilters().isEmpty() && !variantContext.getFilters().contains(PASS_FILTER))
+                return false;
+        }
+
+        return true;
+    }
+
+    @VisibleForTesting
+    static int processRegionVariants(
+            final VcfFileReader vcfFileReader, final ChrBaseRegion region, int chromosomeLength,
+            final Predicate<VariantContext> isCandidate, final Consumer<VariantContext> variantProcessor)
+    {
+        int variantCount = 0;
+        int lastLocalPhaseSet = NO_LOCAL_PHASE_SET; // of the last variant processed, used to complete its phase set beyond the region
+
+        // variants continuing a phase set from the previous region are annotated by that region
+        int priorLocalPhaseSet = findPriorLocalPhaseSet(vcfFileReader, region, isCandidate);
+
+        CloseableTribbleIterator<VariantContext> regionIter = vcfFileReader.regionIterator(region);
+
+        for(VariantContext variantContext : regionIter)
+        {
+            // variants overlapping the start of the region belong to the previous region
+            if(variantContext.getStart() < region.start() || !isCandidate.test(variantContext))
+                continue;
+
+            if(priorLocalPhaseSet != NO_LOCAL_PHASE_SET)
+            {
+                if(VariantData.localPhaseSet(variantContext) == priorLocalPhaseSet)
+                    continue;
+
+                priorLocalPhaseSet = NO_LOCAL_PHASE_SET;
+            }
+
+            variantProcessor.accept(variantContext);
+            lastLocalPhaseSet = VariantData.localPhaseSet(variantContext);
+            ++variantCount;
+
+            if(variantCount > 0 && (variantCount % 100000) == 0)
+            {
+                PV_LOGGER.debug("region({}) processed {} variants", region, variantCount);
+            }
+        }
+
+        regionIter.close();
+
+        if(lastLocalPhaseSet != NO_LOCAL_PHASE_SET && region.end() < chromosomeLength)
+        {
+            variantCount += completeLocalPhaseSet(
+                    vcfFileReader, region, chromosomeLength, lastLocalPhaseSet, isCandidate, variantProcessor);
+        }
+
+        return variantCount;
+    }
+
+    private static int findPriorLocalPhaseSet(
+            final VcfFileReader vcfFileReader, final ChrBaseRegion region, final Predicate<VariantContext> isCandidate)
+    {
+        // find the phase set of the last candidate variant before this region, searching back over increasing distances
+        int windowEnd = region.start() - 1;
+        int windowSize = PHASE_SET_LOOKBACK_DISTANCE;
+
+        while(windowEnd >= 1)
+        {
+            int windowStart = max(windowEnd - windowSize + 1, 1);
+
+            CloseableTribbleIterator<VariantContext> iter = vcfFileReader.regionIterator(region.Chromosome, windowStart, windowEnd);
+
+            VariantContext lastVariant = null;
+
+            for(VariantContext variantContext : iter)
+            {
+                if(variantContext.getStart() >= windowStart && isCandidate.test(variantContext))
+                    lastVariant = variantContext;
+            }
+
+            iter.close();
+
+            if(lastVariant != null)
+                return VariantData.localPhaseSet(lastVariant);
+
+            windowEnd = windowStart - 1;
+            windowSize *= 2;
+        }
+
+        return NO_LOCAL_PHASE_SET;
+    }
+
+    private static int completeLocalPhaseSet(
+            final VcfFileReader vcfFileReader, final ChrBaseRegion region, int chromosomeLength, int phasedLocalSet,
+            final Predicate<VariantContext> isCandidate, final Consumer<VariantContext> variantProcessor)
+    {
+        // take any further variants in the last variant's phase set, up until the next candidate variant outside it
+        int variantCount = 0;
+
+        CloseableTribbleIterator<VariantContext> iter = vcfFileReader.regionIterator(region.Chromosome, region.end() + 1, chromosomeLength);
+
+        for(VariantContext variantContext : iter)
+        {
+            if(variantContext.getStart() <= region.end() || !isCandidate.test(variantContext))
+                continue;
+
+            if(VariantData.localPhaseSet(variantContext) != phasedLocalSet)
+                break;
+
+            variantProcessor.accept(variantContext);
+            ++variantCount;
+        }
+
+        iter.close();
+
+        return variantCount;
+    }
+
+    private void processVariant(final VariantContext variantContext)
+    {
+        VariantData variant = VariantData.fromContext(variantContext);
+
+        try
+        {
+            variant.setRealignedVariant(createRightAlignedVariant(variant, mImpactClassifier.refGenome()));
+
+            findVariantImpacts(variant, mImpactClassifier, mReferenceData.GeneDataCache, mGeneCacheIndexing);
+
+            processPhasedVariants(variant.localPhaseSet());
+
+            if(!variant.hasLocalPhaseSet())
+                processVariant(variant);
+        }
+        catch(Exception e)
+        {
+            PV_LOGGER.error("error processing var({})", variant);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private void processPhasedVariants(int currentLocalPhaseSet)
+    {
+        List<VariantData> variants = mImpactClassifier.processPhasedVariants(currentLocalPhaseSet);
+
+        if(variants != null)
+            variants.forEach(x -> processVariant(x));
+    }
+
+    private void processVariant(final VariantData variant)
+    {
+        // can be null if no impacts exist for any transcript
+        VariantImpact variantImpact = mImpactBuilder.createVariantImpact(variant);
+
+        annotateAndFilter(variant);
+
+        if(mConfig.SetReportable)
+            mReferenceData.ReportableClassifier.setReportability(variant, variantImpact);
+
+        if(mConfig.WritePassOnly && !variant.filters().isEmpty())
+            return;
+
+        VariantContext newVariant = buildVariant(variant.context(), variant, variantImpact);
+        mVcfVariants.add(newVariant);
+
+        if(mConfig.WriteTranscriptFile && !variant.getImpacts().isEmpty())
+            mTranscriptVariants.add(variant);
+    }
+
+    private void annotateAndFilter(final VariantData variant)
+    {
+        if(mMappability != null)
+            mMappability.annotateVariant(variant);
+
+        if(mClinvarCache != null)
+            mClinvarCache.annotateVariant(variant);
+
+        mReferenceData.BlacklistedVariants.annotateVariant(variant);
+
+        boolean forcePass = mConfig.ForcePathogenicPass && PathogenicSummaryFactory.fromContext(variant.context()).Status.isPathogenic();
+
+        if(mGnomadCache != null)
+            mReferenceData.Gnomad.annotateVariant(variant, mGnomadCache, forcePass);
+
+        if(mStandardPon != null)
+            mReferenceData.StandardPon.annotateVariant(variant, mStandardPon, forcePass);
+
+        if(!forcePass && mArtefactsPon != null && mArtefactsPon.getPonData(variant) != null)
+            variant.addFilter(PON_ARTEFACT_FILTER);
+    }
+}
@@ -172,10 +172,8 @@ public class VariantData
         VariantData variant = new VariantData(chromosome, variantPosition, ref, alt);
         variant.setContext(variantContext);
 
-        List<Integer> localPhaseSets = variantContext.getAttributeAsIntList(LOCAL_PHASE_SET, NO_LOCAL_PHASE_SET);
-
         variant.setVariantDetails(
-                !localPhaseSets.isEmpty() ? localPhaseSets.get(0) : NO_LOCAL_PHASE_SET,
+                localPhaseSet(variantContext),
                 variantContext.getAttributeAsString(MICROHOMOLOGY, Strings.EMPTY),
                 variantContext.getAttributeAsString(REPEAT_SEQUENCE, Strings.EMPTY),
                 variantContext.getAttributeAsInt(REPEAT_COUNT, 0));
@@ -183,6 +181,12 @@ public class VariantData
         return variant;
     }
 
+    public static int localPhaseSet(final VariantContext variantContext)
+    {
+        List<Integer> localPhaseSets = variantContext.getAttributeAsIntList(LOCAL_PHASE_SET, NO_LOCAL_PHASE_SET);
+        return !localPhaseSets.isEmpty() ? localPhaseSets.get(0) : NO_LOCAL_PHASE_SET;
+    }
+
     public VariantType type()
     {
         if(mIndelBaseDiff == 0)
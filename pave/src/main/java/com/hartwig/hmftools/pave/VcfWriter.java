@@ -2,7 +2,6 @@ package com.hartwig.hmftools.pave;
 
 import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
-import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
 import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
 import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_COUNT;
 import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_MAX;
@@ -10,12 +9,8 @@ import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_MAX;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 import com.hartwig.hmftools.common.variant.impact.VariantImpact;
 import com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser;
@@ -42,10 +37,6 @@ public class VcfWriter
     private final VCFFileReader mHeader;
     private final VariantContextWriter mWriter;
 
-    private final Map<HumanChromosome,List<VariantContext>> mChrPendingVariants;
-    private final Set<HumanChromosome> mCompleteChromosomes;
-    private HumanChromosome mCurrentChromosome;
-
     public static final String PASS = "PASS";
 
     public VcfWriter(final String outputVCF, final String templateVCF)
@@ -57,15 +48,6 @@ public class VcfWriter
                 .setOutputFile(outputVCF)
                 .setOutputFileType(VariantContextWriterBuilder.OutputType.BLOCK_COMPRESSED_VCF)
                 .build();
-
-        mChrPendingVariants = Maps.newHashMap();
-        mCompleteChromosomes = Sets.newHashSet();
-        mCurrentChromosome = HumanChromosome._1;
-
-        for(HumanChromosome chromosome : HumanChromosome.values())
-        {
-            mChrPendingVariants.put(chromosome, Lists.newArrayList());
-        }
     }
 
     public final void writeHeader(final ReferenceData referenceData, boolean setReportability)
@@ -162,67 +144,13 @@ public class VcfWriter
         return newContext;
     }
 
-    public synchronized void onChromosomeComplete(final HumanChromosome chromosome)
-    {
-        mCompleteChromosomes.add(chromosome);
-        writePendingVariants();
-    }
-
-    public synchronized void writeVariant(final HumanChromosome chromosome, final VariantContext variantContext)
-    {
-        if(mCurrentChromosome == chromosome)
-        {
-            mWriter.add(variantContext);
-            return;
-        }
-
-        List<VariantContext> pendingVariants = mChrPendingVariants.get(chromosome);
-
-        if(pendingVariants == null)
-        {
-            pendingVariants = Lists.newArrayList();
-            mChrPendingVariants.put(chromosome, pendingVariants);
-        }
-
-        pendingVariants.add(variantContext);
-    }
-
-    private void writePendingVariants()
+    public void writeVariant(final VariantContext variantContext)
     {
-        boolean exitOnNext = false;
-
-        for(HumanChromosome chromosome : HumanChromosome.values())
-        {
-            if(!mCompleteChromosomes.contains(chromosome))
-            {
-                // move to the next chromosome to allow writing of current or pending variants
-                mCurrentChromosome = chromosome;
-                exitOnNext = true;
-            }
-
-            List<VariantContext> pendingVariants = mChrPendingVariants.get(chromosome);
-
-            if(pendingVariants != null)
-            {
-                if(!pendingVariants.isEmpty())
-                {
-                    PV_LOGGER.debug("chr({}) writing {} pending variants", chromosome, pendingVariants.size());
-
-                    pendingVariants.forEach(x -> mWriter.add(x));
-                    pendingVariants.clear();
-                }
-
-                mChrPendingVariants.remove(chromosome);
-            }
-
-            if(exitOnNext)
-                break;
-        }
+        mWriter.add(variantContext);
     }
 
     public void close()
     {
-        writePendingVariants();
         mWriter.close();
     }
 }
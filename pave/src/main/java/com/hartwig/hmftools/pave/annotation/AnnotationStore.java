@@ -0,0 +1,344 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+/* Sorted, block-indexed binary form of an annotation resource, written by AnnotationStoreWriter
+    - header: magic, version, resource type
+    - per chromosome: its records sorted by position, then an index of the first position and data offset of each block of records
+    - a directory of the chromosome sections, followed by the directory's file offset and the magic again
+   Each chromosome's section is memory-mapped on request, and lookups read the mapped records directly.
+*/
+public class AnnotationStore
+{
+    public enum StoreType
+    {
+        GNOMAD,
+        PON,
+        CLINVAR,
+        MAPPABILITY
+    }
+
+    private final String mFilename;
+    private final StoreType mType;
+    private final Map<String,ChromosomeEntry> mChromosomes;
+
+    public static final int MAGIC = 0x50415645;
+    public static final int VERSION = 1;
+
+    protected static final int HEADER_SIZE = 12;
+    protected static final int TRAILER_SIZE = 12;
+    protected static final int BLOCK_RECORD_COUNT = 64;
+    protected static final int BLOCK_INDEX_ENTRY_SIZE = 8;
+
+    // variant records hold position, ref and alt lengths then bases, then the resource's values
+    // region records hold start, end and value
+    protected static final int VARIANT_FIXED_SIZE = 8;
+    protected static final int REGION_RECORD_SIZE = 16;
+
+    private AnnotationStore(final String filename, final StoreType type, final Map<String,ChromosomeEntry> chromosomes)
+    {
+        mFilename = filename;
+        mType = type;
+        mChromosomes = chromosomes;
+    }
+
+    public StoreType type() { return mType; }
+    public String filename() { return mFilename; }
+    public boolean hasChromosome(final String chromosome) { return mChromosomes.containsKey(chromosome); }
+
+    private static class ChromosomeEntry
+    {
+        public final long DataOffset;
+        public final int DataLength;
+        public final int BlockCount;
+        public final int RecordCount;
+
+        public ChromosomeEntry(final long dataOffset, final int dataLength, final int blockCount, final int recordCount)
+        {
+            DataOffset = dataOffset;
+            DataLength = dataLength;
+            BlockCount = blockCount;
+            RecordCount = recordCount;
+        }
+    }
+
+    public static boolean isStoreFile(final String filename)
+    {
+        if(filename == null || !Files.exists(Paths.get(filename)))
+            return false;
+
+        try(DataInputStream inputStream = new DataInputStream(new FileInputStream(filename)))
+        {
+            return inputStream.readInt() == MAGIC;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    public static AnnotationStore open(final String filename, final StoreType requiredType)
+    {
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"))
+        {
+            long fileLength = file.length();
+
+            if(fileLength < HEADER_SIZE + TRAILER_SIZE || file.readInt() != MAGIC)
+            {
+                PV_LOGGER.error("file({}) is not an annotation store", filename);
+                return null;
+            }
+
+            int version = file.readInt();
+            int typeIndex = file.readInt();
+
+            if(version != VERSION || typeIndex < 0 || typeIndex >= StoreType.values().length)
+            {
+                PV_LOGGER.error("annotation store({}) has unsupported version({}) or type({})", filename, version, typeIndex);
+                return null;
+            }
+
+            StoreType type = StoreType.values()[typeIndex];
+
+            if(type != requiredType)
+            {
+                PV_LOGGER.error("annotation store({}) type({}) does not match required type({})", filename, type, requiredType);
+                return null;
+            }
+
+            file.seek(fileLength - TRAILER_SIZE);
+            long directoryOffset = file.readLong();
+
+            if(file.readInt() != MAGIC)
+            {
+                PV_LOGGER.error("annotation store({}) is incomplete", filename);
+                return null;
+            }
+
+            file.seek(directoryOffset);
+            int chromosomeCount = file.readInt();
+
+            Map<String,ChromosomeEntry> chromosomes = Maps.newHashMap();
+
+            for(int i = 0; i < chromosomeCount; ++i)
+            {
+                String chromosome = file.readUTF();
+                long dataOffset = file.readLong();
+                int dataLength = file.readInt();
+                int blockCount = file.readInt();
+                int recordCount = file.readInt();
+                chromosomes.put(chromosome, new ChromosomeEntry(dataOffset, dataLength, blockCount, recordCount));
+            }
+
+            PV_LOGGER.debug("opened {} annotation store({}) with {} chromosomes", type, filename, chromosomeCount);
+
+            return new AnnotationStore(filename, type, chromosomes);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to open annotation store({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public ChromosomeStore openChromosome(final String chromosome)
+    {
+        ChromosomeEntry entry = mChromosomes.get(chromosome);
+
+        if(entry == null)
+            return null;
+
+        long indexLength = (long)entry.BlockCount * BLOCK_INDEX_ENTRY_SIZE;
+
+        try(RandomAccessFile file = new RandomAccessFile(mFilename, "r"); FileChannel channel = file.getChannel())
+        {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, entry.DataOffset, entry.DataLength);
+
+            ByteBuffer indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, entry.DataOffset + entry.DataLength, indexLength);
+
+            int[] blockPositions = new int[entry.BlockCount];
+            int[] blockOffsets = new int[entry.BlockCount];
+
+            for(int i = 0; i < entry.BlockCount; ++i)
+            {
+                blockPositions[i] = indexBuffer.getInt(i * BLOCK_INDEX_ENTRY_SIZE);
+                blockOffsets[i] = indexBuffer.getInt(i * BLOCK_INDEX_ENTRY_SIZE + 4);
+            }
+
+            return new ChromosomeStore(chromosome, mType, data, entry.RecordCount, blockPositions, blockOffsets);
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to map annotation store({}) chromosome({}): {}", mFilename, chromosome, e.toString());
+            return null;
+        }
+    }
+
+    public static class ChromosomeStore
+    {
+        public final String Chromosome;
+
+        private final StoreType mType;
+        private final ByteBuffer mData;
+        private final int mRecordCount;
+        private final int[] mBlockPositions;
+        private final int[] mBlockOffsets;
+
+        // only absolute reads are made from the mapped data, so a chromosome's store can be read by any thread
+        public ChromosomeStore(
+                final String chromosome, final StoreType type, final ByteBuffer data, int recordCount,
+                final int[] blockPositions, final int[] blockOffsets)
+        {
+            Chromosome = chromosome;
+            mType = type;
+            mData = data;
+            mRecordCount = recordCount;
+            mBlockPositions = blockPositions;
+            mBlockOffsets = blockOffsets;
+        }
+
+        public int recordCount() { return mRecordCount; }
+
+        private int findStartOffset(int position)
+        {
+            // the last block starting before this position, since a position's records may continue from the prior block
+            int low = 0;
+            int high = mBlockPositions.length - 1;
+            int blockIndex = 0;
+
+            while(low <= high)
+            {
+                int mid = (low + high) >>> 1;
+
+                if(mBlockPositions[mid] < position)
+                {
+                    blockIndex = mid;
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid - 1;
+                }
+            }
+
+            return mBlockOffsets.length > 0 ? mBlockOffsets[blockIndex] : 0;
+        }
+
+        public int findVariant(int position, final String ref, final String alt)
+        {
+            // returns the offset of the matching variant's values, or -1 if not present
+            int dataLength = mData.limit();
+            int offset = findStartOffset(position);
+
+            while(offset < dataLength)
+            {
+                int recordPosition = mData.getInt(offset);
+
+                if(recordPosition > position)
+                    break;
+
+                int refLength = mData.getShort(offset + 4) & 0xFFFF;
+                int altLength = mData.getShort(offset + 6) & 0xFFFF;
+                int refOffset = offset + VARIANT_FIXED_SIZE;
+                int valuesOffset = refOffset + refLength + altLength;
+
+                if(recordPosition == position && basesMatch(refOffset, refLength, ref) && basesMatch(refOffset + refLength, altLength, alt))
+                    return valuesOffset;
+
+                offset = valuesOffset + valuesLength(valuesOffset);
+            }
+
+            return -1;
+        }
+
+        public int findRegion(int position)
+        {
+            // returns the offset of the region containing this position, or else the region before the next region, or -1 if
+            // the position is before the first or after the last region
+            int dataLength = mData.limit();
+
+            for(int offset = findStartOffset(position); offset < dataLength; offset += REGION_RECORD_SIZE)
+            {
+                if(mData.getInt(offset + 4) < position)
+                    continue;
+
+                if(mData.getInt(offset) <= position)
+                    return offset;
+
+                return offset > 0 ? offset - REGION_RECORD_SIZE : -1;
+            }
+
+            return -1;
+        }
+
+        public int getInt(int offset) { return mData.getInt(offset); }
+        public double getDouble(int offset) { return mData.getDouble(offset); }
+        public double regionValue(int regionOffset) { return mData.getDouble(regionOffset + 8); }
+
+        public String getString(int offset)
+        {
+            int length = mData.getShort(offset) & 0xFFFF;
+            byte[] bytes = new byte[length];
+
+            for(int i = 0; i < length; ++i)
+            {
+                bytes[i] = mData.get(offset + 2 + i);
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public int stringLength(int offset) { return 2 + (mData.getShort(offset) & 0xFFFF); }
+
+        private boolean basesMatch(int offset, int length, final String bases)
+        {
+            if(bases.length() != length)
+                return false;
+
+            for(int i = 0; i < length; ++i)
+            {
+                if(mData.get(offset + i) != (byte)bases.charAt(i))
+                    return false;
+            }
+
+            return true;
+        }
+
+        private int valuesLength(int valuesOffset)
+        {
+            switch(mType)
+            {
+                case GNOMAD:
+                    return 8;
+
+                case PON:
+                    return 12;
+
+                case CLINVAR:
+                    int significanceLength = stringLength(valuesOffset);
+                    return significanceLength + stringLength(valuesOffset + significanceLength);
+
+                default:
+                    return 0;
+            }
+        }
+
+        public String toString() { return format("chr(%s) type(%s) records(%d)", Chromosome, mType, mRecordCount); }
+    }
+}
@@ -0,0 +1,241 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.pave.annotation.AnnotationStore.BLOCK_RECORD_COUNT;
+import static com.hartwig.hmftools.pave.annotation.AnnotationStore.MAGIC;
+import static com.hartwig.hmftools.pave.annotation.AnnotationStore.VERSION;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
+
+// writes an annotation store from records supplied in position order, with each chromosome's records supplied contiguously
+public class AnnotationStoreWriter implements AutoCloseable
+{
+    private final StoreType mType;
+    private final DataOutputStream mOutput;
+    private long mFileOffset;
+
+    private final List<ChromosomeSection> mSections;
+    private final Set<String> mWrittenChromosomes;
+    private ChromosomeSection mCurrentSection;
+    private int mSkippedCount;
+
+    private static final int MAX_BASES_LENGTH = 0xFFFF;
+
+    public AnnotationStoreWriter(final String filename, final StoreType type) throws IOException
+    {
+        mType = type;
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+        mFileOffset = 0;
+        mSections = Lists.newArrayList();
+        mWrittenChromosomes = Sets.newHashSet();
+        mCurrentSection = null;
+        mSkippedCount = 0;
+
+        mOutput.writeInt(MAGIC);
+        mOutput.writeInt(VERSION);
+        mOutput.writeInt(type.ordinal());
+        mFileOffset += AnnotationStore.HEADER_SIZE;
+    }
+
+    public int recordCount() { return mSections.stream().mapToInt(x -> x.RecordCount).sum(); }
+    public int skippedCount() { return mSkippedCount; }
+
+    private class ChromosomeSection
+    {
+        public final String Chromosome;
+        public final long DataOffset;
+        public final List<int[]> BlockIndex; // block first position and data offset
+        public int RecordCount;
+        public int LastPosition;
+        public int DataLength; // excluding the block index which follows the records
+
+        public ChromosomeSection(final String chromosome, long dataOffset)
+        {
+            Chromosome = chromosome;
+            DataOffset = dataOffset;
+            BlockIndex = Lists.newArrayList();
+            RecordCount = 0;
+            LastPosition = 0;
+            DataLength = 0;
+        }
+    }
+
+    public void addGnomadVariant(final String chromosome, int position, final String ref, final String alt, double frequency)
+            throws IOException
+    {
+        if(!startVariant(StoreType.GNOMAD, chromosome, position, ref, alt))
+            return;
+
+        writeDouble(frequency);
+    }
+
+    public void addPonVariant(
+            final String chromosome, int position, final String ref, final String alt, int samples, int maxSampleReads,
+            int totalSampleReads) throws IOException
+    {
+        if(!startVariant(StoreType.PON, chromosome, position, ref, alt))
+            return;
+
+        writeInt(samples);
+        writeInt(maxSampleReads);
+        writeInt(totalSampleReads);
+    }
+
+    public void addClinvarVariant(
+            final String chromosome, int position, final String ref, final String alt, final String significance,
+            final String conflict) throws IOException
+    {
+        if(!startVariant(StoreType.CLINVAR, chromosome, position, ref, alt))
+            return;
+
+        writeString(significance);
+        writeString(conflict);
+    }
+
+    public void addRegion(final String chromosome, int posStart, int posEnd, double value) throws IOException
+    {
+        startRecord(StoreType.MAPPABILITY, chromosome, posStart);
+
+        writeInt(posStart);
+        writeInt(posEnd);
+        writeDouble(value);
+    }
+
+    private boolean startVariant(final StoreType type, final String chromosome, int position, final String ref, final String alt)
+            throws IOException
+    {
+        if(ref.length() > MAX_BASES_LENGTH || alt.length() > MAX_BASES_LENGTH)
+        {
+            ++mSkippedCount;
+            return false;
+        }
+
+        startRecord(type, chromosome, position);
+
+        writeInt(position);
+        mOutput.writeShort(ref.length());
+        mOutput.writeShort(alt.length());
+        mFileOffset += 4;
+        writeBytes(ref.getBytes(StandardCharsets.US_ASCII));
+        writeBytes(alt.getBytes(StandardCharsets.US_ASCII));
+        return true;
+    }
+
+    private void startRecord(final StoreType type, final String chromosome, int position) throws IOException
+    {
+        if(type != mType)
+            throw new IllegalArgumentException(format("record type(%s) does not match store type(%s)", type, mType));
+
+        if(mCurrentSection == null || !mCurrentSection.Chromosome.equals(chromosome))
+        {
+            if(mWrittenChromosomes.contains(chromosome))
+                throw new IOException(format("chromosome(%s) records are not contiguous", chromosome));
+
+            completeSection();
+
+            mCurrentSection = new ChromosomeSection(chromosome, mFileOffset);
+            mWrittenChromosomes.add(chromosome);
+        }
+        else if(position < mCurrentSection.LastPosition)
+        {
+            throw new IOException(format("chromosome(%s) records are not sorted at position(%d)", chromosome, position));
+        }
+
+        if((mCurrentSection.RecordCount % BLOCK_RECORD_COUNT) == 0)
+        {
+            long blockOffset = mFileOffset - mCurrentSection.DataOffset;
+
+            if(blockOffset > Integer.MAX_VALUE)
+                throw new IOException(format("chromosome(%s) data exceeds maximum size", chromosome));
+
+            mCurrentSection.BlockIndex.add(new int[] { position, (int)blockOffset });
+        }
+
+        ++mCurrentSection.RecordCount;
+        mCurrentSection.LastPosition = position;
+    }
+
+    private void completeSection() throws IOException
+    {
+        if(mCurrentSection == null)
+            return;
+
+        if(mFileOffset - mCurrentSection.DataOffset > Integer.MAX_VALUE)
+            throw new IOException(format("chromosome(%s) data exceeds maximum size", mCurrentSection.Chromosome));
+
+        mCurrentSection.DataLength = (int)(mFileOffset - mCurrentSection.DataOffset);
+
+        for(int[] blockEntry : mCurrentSection.BlockIndex)
+        {
+            writeInt(blockEntry[0]);
+            writeInt(blockEntry[1]);
+        }
+
+        mCurrentSection.BlockIndex.clear();
+        mSections.add(mCurrentSection);
+        mCurrentSection = null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        completeSection();
+
+        long directoryOffset = mFileOffset;
+
+        mOutput.writeInt(mSections.size());
+
+        for(ChromosomeSection section : mSections)
+        {
+            mOutput.writeUTF(section.Chromosome);
+            mOutput.writeLong(section.DataOffset);
+            mOutput.writeInt(section.DataLength);
+            mOutput.writeInt(blockCount(section.RecordCount));
+            mOutput.writeInt(section.RecordCount);
+        }
+
+        mOutput.writeLong(directoryOffset);
+        mOutput.writeInt(MAGIC);
+        mOutput.close();
+    }
+
+    private static int blockCount(int recordCount) { return (recordCount + BLOCK_RECORD_COUNT - 1) / BLOCK_RECORD_COUNT; }
+
+    private void writeInt(int value) throws IOException
+    {
+        mOutput.writeInt(value);
+        mFileOffset += 4;
+    }
+
+    private void writeDouble(double value) throws IOException
+    {
+        mOutput.writeDouble(value);
+        mFileOffset += 8;
+    }
+
+    private void writeBytes(final byte[] bytes) throws IOException
+    {
+        mOutput.write(bytes);
+        mFileOffset += bytes.length;
+    }
+
+    private void writeString(final String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_BASES_LENGTH);
+        mOutput.writeShort(length);
+        mOutput.write(bytes, 0, length);
+        mFileOffset += 2 + length;
+    }
+}
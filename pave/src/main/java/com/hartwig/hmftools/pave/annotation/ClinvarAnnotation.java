@@ -13,6 +13,8 @@ import com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -25,6 +27,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     private final StringCache mStringCache;
     private boolean mHasValidData;
     private final String mFilename;
+    private final AnnotationStore mStore;
 
     private static final String CLINVAR_VCF = "clinvar_vcf";
 
@@ -41,6 +44,16 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
         mHasValidData = true;
         mFilename = configBuilder.getValue(CLINVAR_VCF);
+
+        if(AnnotationStore.isStoreFile(mFilename))
+        {
+            mStore = AnnotationStore.open(mFilename, StoreType.CLINVAR);
+            mHasValidData = mStore != null;
+        }
+        else
+        {
+            mStore = null;
+        }
     }
 
     @Override
@@ -54,7 +67,21 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
     public synchronized ClinvarChrCache getChromosomeCache(final String chromosome)
     {
-        return mChrCacheMap.get(RefGenomeFunctions.stripChrPrefix(chromosome));
+        String chrStr = RefGenomeFunctions.stripChrPrefix(chromosome);
+        ClinvarChrCache chrCache = mChrCacheMap.get(chrStr);
+
+        if(chrCache == null && mStore != null)
+        {
+            ChromosomeStore chrStore = mStore.openChromosome(chrStr);
+
+            if(chrStore == null)
+                return null;
+
+            chrCache = new ClinvarChrCache(chrStore);
+            mChrCacheMap.put(chrStr, chrCache);
+        }
+
+        return chrCache;
     }
 
     @Override
@@ -72,7 +99,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     @Override
     public Long call()
     {
-        if(mFilename != null)
+        if(mFilename != null && mStore == null)
         {
             loadEntries(mFilename);
         }
@@ -88,7 +115,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addPath(CLINVAR_VCF, false, "Clinvar annotation VCF");
+        configBuilder.addPath(CLINVAR_VCF, false, "Clinvar annotation VCF, or annotation store");
     }
 
     private void loadEntries(final String filename)
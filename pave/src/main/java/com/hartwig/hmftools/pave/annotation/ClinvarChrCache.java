@@ -8,21 +8,30 @@ import java.util.List;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
 
 public class ClinvarChrCache
 {
     public final String Chromosome;
 
-    private int mCurrentIndex;
     private final List<ClinvarEntry> mEntries;
     private final StringCache mStringCache;
+    private final ChromosomeStore mStore; // set when entries are read from an annotation store rather than loaded
 
     public ClinvarChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
-        mCurrentIndex = 0;
         mEntries = Lists.newArrayList();
         mStringCache = stringCache;
+        mStore = null;
+    }
+
+    public ClinvarChrCache(final ChromosomeStore store)
+    {
+        Chromosome = store.Chromosome;
+        mEntries = Lists.newArrayList();
+        mStringCache = null;
+        mStore = store;
     }
 
     public void addEntry(final int position, final String ref, final String alt, final String significance, final String conflict)
@@ -33,7 +42,7 @@ public class ClinvarChrCache
 
     public void clear() { mEntries.clear(); }
 
-    private static String stripBrackets(final String clinvarStr)
+    public static String stripBrackets(final String clinvarStr)
     {
         return clinvarStr.replaceAll(
                 "\\[", "").replaceAll("\\]", "").replaceAll(" ", "");
@@ -41,25 +50,34 @@ public class ClinvarChrCache
 
     public void annotateVariant(final VariantData variant)
     {
-        if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Position < variant.Position)
+        if(mStore != null)
+        {
+            int valuesOffset = mStore.findVariant(variant.Position, variant.Ref, variant.Alt);
+
+            if(valuesOffset < 0)
+                return;
+
+            variant.context().getCommonInfo().putAttribute(CLNSIG, mStore.getString(valuesOffset));
+
+            String conflict = mStore.getString(valuesOffset + mStore.stringLength(valuesOffset));
+
+            if(!conflict.isEmpty())
+                variant.context().getCommonInfo().putAttribute(CLNSIGCONF, conflict);
+
             return;
+        }
 
-        int position = variant.Position;
-        int firstPosMatchIndex = -1;
+        if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Position < variant.Position)
+            return;
 
-        for(; mCurrentIndex < mEntries.size(); ++mCurrentIndex)
+        // entries are searched rather than tracked with a current index, since regions of a chromosome can share the cache
+        for(int index = findFirstEntry(variant.Position); index < mEntries.size(); ++index)
         {
-            ClinvarEntry entry = mEntries.get(mCurrentIndex);
-
-            if(entry.Position < position)
-                continue;
+            ClinvarEntry entry = mEntries.get(index);
 
-            if(entry.Position > position)
+            if(entry.Position > variant.Position)
                 break;
 
-            if(firstPosMatchIndex == -1)
-                firstPosMatchIndex = mCurrentIndex;
-
             if(entry.matches(variant))
             {
                 variant.context().getCommonInfo().putAttribute(CLNSIG, entry.Significance);
@@ -70,12 +88,25 @@ public class ClinvarChrCache
                 break;
             }
         }
+    }
+
+    private int findFirstEntry(int position)
+    {
+        // index of the first entry at or after this position
+        int low = 0;
+        int high = mEntries.size();
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mEntries.get(mid).Position < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
 
-        // move the index back to the prior position or the first at this position
-        if(firstPosMatchIndex >= 0)
-            mCurrentIndex = firstPosMatchIndex;
-        else if(mCurrentIndex > 0)
-            --mCurrentIndex;
+        return low;
     }
 
     private class ClinvarEntry
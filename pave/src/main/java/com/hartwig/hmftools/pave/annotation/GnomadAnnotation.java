@@ -26,6 +26,8 @@ import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
 
 import htsjdk.variant.vcf.VCFFilterHeaderLine;
 import htsjdk.variant.vcf.VCFHeader;
@@ -42,6 +44,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     private final boolean mEnabled;
     private final String mGnomadFilename;
     private final StringCache mStringCache;
+    private final AnnotationStore mStore;
 
     public static final String GNOMAD_FREQUENCY_FILE = "gnomad_freq_file";
     public static final String GNOMAD_FREQUENCY_DIR = "gnomad_freq_dir";
@@ -60,10 +63,18 @@ public class GnomadAnnotation extends AnnotationData implements Callable
 
         mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
 
+        AnnotationStore store = null;
+
         if(configBuilder.hasValue(GNOMAD_FREQUENCY_FILE))
         {
             mEnabled = true;
             mGnomadFilename = configBuilder.getValue(GNOMAD_FREQUENCY_FILE);
+
+            if(AnnotationStore.isStoreFile(mGnomadFilename))
+            {
+                store = AnnotationStore.open(mGnomadFilename, StoreType.GNOMAD);
+                mHasValidData = store != null;
+            }
         }
         else if(configBuilder.hasValue(GNOMAD_FREQUENCY_DIR))
         {
@@ -78,6 +89,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
             mEnabled = false;
         }
 
+        mStore = store;
         mPonFilterThreshold = configBuilder.getDecimal(GNOMAD_PON_FILTER);
     }
 
@@ -118,6 +130,19 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         if(chrCache != null)
             return chrCache;
 
+        if(mStore != null)
+        {
+            // frequencies are read from the store's mapped file, so there is nothing to load
+            ChromosomeStore chrStore = mStore.openChromosome(chromosome);
+
+            if(chrStore == null)
+                return null;
+
+            chrCache = new GnomadChrCache(chrStore);
+            mChrCacheMap.put(chromosome, chrCache);
+            return chrCache;
+        }
+
         String chrFilename = mChromosomeFiles.get(chromosome);
 
         if(chrFilename == null)
@@ -145,6 +170,9 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     @Override
     public Long call()
     {
+        if(mStore != null)
+            return (long)0;
+
         if(mGnomadFilename != null)
         {
             loadChromosomeEntries(mGnomadFilename, null);
@@ -263,7 +291,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addPath(GNOMAD_FREQUENCY_FILE, false, "Gnomad frequency file");
+        configBuilder.addPath(GNOMAD_FREQUENCY_FILE, false, "Gnomad frequency file, or annotation store");
         configBuilder.addPath(GNOMAD_FREQUENCY_DIR, false, "Gnomad frequency directory");
         configBuilder.addDecimal(GNOMAD_PON_FILTER, "Gnomad PON frequency filter", DEFAULT_PON_FILTER_THRESHOLD);
     }
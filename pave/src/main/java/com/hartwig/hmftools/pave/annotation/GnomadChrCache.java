@@ -9,6 +9,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
 
 public class GnomadChrCache
 {
@@ -16,12 +17,22 @@ public class GnomadChrCache
 
     private final Map<Integer,List<GnomadVariant>> mFrequencies;
     private final StringCache mStringCache;
+    private final ChromosomeStore mStore; // set when frequencies are read from an annotation store rather than loaded
 
     public GnomadChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
         mFrequencies = Maps.newHashMap();
         mStringCache = stringCache;
+        mStore = null;
+    }
+
+    public GnomadChrCache(final ChromosomeStore store)
+    {
+        Chromosome = store.Chromosome;
+        mFrequencies = Maps.newHashMap();
+        mStringCache = null;
+        mStore = store;
     }
 
     public void addEntry(final int position, final String ref, final String alt, final double frequency)
@@ -38,9 +49,9 @@ public class GnomadChrCache
     }
 
     public void clear() { mFrequencies.clear(); }
-    public int entryCount() { return mFrequencies.size(); }
+    public int entryCount() { return mStore != null ? mStore.recordCount() : mFrequencies.size(); }
 
-    public String toString() { return format("chr(%s) entries(%d)", Chromosome, mFrequencies.size()); }
+    public String toString() { return format("chr(%s) entries(%d)", Chromosome, entryCount()); }
 
     private class GnomadVariant
     {
@@ -85,6 +96,12 @@ public class GnomadChrCache
 
     public Double getFrequency(int position, final String ref, final String alt)
     {
+        if(mStore != null)
+        {
+            int valuesOffset = mStore.findVariant(position, ref, alt);
+            return valuesOffset >= 0 ? mStore.getDouble(valuesOffset) : null;
+        }
+
         List<GnomadVariant> posList = mFrequencies.get(position);
 
         if(posList == null)
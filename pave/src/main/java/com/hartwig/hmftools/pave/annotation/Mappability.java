@@ -14,6 +14,8 @@ import java.util.concurrent.Callable;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
 
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
@@ -24,6 +26,7 @@ public class Mappability extends AnnotationData implements Callable
     private BufferedReader mFileReader;
     private final Map<String,MappabilityChrCache> mChrCacheMap;
     private boolean mHasValidData;
+    private AnnotationStore mStore;
 
     public static final String MAPPABILITY_BED = "mappability_bed";
 
@@ -35,10 +38,21 @@ public class Mappability extends AnnotationData implements Callable
         mFileReader = null;
         mHasValidData = true;
         mChrCacheMap = Maps.newHashMap();
+        mStore = null;
 
         if(configBuilder.hasValue(MAPPABILITY_BED))
         {
-            initialiseFile(configBuilder.getValue(MAPPABILITY_BED));
+            String filename = configBuilder.getValue(MAPPABILITY_BED);
+
+            if(AnnotationStore.isStoreFile(filename))
+            {
+                mStore = AnnotationStore.open(filename, StoreType.MAPPABILITY);
+                mHasValidData = mStore != null;
+            }
+            else
+            {
+                initialiseFile(filename);
+            }
         }
     }
 
@@ -46,7 +60,7 @@ public class Mappability extends AnnotationData implements Callable
     public String type() { return "Mappability"; }
 
     @Override
-    public boolean enabled() { return mFileReader != null; }
+    public boolean enabled() { return mFileReader != null || mStore != null; }
 
     @Override
     public boolean hasValidData() { return mHasValidData; }
@@ -58,6 +72,18 @@ public class Mappability extends AnnotationData implements Callable
         if(chrCache != null && chrCache.isComplete())
             return chrCache;
 
+        if(mStore != null)
+        {
+            ChromosomeStore chrStore = mStore.openChromosome(chromosome);
+
+            if(chrStore == null)
+                return null;
+
+            chrCache = new MappabilityChrCache(chrStore);
+            mChrCacheMap.put(chromosome, chrCache);
+            return chrCache;
+        }
+
         loadEntries(chromosome);
         return mChrCacheMap.get(chromosome);
     }
@@ -92,7 +118,7 @@ public class Mappability extends AnnotationData implements Callable
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addPath(MAPPABILITY_BED, false, "Mappability BED file");
+        configBuilder.addPath(MAPPABILITY_BED, false, "Mappability BED file, or annotation store");
     }
 
     private void initialiseFile(final String filename)
@@ -7,23 +7,32 @@ import java.util.List;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
 
 public class MappabilityChrCache
 {
     public final String Chromosome;
 
-    private int mCurrentIndex;
     private final List<MapEntry> mEntries;
+    private final ChromosomeStore mStore; // set when entries are read from an annotation store rather than loaded
     private boolean mComplete;
 
     public MappabilityChrCache(final String chromosome)
     {
         Chromosome = chromosome;
-        mCurrentIndex = 0;
         mEntries = Lists.newArrayList();
+        mStore = null;
         mComplete = false;
     }
 
+    public MappabilityChrCache(final ChromosomeStore store)
+    {
+        Chromosome = store.Chromosome;
+        mEntries = Lists.newArrayList();
+        mStore = store;
+        mComplete = true;
+    }
+
     public void addEntry(final int posStart, final int posEnd, final double mappability)
     {
         mEntries.add(new MapEntry(new BaseRegion(posStart, posEnd), mappability));
@@ -32,36 +41,55 @@ public class MappabilityChrCache
     public boolean isComplete() { return mComplete; }
     public void setComplete() { mComplete = true; }
     public void clear() { mEntries.clear(); }
-    public int entryCount() { return mEntries.size(); }
+    public int entryCount() { return mStore != null ? mStore.recordCount() : mEntries.size(); }
 
     public void annotateVariant(final VariantData variant)
     {
+        if(mStore != null)
+        {
+            int regionOffset = mStore.findRegion(variant.Position);
+
+            if(regionOffset >= 0)
+                setMappability(variant, mStore.regionValue(regionOffset));
+
+            return;
+        }
+
         if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Region.end() < variant.Position)
             return;
 
-        int position = variant.Position;
+        // entries are searched rather than tracked with a current index, since regions of a chromosome can share the cache
+        int index = findFirstEntry(variant.Position);
+        MapEntry entry = mEntries.get(index);
 
-        for(; mCurrentIndex < mEntries.size(); ++mCurrentIndex)
+        if(entry.Region.containsPosition(variant.Position))
         {
-            MapEntry entry = mEntries.get(mCurrentIndex);
-
-            if(entry.Region.end() < position)
-                continue;
-
-            if(entry.Region.containsPosition(variant.Position))
-            {
-                setMappability(variant, entry.Mappability);
-            }
-            else if(variant.Position < entry.Region.start() && mCurrentIndex > 0)
-            {
-                // take previous if the next is past this variant
-                --mCurrentIndex;
-                MapEntry prevEntry = mEntries.get(mCurrentIndex);
-                setMappability(variant, prevEntry.Mappability);
-            }
+            setMappability(variant, entry.Mappability);
+        }
+        else if(index > 0)
+        {
+            // take previous if the next is past this variant
+            setMappability(variant, mEntries.get(index - 1).Mappability);
+        }
+    }
 
-            return;
+    private int findFirstEntry(int position)
+    {
+        // index of the first entry ending at or after this position
+        int low = 0;
+        int high = mEntries.size() - 1;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mEntries.get(mid).Region.end() < position)
+                low = mid + 1;
+            else
+                high = mid;
         }
+
+        return low;
     }
 
     private void setMappability(final VariantData variant, double mappability)
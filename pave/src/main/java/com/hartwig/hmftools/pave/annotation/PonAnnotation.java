@@ -17,6 +17,8 @@ import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.common.variant.VariantTier;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -35,6 +37,7 @@ public class PonAnnotation extends AnnotationData implements Callable
     private final Map<VariantTier,PonFilters> mPonFilters;
     private final Map<String,PonChrCache> mChrCacheMap;
     private final StringCache mStringCache;
+    private AnnotationStore mStore;
 
     public static final String PON_COUNT = "PON_COUNT";
     public static final String PON_MAX = "PON_MAX";
@@ -49,8 +52,14 @@ public class PonAnnotation extends AnnotationData implements Callable
         mHasValidData = true;
         mChrCacheMap = Maps.newHashMap();
         mStringCache = new StringCache();
+        mStore = null;
 
-        if(filename != null && !filename.isEmpty())
+        if(AnnotationStore.isStoreFile(filename))
+        {
+            mStore = AnnotationStore.open(filename, StoreType.PON);
+            mHasValidData = mStore != null;
+        }
+        else if(filename != null && !filename.isEmpty())
         {
             initialiseFile(filename, loadOnDemand);
         }
@@ -105,6 +114,18 @@ public class PonAnnotation extends AnnotationData implements Callable
         if(chrCache != null && chrCache.isComplete())
             return chrCache;
 
+        if(mStore != null)
+        {
+            ChromosomeStore chrStore = mStore.openChromosome(chromosome);
+
+            if(chrStore == null)
+                return null;
+
+            chrCache = new PonChrCache(chrStore);
+            mChrCacheMap.put(chromosome, chrCache);
+            return chrCache;
+        }
+
         loadPonEntries(chromosome);
         return mChrCacheMap.get(chromosome);
     }
@@ -156,7 +177,7 @@ public class PonAnnotation extends AnnotationData implements Callable
 
     public boolean hasEntry(final String chromosome, final int position, final String ref, final String alt)
     {
-        PonChrCache chrCache = mChrCacheMap.get(chromosome);
+        PonChrCache chrCache = mStore != null ? getChromosomeCache(chromosome) : mChrCacheMap.get(chromosome);
         return chrCache != null ? chrCache.hasEntry(position, ref, alt) : false;
     }
 
@@ -9,6 +9,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.StringCache;
 import com.hartwig.hmftools.pave.VariantData;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.ChromosomeStore;
 
 public class PonChrCache
 {
@@ -16,6 +17,7 @@ public class PonChrCache
 
     private final Map<Integer,List<PonVariantData>> mPositionMap;
     private final StringCache mStringCache;
+    private final ChromosomeStore mStore; // set when entries are read from an annotation store rather than loaded
     private boolean mComplete;
 
     public PonChrCache(final String chromosome, final StringCache stringCache)
@@ -23,9 +25,19 @@ public class PonChrCache
         Chromosome = chromosome;
         mPositionMap = Maps.newHashMap();
         mStringCache = stringCache;
+        mStore = null;
         mComplete = false;
     }
 
+    public PonChrCache(final ChromosomeStore store)
+    {
+        Chromosome = store.Chromosome;
+        mPositionMap = Maps.newHashMap();
+        mStringCache = null;
+        mStore = store;
+        mComplete = true;
+    }
+
     public void addEntry(
             final int position, final String ref, final String alt, final int samples, final int maxSampleReads, final int totalSampleReads)
     {
@@ -43,7 +55,10 @@ public class PonChrCache
     public boolean isComplete() { return mComplete; }
     public void setComplete() { mComplete = true; }
     public void clear() { mPositionMap.clear(); }
-    public int entryCount() { return mPositionMap.values().stream().mapToInt(x -> x.size()).sum(); }
+    public int entryCount()
+    {
+        return mStore != null ? mStore.recordCount() : mPositionMap.values().stream().mapToInt(x -> x.size()).sum();
+    }
 
     public PonVariantData getPonData(final VariantData variant)
     {
@@ -57,6 +72,17 @@ public class PonChrCache
 
     private PonVariantData getPonData(final int position, final String ref, final String alt)
     {
+        if(mStore != null)
+        {
+            int valuesOffset = mStore.findVariant(position, ref, alt);
+
+            if(valuesOffset < 0)
+                return null;
+
+            return new PonVariantData(
+                    ref, alt, mStore.getInt(valuesOffset), mStore.getInt(valuesOffset + 4), mStore.getInt(valuesOffset + 8));
+        }
+
         List<PonVariantData> posList = mPositionMap.get(position);
 
         if(posList == null)
@@ -65,6 +91,9 @@ public class PonChrCache
         return posList.stream().filter(x -> x.matches(ref, alt)).findFirst().orElse(null);
     }
 
-    public String cacheDetailsStr() { return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache.size()); }
+    public String cacheDetailsStr()
+    {
+        return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache != null ? mStringCache.size() : 0);
+    }
 
 }
@@ -10,9 +10,11 @@ import static com.hartwig.hmftools.pave.PaveConfig.PON_FILTERS;
 import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
@@ -34,6 +36,9 @@ public class ReferenceData
     public final RefGenomeInterface RefGenome;
     public final Reportability ReportableClassifier;
 
+    // chromosome annotation caches are released once all of the chromosome's regions are complete
+    private final Map<String,Integer> mChrPendingRegions;
+
     public ReferenceData(final PaveConfig config, final ConfigBuilder configBuilder)
     {
         GeneDataCache = new GeneDataCache(
@@ -70,6 +75,8 @@ public class ReferenceData
         Annotators.add(BlacklistedVariants);
 
         RefGenome = loadRefGenome(configBuilder.getValue(REF_GENOME));
+
+        mChrPendingRegions = Maps.newHashMap();
     }
 
     public boolean isValid()
@@ -107,6 +114,22 @@ public class ReferenceData
         TaskExecutor.executeTasks(callableList, threads);
     }
 
+    public synchronized void registerRegion(final String chromosome)
+    {
+        mChrPendingRegions.merge(chromosome, 1, Integer::sum);
+    }
+
+    public synchronized void onRegionComplete(final String chromosome)
+    {
+        int pendingRegions = mChrPendingRegions.merge(chromosome, -1, Integer::sum);
+
+        if(pendingRegions > 0)
+            return;
+
+        mChrPendingRegions.remove(chromosome);
+        onChromosomeComplete(chromosome);
+    }
+
     public void onChromosomeComplete(final String chromosome)
     {
         for(AnnotationData annotationData : Annotators)
@@ -0,0 +1,261 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION_CFG_DESC;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.CSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_ID;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIG;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIGCONF;
+import static com.hartwig.hmftools.pave.annotation.ClinvarChrCache.stripBrackets;
+import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.GNOMAD_FILE_ID;
+import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.formFileId;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
+import com.hartwig.hmftools.pave.annotation.AnnotationStoreWriter;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+// converts a Gnomad, PON, Clinvar or mappability resource file into an annotation store, which PAVE then memory-maps in place of
+// loading the text resource
+public class AnnotationStoreBuilder
+{
+    private final StoreType mType;
+    private final String mInputFile;
+    private final String mOutputDir;
+    private final String mOutputId;
+    private final RefGenomeVersion mRefGenomeVersion;
+
+    private static final String RESOURCE_TYPE = "resource_type";
+    private static final String INPUT_FILE = "input_file";
+
+    public AnnotationStoreBuilder(final ConfigBuilder configBuilder)
+    {
+        mType = StoreType.valueOf(configBuilder.getValue(RESOURCE_TYPE));
+        mInputFile = configBuilder.getValue(INPUT_FILE);
+        mOutputDir = parseOutputDir(configBuilder);
+        mOutputId = configBuilder.getValue(OUTPUT_ID);
+        mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
+    }
+
+    public static String formStoreFilename(final String outputDir, final StoreType type, final String outputId)
+    {
+        String filename = outputDir + type.toString().toLowerCase() + ".annotation_store";
+
+        if(outputId != null)
+            filename += "." + outputId;
+
+        return filename + ".bin";
+    }
+
+    public void run()
+    {
+        if(mInputFile == null || !Files.exists(Paths.get(mInputFile)))
+        {
+            PV_LOGGER.error("missing input file, exiting");
+            System.exit(1);
+        }
+
+        String outputFile = formStoreFilename(mOutputDir, mType, mOutputId);
+
+        PV_LOGGER.info("building {} annotation store({}) from input({})", mType, outputFile, mInputFile);
+
+        try(AnnotationStoreWriter writer = new AnnotationStoreWriter(outputFile, mType))
+        {
+            switch(mType)
+            {
+                case GNOMAD:
+                    writeGnomadEntries(writer);
+                    break;
+
+                case PON:
+                    writePonEntries(writer);
+                    break;
+
+                case CLINVAR:
+                    writeClinvarEntries(writer);
+                    break;
+
+                case MAPPABILITY:
+                    writeMappabilityEntries(writer);
+                    break;
+            }
+
+            PV_LOGGER.info("wrote {} entries, skipped {} with oversized alleles", writer.recordCount(), writer.skippedCount());
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to build annotation store({}): {}", outputFile, e.toString());
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("annotation store build complete");
+    }
+
+    private void writeGnomadEntries(final AnnotationStoreWriter writer) throws IOException
+    {
+        if(!new File(mInputFile).isDirectory())
+        {
+            writeGnomadFile(writer, mInputFile, null);
+            return;
+        }
+
+        // per-chromosome files, as written by the Gnomad cache builder
+        String gnomadDir = mInputFile.endsWith(File.separator) ? mInputFile : mInputFile + File.separator;
+
+        List<String> files = Arrays.stream(new File(gnomadDir).listFiles())
+                .map(x -> x.toString()).filter(x -> x.contains(GNOMAD_FILE_ID)).collect(Collectors.toList());
+
+        for(HumanChromosome humanChr : HumanChromosome.values())
+        {
+            String fileChrStrNoId = formFileId(gnomadDir, humanChr.toString(), null);
+            String fileChrStrWithId = GNOMAD_FILE_ID + "_chr" + humanChr + "_";
+
+            String chrFile = files.stream()
+                    .filter(x -> x.endsWith(fileChrStrNoId) || x.contains(fileChrStrWithId))
+                    .findFirst().orElse(null);
+
+            if(chrFile == null)
+                throw new IOException("missing Gnomad file for chromosome " + humanChr);
+
+            writeGnomadFile(writer, chrFile, mRefGenomeVersion.versionedChromosome(humanChr.toString()));
+        }
+    }
+
+    private static void writeGnomadFile(final AnnotationStoreWriter writer, final String filename, final String fileChromosome)
+            throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(filename);
+        String line = fileReader.readLine(); // skip header
+
+        int index = fileChromosome != null ? 0 : 1;
+        int posIndex = index++;
+        int refIndex = index++;
+        int altIndex = index++;
+        int freqIndex = index;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            final String[] values = line.split(CSV_DELIM, -1);
+
+            String chromosome = fileChromosome != null ? fileChromosome : values[0];
+
+            writer.addGnomadVariant(
+                    chromosome, Integer.parseInt(values[posIndex]), values[refIndex], values[altIndex],
+                    Double.parseDouble(values[freqIndex]));
+        }
+
+        fileReader.close();
+    }
+
+    private void writePonEntries(final AnnotationStoreWriter writer) throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(mInputFile);
+        String line = fileReader.readLine();
+        int columnCount = line.split(TSV_DELIM, -1).length;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            final String[] values = line.split(TSV_DELIM, -1);
+
+            int colIndex = 0;
+            String chromosome = values[colIndex++];
+            int position = Integer.parseInt(values[colIndex++]);
+            String ref = values[colIndex++];
+            String alt = values[colIndex++];
+
+            int sampleCount = columnCount > colIndex ? Integer.parseInt(values[colIndex++]) : 0;
+            int maxReadsCount = columnCount > colIndex ? Integer.parseInt(values[colIndex++]) : 0;
+            int totalReadsCount = columnCount > colIndex ? Integer.parseInt(values[colIndex++]) : 0;
+
+            writer.addPonVariant(chromosome, position, ref, alt, sampleCount, maxReadsCount, totalReadsCount);
+        }
+
+        fileReader.close();
+    }
+
+    private void writeClinvarEntries(final AnnotationStoreWriter writer) throws IOException
+    {
+        VcfFileReader vcfFileReader = new VcfFileReader(mInputFile);
+
+        if(!vcfFileReader.fileValid())
+            throw new IOException("invalid Clinvar VCF");
+
+        for(VariantContext context : vcfFileReader.iterator())
+        {
+            if(context.getAlleles().size() < 2)
+                continue;
+
+            if(!HumanChromosome.contains(context.getContig()))
+                continue;
+
+            String significance = context.getAttributeAsString(CLNSIG, "");
+            String conflict = context.getAttributeAsString(CLNSIGCONF, "");
+
+            if(significance.isEmpty() && conflict.isEmpty())
+                continue;
+
+            writer.addClinvarVariant(
+                    RefGenomeFunctions.stripChrPrefix(context.getContig()), context.getStart(),
+                    context.getReference().getBaseString(), context.getAlternateAlleles().get(0).toString(),
+                    stripBrackets(significance), stripBrackets(conflict));
+        }
+    }
+
+    private void writeMappabilityEntries(final AnnotationStoreWriter writer) throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(mInputFile);
+        String line = null;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            final String[] values = line.split(TSV_DELIM, -1); // eg: 1       0       10000   0.000000
+
+            if(values.length != 4)
+                throw new IOException("invalid mappability entry: " + line);
+
+            writer.addRegion(values[0], Integer.parseInt(values[1]) + 1, Integer.parseInt(values[2]), Double.parseDouble(values[3]));
+        }
+
+        fileReader.close();
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addConfigItem(RESOURCE_TYPE, true, "Resource type: GNOMAD, PON, CLINVAR or MAPPABILITY");
+        configBuilder.addPath(INPUT_FILE, true, "Resource file, or directory of per-chromosome Gnomad files");
+        configBuilder.addConfigItem(REF_GENOME_VERSION, false, REF_GENOME_VERSION_CFG_DESC);
+
+        addOutputOptions(configBuilder);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        AnnotationStoreBuilder annotationStoreBuilder = new AnnotationStoreBuilder(configBuilder);
+        annotationStoreBuilder.run();
+    }
+}
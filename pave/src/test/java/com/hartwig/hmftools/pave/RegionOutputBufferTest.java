@@ -0,0 +1,104 @@
+package com.hartwig.hmftools.pave;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+public class RegionOutputBufferTest
+{
+    @Test
+    public void testOutOfOrderRegionCompletion()
+    {
+        List<List<VariantContext>> written = Lists.newArrayList();
+        RegionOutputBuffer outputBuffer = new RegionOutputBuffer((vcfVariants, transcriptVariants) -> written.add(vcfVariants), 1);
+
+        List<List<VariantContext>> regionVariants = Lists.newArrayList();
+
+        for(int i = 0; i < 5; ++i)
+        {
+            regionVariants.add(Lists.newArrayList());
+        }
+
+        outputBuffer.onRegionComplete(3, regionVariants.get(3), Collections.emptyList());
+        outputBuffer.onRegionComplete(1, regionVariants.get(1), Collections.emptyList());
+
+        assertTrue(written.isEmpty());
+        assertEquals(2, outputBuffer.pendingCount());
+
+        outputBuffer.onRegionComplete(0, regionVariants.get(0), Collections.emptyList());
+
+        assertEquals(2, written.size());
+        assertEquals(1, outputBuffer.pendingCount());
+
+        outputBuffer.onRegionComplete(4, regionVariants.get(4), Collections.emptyList());
+        outputBuffer.onRegionComplete(2, regionVariants.get(2), Collections.emptyList());
+
+        assertEquals(5, written.size());
+        assertEquals(0, outputBuffer.pendingCount());
+
+        for(int i = 0; i < regionVariants.size(); ++i)
+        {
+            assertSame(regionVariants.get(i), written.get(i));
+        }
+    }
+
+    @Test
+    public void testWriteWindowBoundsPendingRegions()
+    {
+        int threadCount = 4;
+        int regionCount = 200;
+
+        List<List<VariantContext>> written = Lists.newArrayList();
+        RegionOutputBuffer outputBuffer = new RegionOutputBuffer(
+                (vcfVariants, transcriptVariants) -> written.add(vcfVariants), threadCount);
+
+        List<List<VariantContext>> regionVariants = Lists.newArrayList();
+        List<Callable> tasks = Lists.newArrayList();
+        AtomicBoolean windowExceeded = new AtomicBoolean(false);
+
+        for(int i = 0; i < regionCount; ++i)
+        {
+            int regionIndex = i;
+            regionVariants.add(Lists.newArrayList());
+
+            tasks.add(() ->
+            {
+                outputBuffer.waitForWriteWindow(regionIndex);
+
+                // every fifth region is slow so later regions complete ahead of it
+                Thread.sleep((regionIndex % 5) == 0 ? 5 : 0);
+
+                outputBuffer.onRegionComplete(regionIndex, regionVariants.get(regionIndex), Collections.emptyList());
+
+                if(outputBuffer.pendingCount() > outputBuffer.windowSize())
+                    windowExceeded.set(true);
+
+                return (long)0;
+            });
+        }
+
+        assertTrue(TaskExecutor.executeTasks(tasks, threadCount));
+
+        assertFalse(windowExceeded.get());
+        assertEquals(0, outputBuffer.pendingCount());
+        assertEquals(regionCount, written.size());
+
+        for(int i = 0; i < regionCount; ++i)
+        {
+            assertSame(regionVariants.get(i), written.get(i));
+        }
+    }
+}
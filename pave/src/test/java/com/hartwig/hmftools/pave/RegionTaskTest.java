@@ -0,0 +1,117 @@
+package com.hartwig.hmftools.pave;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.pave.VariantData.NO_LOCAL_PHASE_SET;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+
+import org.junit.Test;
+
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+
+public class RegionTaskTest
+{
+    private static final int CHROMOSOME_LENGTH = 10000;
+    private static final String FILTERED = "FILTERED";
+
+    @Test
+    public void testPhaseSetsAcrossRegionBoundaries() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("pave_region_test").toFile();
+        tempDir.deleteOnExit();
+
+        File vcfFile = new File(tempDir, "test.vcf");
+        vcfFile.deleteOnExit();
+
+        // phase set 1 crosses the first boundary, with a filtered variant inside it, and phase set 3 crosses the second boundary
+        // directly after an unphased variant in the previous region
+        List<int[]> variants = Lists.newArrayList(
+                new int[] { 500, NO_LOCAL_PHASE_SET },
+                new int[] { 900, 1 },
+                new int[] { 990, 1 },
+                new int[] { 1010, 1 },
+                new int[] { 1015, 1 }, // filtered
+                new int[] { 1020, 1 },
+                new int[] { 1100, 2 },
+                new int[] { 1500, NO_LOCAL_PHASE_SET },
+                new int[] { 1990, 3 },
+                new int[] { 2050, 3 },
+                new int[] { 2100, NO_LOCAL_PHASE_SET },
+                new int[] { 2200, 4 });
+
+        writeVcf(vcfFile, variants);
+
+        Predicate<VariantContext> isCandidate = x -> !x.getFilters().contains(FILTERED);
+
+        VcfFileReader vcfFileReader = new VcfFileReader(vcfFile.getAbsolutePath(), true);
+
+        List<ChrBaseRegion> regions = Lists.newArrayList(
+                new ChrBaseRegion(CHR_1, 1, 1000),
+                new ChrBaseRegion(CHR_1, 1001, 2000),
+                new ChrBaseRegion(CHR_1, 2001, CHROMOSOME_LENGTH));
+
+        List<List<Integer>> regionPositions = Lists.newArrayList();
+
+        for(ChrBaseRegion region : regions)
+        {
+            List<VariantContext> regionVariants = Lists.newArrayList();
+
+            int variantCount = RegionTask.processRegionVariants(
+                    vcfFileReader, region, CHROMOSOME_LENGTH, isCandidate, regionVariants::add);
+
+            assertEquals(regionVariants.size(), variantCount);
+            regionPositions.add(regionVariants.stream().map(VariantContext::getStart).collect(Collectors.toList()));
+        }
+
+        vcfFileReader.close();
+
+        assertEquals(Lists.newArrayList(500, 900, 990, 1010, 1020), regionPositions.get(0));
+        assertEquals(Lists.newArrayList(1100, 1500, 1990, 2050), regionPositions.get(1));
+        assertEquals(Lists.newArrayList(2100, 2200), regionPositions.get(2));
+    }
+
+    private static void writeVcf(final File vcfFile, final List<int[]> variants) throws IOException
+    {
+        BufferedWriter writer = Files.newBufferedWriter(vcfFile.toPath());
+
+        writer.write("##fileformat=VCFv4.2\n");
+        writer.write(String.format("##contig=<ID=%s,length=%d>\n", CHR_1, CHROMOSOME_LENGTH));
+        writer.write(String.format("##FILTER=<ID=%s,Description=\"Filtered\">\n", FILTERED));
+        writer.write(String.format("##INFO=<ID=%s,Number=.,Type=Integer,Description=\"Local phase set\">\n", LOCAL_PHASE_SET));
+        writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+
+        for(int[] variant : variants)
+        {
+            int position = variant[0];
+            int localPhaseSet = variant[1];
+
+            String filter = position == 1015 ? FILTERED : "PASS";
+            String info = localPhaseSet != NO_LOCAL_PHASE_SET ? String.format("%s=%d", LOCAL_PHASE_SET, localPhaseSet) : ".";
+
+            writer.write(String.format("%s\t%d\t.\tA\tT\t100\t%s\t%s\n", CHR_1, position, filter, info));
+        }
+
+        writer.close();
+
+        Index index = IndexFactory.createDynamicIndex(vcfFile, new VCFCodec());
+        File indexFile = new File(vcfFile.getAbsolutePath() + ".idx");
+        indexFile.deleteOnExit();
+        index.write(indexFile);
+    }
+}
@@ -1,17 +1,33 @@
 package com.hartwig.hmftools.pave;
 
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
 import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIG;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIGCONF;
+import static com.hartwig.hmftools.pave.annotation.Mappability.MAPPABILITY;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore;
+import com.hartwig.hmftools.pave.annotation.AnnotationStore.StoreType;
+import com.hartwig.hmftools.pave.annotation.AnnotationStoreWriter;
 import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+import com.hartwig.hmftools.pave.annotation.MappabilityChrCache;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+import com.hartwig.hmftools.pave.annotation.PonVariantData;
 import com.hartwig.hmftools.common.utils.StringCache;
 
 import org.junit.Test;
@@ -49,6 +65,174 @@ public class ResourcesTest
         assertFalse(var3.context().hasAttribute(CLNSIG));
     }
 
+    @Test
+    public void testMappability()
+    {
+        MappabilityChrCache mappabilityCache = new MappabilityChrCache(CHR_1);
+
+        // regions with a gap between 1000 and 1100
+        for(int i = 0; i < 10; ++i)
+        {
+            mappabilityCache.addEntry(1 + i * 100, (i + 1) * 100, i * 0.1);
+        }
+
+        for(int i = 11; i < 20; ++i)
+        {
+            mappabilityCache.addEntry(1 + i * 100, (i + 1) * 100, 1.0);
+        }
+
+        // lookups needn't be in position order since regions of a chromosome share the cache
+        VariantData var1 = createVariant(CHR_1, 1500, "A", "C");
+        VariantData var2 = createVariant(CHR_1, 350, "A", "C");
+        VariantData var3 = createVariant(CHR_1, 1050, "A", "C");
+        VariantData var4 = createVariant(CHR_1, 1, "A", "C");
+        VariantData var5 = createVariant(CHR_1, 2500, "A", "C");
+
+        mappabilityCache.annotateVariant(var1);
+        mappabilityCache.annotateVariant(var2);
+        mappabilityCache.annotateVariant(var3);
+        mappabilityCache.annotateVariant(var4);
+        mappabilityCache.annotateVariant(var5);
+
+        assertEquals(1.0, (double)var1.context().getAttribute(MAPPABILITY), 1e-9);
+        assertEquals(0.3, (double)var2.context().getAttribute(MAPPABILITY), 1e-9);
+        assertEquals(0.9, (double)var3.context().getAttribute(MAPPABILITY), 1e-9);
+        assertEquals(0.0, (double)var4.context().getAttribute(MAPPABILITY), 1e-9);
+        assertFalse(var5.context().hasAttribute(MAPPABILITY));
+    }
+
+    @Test
+    public void testGnomadAndPonStores() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("pave_store_test").toFile();
+        String gnomadFile = tempDir.getAbsolutePath() + File.separator + "gnomad.bin";
+        String ponFile = tempDir.getAbsolutePath() + File.separator + "pon.bin";
+
+        // enough records to span several blocks, with multiple alts at positions which cross block boundaries
+        try(AnnotationStoreWriter gnomadWriter = new AnnotationStoreWriter(gnomadFile, StoreType.GNOMAD);
+            AnnotationStoreWriter ponWriter = new AnnotationStoreWriter(ponFile, StoreType.PON))
+        {
+            for(int i = 0; i < 100; ++i)
+            {
+                int position = 1000 + i * 10;
+                gnomadWriter.addGnomadVariant(CHR_1, position, "A", "C", i * 0.001);
+                gnomadWriter.addGnomadVariant(CHR_1, position, "A", "G", i * 0.002);
+                gnomadWriter.addGnomadVariant(CHR_1, position, "AT", "A", i * 0.003);
+
+                ponWriter.addPonVariant(CHR_1, position, "A", "C", i, i + 1, i + 2);
+            }
+
+            gnomadWriter.addGnomadVariant(CHR_2, 500, "G", "T", 0.5);
+        }
+
+        assertTrue(AnnotationStore.isStoreFile(gnomadFile));
+        assertNull(AnnotationStore.open(gnomadFile, StoreType.PON));
+
+        AnnotationStore gnomadStore = AnnotationStore.open(gnomadFile, StoreType.GNOMAD);
+        assertNotNull(gnomadStore);
+        assertNull(gnomadStore.openChromosome("3"));
+
+        GnomadChrCache gnomadCache = new GnomadChrCache(gnomadStore.openChromosome(CHR_1));
+        assertEquals(300, gnomadCache.entryCount());
+
+        for(int i = 0; i < 100; ++i)
+        {
+            int position = 1000 + i * 10;
+            assertEquals(i * 0.001, gnomadCache.getFrequency(position, "A", "C"), 1e-9);
+            assertEquals(i * 0.002, gnomadCache.getFrequency(position, "A", "G"), 1e-9);
+            assertEquals(i * 0.003, gnomadCache.getFrequency(position, "AT", "A"), 1e-9);
+            assertNull(gnomadCache.getFrequency(position, "A", "T"));
+            assertNull(gnomadCache.getFrequency(position + 1, "A", "C"));
+        }
+
+        assertNull(gnomadCache.getFrequency(1, "A", "C"));
+        assertNull(gnomadCache.getFrequency(5000, "A", "C"));
+
+        gnomadCache = new GnomadChrCache(gnomadStore.openChromosome(CHR_2));
+        assertEquals(0.5, gnomadCache.getFrequency(createVariant(CHR_2, 500, "G", "T")), 1e-9);
+
+        AnnotationStore ponStore = AnnotationStore.open(ponFile, StoreType.PON);
+        PonChrCache ponCache = new PonChrCache(ponStore.openChromosome(CHR_1));
+
+        PonVariantData ponData = ponCache.getPonData(createVariant(CHR_1, 1500, "A", "C"));
+        assertNotNull(ponData);
+        assertEquals(50, ponData.Samples);
+        assertEquals(51, ponData.MaxSampleReads);
+        assertEquals(52, ponData.TotalSampleReads);
+        assertFalse(ponCache.hasEntry(1500, "A", "G"));
+
+        new File(gnomadFile).delete();
+        new File(ponFile).delete();
+        tempDir.delete();
+    }
+
+    @Test
+    public void testClinvarAndMappabilityStores() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("pave_store_test").toFile();
+        String clinvarFile = tempDir.getAbsolutePath() + File.separator + "clinvar.bin";
+        String mappabilityFile = tempDir.getAbsolutePath() + File.separator + "mappability.bin";
+
+        try(AnnotationStoreWriter clinvarWriter = new AnnotationStoreWriter(clinvarFile, StoreType.CLINVAR);
+            AnnotationStoreWriter mappabilityWriter = new AnnotationStoreWriter(mappabilityFile, StoreType.MAPPABILITY))
+        {
+            clinvarWriter.addClinvarVariant(CHR_1, 99, "A", "T", "benign", "");
+            clinvarWriter.addClinvarVariant(CHR_1, 100, "A", "AT", "pathogenic", "");
+            clinvarWriter.addClinvarVariant(CHR_1, 100, "A", "C", "pathogenic", "conflict");
+
+            // regions with a gap between 1000 and 1100
+            for(int i = 0; i < 10; ++i)
+            {
+                mappabilityWriter.addRegion(CHR_1, 1 + i * 100, (i + 1) * 100, i * 0.1);
+            }
+
+            for(int i = 11; i < 200; ++i)
+            {
+                mappabilityWriter.addRegion(CHR_1, 1 + i * 100, (i + 1) * 100, 1.0);
+            }
+        }
+
+        ClinvarChrCache clinvarCache = new ClinvarChrCache(AnnotationStore.open(clinvarFile, StoreType.CLINVAR).openChromosome(CHR_1));
+
+        VariantData var1 = createVariant(CHR_1, 100, "A", "C");
+        VariantData var2 = createVariant(CHR_1, 99, "A", "T");
+        VariantData var3 = createVariant(CHR_1, 100, "A", "G");
+
+        clinvarCache.annotateVariant(var1);
+        clinvarCache.annotateVariant(var2);
+        clinvarCache.annotateVariant(var3);
+
+        assertEquals("pathogenic", var1.context().getAttribute(CLNSIG));
+        assertEquals("conflict", var1.context().getAttribute(CLNSIGCONF));
+        assertEquals("benign", var2.context().getAttribute(CLNSIG));
+        assertFalse(var2.context().hasAttribute(CLNSIGCONF));
+        assertFalse(var3.context().hasAttribute(CLNSIG));
+
+        MappabilityChrCache mappabilityCache = new MappabilityChrCache(
+                AnnotationStore.open(mappabilityFile, StoreType.MAPPABILITY).openChromosome(CHR_1));
+
+        assertEquals(199, mappabilityCache.entryCount());
+
+        VariantData mapVar1 = createVariant(CHR_1, 350, "A", "C");
+        VariantData mapVar2 = createVariant(CHR_1, 1050, "A", "C"); // in the gap, so takes the prior region
+        VariantData mapVar3 = createVariant(CHR_1, 15000, "A", "C");
+        VariantData mapVar4 = createVariant(CHR_1, 25000, "A", "C"); // beyond the last region
+
+        mappabilityCache.annotateVariant(mapVar1);
+        mappabilityCache.annotateVariant(mapVar2);
+        mappabilityCache.annotateVariant(mapVar3);
+        mappabilityCache.annotateVariant(mapVar4);
+
+        assertEquals(0.3, (double)mapVar1.context().getAttribute(MAPPABILITY), 1e-9);
+        assertEquals(0.9, (double)mapVar2.context().getAttribute(MAPPABILITY), 1e-9);
+        assertEquals(1.0, (double)mapVar3.context().getAttribute(MAPPABILITY), 1e-9);
+        assertFalse(mapVar4.context().hasAttribute(MAPPABILITY));
+
+        new File(clinvarFile).delete();
+        new File(mappabilityFile).delete();
+        tempDir.delete();
+    }
+
     public static VariantData createVariant( final String chromosome, int position, final String ref, final String alt)
     {
         VariantContext context = buildContext(chromosome, position, ref, alt);
@@ -47,6 +47,7 @@ public class PurpleConfig
     public final boolean TargetRegionsMode;
     public final Map<VariantTier,Integer> TierQualFilters;
     public final int Threads;
+    public final boolean SomaticStreaming;
 
     // debug only
     public final boolean FilterSomaticsOnGene;
@@ -61,6 +62,7 @@ public class PurpleConfig
     public static String FILTER_SOMATICS_ON_GENE = "filter_somatics_on_gene";
     public static final String TIER_FILTERS = "tier_filters";
     public static final String WRITE_ALL_SOMATICS = "write_all_somatics";
+    public static final String SOMATIC_STREAMING = "somatic_streaming";
 
     public PurpleConfig(final String version, final ConfigBuilder configBuilder)
     {
@@ -115,6 +117,7 @@ public class PurpleConfig
         DriversOnly = configBuilder.hasFlag(DRIVERS_ONLY);
         FilterSomaticsOnGene = configBuilder.hasFlag(FILTER_SOMATICS_ON_GENE);
         WriteAllSomatics = configBuilder.hasFlag(WRITE_ALL_SOMATICS);
+        SomaticStreaming = configBuilder.hasFlag(SOMATIC_STREAMING);
 
         PPL_LOGGER.info("reference({}) tumor({}) {}",
                 ReferenceId != null ? ReferenceId : "NONE", TumorId != null ? TumorId : "NONE",
@@ -169,6 +172,8 @@ public class PurpleConfig
         configBuilder.addFlag(DRIVERS_ONLY, "Only run the driver routine");
         configBuilder.addFlag(WRITE_ALL_SOMATICS, "Write all variants regardless of filters");
         configBuilder.addFlag(FILTER_SOMATICS_ON_GENE, "Only load and enrich somatic variants with a gene impact");
+        configBuilder.addFlag(
+                SOMATIC_STREAMING, "Hold only somatic fitting data in memory, and re-read the VCF to enrich and write variants");
         configBuilder.addConfigItem(TIER_FILTERS, "Variant qual filters by tier, format: TIER_A=QUAL;TIER_A=QUAL etc");
 
         FittingConfig.addConfig(configBuilder);
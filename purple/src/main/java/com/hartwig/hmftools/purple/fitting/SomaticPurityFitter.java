@@ -73,10 +73,7 @@ public class SomaticPurityFitter
     {
         List<SomaticVariant> fittingVariants = Lists.newArrayList();
 
-        CompoundFilter filter = new CompoundFilter(true);
-        filter.add(new SGTFilter());
-        filter.add(new HumanChromosomeFilter());
-        filter.add(new NTFilter());
+        CompoundFilter filter = fittingFilter();
 
         GenomeRegionSelector<ObservedRegion> observedRegionSelector = GenomeRegionSelectorFactory.createImproved(
                 Multimaps.fromRegions(observedRegions));
@@ -131,6 +128,28 @@ public class SomaticPurityFitter
         return fittingVariants;
     }
 
+    private static CompoundFilter fittingFilter()
+    {
+        CompoundFilter filter = new CompoundFilter(true);
+        filter.add(new SGTFilter());
+        filter.add(new HumanChromosomeFilter());
+        filter.add(new NTFilter());
+        return filter;
+    }
+
+    // applies the fitting checks which don't depend on observed regions, so variants which can never be used for fitting needn't be held
+    public static class FittingCandidateFilter
+    {
+        private final CompoundFilter mFilter = fittingFilter();
+        private final int[] mFilterCounts = new int[FilterReason.values().length];
+
+        public boolean isCandidate(final SomaticVariant variant)
+        {
+            return variant.type() == VariantType.SNP && variant.isPass() && mFilter.test(variant.context())
+                    && isFittingCandidate(variant, mFilterCounts);
+        }
+    }
+
     private static boolean isFittingCandidate(final SomaticVariant variant, final int[] filterCounts)
     {
         if(!variant.hasTumorAlleleDepth() || variant.tumorAlleleDepth().totalReadCount() == 0)
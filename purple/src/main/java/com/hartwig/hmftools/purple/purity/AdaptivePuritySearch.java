@@ -0,0 +1,269 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+
+import org.jetbrains.annotations.Nullable;
+
+// searches the purity-ploidy grid without fitting every cell: every purity is fitted over a coarse set of ploidies, and then the
+// fine grid is filled in around local minima and flooded outwards from every fit scoring close enough to the lowest to matter
+// to the best fit's score range. For each purity the ploidies nearest a diploid fit are also refined, since the somatic fit
+// chooses between the most diploid fit of each purity
+public class AdaptivePuritySearch
+{
+    private final List<Double> mPurities;
+    private final List<Double> mPloidies;
+    private final BiFunction<Double,Double,FittedPurity> mFitter; // from purity and ploidy
+    private final ExecutorService mExecutorService;
+
+    private final FittedPurity[][] mFits; // by purity then ploidy index, null until fitted
+    private final boolean[][] mPending; // cells in the next batch to fit
+    private int mFitCount;
+
+    public static final int COARSE_PLOIDY_STEP = 4;
+
+    // wider than the best fit's score range so that its boundary is always fitted at full resolution
+    private static final double REFINE_ABS_RANGE = 0.001;
+    private static final double REFINE_PERCENT_RANGE = 0.2;
+
+    private static final double DIPLOID_PLOIDY = 2;
+
+    public AdaptivePuritySearch(
+            final List<Double> purities, final List<Double> ploidies, final BiFunction<Double,Double,FittedPurity> fitter,
+            @Nullable final ExecutorService executorService)
+    {
+        mPurities = purities;
+        mPloidies = ploidies;
+        mFitter = fitter;
+        mExecutorService = executorService;
+        mFits = new FittedPurity[purities.size()][ploidies.size()];
+        mPending = new boolean[purities.size()][ploidies.size()];
+        mFitCount = 0;
+    }
+
+    public int fitCount() { return mFitCount; }
+    public int gridSize() { return mPurities.size() * mPloidies.size(); }
+
+    public static List<Double> purityRange(double minPurity, double maxPurity, double purityIncrement)
+    {
+        // accumulated in the same way as the dense search so the purities are identical
+        List<Double> purities = Lists.newArrayList();
+
+        for(double purity = minPurity; lessOrEqual(purity, maxPurity); purity += purityIncrement)
+        {
+            purities.add(purity);
+        }
+
+        return purities;
+    }
+
+    public List<FittedPurity> search() throws ExecutionException, InterruptedException
+    {
+        int ploidyCount = mPloidies.size();
+
+        List<int[]> cells = new ArrayList<>();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            for(int j = 0; j < ploidyCount; ++j)
+            {
+                if(j % COARSE_PLOIDY_STEP == 0 || j == ploidyCount - 1)
+                    cells.add(new int[] { i, j });
+            }
+        }
+
+        fitCells(cells);
+
+        // refine the neighbourhood of each coarse local minimum, which may hide a narrow trough between coarse ploidies
+        cells.clear();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            for(int j = 0; j < ploidyCount; ++j)
+            {
+                if(mFits[i][j] != null && isCoarseLocalMinimum(i, j))
+                    addNeighbourhood(cells, i, j, 1, COARSE_PLOIDY_STEP - 1);
+            }
+        }
+
+        fitCells(cells);
+
+        // flood outwards from fits within range of the lowest score until the region is bounded by fits out of range
+        while(true)
+        {
+            double lowestScore = lowestScore();
+            cells.clear();
+
+            for(int i = 0; i < mPurities.size(); ++i)
+            {
+                for(int j = 0; j < ploidyCount; ++j)
+                {
+                    if(mFits[i][j] != null && inRefineRange(mFits[i][j].score(), lowestScore))
+                        addNeighbourhood(cells, i, j, 1, 1);
+                }
+            }
+
+            if(cells.isEmpty())
+                break;
+
+            fitCells(cells);
+        }
+
+        // for each purity, fill in the ploidies around the fit closest to diploid until it is surrounded by fitted cells
+        while(true)
+        {
+            cells.clear();
+
+            for(int i = 0; i < mPurities.size(); ++i)
+            {
+                int mostDiploid = mostDiploidIndex(i);
+
+                if(mostDiploid >= 0)
+                    addNeighbourhood(cells, i, mostDiploid, 0, COARSE_PLOIDY_STEP - 1);
+            }
+
+            if(cells.isEmpty())
+                break;
+
+            fitCells(cells);
+        }
+
+        List<FittedPurity> fittedPurities = Lists.newArrayListWithCapacity(mFitCount);
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fit : purityFits)
+            {
+                if(fit != null)
+                    fittedPurities.add(fit);
+            }
+        }
+
+        return fittedPurities;
+    }
+
+    private boolean isCoarseLocalMinimum(int purityIndex, int ploidyIndex)
+    {
+        double score = mFits[purityIndex][ploidyIndex].score();
+
+        int minPloidyIndex = Math.max(0, ploidyIndex - COARSE_PLOIDY_STEP);
+        int maxPloidyIndex = Math.min(mPloidies.size() - 1, ploidyIndex + COARSE_PLOIDY_STEP);
+
+        for(int i = Math.max(0, purityIndex - 1); i <= Math.min(mPurities.size() - 1, purityIndex + 1); ++i)
+        {
+            for(int j = minPloidyIndex; j <= maxPloidyIndex; ++j)
+            {
+                if(mFits[i][j] != null && mFits[i][j].score() < score)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int mostDiploidIndex(int purityIndex)
+    {
+        int mostDiploid = -1;
+        double minDistance = Double.MAX_VALUE;
+
+        for(int j = 0; j < mPloidies.size(); ++j)
+        {
+            FittedPurity fit = mFits[purityIndex][j];
+
+            if(fit != null && Math.abs(DIPLOID_PLOIDY - fit.ploidy()) < minDistance)
+            {
+                minDistance = Math.abs(DIPLOID_PLOIDY - fit.ploidy());
+                mostDiploid = j;
+            }
+        }
+
+        return mostDiploid;
+    }
+
+    private double lowestScore()
+    {
+        double lowestScore = Double.MAX_VALUE;
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fit : purityFits)
+            {
+                if(fit != null)
+                    lowestScore = Math.min(lowestScore, fit.score());
+            }
+        }
+
+        return lowestScore;
+    }
+
+    private static boolean inRefineRange(double score, double lowestScore)
+    {
+        double absDifference = Math.abs(score - lowestScore);
+        return absDifference <= REFINE_ABS_RANGE || absDifference <= REFINE_PERCENT_RANGE * Math.abs(lowestScore);
+    }
+
+    // adds unfitted cells within the given index distances, marking them as pending so each is only added once per batch
+    private void addNeighbourhood(final List<int[]> cells, int purityIndex, int ploidyIndex, int purityDistance, int ploidyDistance)
+    {
+        for(int i = Math.max(0, purityIndex - purityDistance); i <= Math.min(mPurities.size() - 1, purityIndex + purityDistance); ++i)
+        {
+            for(int j = Math.max(0, ploidyIndex - ploidyDistance); j <= Math.min(mPloidies.size() - 1, ploidyIndex + ploidyDistance); ++j)
+            {
+                if(mFits[i][j] == null && !mPending[i][j])
+                {
+                    mPending[i][j] = true;
+                    cells.add(new int[] { i, j });
+                }
+            }
+        }
+    }
+
+    private void fitCells(final List<int[]> cells) throws ExecutionException, InterruptedException
+    {
+        if(cells.isEmpty())
+            return;
+
+        if(mExecutorService == null)
+        {
+            for(int[] cell : cells)
+            {
+                fitCell(cell);
+            }
+        }
+        else
+        {
+            List<Future<FittedPurity>> futures = Lists.newArrayListWithCapacity(cells.size());
+
+            for(int[] cell : cells)
+            {
+                futures.add(mExecutorService.submit(() -> mFitter.apply(mPurities.get(cell[0]), mPloidies.get(cell[1]))));
+            }
+
+            for(int c = 0; c < cells.size(); ++c)
+            {
+                setFit(cells.get(c), futures.get(c).get());
+            }
+        }
+    }
+
+    private void fitCell(final int[] cell)
+    {
+        setFit(cell, mFitter.apply(mPurities.get(cell[0]), mPloidies.get(cell[1])));
+    }
+
+    private void setFit(final int[] cell, final FittedPurity fit)
+    {
+        mFits[cell[0]][cell[1]] = fit;
+        mPending[cell[0]][cell[1]] = false;
+        ++mFitCount;
+    }
+}
@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.purple.purity;
 
-import static java.lang.String.format;
-
 import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
 import static com.hartwig.hmftools.common.utils.Doubles.positiveOrZero;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
@@ -37,7 +35,6 @@ public class FittedPurityFactory
     private final double mSomaticPenaltyWeight;
     private final Map<String,Double> mObservedRatioMap;
 
-    private final int mTotalBAFCount;
     private final double mAverageFittingRatio;
 
     private final RegionFitCalculator mRegionFitCalculator;
@@ -45,6 +42,7 @@ public class FittedPurityFactory
 
     private final List<FittedPurity> mFittedPurities;
     private final List<ObservedRegionData> mFilteredObservedRegions;
+    private final RegionFitKernel mRegionFitKernel;
     private final List<Double> mPloidyRange;
 
     private static final int MAX_SOMATICS_TO_FIT = 1000;
@@ -89,7 +87,6 @@ public class FittedPurityFactory
             }
         }
 
-        mTotalBAFCount = accumulatedBafCount;
         mAverageFittingRatio = accumulatedWeightedRatio / accumulatedBafCount;
 
         List<SomaticVariant> downsampleVariants = Downsample.downsample(MAX_SOMATICS_TO_FIT, filteredVariants);
@@ -101,6 +98,9 @@ public class FittedPurityFactory
         {
             filteredVariantSelector.select(regionData.Region, regionData::addVariant);
         }
+
+        mRegionFitKernel = new RegionFitKernel(
+                regionFitCalculator, cobaltChromosomes, mFilteredObservedRegions.stream().map(x -> x.Region).collect(Collectors.toList()));
     }
 
     public List<FittedPurity> getFittedPurities() { return mFittedPurities; }
@@ -109,7 +109,17 @@ public class FittedPurityFactory
     {
         FittingConfig config = mConfig.Fitting;
 
-        if(mConfig.Threads <= 1)
+        if(config.AdaptivePuritySearch)
+        {
+            AdaptivePuritySearch search = new AdaptivePuritySearch(
+                    AdaptivePuritySearch.purityRange(config.MinPurity, config.MaxPurity, config.PurityIncrement), mPloidyRange,
+                    this::fitPurityAndPloidy, mConfig.Threads > 1 ? mExecutorService : null);
+
+            mFittedPurities.addAll(search.search());
+
+            PPL_LOGGER.info("adaptive purity search fitted {} of {} purity-ploidy combinations", search.fitCount(), search.gridSize());
+        }
+        else if(mConfig.Threads <= 1)
         {
             for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
             {
@@ -148,63 +158,50 @@ public class FittedPurityFactory
         final List<FittedPurity> fittedPurities = Lists.newArrayList();
         for(Double ploidy : mPloidyRange)
         {
-            double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
-            fittedPurities.add(fitPurity(purity, impliedNormFactor));
+            fittedPurities.add(fitPurityAndPloidy(purity, ploidy));
         }
 
         return fittedPurities;
     }
 
+    private FittedPurity fitPurityAndPloidy(final double purity, final double ploidy)
+    {
+        double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
+        return fitPurity(purity, impliedNormFactor);
+    }
+
     private FittedPurity fitPurity(final double purity, final double normFactor)
     {
         ImmutableFittedPurity.Builder builder = ImmutableFittedPurity.builder().purity(purity).normFactor(normFactor);
-        double eventPenalty = 0;
-        double deviationPenalty = 0;
-        double diploidProportion = 0;
-        double averagePloidy = 0;
 
         double somaticPenaltyTotal = 0;
         int somaticVariantCount = 0;
         final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
         PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
 
-        for(ObservedRegionData regionData : mFilteredObservedRegions)
-        {
-            ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
-
-            int bafCount = region.bafCount();
-            eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
-            deviationPenalty += weightWithBaf(regionFitCalcs.DeviationPenalty, bafCount);
-            averagePloidy += weightWithBaf(regionFitCalcs.TumorCopyNumber, bafCount);
+        RegionFitKernel.RegionFitTotals regionFitTotals = mRegionFitKernel.fit(purityAdjuster);
 
-            if(regionFitCalcs.isDiploid())
-            {
-                diploidProportion += weightWithBaf(1, bafCount);
-            }
+        for(int i = 0; i < mFilteredObservedRegions.size(); ++i)
+        {
+            ObservedRegionData regionData = mFilteredObservedRegions.get(i);
 
             for(SomaticVariant variant : regionData.Variants)
             {
                 ++somaticVariantCount;
 
                 double variantPenalty = somaticDeviation.deviationFromMax(
-                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
+                        purityAdjuster, regionData.Region.chromosome(), regionFitTotals.MajorAlleleCopyNumber[i],
+                        regionFitTotals.TumorCopyNumber[i], variant);
 
                 somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
             }
-
-            /*
-            PPL_LOGGER.trace(format("region(%s:%d-%d) fit(purity=%.2f norm=%.4f) somaticPenTotal(%.4f) devPen(%.4f) eventPen(%.4f) avgPloidy(%.4f)",
-                    region.chromosome(), region.start(), region.end(),
-                    purity, normFactor, somaticPenaltyTotal, deviationPenalty, eventPenalty, averagePloidy));
-            */
         }
 
         double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
 
-        return builder.score(eventPenalty * deviationPenalty + somaticPenalty)
-                .diploidProportion(diploidProportion)
-                .ploidy(averagePloidy)
+        return builder.score(regionFitTotals.EventPenalty * regionFitTotals.DeviationPenalty + somaticPenalty)
+                .diploidProportion(regionFitTotals.DiploidProportion)
+                .ploidy(regionFitTotals.AveragePloidy)
                 .somaticPenalty(somaticPenalty)
                 .build();
     }
@@ -239,11 +236,6 @@ public class FittedPurityFactory
         return chromosome.isNormal() && chromosome.isDiploid();
     }
 
-    private double weightWithBaf(double value, int bafCount)
-    {
-        return 1d * value * bafCount / mTotalBAFCount;
-    }
-
     protected static List<Double> ploidyRange(double minPloidy, double maxPloidy)
     {
         List<Double> results = Lists.newArrayList();
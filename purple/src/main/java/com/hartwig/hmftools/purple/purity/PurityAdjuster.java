@@ -79,7 +79,11 @@ public class PurityAdjuster
 
     public double purityAdjustedBAFSimple(final String chromosome, final double copyNumber, final double observedFrequency)
     {
-        double typicalCopyNumber = germlineCopyNumber(chromosome);
+        return purityAdjustedBAFSimple(germlineCopyNumber(chromosome), copyNumber, observedFrequency);
+    }
+
+    public double purityAdjustedBAFSimple(final double typicalCopyNumber, final double copyNumber, final double observedFrequency)
+    {
         if(typicalCopyNumber < 2 || Doubles.lessOrEqual(copyNumber, 1))
         {
             return 1;
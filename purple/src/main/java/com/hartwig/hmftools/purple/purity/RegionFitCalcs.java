@@ -31,12 +31,13 @@ public class RegionFitCalcs
     public double majorAlleleCopyNumber() { return TumorBAF * TumorCopyNumber; }
     public double minorAlleleCopyNumber() { return TumorCopyNumber - majorAlleleCopyNumber(); }
 
-    public boolean isDiploid()
-    {
-        return Doubles.greaterOrEqual(majorAlleleCopyNumber(), MIN_DIPLOID_COPY_NUMBER)
-                && Doubles.lessOrEqual(majorAlleleCopyNumber(), MAX_DIPLOID_COPY_NUMBER)
-                && Doubles.greaterOrEqual(minorAlleleCopyNumber(), MIN_DIPLOID_COPY_NUMBER)
-                && Doubles.lessOrEqual(minorAlleleCopyNumber(), MAX_DIPLOID_COPY_NUMBER);
+    public boolean isDiploid() { return isDiploid(majorAlleleCopyNumber(), minorAlleleCopyNumber()); }
 
+    public static boolean isDiploid(double majorAlleleCopyNumber, double minorAlleleCopyNumber)
+    {
+        return Doubles.greaterOrEqual(majorAlleleCopyNumber, MIN_DIPLOID_COPY_NUMBER)
+                && Doubles.lessOrEqual(majorAlleleCopyNumber, MAX_DIPLOID_COPY_NUMBER)
+                && Doubles.greaterOrEqual(minorAlleleCopyNumber, MIN_DIPLOID_COPY_NUMBER)
+                && Doubles.lessOrEqual(minorAlleleCopyNumber, MAX_DIPLOID_COPY_NUMBER);
     }
 }
@@ -80,22 +80,48 @@ public class RegionFitCalculator
     {
         final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
 
+        final String chromosome = observedRegion.chromosome();
         double observedTumorRatio = observedRegion.observedTumorRatio();
 
-        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedRegion.chromosome(), observedTumorRatio);
+        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(chromosome, observedTumorRatio);
         double observedBAF = observedRegion.observedBAF();
-        double impliedBAF = impliedBaf(purityAdjuster, observedRegion.chromosome(), impliedCopyNumber, observedBAF);
+
+        double impliedBAF = impliedBaf(
+                purityAdjuster, isBafFittable(chromosome), purityAdjuster.germlineCopyNumber(chromosome), impliedCopyNumber, observedBAF);
 
         double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
 
         double majorAllelePloidy = impliedBAF * impliedCopyNumber;
         double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
 
-        double majorAllelePloidyDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
-        double minorAllelePloidyDeviation = mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+        double majorAllelePloidyDeviation = majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+        double minorAllelePloidyDeviation = minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
 
         double eventPenalty = calculateEventPenalty(mFitScoreConfig.PloidyPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
 
+        double deviationPenalty = deviationPenalty(
+                minorAllelePloidyDeviation, majorAllelePloidyDeviation, observedBAF, observedTumorRatio);
+
+        return new RegionFitCalcs(
+                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
+                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+    }
+
+    public double eventPenaltyFactor() { return mFitScoreConfig.PloidyPenaltyFactor; }
+
+    public double majorAlleleDeviation(double purity, double normFactor, double majorAllelePloidy)
+    {
+        return mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+    }
+
+    public double minorAlleleDeviation(double purity, double normFactor, double minorAllelePloidy)
+    {
+        return mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+    }
+
+    public double deviationPenalty(
+            double minorAllelePloidyDeviation, double majorAllelePloidyDeviation, double observedBAF, double observedTumorRatio)
+    {
         double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
 
         if(mFitScoreConfig.GcRatioExponent > 0 || mFitScoreConfig.DeviationPenaltyGcMinAdjust > 0)
@@ -111,9 +137,17 @@ public class RegionFitCalculator
             deviationPenalty /= deviationPenaltyDenom;
         }
 
-        return new RegionFitCalcs(
-                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
-                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+        return deviationPenalty;
+    }
+
+    // whether a region's BAF can be purity-adjusted, otherwise it is taken as 1
+    public boolean isBafFittable(final String chromosome)
+    {
+        if(!mCobaltChromosomes.hasChromosome(chromosome))
+            return false;
+
+        CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
+        return cobaltChromosome.isNormal() && cobaltChromosome.isDiploid();
     }
 
     public static double calculateEventPenalty(double eventPenaltyFactor, double majorAllele, double minorAllele)
@@ -126,27 +160,29 @@ public class RegionFitCalculator
 
     private static final double MIN_CN_THRESHOLD = 0.1;
 
-    private double impliedBaf(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
+    public double impliedBaf(
+            final PurityAdjuster purityAdjuster, boolean bafFittable, double germlineCopyNumber, double copyNumber, double observedBAF)
     {
-        if(!mCobaltChromosomes.hasChromosome(chromosome))
-            return 1;
-
-        CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
-
-        if(!cobaltChromosome.isNormal() || !cobaltChromosome.isDiploid() || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
+        if(!bafFittable || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
             return 1;
 
         if(Doubles.lessOrEqual(observedBAF, mAmbiguousBaf))
-            return bafToMinimiseDeviation(purityAdjuster, chromosome, copyNumber, observedBAF);
+            return bafToMinimiseDeviation(purityAdjuster, germlineCopyNumber, copyNumber, observedBAF);
         else
-            return purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF);
+            return purityAdjuster.purityAdjustedBAFSimple(germlineCopyNumber, copyNumber, observedBAF);
     }
 
     @VisibleForTesting
     public double bafToMinimiseDeviation(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
     {
-        double minBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, BAF_PNT_5)));
-        double maxBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF)));
+        return bafToMinimiseDeviation(purityAdjuster, purityAdjuster.germlineCopyNumber(chromosome), copyNumber, observedBAF);
+    }
+
+    private double bafToMinimiseDeviation(
+            final PurityAdjuster purityAdjuster, double germlineCopyNumber, double copyNumber, double observedBAF)
+    {
+        double minBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(germlineCopyNumber, copyNumber, BAF_PNT_5)));
+        double maxBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(germlineCopyNumber, copyNumber, observedBAF)));
 
         double estimatedBaf = estimateMinMaxBaf(copyNumber, minBAF, maxBAF);
 
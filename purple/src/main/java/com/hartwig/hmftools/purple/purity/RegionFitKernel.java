@@ -0,0 +1,135 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static com.hartwig.hmftools.purple.purity.RegionFitCalculator.calculateEventPenalty;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+// the observed regions used to fit purity, packed into primitive arrays once so that each purity-ploidy candidate is scored by
+// passes over the arrays rather than per-region objects. The implied copy number pass is plain arithmetic which the JIT can
+// vectorise, and the per-region fit logic is shared with RegionFitCalculator so scores are identical to a per-region fit
+public class RegionFitKernel
+{
+    private final RegionFitCalculator mRegionFitCalculator;
+
+    private final int mRegionCount;
+    private final double[] mObservedBAF;
+    private final double[] mObservedTumorRatio;
+    private final boolean[] mZeroTumorRatio;
+    private final double[] mGermlineRatio;
+    private final boolean[] mBafFittable;
+    private final double[] mBafCount;
+    private final double mTotalBafCount;
+
+    public RegionFitKernel(
+            final RegionFitCalculator regionFitCalculator, final CobaltChromosomes cobaltChromosomes, final List<ObservedRegion> regions)
+    {
+        mRegionFitCalculator = regionFitCalculator;
+
+        mRegionCount = regions.size();
+        mObservedBAF = new double[mRegionCount];
+        mObservedTumorRatio = new double[mRegionCount];
+        mZeroTumorRatio = new boolean[mRegionCount];
+        mGermlineRatio = new double[mRegionCount];
+        mBafFittable = new boolean[mRegionCount];
+        mBafCount = new double[mRegionCount];
+
+        int totalBafCount = 0;
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            ObservedRegion region = regions.get(i);
+            String chromosome = region.chromosome();
+
+            mObservedBAF[i] = region.observedBAF();
+            mObservedTumorRatio[i] = region.observedTumorRatio();
+            mZeroTumorRatio[i] = Doubles.isZero(region.observedTumorRatio());
+            mGermlineRatio[i] = cobaltChromosomes.hasChromosome(chromosome) ? cobaltChromosomes.get(chromosome).actualRatio() : 0;
+            mBafFittable[i] = regionFitCalculator.isBafFittable(chromosome);
+            mBafCount[i] = region.bafCount();
+
+            totalBafCount += region.bafCount();
+        }
+
+        mTotalBafCount = totalBafCount;
+    }
+
+    public int regionCount() { return mRegionCount; }
+
+    public static class RegionFitTotals
+    {
+        public final double[] TumorCopyNumber; // per region, for somatic fitting
+        public final double[] MajorAlleleCopyNumber;
+
+        public double EventPenalty;
+        public double DeviationPenalty;
+        public double AveragePloidy;
+        public double DiploidProportion;
+
+        public RegionFitTotals(int regionCount)
+        {
+            TumorCopyNumber = new double[regionCount];
+            MajorAlleleCopyNumber = new double[regionCount];
+        }
+    }
+
+    // the purity adjuster sets the candidate's purity and norm factor
+    public RegionFitTotals fit(final PurityAdjuster purityAdjuster)
+    {
+        double purity = purityAdjuster.purity();
+        double normFactor = purityAdjuster.normFactor();
+
+        RegionFitTotals totals = new RegionFitTotals(mRegionCount);
+        double[] copyNumbers = totals.TumorCopyNumber;
+        double[] majorAlleleCopyNumbers = totals.MajorAlleleCopyNumber;
+
+        // same expression as PurityAdjuster.purityAdjustedCopyNumber
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            double germlineRatio = mGermlineRatio[i];
+            copyNumbers[i] = mZeroTumorRatio[i] ?
+                    0 : 2 * germlineRatio + 2 * (mObservedTumorRatio[i] - germlineRatio * normFactor) / purity / normFactor;
+        }
+
+        double eventPenaltyFactor = mRegionFitCalculator.eventPenaltyFactor();
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            double copyNumber = copyNumbers[i];
+            double observedBAF = mObservedBAF[i];
+
+            double impliedBAF = mRegionFitCalculator.impliedBaf(
+                    purityAdjuster, mBafFittable[i], mGermlineRatio[i] * 2, copyNumber, observedBAF);
+
+            double majorAllelePloidy = impliedBAF * copyNumber;
+            double minorAllelePloidy = copyNumber - majorAllelePloidy;
+            majorAlleleCopyNumbers[i] = majorAllelePloidy;
+
+            double majorAllelePloidyDeviation = mRegionFitCalculator.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+            double minorAllelePloidyDeviation = mRegionFitCalculator.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+
+            double eventPenalty = calculateEventPenalty(eventPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
+
+            double deviationPenalty = mRegionFitCalculator.deviationPenalty(
+                    minorAllelePloidyDeviation, majorAllelePloidyDeviation, observedBAF, mObservedTumorRatio[i]);
+
+            double bafCount = mBafCount[i];
+            totals.EventPenalty += weightWithBaf(eventPenalty, bafCount);
+            totals.DeviationPenalty += weightWithBaf(deviationPenalty, bafCount);
+            totals.AveragePloidy += weightWithBaf(copyNumber, bafCount);
+
+            if(RegionFitCalcs.isDiploid(majorAllelePloidy, minorAllelePloidy))
+                totals.DiploidProportion += weightWithBaf(1, bafCount);
+        }
+
+        return totals;
+    }
+
+    private double weightWithBaf(double value, double bafCount)
+    {
+        return value * bafCount / mTotalBafCount;
+    }
+}
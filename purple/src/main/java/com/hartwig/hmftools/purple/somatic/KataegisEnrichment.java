@@ -5,8 +5,10 @@ import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG_DE
 import static com.hartwig.hmftools.common.variant.SageVcfTags.TRINUCLEOTIDE_CONTEXT;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.util.Strings;
+import org.jetbrains.annotations.Nullable;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -20,7 +22,13 @@ public class KataegisEnrichment
 
     public KataegisEnrichment(final AtomicInteger kataegisId)
     {
-        mReverseDetector = new KataegisQueue("REV", kataegisId, KataegisEnrichment::isReverseCandidate, null);
+        this(kataegisId, null);
+    }
+
+    // variants are passed on to the consumer, in order, once both detectors have finished with them
+    public KataegisEnrichment(final AtomicInteger kataegisId, @Nullable final Consumer<SomaticVariant> consumer)
+    {
+        mReverseDetector = new KataegisQueue("REV", kataegisId, KataegisEnrichment::isReverseCandidate, consumer);
         mForwardDetector = new KataegisQueue("FWD", kataegisId, KataegisEnrichment::isForwardCandidate, mReverseDetector::processVariant);
     }
 
@@ -23,9 +23,32 @@ public class SomaticPeakStream
         if(!somaticVariants.hasData())
             return Lists.newArrayList();
 
+        final List<ModifiableWeightedPloidy> weightedPloidies = somaticVariants.isStreaming() ?
+                weightedPloidies(somaticVariants.peakVariants()) : weightedPloidies(somaticVariants.variants());
+
+        PPL_LOGGER.debug("somatic peak uses {} variants", weightedPloidies.size());
+
+        PeakModelFactory modelFactory = new PeakModelFactory(CLONALITY_MAX_PLOIDY, CLONALITY_BIN_WIDTH);
+
+        List<PeakModelData> peakModels = modelFactory.model(weightedPloidies);
+
+        /*
+        for(PeakModelData peakModel : peakModels)
+        {
+            PPL_LOGGER.trace(format("somatic peak(%.4f wgt=%.4f) bucket(%.4f wgt=%.4f) valid(%s) subclonal(%s)",
+                    peakModel.Peak, peakModel.PeakAvgWeight, peakModel.Bucket, peakModel.BucketWeight,
+                    peakModel.IsValid, peakModel.IsSubclonal));
+        }
+        */
+
+        return peakModels;
+    }
+
+    private static List<ModifiableWeightedPloidy> weightedPloidies(final List<SomaticVariant> variants)
+    {
         final List<ModifiableWeightedPloidy> weightedPloidies = newArrayList();
 
-        for(SomaticVariant variant : somaticVariants.variants())
+        for(SomaticVariant variant : variants)
         {
             if(!variant.isPass())
                 continue;
@@ -47,21 +70,25 @@ public class SomaticPeakStream
             }
         }
 
-        PPL_LOGGER.debug("somatic peak uses {} variants", weightedPloidies.size());
-
-        PeakModelFactory modelFactory = new PeakModelFactory(CLONALITY_MAX_PLOIDY, CLONALITY_BIN_WIDTH);
+        return weightedPloidies;
+    }
 
-        List<PeakModelData> peakModels = modelFactory.model(weightedPloidies);
+    private static List<ModifiableWeightedPloidy> weightedPloidies(final SomaticPeakVariants peakVariants)
+    {
+        // these have already been restricted to passing autosomal variants with tumor depth
+        final List<ModifiableWeightedPloidy> weightedPloidies = newArrayList();
 
-        /*
-        for(PeakModelData peakModel : peakModels)
+        for(int i = 0; i < peakVariants.count(); ++i)
         {
-            PPL_LOGGER.trace(format("somatic peak(%.4f wgt=%.4f) bucket(%.4f wgt=%.4f) valid(%s) subclonal(%s)",
-                    peakModel.Peak, peakModel.PeakAvgWeight, peakModel.Bucket, peakModel.BucketWeight,
-                    peakModel.IsValid, peakModel.IsSubclonal));
+            if(peakVariants.copyNumber(i) >= CLONALITY_MAX_PLOIDY)
+                continue;
+
+            weightedPloidies.add(ModifiableWeightedPloidy.create()
+                    .from(peakVariants.tumorAlleleDepth(i))
+                    .setPloidy(peakVariants.copyNumber(i))
+                    .setWeight(1));
         }
-        */
 
-        return peakModels;
+        return weightedPloidies;
     }
 }
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import java.util.Arrays;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.genome.position.GenomePositions;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.common.variant.ImmutableAllelicDepthImpl;
+
+// the fields of the passing autosomal somatic variants needed by the somatic peak model, held in primitive arrays when variants
+// are streamed rather than cached. Variant copy numbers are set once purity enrichment has run
+public class SomaticPeakVariants
+{
+    private final String[] mChromosomeNames; // by human chromosome ordinal, as named in the VCF
+
+    private int mCount;
+    private byte[] mChromosomes;
+    private int[] mPositions;
+    private int[] mAlleleReadCounts;
+    private int[] mTotalReadCounts;
+    private double[] mCopyNumbers;
+
+    private static final int INITIAL_CAPACITY = 10000;
+
+    public SomaticPeakVariants()
+    {
+        mChromosomeNames = new String[HumanChromosome.values().length];
+        mCount = 0;
+        mChromosomes = new byte[INITIAL_CAPACITY];
+        mPositions = new int[INITIAL_CAPACITY];
+        mAlleleReadCounts = new int[INITIAL_CAPACITY];
+        mTotalReadCounts = new int[INITIAL_CAPACITY];
+        mCopyNumbers = new double[INITIAL_CAPACITY];
+    }
+
+    public static boolean isPeakCandidate(final SomaticVariant variant)
+    {
+        return variant.isPass() && variant.hasTumorAlleleDepth()
+                && HumanChromosome.contains(variant.chromosome()) && HumanChromosome.fromString(variant.chromosome()).isAutosome();
+    }
+
+    public void addVariant(final SomaticVariant variant)
+    {
+        if(mCount == mPositions.length)
+        {
+            int capacity = mCount * 2;
+            mChromosomes = Arrays.copyOf(mChromosomes, capacity);
+            mPositions = Arrays.copyOf(mPositions, capacity);
+            mAlleleReadCounts = Arrays.copyOf(mAlleleReadCounts, capacity);
+            mTotalReadCounts = Arrays.copyOf(mTotalReadCounts, capacity);
+            mCopyNumbers = Arrays.copyOf(mCopyNumbers, capacity);
+        }
+
+        int chromosomeIndex = HumanChromosome.fromString(variant.chromosome()).ordinal();
+
+        if(mChromosomeNames[chromosomeIndex] == null)
+            mChromosomeNames[chromosomeIndex] = variant.chromosome();
+
+        mChromosomes[mCount] = (byte)chromosomeIndex;
+        mPositions[mCount] = variant.position();
+        mAlleleReadCounts[mCount] = variant.tumorAlleleDepth().alleleReadCount();
+        mTotalReadCounts[mCount] = variant.tumorAlleleDepth().totalReadCount();
+        ++mCount;
+    }
+
+    public int count() { return mCount; }
+
+    public GenomePosition position(int index)
+    {
+        return GenomePositions.create(mChromosomeNames[mChromosomes[index]], mPositions[index]);
+    }
+
+    public AllelicDepth tumorAlleleDepth(int index)
+    {
+        return ImmutableAllelicDepthImpl.builder()
+                .alleleReadCount(mAlleleReadCounts[index])
+                .totalReadCount(mTotalReadCounts[index])
+                .build();
+    }
+
+    public double copyNumber(int index) { return mCopyNumbers[index]; }
+
+    public void purityEnrich(final SomaticPurityEnrichment purityEnrichment)
+    {
+        for(int i = 0; i < mCount; ++i)
+        {
+            mCopyNumbers[i] = purityEnrichment.variantCopyNumber(position(i), tumorAlleleDepth(i));
+        }
+    }
+}
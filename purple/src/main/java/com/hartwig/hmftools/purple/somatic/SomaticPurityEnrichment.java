@@ -14,10 +14,12 @@ import java.util.List;
 import java.util.Optional;
 
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.genome.region.GenomeRegionSelector;
 import com.hartwig.hmftools.common.genome.region.GenomeRegionSelectorFactory;
 import com.hartwig.hmftools.common.purple.GermlineStatus;
 import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
 import com.hartwig.hmftools.common.utils.collection.Multimaps;
 import com.hartwig.hmftools.purple.purity.PurityAdjuster;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
@@ -46,11 +48,7 @@ public class SomaticPurityEnrichment
         if(!HumanChromosome.contains(variant.chromosome()))
             return;
 
-        Optional<ObservedRegion> observedRegion = mObservedRegionSelector.select(variant);
-        GermlineStatus germlineStatus = GermlineStatus.UNKNOWN;
-
-        if(observedRegion.isPresent())
-            germlineStatus = observedRegion.get().germlineStatus();
+        GermlineStatus germlineStatus = germlineStatus(variant);
 
         variant.context().getCommonInfo().putAttribute(PURPLE_GERMLINE_INFO, germlineStatus.toString());
 
@@ -64,12 +62,41 @@ public class SomaticPurityEnrichment
         }
     }
 
+    // the variant copy number which enrichment would set, or 0 as for a variant outside the copy number regions
+    public double variantCopyNumber(final GenomePosition position, final AllelicDepth tumorDepth)
+    {
+        if(!HumanChromosome.contains(position.chromosome()))
+            return 0;
+
+        boolean isGermlineHetDeletion = germlineStatus(position) == GermlineStatus.HET_DELETION;
+
+        Optional<PurpleCopyNumber> purpleCopyNumber = mCopyNumberSelector.select(position);
+
+        if(!purpleCopyNumber.isPresent())
+            return 0;
+
+        double vaf = purityAdjustedVaf(purpleCopyNumber.get(), tumorDepth.alleleFrequency(), isGermlineHetDeletion);
+        return Math.max(0, vaf * purpleCopyNumber.get().averageTumorCopyNumber());
+    }
+
+    private GermlineStatus germlineStatus(final GenomePosition position)
+    {
+        Optional<ObservedRegion> observedRegion = mObservedRegionSelector.select(position);
+        return observedRegion.isPresent() ? observedRegion.get().germlineStatus() : GermlineStatus.UNKNOWN;
+    }
+
+    private double purityAdjustedVaf(final PurpleCopyNumber purpleCopyNumber, double alleleFrequency, boolean isGermlineHetDeletion)
+    {
+        return mPurityAdjuster.purityAdjustedVAF(
+                purpleCopyNumber.chromosome(), Math.max(0.001, purpleCopyNumber.averageTumorCopyNumber()), alleleFrequency,
+                isGermlineHetDeletion);
+    }
+
     private void applyPurityAdjustment(final SomaticVariant variant, final PurpleCopyNumber purpleCopyNumber, boolean isGermlineHetDeletion)
     {
         double copyNumber = purpleCopyNumber.averageTumorCopyNumber();
 
-        double vaf = mPurityAdjuster.purityAdjustedVAF(
-                purpleCopyNumber.chromosome(), Math.max(0.001, copyNumber), variant.alleleFrequency(), isGermlineHetDeletion);
+        double vaf = purityAdjustedVaf(purpleCopyNumber, variant.alleleFrequency(), isGermlineHetDeletion);
 
         double variantCopyNumber = Math.max(0, vaf * copyNumber);
 
@@ -78,8 +78,15 @@ public class SomaticStream
 
     private VariantContextWriter mVcfWriter;
 
+    // in streaming mode, enriched variants held until phased reportable checks can no longer reach them
+    private final List<SomaticVariant> mPhaseWindow;
+    private int mPhaseWindowCheckIndex; // next variant in the window to check for phased reportable variants
+
     private static final int CHART_DOWNSAMPLE_FACTOR = 25000; // eg for 50K variants, only every second will be kept for plotting
 
+    // phased reportable variants are only looked for within this distance when streaming
+    private static final int PHASED_VARIANT_MAX_DISTANCE = 10000;
+
     public SomaticStream(
             final PurpleConfig config, final ReferenceData referenceData, final SomaticVariantCache somaticVariantCache,
             final List<PeakModelData> peakModel)
@@ -108,6 +115,9 @@ public class SomaticStream
         mMsiIndelPerMb = 0;
 
         mVcfWriter = null;
+
+        mPhaseWindow = Lists.newArrayList();
+        mPhaseWindowCheckIndex = 0;
     }
 
     public double msiIndelsPerMb() { return mMsiIndelPerMb; }
@@ -178,89 +188,168 @@ public class SomaticStream
 
             mVcfWriter.writeHeader(vcfHeader);
 
-            boolean tumorOnly = mConfig.tumorOnlyMode();
             AtomicInteger kataegisId = new AtomicInteger();
 
-            if(mConfig.Threads > 1)
-            {
-                List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
-
-                for(int i = 0; i < mConfig.Threads; ++i)
-                {
-                    enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
-                }
+            if(mSomaticVariants.isStreaming())
+                streamAndWrite(purityAdjuster.purity(), kataegisId);
+            else
+                enrichAndWrite(purityAdjuster.purity(), kataegisId);
 
-                int taskIndex = 0;
-                String currentChr = !mSomaticVariants.variants().isEmpty() ? mSomaticVariants.variants().get(0).chromosome() : "";
+            mVcfWriter.close();
+            mRChartData.write();
 
-                for(SomaticVariant variant : mSomaticVariants.variants())
-                {
-                    if(!currentChr.equals(variant.chromosome()))
-                    {
-                        currentChr = variant.chromosome();
-                        ++taskIndex;
+            calculateVariantLoadValues();
 
-                        if(taskIndex >= enrichers.size())
-                            taskIndex = 0;
-                    }
+            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
+                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
+        }
+        catch(IOException e)
+        {
+            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
+        }
+    }
 
-                    enrichers.get(taskIndex).addVariant(variant);
-                }
+    private void enrichAndWrite(double purity, final AtomicInteger kataegisId)
+    {
+        if(mConfig.Threads > 1)
+        {
+            List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
 
-                final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
-                TaskExecutor.executeTasks(callableList, mConfig.Threads);
-            }
-            else
+            for(int i = 0; i < mConfig.Threads; ++i)
             {
-                SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
-                mSomaticVariants.variants().forEach(x -> enricher.addVariant(x));
-                enricher.call();
+                enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
             }
 
-            // various processing for charting, TMB/L calcs, drivers
+            int taskIndex = 0;
+            String currentChr = !mSomaticVariants.variants().isEmpty() ? mSomaticVariants.variants().get(0).chromosome() : "";
+
             for(SomaticVariant variant : mSomaticVariants.variants())
             {
-                if(!HumanChromosome.contains(variant.chromosome()))
-                    continue;
-
-                if(variant.isPass() || mConfig.WriteAllSomatics)
-                    mSomaticGermlineLikelihood.processVariant(variant, purityAdjuster.purity());
-
-                if(variant.isPass())
+                if(!currentChr.equals(variant.chromosome()))
                 {
-                    mTumorMutationalLoad.processVariant(variant);
-                    mMicrosatelliteIndels.processVariant(variant);
-                    checkDrivers(variant, true); // sets reportable flag if applicable
+                    currentChr = variant.chromosome();
+                    ++taskIndex;
 
-                    mRChartData.processVariant(variant);
-                    checkChartDownsampling(variant);
+                    if(taskIndex >= enrichers.size())
+                        taskIndex = 0;
                 }
+
+                enrichers.get(taskIndex).addVariant(variant);
             }
 
-            // should not be required if coding effects have been set correctly for phased variants in Pave
-            checkPhasedReportableVariants();
+            final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
+            TaskExecutor.executeTasks(callableList, mConfig.Threads);
+        }
+        else
+        {
+            SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
+            mSomaticVariants.variants().forEach(x -> enricher.addVariant(x));
+            enricher.call();
+        }
 
-            // write enriched variants to VCF
-            for(SomaticVariant variant : mSomaticVariants.variants())
-            {
-                if(!tumorOnly || variant.isPass() || mConfig.WriteAllSomatics)
-                    mVcfWriter.add(variant.context());
-            }
+        // various processing for charting, TMB/L calcs, drivers
+        mSomaticVariants.variants().forEach(x -> processEnrichedVariant(x, purity));
 
-            mVcfWriter.close();
-            mRChartData.write();
+        // should not be required if coding effects have been set correctly for phased variants in Pave
+        for(int i = 0; i < mSomaticVariants.variants().size(); ++i)
+        {
+            checkPhasedReportableVariant(mSomaticVariants.variants(), i);
+        }
 
-            calculateVariantLoadValues();
+        // write enriched variants to VCF
+        mSomaticVariants.variants().forEach(x -> writeVariant(x));
+    }
 
-            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
-                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
+    private void streamAndWrite(double purity, final AtomicInteger kataegisId)
+    {
+        // a single chromosome-ordered pass: each variant is re-read, enriched, held briefly for kataegis detection and the phased
+        // reportable checks, and then written, so memory use doesn't grow with the variant count
+        SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(
+                0, mConfig, mReferenceData, mPeakModel, kataegisId, variant ->
+                {
+                    processEnrichedVariant(variant, purity);
+                    addToPhaseWindow(variant);
+                });
+
+        mSomaticVariants.streamVariants(variant ->
+        {
+            if(enricher.requiresEnrichment(variant))
+                enricher.enrich(variant);
+        });
+
+        enricher.flush();
+        flushPhaseWindow();
+    }
+
+    private void processEnrichedVariant(final SomaticVariant variant, double purity)
+    {
+        if(!HumanChromosome.contains(variant.chromosome()))
+            return;
+
+        if(variant.isPass() || mConfig.WriteAllSomatics)
+            mSomaticGermlineLikelihood.processVariant(variant, purity);
+
+        if(variant.isPass())
+        {
+            mTumorMutationalLoad.processVariant(variant);
+            mMicrosatelliteIndels.processVariant(variant);
+            checkDrivers(variant, true); // sets reportable flag if applicable
+
+            mRChartData.processVariant(variant);
+            checkChartDownsampling(variant);
         }
-        catch(IOException e)
+    }
+
+    private void writeVariant(final SomaticVariant variant)
+    {
+        if(!mConfig.tumorOnlyMode() || variant.isPass() || mConfig.WriteAllSomatics)
+            mVcfWriter.add(variant.context());
+    }
+
+    private void addToPhaseWindow(final SomaticVariant variant)
+    {
+        if(!mPhaseWindow.isEmpty() && !mPhaseWindow.get(mPhaseWindow.size() - 1).chromosome().equals(variant.chromosome()))
+            flushPhaseWindow();
+
+        mPhaseWindow.add(variant);
+
+        // check each variant once the window extends far enough beyond it, in order, as when all variants are held
+        while(variant.position() - mPhaseWindow.get(mPhaseWindowCheckIndex).position() > PHASED_VARIANT_MAX_DISTANCE)
         {
-            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
+            checkPhasedReportableVariant(mPhaseWindow, mPhaseWindowCheckIndex);
+            ++mPhaseWindowCheckIndex;
+        }
+
+        // write variants which are out of reach of any variant still to be checked
+        int nextCheckPosition = mPhaseWindow.get(mPhaseWindowCheckIndex).position();
+        int writeCount = 0;
+
+        while(writeCount < mPhaseWindowCheckIndex
+        && nextCheckPosition - mPhaseWindow.get(writeCount).position() > PHASED_VARIANT_MAX_DISTANCE)
+        {
+            writeVariant(mPhaseWindow.get(writeCount));
+            ++writeCount;
+        }
+
+        if(writeCount > 0)
+        {
+            mPhaseWindow.subList(0, writeCount).clear();
+            mPhaseWindowCheckIndex -= writeCount;
         }
     }
 
+    private void flushPhaseWindow()
+    {
+        for(; mPhaseWindowCheckIndex < mPhaseWindow.size(); ++mPhaseWindowCheckIndex)
+        {
+            checkPhasedReportableVariant(mPhaseWindow, mPhaseWindowCheckIndex);
+        }
+
+        mPhaseWindow.forEach(x -> writeVariant(x));
+        mPhaseWindow.clear();
+        mPhaseWindowCheckIndex = 0;
+    }
+
     private void calculateVariantLoadValues()
     {
         mTml = mTumorMutationalLoad.calcTml();
@@ -297,14 +386,19 @@ public class SomaticStream
 
     public void registerReportedVariants()
     {
-        for(SomaticVariant variant : mSomaticVariants.variants())
-        {
-            boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
+        if(mSomaticVariants.isStreaming())
+            mSomaticVariants.streamVariants(x -> registerReportedVariant(x));
+        else
+            mSomaticVariants.variants().forEach(x -> registerReportedVariant(x));
+    }
 
-            if(isValidChromosome && variant.isPass())
-            {
-                checkDrivers(variant, false);
-            }
+    private void registerReportedVariant(final SomaticVariant variant)
+    {
+        boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
+
+        if(isValidChromosome && variant.isPass())
+        {
+            checkDrivers(variant, false);
         }
     }
 
@@ -315,63 +409,60 @@ public class SomaticStream
             || variant.variantImpact().CanonicalEffect.contains(PHASED_MISSENSE.effect());
     }
 
-    private void checkPhasedReportableVariants()
+    private void checkPhasedReportableVariant(final List<SomaticVariant> variants, int i)
     {
         // any non-reportable variant that forms a phased inframe INDEL with a reportable variant is marked as reportable too
-        for(int i = 0; i < mSomaticVariants.variants().size(); ++i)
-        {
-            SomaticVariant variant = mSomaticVariants.variants().get(i);
+        SomaticVariant variant = variants.get(i);
 
-            // first find any reportable phased inframe INDEL
-            if(!variant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
-                continue;
+        // first find any reportable phased inframe INDEL
+        if(!variant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
+            return;
 
-            List<Integer> localPhaseSets = variant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
+        List<Integer> localPhaseSets = variant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
 
-            if(localPhaseSets.isEmpty())
-                continue;
+        if(localPhaseSets.isEmpty())
+            return;
 
-            // look forwards and backwards for unreported passing variants in the same phase set
-            for(int direction = 0; direction <= 1; ++direction)
-            {
-                boolean searchBack = direction == 0;
+        // look forwards and backwards for unreported passing variants in the same phase set
+        for(int direction = 0; direction <= 1; ++direction)
+        {
+            boolean searchBack = direction == 0;
 
-                int j = i;
-                while(true)
-                {
-                    if(searchBack)
-                        --j;
-                    else
-                        ++j;
+            int j = i;
+            while(true)
+            {
+                if(searchBack)
+                    --j;
+                else
+                    ++j;
 
-                    if(j < 0 || j >= mSomaticVariants.variants().size())
-                        break;
+                if(j < 0 || j >= variants.size())
+                    break;
 
-                    SomaticVariant nextVariant = mSomaticVariants.variants().get(j);
+                SomaticVariant nextVariant = variants.get(j);
 
-                    if(!nextVariant.isPass() || nextVariant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
-                        continue;
+                if(!nextVariant.isPass() || nextVariant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
+                    continue;
 
-                    // must have a coding impact
-                    if(nextVariant.variantImpact() == null || !hasProteinImpact(nextVariant.variantImpact().CanonicalCodingEffect))
-                        continue;
+                // must have a coding impact
+                if(nextVariant.variantImpact() == null || !hasProteinImpact(nextVariant.variantImpact().CanonicalCodingEffect))
+                    continue;
 
-                    List<Integer> nextLocalPhaseSets = nextVariant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
+                List<Integer> nextLocalPhaseSets = nextVariant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
 
-                    // stop looking when phase set changes or is empty, so assumes that there aren't unphased variants in between
-                    if(nextLocalPhaseSets.isEmpty())
-                        break;
+                // stop looking when phase set changes or is empty, so assumes that there aren't unphased variants in between
+                if(nextLocalPhaseSets.isEmpty())
+                    break;
 
-                    if(nextLocalPhaseSets.stream().noneMatch(x -> localPhaseSets.contains(x)))
-                        break;
+                if(nextLocalPhaseSets.stream().noneMatch(x -> localPhaseSets.contains(x)))
+                    break;
 
-                    nextVariant.context().getCommonInfo().putAttribute(REPORTED_FLAG, true);
+                nextVariant.context().getCommonInfo().putAttribute(REPORTED_FLAG, true);
 
-                    PPL_LOGGER.debug("var({}) setting reported due to inframe-phasing with other({})", nextVariant, variant);
+                PPL_LOGGER.debug("var({}) setting reported due to inframe-phasing with other({})", nextVariant, variant);
 
-                    // add to appropriate driver caches for DNDS calcs
-                    mDrivers.addPhasedReportableVariant(nextVariant, variant);
-                }
+                // add to appropriate driver caches for DNDS calcs
+                mDrivers.addPhasedReportableVariant(nextVariant, variant);
             }
         }
     }
@@ -1,11 +1,16 @@
 package com.hartwig.hmftools.purple.somatic;
 
+import static com.hartwig.hmftools.common.variant.Hotspot.HOTSPOT_FLAG;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.TIER;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.hla.HlaCommon;
 import com.hartwig.hmftools.common.variant.GenotypeIds;
@@ -13,8 +18,10 @@ import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter.FittingCandidateFilter;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeader;
 
 public class SomaticVariantCache
@@ -26,10 +33,20 @@ public class SomaticVariantCache
     private VCFHeader mVcfHeader;
     private GenotypeIds mGenotypeIds;
 
+    // in streaming mode only fitting candidates and compact peak-model fields are held, and the VCF is re-read to enrich and write
+    private final boolean mStreaming;
+    private final SomaticPeakVariants mPeakVariants;
+    private String mSomaticVcf;
+    private HotspotEnrichment mHotspotEnrichment;
+    private SomaticPurityEnrichment mPurityEnrichment;
+    private int mVariantCount;
+
     // counts for plot & chart down-sampling
     private int mIndelCount;
     private int mSnpCount;
 
+    private static final String[] COMPACT_FITTING_ATTRIBUTES = { HOTSPOT_FLAG, TIER };
+
     public SomaticVariantCache(final PurpleConfig config)
     {
         mConfig = config;
@@ -39,10 +56,22 @@ public class SomaticVariantCache
         mSnpCount = 0;
         mVcfHeader = null;
         mGenotypeIds = null;
+
+        mStreaming = config.SomaticStreaming;
+        mPeakVariants = mStreaming ? new SomaticPeakVariants() : null;
+        mSomaticVcf = null;
+        mHotspotEnrichment = null;
+        mPurityEnrichment = null;
+        mVariantCount = 0;
     }
 
-    public boolean hasData() { return !mVariants.isEmpty(); }
+    public boolean hasData() { return mVariantCount > 0; }
+
+    // all loaded variants, or only the purity fitting candidates in streaming mode
     public List<SomaticVariant> variants() { return mVariants; }
+
+    public boolean isStreaming() { return mStreaming; }
+    public SomaticPeakVariants peakVariants() { return mPeakVariants; }
     public GenotypeIds genotypeIds() { return mGenotypeIds; }
 
     public int snpCount() { return mSnpCount; }
@@ -53,59 +82,138 @@ public class SomaticVariantCache
         if(somaticVcf.isEmpty())
             return;
 
-        final HotspotEnrichment hotspotEnrichment = new HotspotEnrichment(somaticHotspots, true);
+        mSomaticVcf = somaticVcf;
+        mHotspotEnrichment = new HotspotEnrichment(somaticHotspots, true);
 
         VcfFileReader vcfReader = new VcfFileReader(somaticVcf);
         mVcfHeader = vcfReader.vcfHeader();
 
         mGenotypeIds = GenotypeIds.fromVcfHeader(mVcfHeader, mConfig.ReferenceId, mConfig.TumorId);
 
-        boolean tumorOnly = mConfig.tumorOnlyMode();
+        FittingCandidateFilter fittingCandidateFilter = mStreaming ? new FittingCandidateFilter() : null;
 
         for(VariantContext variantContext : vcfReader.iterator())
         {
-            SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+            SomaticVariant variant = loadVariant(variantContext);
 
-            if(tumorOnly && HlaCommon.containsPosition(variant)) // ignore these completely
+            if(variant == null)
                 continue;
 
-            if(!mConfig.TierQualFilters.isEmpty())
-            {
-                Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
-                if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
-                    continue;
-            }
+            ++mVariantCount;
 
-            if(mConfig.FilterSomaticsOnGene)
+            if(variant.isPass())
             {
-                if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
-                    continue;
+                if(variant.type() == VariantType.INDEL)
+                    mIndelCount++;
+                else
+                    mSnpCount++;
             }
 
-            if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
+            if(!mStreaming)
+            {
+                // hotspot status is used in fitting as well as during and for enrichment
+                mHotspotEnrichment.processVariant(variantContext);
+                mVariants.add(variant);
                 continue;
+            }
 
-            mVariants.add(variant);
-
-            // hotspot status is used in fitting as well as during and for enrichment
-            hotspotEnrichment.processVariant(variantContext);
+            if(SomaticPeakVariants.isPeakCandidate(variant))
+                mPeakVariants.addVariant(variant);
 
-            if(variant.isPass())
+            if(fittingCandidateFilter.isCandidate(variant))
             {
-                if(variant.type() == VariantType.INDEL)
-                    mIndelCount++;
-                else
-                    mSnpCount++;
+                // only held candidates need hotspot status now, since streamed variants are annotated as they are re-read
+                mHotspotEnrichment.processVariant(variantContext);
+                variant.setContext(compactFittingContext(variantContext));
+                mVariants.add(variant);
             }
         }
 
-        PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
+        if(mStreaming)
+        {
+            PPL_LOGGER.info("loaded {} somatic variants from {}, holding {} fitting candidates",
+                    mVariantCount, somaticVcf, mVariants.size());
+        }
+        else
+        {
+            PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
+        }
+    }
+
+    // applies the load filters, returning null for a variant which is not used
+    private SomaticVariant loadVariant(final VariantContext variantContext)
+    {
+        SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+
+        if(mConfig.tumorOnlyMode() && HlaCommon.containsPosition(variant)) // ignore these completely
+            return null;
+
+        if(!mConfig.TierQualFilters.isEmpty())
+        {
+            Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
+            if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
+                return null;
+        }
+
+        if(mConfig.FilterSomaticsOnGene)
+        {
+            if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
+                return null;
+        }
+
+        if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
+            return null;
+
+        return variant;
+    }
+
+    private static VariantContext compactFittingContext(final VariantContext context)
+    {
+        // fitting only needs the variant's alleles, filters, tier and hotspot status, with allelic depths already taken from the genotypes
+        Map<String,Object> attributes = Maps.newHashMap();
+
+        for(String attribute : COMPACT_FITTING_ATTRIBUTES)
+        {
+            if(context.hasAttribute(attribute))
+                attributes.put(attribute, context.getAttribute(attribute));
+        }
+
+        return new VariantContextBuilder(context).noGenotypes().attributes(attributes).make();
+    }
+
+    // re-reads the VCF, passing each variant which would have been loaded to the consumer with its purity enrichment applied
+    public void streamVariants(final Consumer<SomaticVariant> consumer)
+    {
+        VcfFileReader vcfReader = new VcfFileReader(mSomaticVcf);
+
+        for(VariantContext variantContext : vcfReader.iterator())
+        {
+            SomaticVariant variant = loadVariant(variantContext);
+
+            if(variant == null)
+                continue;
+
+            mHotspotEnrichment.processVariant(variantContext);
+
+            if(mPurityEnrichment != null)
+                mPurityEnrichment.processVariant(variant);
+
+            consumer.accept(variant);
+        }
     }
 
     public VCFHeader getVcfHeader() { return mVcfHeader; }
 
     public void purityEnrich(final SomaticPurityEnrichment purityEnrichment)
     {
+        if(mStreaming)
+        {
+            // streamed variants are enriched as they are re-read
+            mPurityEnrichment = purityEnrichment;
+            mPeakVariants.purityEnrich(purityEnrichment);
+            return;
+        }
+
         mVariants.forEach(x -> purityEnrichment.processVariant(x));
     }
 }
@@ -6,6 +6,7 @@ import static com.hartwig.hmftools.purple.config.PurpleConstants.CLONALITY_BIN_W
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.variant.PurpleVcfTags;
@@ -14,6 +15,8 @@ import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.fitting.PeakModelData;
 import com.hartwig.hmftools.purple.config.ReferenceData;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.variant.vcf.VCFHeader;
 
 public class SomaticVariantEnrichment implements Callable
@@ -29,17 +32,30 @@ public class SomaticVariantEnrichment implements Callable
     public SomaticVariantEnrichment(
             final int taskId, final PurpleConfig config, final ReferenceData refData, final List<PeakModelData> peakModel,
             final AtomicInteger kataegisId)
+    {
+        this(taskId, config, refData, peakModel, kataegisId, null);
+    }
+
+    // enriched variants are passed on to the consumer in order, once kataegis detection has finished with them
+    public SomaticVariantEnrichment(
+            final int taskId, final PurpleConfig config, final ReferenceData refData, final List<PeakModelData> peakModel,
+            final AtomicInteger kataegisId, @Nullable final Consumer<SomaticVariant> consumer)
     {
         mConfig = config;
         mTaskId = taskId;
         mGenotypeEnrichment = new SomaticGenotypeEnrichment(mConfig.ReferenceId, mConfig.TumorId);
         mSubclonalLikelihoodEnrichment = new SubclonalLikelihoodEnrichment(CLONALITY_BIN_WIDTH, peakModel);
-        mKataegisEnrichment = new KataegisEnrichment(kataegisId);
+        mKataegisEnrichment = new KataegisEnrichment(kataegisId, consumer);
         mVariants = Lists.newArrayList();
     }
 
     public void addVariant(final SomaticVariant variant) { mVariants.add(variant); }
 
+    public boolean requiresEnrichment(final SomaticVariant variant)
+    {
+        return !mConfig.tumorOnlyMode() || variant.isPass() || mConfig.WriteAllSomatics;
+    }
+
     @Override
     public Long call()
     {
@@ -47,11 +63,9 @@ public class SomaticVariantEnrichment implements Callable
         // int gcCount = 250000;
         int varCount = 0;
 
-        boolean tumorOnly = mConfig.tumorOnlyMode();
-
         for(SomaticVariant variant : mVariants)
         {
-            if(tumorOnly && variant.isFiltered() && !mConfig.WriteAllSomatics)
+            if(!requiresEnrichment(variant))
                 continue;
 
             enrich(variant);
@@ -0,0 +1,63 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.BestFit;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+
+import org.junit.Test;
+
+public class AdaptivePuritySearchTest
+{
+    @Test
+    public void testMatchesDenseSearchNearBestFits() throws ExecutionException, InterruptedException
+    {
+        List<Double> purities = AdaptivePuritySearch.purityRange(0.08, 1.0, 0.01);
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+
+        // a broad minimum plus a narrow trough falling between coarse ploidies
+        BiFunction<Double,Double,FittedPurity> fitter = (purity, ploidy) ->
+        {
+            double score = 0.1 + Math.pow(purity - 0.6, 2) + 0.2 * Math.pow(ploidy - 3.1, 2);
+
+            if(Math.abs(ploidy - 1.9) < 0.03)
+                score = Math.min(score, 0.105 + Math.pow(purity - 0.3, 2));
+
+            return ImmutableFittedPurity.builder()
+                    .purity(purity).ploidy(ploidy * 0.95).normFactor(1).score(score).diploidProportion(0).somaticPenalty(0).build();
+        };
+
+        List<FittedPurity> dense = Lists.newArrayList();
+        purities.forEach(purity -> ploidies.forEach(ploidy -> dense.add(fitter.apply(purity, ploidy))));
+
+        AdaptivePuritySearch search = new AdaptivePuritySearch(purities, ploidies, fitter, null);
+        List<FittedPurity> adaptive = search.search();
+
+        assertEquals(dense.size(), search.gridSize());
+        assertEquals(adaptive.size(), search.fitCount());
+        assertTrue(search.fitCount() < search.gridSize() / 2);
+
+        assertEquals(inRangeOfLowest(dense), inRangeOfLowest(adaptive));
+        assertEquals(cellKeys(BestFit.bestFitPerPurity(dense).subList(0, 10)), cellKeys(BestFit.bestFitPerPurity(adaptive).subList(0, 10)));
+        assertEquals(cellKeys(BestFit.mostDiploidPerPurity(dense)), cellKeys(BestFit.mostDiploidPerPurity(adaptive)));
+    }
+
+    private static List<String> inRangeOfLowest(final List<FittedPurity> fits)
+    {
+        double lowestScore = fits.stream().mapToDouble(FittedPurity::score).min().getAsDouble();
+        return cellKeys(fits.stream().filter(x -> x.score() - lowestScore <= 0.1 * lowestScore).collect(Collectors.toList()));
+    }
+
+    private static List<String> cellKeys(final List<FittedPurity> fits)
+    {
+        return fits.stream().map(x -> String.format("%.4f-%.4f", x.purity(), x.ploidy())).sorted().collect(Collectors.toList());
+    }
+}
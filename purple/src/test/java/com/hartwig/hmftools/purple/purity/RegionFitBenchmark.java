@@ -0,0 +1,96 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static com.hartwig.hmftools.purple.purity.RegionFitKernelTest.defaultFittingConfig;
+import static com.hartwig.hmftools.purple.purity.RegionFitKernelTest.syntheticRegions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.hartwig.hmftools.common.cobalt.CobaltTestUtils;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// compares scoring one purity-ploidy candidate region by region against the packed region-fit kernel, over synthetic regions
+// of a size typical of a tumor sample after purity-fit filtering
+// run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hartwig.hmftools.purple.purity.RegionFitBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+public class RegionFitBenchmark
+{
+    @Param({ "2000" })
+    public int RegionCount;
+
+    private static final double PURITY = 0.47;
+    private static final double NORM_FACTOR = 0.93;
+
+    private List<ObservedRegion> mRegions;
+    private RegionFitCalculator mRegionFitCalculator;
+    private RegionFitKernel mKernel;
+    private Map<String,Double> mObservedRatioMap;
+
+    @Setup
+    public void setup()
+    {
+        CobaltChromosomes cobaltChromosomes = CobaltTestUtils.male();
+        mRegions = syntheticRegions(RegionCount, 42);
+        mRegionFitCalculator = new RegionFitCalculator(cobaltChromosomes, defaultFittingConfig(), 100);
+        mKernel = new RegionFitKernel(mRegionFitCalculator, cobaltChromosomes, mRegions);
+
+        mObservedRatioMap = cobaltChromosomes.chromosomes().stream()
+                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
+    }
+
+    @Benchmark
+    public void perRegion(final Blackhole blackhole)
+    {
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+
+        for(ObservedRegion region : mRegions)
+        {
+            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(PURITY, NORM_FACTOR, region);
+            eventPenalty += regionFitCalcs.EventPenalty * region.bafCount();
+            deviationPenalty += regionFitCalcs.DeviationPenalty * region.bafCount();
+        }
+
+        blackhole.consume(eventPenalty * deviationPenalty);
+    }
+
+    @Benchmark
+    public void kernel(final Blackhole blackhole)
+    {
+        RegionFitKernel.RegionFitTotals totals = mKernel.fit(new PurityAdjuster(mObservedRatioMap, PURITY, NORM_FACTOR));
+        blackhole.consume(totals.EventPenalty * totals.DeviationPenalty);
+    }
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(RegionFitBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
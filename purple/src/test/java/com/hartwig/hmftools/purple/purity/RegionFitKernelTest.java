@@ -0,0 +1,104 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.CobaltTestUtils;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.purple.config.FittingConfig;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.Test;
+
+public class RegionFitKernelTest
+{
+    @Test
+    public void testMatchesPerRegionFit()
+    {
+        CobaltChromosomes cobaltChromosomes = CobaltTestUtils.male();
+        RegionFitCalculator regionFitCalculator = new RegionFitCalculator(cobaltChromosomes, defaultFittingConfig(), 100);
+
+        List<ObservedRegion> regions = syntheticRegions(1000, 42);
+        RegionFitKernel kernel = new RegionFitKernel(regionFitCalculator, cobaltChromosomes, regions);
+        assertEquals(regions.size(), kernel.regionCount());
+
+        Map<String,Double> observedRatioMap = cobaltChromosomes.chromosomes().stream()
+                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
+
+        int totalBafCount = regions.stream().mapToInt(ObservedRegion::bafCount).sum();
+
+        for(double purity = 0.08; purity <= 1.0; purity += 0.23)
+        {
+            for(double normFactor = 0.6; normFactor <= 1.4; normFactor += 0.2)
+            {
+                RegionFitKernel.RegionFitTotals totals = kernel.fit(new PurityAdjuster(observedRatioMap, purity, normFactor));
+
+                double eventPenalty = 0;
+                double deviationPenalty = 0;
+                double averagePloidy = 0;
+                double diploidProportion = 0;
+
+                for(int i = 0; i < regions.size(); ++i)
+                {
+                    ObservedRegion region = regions.get(i);
+                    RegionFitCalcs regionFitCalcs = regionFitCalculator.calculateRegionFit(purity, normFactor, region);
+
+                    assertEquals(regionFitCalcs.TumorCopyNumber, totals.TumorCopyNumber[i], 0);
+                    assertEquals(regionFitCalcs.majorAlleleCopyNumber(), totals.MajorAlleleCopyNumber[i], 0);
+
+                    int bafCount = region.bafCount();
+                    eventPenalty += 1d * regionFitCalcs.EventPenalty * bafCount / totalBafCount;
+                    deviationPenalty += 1d * regionFitCalcs.DeviationPenalty * bafCount / totalBafCount;
+                    averagePloidy += 1d * regionFitCalcs.TumorCopyNumber * bafCount / totalBafCount;
+
+                    if(regionFitCalcs.isDiploid())
+                        diploidProportion += 1d * bafCount / totalBafCount;
+                }
+
+                assertEquals(eventPenalty, totals.EventPenalty, 0);
+                assertEquals(deviationPenalty, totals.DeviationPenalty, 0);
+                assertEquals(averagePloidy, totals.AveragePloidy, 0);
+                assertEquals(diploidProportion, totals.DiploidProportion, 0);
+            }
+        }
+    }
+
+    public static FittingConfig defaultFittingConfig()
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        FittingConfig.addConfig(configBuilder);
+        return new FittingConfig(configBuilder, false);
+    }
+
+    // regions across the autosomes and X, with both ambiguous and clear BAFs and some zero tumor ratios
+    public static List<ObservedRegion> syntheticRegions(int regionCount, long seed)
+    {
+        Random random = new Random(seed);
+        List<ObservedRegion> regions = Lists.newArrayListWithCapacity(regionCount);
+
+        for(int i = 0; i < regionCount; ++i)
+        {
+            int chromosomeIndex = random.nextInt(23);
+            String chromosome = chromosomeIndex == 22 ? "X" : String.valueOf(chromosomeIndex + 1);
+
+            int bafCount = 1 + random.nextInt(500);
+            double observedBAF = 0.5 + random.nextDouble() * 0.5;
+            double observedTumorRatio = random.nextInt(50) == 0 ? 0 : 0.2 + random.nextDouble() * 2.5;
+
+            regions.add(new ObservedRegion(
+                    chromosome, i * 1000 + 1, i * 1000 + 1000, true, SegmentSupport.NONE, bafCount, observedBAF, bafCount,
+                    observedTumorRatio, 1, 1, GermlineStatus.DIPLOID, false, 0.45, 0, 0));
+        }
+
+        return regions;
+    }
+}
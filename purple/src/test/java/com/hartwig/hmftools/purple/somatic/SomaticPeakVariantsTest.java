@@ -0,0 +1,106 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_VARIANT_CN;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.buildPurityAdjuster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.PurpleTestUtils;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.purple.purity.PurityAdjuster;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class SomaticPeakVariantsTest
+{
+    @Test
+    public void testPeakCandidates()
+    {
+        assertTrue(SomaticPeakVariants.isPeakCandidate(create("1", 100, 10, 40, true)));
+        assertFalse(SomaticPeakVariants.isPeakCandidate(create("1", 100, 10, 40, false)));
+        assertFalse(SomaticPeakVariants.isPeakCandidate(create("X", 100, 10, 40, true)));
+        assertFalse(SomaticPeakVariants.isPeakCandidate(create("GL000220.1", 100, 10, 40, true)));
+    }
+
+    @Test
+    public void testCopyNumbersMatchPurityEnrichment()
+    {
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList(
+                PurpleTestUtils.createCopyNumber("1", 1, 1000, 3.1).averageActualBAF(0.7).build(),
+                PurpleTestUtils.createCopyNumber("1", 1001, 5000, 1.2).averageActualBAF(0.95).build(),
+                PurpleTestUtils.createCopyNumber("2", 1, 5000, 2.0).build());
+
+        List<ObservedRegion> fittedRegions = Lists.newArrayList(
+                createRegion("1", 1, 1000, GermlineStatus.DIPLOID),
+                createRegion("1", 1001, 5000, GermlineStatus.HET_DELETION),
+                createRegion("2", 1, 5000, GermlineStatus.DIPLOID));
+
+        List<SomaticVariant> variants = Lists.newArrayList(
+                create("1", 500, 12, 50, true),
+                create("1", 2000, 20, 45, true),
+                create("2", 100, 5, 60, true),
+                create("2", 6000, 9, 30, true)); // beyond the copy number regions
+
+        PurityAdjuster purityAdjuster = buildPurityAdjuster(Gender.FEMALE, 0.6, 1.0);
+
+        SomaticPeakVariants peakVariants = new SomaticPeakVariants();
+        variants.forEach(x -> peakVariants.addVariant(x));
+        assertEquals(variants.size(), peakVariants.count());
+
+        peakVariants.purityEnrich(new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions));
+
+        SomaticPurityEnrichment purityEnrichment = new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions);
+
+        for(int i = 0; i < variants.size(); ++i)
+        {
+            SomaticVariant variant = variants.get(i);
+            purityEnrichment.processVariant(variant);
+
+            assertEquals(variant.position(), peakVariants.position(i).position());
+            assertEquals(variant.alleleReadCount(), peakVariants.tumorAlleleDepth(i).alleleReadCount());
+            assertEquals(variant.totalReadCount(), peakVariants.tumorAlleleDepth(i).totalReadCount());
+            assertEquals(variant.copyNumber(), peakVariants.copyNumber(i), 0);
+        }
+
+        assertTrue(variants.get(0).context().hasAttribute(PURPLE_VARIANT_CN));
+        assertEquals(0, peakVariants.copyNumber(3), 0);
+    }
+
+    private static SomaticVariant create(final String chromosome, int position, int alleleReadCount, int totalReadCount, boolean pass)
+    {
+        VariantContextBuilder builder = new VariantContextBuilder(
+                "Source", chromosome, position, position, Lists.newArrayList(Allele.create("C", true), Allele.create("T", false)))
+                .genotypes(new GenotypeBuilder(SAMPLE_ID).AD(new int[] { totalReadCount - alleleReadCount, alleleReadCount })
+                        .DP(totalReadCount).make());
+
+        if(pass)
+            builder.passFilters();
+        else
+            builder.filter("LOW_QUAL");
+
+        VariantContext context = builder.make();
+        return new SomaticVariant(context, SAMPLE_ID, null);
+    }
+
+    private static ObservedRegion createRegion(final String chromosome, int start, int end, final GermlineStatus germlineStatus)
+    {
+        return new ObservedRegion(
+                chromosome, start, end, true, SegmentSupport.NONE, 1, 0.5, 1,
+                1, 1, 1, germlineStatus, false, 0.93, 0, 0);
+    }
+}
@@ -8,20 +8,17 @@ import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
 
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
-import com.hartwig.hmftools.sage.pipeline.ChromosomePipeline;
+import com.hartwig.hmftools.sage.pipeline.GenomePipeline;
 import com.hartwig.hmftools.sage.bqr.BaseQualityRecalibration;
-import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
 
 import htsjdk.samtools.SAMSequenceDictionary;
-import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
@@ -72,6 +69,11 @@ public class SageApplication implements AutoCloseable
 
         BaseQualityRecalibration baseQualityRecalibration = new BaseQualityRecalibration(
                 mConfig.Common, mRefData.RefGenome, mConfig.PanelBed, mConfig.TumorIds, mConfig.TumorBams);
+
+        // tumor BQR can only be gathered from the candidate stage's reads if these cover the BQR regions
+        if(mConfig.Common.BQR.SinglePass && !mConfig.PanelOnly && mConfig.Common.SpecificChrRegions.Regions.isEmpty())
+            baseQualityRecalibration.setStreamTumorSamples();
+
         baseQualityRecalibration.produceRecalibrationMap();
 
         if(!baseQualityRecalibration.isValid())
@@ -83,21 +85,12 @@ public class SageApplication implements AutoCloseable
             return;
         }
 
-        final Map<String, BqrRecordMap> recalibrationMap = baseQualityRecalibration.getSampleRecalibrationMap();
-
         final SAMSequenceDictionary dictionary = dictionary();
-        for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
-        {
-            final String chromosome = samSequenceRecord.getSequenceName();
-
-            if(!mConfig.Common.processChromosome(chromosome))
-                continue;
 
-            final ChromosomePipeline pipeline = new ChromosomePipeline(
-                    chromosome, mConfig, mRefData, recalibrationMap, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
+        final GenomePipeline pipeline = new GenomePipeline(
+                mConfig, mRefData, dictionary, baseQualityRecalibration, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
 
-            pipeline.process();
-        }
+        pipeline.process();
 
         coverage.writeFiles(mConfig.Common.OutputFile);
         mFragmentLengths.close();
@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.sage;
 
+import static com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome.REF_GENOME_PACKED;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.REF_GENOME;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource.addRefGenomeConfig;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.V37;
@@ -37,6 +38,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.region.SpecificRegions;
@@ -61,6 +63,7 @@ public class SageConfig
     public final String SampleDataDir;
 
     public final String RefGenomeFile;
+    public final String RefGenomePackedFile; // optional memory-mapped copy of the ref genome shared by all region threads
     public final RefGenomeVersion RefGenVersion;
     public final String OutputFile;
     public final FilterConfig Filter;
@@ -142,6 +145,7 @@ public class SageConfig
         OutputFile = SampleDataDir + configBuilder.getValue(OUTPUT_VCF);
 
         RefGenomeFile = configBuilder.getValue(REF_GENOME);
+        RefGenomePackedFile = configBuilder.getValue(REF_GENOME_PACKED, null);
 
         BamStringency = BamUtils.validationStringency(configBuilder);
         RegionSliceSize = configBuilder.getInteger(SLICE_SIZE);
@@ -300,6 +304,7 @@ public class SageConfig
         configBuilder.addConfigItem(OUTPUT_VCF, true, "Output VCF filename");
 
         addRefGenomeConfig(configBuilder, true);
+        PackedRefGenome.addConfig(configBuilder);
 
         // is this common?
         configBuilder.addInteger(
@@ -356,6 +361,7 @@ public class SageConfig
         mReadLength = DEFAULT_READ_LENGTH;
         MaxPartitionSlices = 1;
         RefGenomeFile = "refGenome";
+        RefGenomePackedFile = null;
         OutputFile = "out.vcf";
         Version = "1.0";
         Threads = 1;
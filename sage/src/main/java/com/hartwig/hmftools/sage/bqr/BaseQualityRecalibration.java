@@ -40,6 +40,7 @@ import com.hartwig.hmftools.sage.SageConfig;
 
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
 
 public class BaseQualityRecalibration
@@ -56,6 +57,11 @@ public class BaseQualityRecalibration
     private final BaseQualityResults mResults;
     private boolean mIsValid;
 
+    // tumor BQR counts gathered by the caller from its own reads over the BQR regions, rather than a separate BAM pass
+    private boolean mStreamTumorSamples;
+    private final Map<String,List<ChrBaseRegion>> mStreamedRegions;
+    private final Map<String,BaseQualityResults> mStreamedSampleResults;
+
     public BaseQualityRecalibration(
             final SageConfig config, final IndexedFastaSequenceFile refGenome, final String panelBedFile,
             final List<String> tumorIds, final List<String> tumorBams)
@@ -71,12 +77,19 @@ public class BaseQualityRecalibration
         mRegions = new ConcurrentLinkedQueue<>();
         mResults = new BaseQualityResults();
         mIsValid = true;
+
+        mStreamTumorSamples = false;
+        mStreamedRegions = Maps.newHashMap();
+        mStreamedSampleResults = Maps.newHashMap();
     }
 
     public boolean isValid(){ return mIsValid; }
 
     public Map<String,BqrRecordMap> getSampleRecalibrationMap() { return mSampleRecalibrationMap; }
 
+    public void setStreamTumorSamples() { mStreamTumorSamples = true; }
+    public boolean streamTumorSamples() { return mStreamTumorSamples; }
+
     public void setKnownVariants(final List<VariantContext> variants)
     {
         for(VariantContext variant : variants)
@@ -140,9 +153,19 @@ public class BaseQualityRecalibration
             processSample(mConfig.ReferenceIds.get(i), mConfig.ReferenceBams.get(i), regions);
         }
 
-        for(int i = 0; i < mTumorIds.size(); i++)
+        if(mStreamTumorSamples)
         {
-            processSample(mTumorIds.get(i), mTumorBams.get(i), regions);
+            regions.forEach(x -> mStreamedRegions.computeIfAbsent(x.Chromosome, k -> Lists.newArrayList()).add(x));
+            mTumorIds.forEach(x -> mStreamedSampleResults.put(x, new BaseQualityResults()));
+
+            SG_LOGGER.info("tumor base quality recalibration deferred to candidate stage");
+        }
+        else
+        {
+            for(int i = 0; i < mTumorIds.size(); i++)
+            {
+                processSample(mTumorIds.get(i), mTumorBams.get(i), regions);
+            }
         }
 
         if(mConfig.logPerfStats())
@@ -173,8 +196,35 @@ public class BaseQualityRecalibration
             System.exit(1);
 
         // merge results for this sample across all regions
-        final Map<BqrKey,Integer> allQualityCounts = mResults.getCombinedQualityCounts();
+        finaliseSample(sampleId, mResults.getCombinedQualityCounts());
+
+        recordWriter.close();
+    }
+
+    public boolean overlapsStreamedRegions(final ChrBaseRegion region)
+    {
+        List<ChrBaseRegion> chrRegions = mStreamedRegions.get(region.Chromosome);
+        return chrRegions != null && chrRegions.stream().anyMatch(x -> x.overlaps(region));
+    }
+
+    public BqrStreamCounter createStreamCounter(final ReferenceSequenceFile refGenome)
+    {
+        return new BqrStreamCounter(mConfig, mTumorIds, refGenome, mStreamedSampleResults, mStreamedRegions);
+    }
 
+    public void finaliseStreamedSamples()
+    {
+        // build the tumor recalibration maps from counts gathered during the candidate stage
+        for(String sampleId : mTumorIds)
+        {
+            finaliseSample(sampleId, mStreamedSampleResults.get(sampleId).getCombinedQualityCounts());
+        }
+
+        SG_LOGGER.info("base quality recalibration cache generated for {} tumor samples", mTumorIds.size());
+    }
+
+    private void finaliseSample(final String sampleId, final Map<BqrKey,Integer> allQualityCounts)
+    {
         final List<BqrRecord> records = convertToRecords(allQualityCounts);
 
         mSampleRecalibrationMap.put(sampleId, new BqrRecordMap(records));
@@ -182,8 +232,6 @@ public class BaseQualityRecalibration
         // write results to file
         if(mConfig.BQR.WriteFile)
             writeSampleData(sampleId, records);
-
-        recordWriter.close();
     }
 
     private void buildEmptyRecalibrations()
@@ -18,6 +18,7 @@ public class BqrConfig
     public final boolean WriteReads;
     public final boolean FullBam;
     public final boolean ExcludeKnown;
+    public final boolean SinglePass;
     public final int SampleSize;
     public final int MinMapQuality;
 
@@ -26,6 +27,7 @@ public class BqrConfig
     private static final String FULL_BAM = "bqr_full_bam";
     private static final String EXCLUDE_KNOWN_VARIANTS = "bqr_exclude_known";
     private static final String USE_PANEL = "bqr_use_panel";
+    private static final String SINGLE_PASS = "bqr_single_pass";
     private static final String WRITE_BQR_READS = "bqr_write_reads";
     private static final String WRITE_BQR_POSITIONS = "bqr_write_positions";
     private static final String WRITE_BQR_PLOT = "bqr_write_plot";
@@ -61,6 +63,10 @@ public class BqrConfig
         ExcludeKnown = configBuilder.hasFlag(EXCLUDE_KNOWN_VARIANTS);
         UsePanel = configBuilder.hasFlag(USE_PANEL);
 
+        // tumor counts are taken from the candidate stage's reads, so not applicable if BQR is loaded or reads are written, and
+        // not for a full BAM since the candidates of every partition covered by BQR are held until it is finalised
+        SinglePass = configBuilder.hasFlag(SINGLE_PASS) && Enabled && !LoadBqrFiles && !WriteReads && !WritePositions && !FullBam;
+
         SampleSize = configBuilder.getInteger(BQR_SAMPLE_SIZE);
         MinMapQuality = configBuilder.getInteger(BQR_MIN_MAP_QUAL);
     }
@@ -78,6 +84,7 @@ public class BqrConfig
         ExcludeKnown = false;
         FullBam = false;
         UsePanel = false;
+        SinglePass = false;
     }
 
     public static boolean useReadType(final SageConfig config)
@@ -95,6 +102,8 @@ public class BqrConfig
         configBuilder.addFlag(LOAD_BQR_FILES, "Attemps to find and load previously-written BQR files");
         configBuilder.addFlag(FULL_BAM, "Run over full BAM");
         configBuilder.addFlag(USE_PANEL, "Run on panel only");
+        configBuilder.addFlag(
+                SINGLE_PASS, "Collect tumor BQR counts from the candidate stage's reads over the BQR regions, avoiding a separate BAM pass");
         configBuilder.addFlag(EXCLUDE_KNOWN_VARIANTS, "Exclude known variants in append mode");
         configBuilder.addInteger(BQR_SAMPLE_SIZE, "BQR sampling size per autosome", SageConstants.BQR_SAMPLE_SIZE);
         configBuilder.addInteger(BQR_MIN_MAP_QUAL, "BQR min base quality remap qual", DEFAULT_BQR_MIN_MAP_QUAL);
@@ -160,6 +160,16 @@ public class BqrRegionReader implements CigarHandler
         mResults.addPerfCounter(mPerfCounter);
     }
 
+    public void completeStreamedRegion()
+    {
+        // used when reads are supplied via processRecord from another slicer, rather than read from this reader's BAM
+        buildQualityCounts();
+
+        mKeyCountsMap.clear();
+
+        mResults.addBaseQualityRegionCounter(this);
+    }
+
     @VisibleForTesting
     protected void buildQualityCounts()
     {
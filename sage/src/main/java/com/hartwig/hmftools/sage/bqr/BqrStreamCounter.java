@@ -0,0 +1,116 @@
+package com.hartwig.hmftools.sage.bqr;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.bam.BamSlicerFilter;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.SageConfig;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+public class BqrStreamCounter
+{
+    // gathers BQR key counts from reads sliced by another stage, one instance per thread
+    // only positions within the BQR regions are counted - each region overlapping the current partition is counted by its own
+    // region reader per tumor sample, so that the counts match those of a separate BQR pass over the same regions
+    private final SageConfig mConfig;
+    private final List<String> mSampleIds;
+    private final ReferenceSequenceFile mRefGenome;
+    private final Map<String,BaseQualityResults> mSampleResults;
+    private final Map<String,List<ChrBaseRegion>> mChrRegions;
+    private final BamSlicerFilter mReadFilter;
+
+    // readers are reused across partitions, and only the first mActiveRegions.size() per sample are in use
+    private final Map<String,List<BqrRegionReader>> mSampleReaders;
+    private final List<ChrBaseRegion> mActiveRegions;
+
+    public BqrStreamCounter(
+            final SageConfig config, final List<String> sampleIds, final ReferenceSequenceFile refGenome,
+            final Map<String,BaseQualityResults> sampleResults, final Map<String,List<ChrBaseRegion>> chrRegions)
+    {
+        mConfig = config;
+        mSampleIds = sampleIds;
+        mRefGenome = refGenome;
+        mSampleResults = sampleResults;
+        mChrRegions = chrRegions;
+
+        mSampleReaders = Maps.newHashMap();
+        sampleIds.forEach(x -> mSampleReaders.put(x, Lists.newArrayList()));
+        mActiveRegions = Lists.newArrayList();
+
+        // apply the same read filters as the standard BQR slicer
+        mReadFilter = new BamSlicerFilter(config.BQR.MinMapQuality, false, false, false);
+    }
+
+    public void initialise(final ChrBaseRegion partition)
+    {
+        mActiveRegions.clear();
+
+        List<ChrBaseRegion> chrRegions = mChrRegions.get(partition.Chromosome);
+
+        if(chrRegions == null)
+            return;
+
+        for(ChrBaseRegion region : chrRegions)
+        {
+            if(region.overlaps(partition))
+            {
+                mActiveRegions.add(new ChrBaseRegion(
+                        partition.Chromosome, max(region.start(), partition.start()), min(region.end(), partition.end())));
+            }
+        }
+
+        for(String sampleId : mSampleIds)
+        {
+            List<BqrRegionReader> regionReaders = mSampleReaders.get(sampleId);
+
+            for(int i = 0; i < mActiveRegions.size(); ++i)
+            {
+                if(i >= regionReaders.size())
+                    regionReaders.add(new BqrRegionReader(mConfig, null, mRefGenome, mSampleResults.get(sampleId), null));
+
+                regionReaders.get(i).initialise(mActiveRegions.get(i), Collections.emptySet());
+            }
+        }
+    }
+
+    public void processRecord(final String sampleId, final SAMRecord record)
+    {
+        if(mActiveRegions.isEmpty() || !mReadFilter.passesFilters(record))
+            return;
+
+        List<BqrRegionReader> regionReaders = mSampleReaders.get(sampleId);
+
+        if(regionReaders == null)
+            return;
+
+        for(int i = 0; i < mActiveRegions.size(); ++i)
+        {
+            ChrBaseRegion region = mActiveRegions.get(i);
+
+            if(record.getAlignmentStart() <= region.end() && record.getAlignmentEnd() >= region.start())
+                regionReaders.get(i).processRecord(record);
+        }
+    }
+
+    public void completeRegion()
+    {
+        for(List<BqrRegionReader> regionReaders : mSampleReaders.values())
+        {
+            for(int i = 0; i < mActiveRegions.size(); ++i)
+            {
+                regionReaders.get(i).completeStreamedRegion();
+            }
+        }
+
+        mActiveRegions.clear();
+    }
+}
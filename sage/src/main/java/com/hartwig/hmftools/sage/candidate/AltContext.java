@@ -59,6 +59,12 @@ public class AltContext extends SimpleVariant
         mRawBaseQualityAlt += baseQuality;
     }
 
+    public void incrementAltReads(int count, int baseQualityTotal)
+    {
+        mRawSupportAlt += count;
+        mRawBaseQualityAlt += baseQualityTotal;
+    }
+
     public void addReadContext(int numberOfEvents, final VariantReadContext newReadContext)
     {
         if(!newReadContext.isValid())
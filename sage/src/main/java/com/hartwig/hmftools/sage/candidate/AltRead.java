@@ -6,22 +6,21 @@ import org.jetbrains.annotations.Nullable;
 
 public class AltRead
 {
+    public final int Position;
     public final String Ref;
     public final String Alt;
     public final int BaseQuality;
     public final int NumberOfEvents;
     public final boolean SufficientMapQuality;
 
-    private final RefContext mRefContext;
-
     @Nullable
     private VariantReadContext mReadContext;
 
     public AltRead(
-            final RefContext refContext, final String ref, final String alt, final int baseQuality, final int numberOfEvents,
+            final int position, final String ref, final String alt, final int baseQuality, final int numberOfEvents,
             final boolean sufficientMapQuality, final VariantReadContext readContext)
     {
-        mRefContext = refContext;
+        Position = position;
         Ref = ref;
         Alt = alt;
         BaseQuality = baseQuality;
@@ -31,10 +30,7 @@ public class AltRead
         mReadContext = readContext;
     }
 
-    public int position()
-    {
-        return mRefContext.position();
-    }
+    public int position() { return Position; }
 
     public boolean isIndel()
     {
@@ -46,10 +42,8 @@ public class AltRead
         return Math.abs(Ref.length() - Alt.length());
     }
 
-    public void updateRefContext()
-    {
-        mRefContext.processAltRead(Ref, Alt, BaseQuality, NumberOfEvents, mReadContext);
-    }
+    @Nullable
+    public VariantReadContext readContext() { return mReadContext; }
 
     public String toString() { return String.format("%d: %s>%s", position(), Ref, Alt); }
 }
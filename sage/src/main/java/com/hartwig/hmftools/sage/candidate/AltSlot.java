@@ -0,0 +1,129 @@
+package com.hartwig.hmftools.sage.candidate;
+
+import static java.lang.String.format;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.common.VariantReadContext;
+
+public class AltSlot
+{
+    // a pooled, reusable holder for the raw counts of one alt at one position - an AltContext is only created once the alt
+    // reaches the required support, with any read contexts seen before then held and replayed in order
+    private String mChromosome;
+    private int mPosition;
+    private String mRef;
+    private String mAlt;
+
+    private int mRawSupportAlt;
+    private int mRawBaseQualityAlt;
+
+    private final List<VariantReadContext> mPendingReadContexts;
+    private int[] mPendingNumberOfEvents;
+
+    private AltContext mAltContext;
+    private AltSlot mNext; // next alt at the same position
+
+    public AltSlot()
+    {
+        mPendingReadContexts = Lists.newArrayList();
+        mPendingNumberOfEvents = new int[2];
+        clear();
+    }
+
+    public void set(final String chromosome, int position, final String ref, final String alt)
+    {
+        mChromosome = chromosome;
+        mPosition = position;
+        mRef = ref;
+        mAlt = alt;
+    }
+
+    public void clear()
+    {
+        mChromosome = null;
+        mPosition = 0;
+        mRef = null;
+        mAlt = null;
+        mRawSupportAlt = 0;
+        mRawBaseQualityAlt = 0;
+        mPendingReadContexts.clear();
+        mAltContext = null;
+        mNext = null;
+    }
+
+    public String chromosome() { return mChromosome; }
+    public int position() { return mPosition; }
+    public String ref() { return mRef; }
+    public String alt() { return mAlt; }
+    public int rawAltSupport() { return mRawSupportAlt; }
+    public int rawAltBaseQuality() { return mRawBaseQualityAlt; }
+
+    public AltSlot next() { return mNext; }
+    public void setNext(final AltSlot next) { mNext = next; }
+
+    public boolean matches(final String ref, final String alt) { return mRef.equals(ref) && mAlt.equals(alt); }
+
+    public boolean hasAltContext() { return mAltContext != null; }
+
+    public void processAltRead(int baseQuality, int numberOfEvents, final VariantReadContext readContext, int materialiseSupport)
+    {
+        mRawSupportAlt++;
+        mRawBaseQualityAlt += baseQuality;
+
+        if(mAltContext != null)
+        {
+            mAltContext.incrementAltRead(baseQuality);
+
+            if(readContext != null)
+                mAltContext.addReadContext(numberOfEvents, readContext);
+
+            return;
+        }
+
+        if(readContext != null)
+            addPendingReadContext(numberOfEvents, readContext);
+
+        if(mRawSupportAlt >= materialiseSupport)
+            altContext();
+    }
+
+    public AltContext altContext()
+    {
+        if(mAltContext != null)
+            return mAltContext;
+
+        mAltContext = new AltContext(new RefContext(mChromosome, mPosition), mRef, mAlt);
+        mAltContext.incrementAltReads(mRawSupportAlt, mRawBaseQualityAlt);
+
+        for(int i = 0; i < mPendingReadContexts.size(); ++i)
+        {
+            mAltContext.addReadContext(mPendingNumberOfEvents[i], mPendingReadContexts.get(i));
+        }
+
+        mPendingReadContexts.clear();
+
+        return mAltContext;
+    }
+
+    private void addPendingReadContext(int numberOfEvents, final VariantReadContext readContext)
+    {
+        int index = mPendingReadContexts.size();
+
+        if(index >= mPendingNumberOfEvents.length)
+        {
+            int[] numberOfEventsArray = new int[mPendingNumberOfEvents.length * 2];
+            System.arraycopy(mPendingNumberOfEvents, 0, numberOfEventsArray, 0, mPendingNumberOfEvents.length);
+            mPendingNumberOfEvents = numberOfEventsArray;
+        }
+
+        mPendingNumberOfEvents[index] = numberOfEvents;
+        mPendingReadContexts.add(readContext);
+    }
+
+    public String toString()
+    {
+        return format("%s:%d %s>%s support(%d) materialised(%s)", mChromosome, mPosition, mRef, mAlt, mRawSupportAlt, hasAltContext());
+    }
+}
@@ -5,7 +5,6 @@ import static java.lang.Math.max;
 import static com.hartwig.hmftools.sage.SageConstants.DEFAULT_READ_LENGTH;
 import static com.hartwig.hmftools.sage.common.EvictingArray.MIN_CAPACITY;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
@@ -13,7 +12,7 @@ import java.util.function.Consumer;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.codon.Nucleotides;
 import com.hartwig.hmftools.common.region.BaseRegion;
-import com.hartwig.hmftools.sage.common.EvictingArray;
+import com.hartwig.hmftools.sage.common.AltSlotArray;
 import com.hartwig.hmftools.sage.SageConfig;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
 import com.hartwig.hmftools.sage.select.HotspotSelector;
@@ -22,7 +21,7 @@ import com.hartwig.hmftools.sage.select.PanelSelector;
 public class RefContextCache
 {
     private final SageConfig mConfig;
-    private final EvictingArray mEvictingArray;
+    private final AltSlotArray mAltSlotArray;
     private final PanelSelector mPanelSelector;
     private final List<AltContext> mSavedCandidates;
     private final HotspotSelector mHotspotSelector;
@@ -35,74 +34,72 @@ public class RefContextCache
 
         mHotspotSelector = new HotspotSelector(hotspots);
 
-        final Consumer<RefContext> evictionHandler = (refContext) -> processAltContexts(refContext);
+        final Consumer<AltSlot> evictionHandler = (altSlot) -> processAltSlot(altSlot);
 
         int minCapacity = config.getReadLength() == DEFAULT_READ_LENGTH ?
                 MIN_CAPACITY : max(MIN_CAPACITY, config.getReadLength() * 2);
 
-        mEvictingArray = new EvictingArray(minCapacity, evictionHandler);
+        // alts only need an AltContext once they have reached the hard-filter support, or are hotspots checked at eviction
+        mAltSlotArray = new AltSlotArray(minCapacity, config.Filter.HardMinTumorRawAltSupport, evictionHandler);
     }
 
     public PanelSelector panelSelector() { return mPanelSelector; }
 
-    public void registerDepthLimit(int position, int limit) { mEvictingArray.registerDepthLimit(position, limit);}
-    public void incrementDepth(int position) { mEvictingArray.registerDepth(position); }
+    public void registerDepthLimit(int position, int limit) { mAltSlotArray.registerDepthLimit(position, limit);}
+    public void incrementDepth(int position) { mAltSlotArray.registerDepth(position); }
 
-    public Boolean exceedsDepthLimit(int position) { return mEvictingArray.exceedsDepthLimit(position); }
+    public Boolean exceedsDepthLimit(int position) { return mAltSlotArray.exceedsDepthLimit(position); }
 
-    public RefContext getOrCreateRefContext(final String chromosome, int position)
+    public boolean registerAltPosition(int position) { return mAltSlotArray.registerPosition(position); }
+
+    public void processAltRead(final String chromosome, final AltRead altRead)
     {
-        return mEvictingArray.getOrCreateRefContext(position, aLong -> new RefContext(chromosome, position));
+        mAltSlotArray.processAltRead(
+                chromosome, altRead.Position, altRead.Ref, altRead.Alt, altRead.BaseQuality, altRead.NumberOfEvents, altRead.readContext());
     }
 
     public List<AltContext> altContexts()
     {
-        mEvictingArray.evictAll();
+        mAltSlotArray.evictAll();
         Collections.sort(mSavedCandidates);
         return mSavedCandidates;
     }
 
-    private void processAltContexts(final RefContext refContext)
+    private void processAltSlot(final AltSlot altSlot)
     {
-        Collection<AltContext> altContexts = refContext.altContexts();
-
-        if(altContexts == null)
+        if(!hasValidDnaBases(altSlot.ref()))
             return;
 
-        for(AltContext altContext : altContexts)
-        {
-            if(!hasValidDnaBases(altContext))
-                continue;
+        if(!passesTumorHardLimits(altSlot))
+            return;
 
-            if(!passesTumorHardLimits(altContext))
-                continue;
+        AltContext altContext = altSlot.altContext();
 
-            altContext.selectCandidates();
+        altContext.selectCandidates();
 
-            if(altContext.hasValidCandidate())
-                mSavedCandidates.add(altContext);
+        if(altContext.hasValidCandidate())
+            mSavedCandidates.add(altContext);
 
-            if(altContext.hasSecondCandidate())
-                mSavedCandidates.add(altContext.secondCandidate());
-        }
+        if(altContext.hasSecondCandidate())
+            mSavedCandidates.add(altContext.secondCandidate());
     }
 
-    private boolean hasValidDnaBases(final AltContext altContext)
+    private static boolean hasValidDnaBases(final String ref)
     {
-        for(int i = 0; i < altContext.ref().length(); i++)
+        for(int i = 0; i < ref.length(); i++)
         {
-            if(!Nucleotides.isValidDnaBase(altContext.ref().charAt(i)))
+            if(!Nucleotides.isValidDnaBase(ref.charAt(i)))
                 return false;
         }
 
         return true;
     }
 
-    public boolean passesTumorHardLimits(final AltContext altContext)
+    private boolean passesTumorHardLimits(final AltSlot altSlot)
     {
-        if(mHotspotSelector.isHotspot(altContext))
+        if(altSlot.rawAltSupport() >= mConfig.Filter.HardMinTumorRawAltSupport)
             return true;
 
-        return altContext.rawAltSupport() >= mConfig.Filter.HardMinTumorRawAltSupport;
+        return mHotspotSelector.isHotspot(altSlot.position(), altSlot.ref(), altSlot.alt());
     }
 }
@@ -180,7 +180,7 @@ public class RefContextConsumer
 
         for(AltRead altRead : altReads)
         {
-            altRead.updateRefContext();
+            mRefContextCache.processAltRead(record.getContig(), altRead);
 
             if(altRead.SufficientMapQuality)
                 mRefContextCache.incrementDepth(altRead.position());
@@ -264,7 +264,8 @@ public class RefContextConsumer
         String ref = new String(mRefSequence.Bases, refIndex, 1);
         String alt = new String(record.getReadBases(), readIndex, element.getLength() + 1);
 
-        RefContext refContext = mRefContextCache.getOrCreateRefContext(record.getContig(), refPosition);
+        if(!mRefContextCache.registerAltPosition(refPosition))
+            return null;
 
         int baseQuality = baseQuality(readIndex, record, alt.length());
 
@@ -275,7 +276,7 @@ public class RefContextConsumer
         if(readContext == null)
             return null;
 
-        return new AltRead(refContext, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
+        return new AltRead(refPosition, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
     }
 
     private AltRead processDel(
@@ -299,8 +300,7 @@ public class RefContextConsumer
         final String ref = new String(mRefSequence.Bases, refIndex, element.getLength() + 1);
         final String alt = new String(record.getReadBases(), readIndex, 1);
 
-        final RefContext refContext = mRefContextCache.getOrCreateRefContext(record.getContig(), refPosition);
-        if(refContext != null)
+        if(mRefContextCache.registerAltPosition(refPosition))
         {
             int baseQuality = baseQuality(readIndex, record, 2);
 
@@ -311,7 +311,7 @@ public class RefContextConsumer
             if(readContext == null)
                 return null;
 
-            return new AltRead(refContext, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
+            return new AltRead(refPosition, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
         }
 
         return null;
@@ -350,8 +350,7 @@ public class RefContextConsumer
 
             if(readByte != refByte)
             {
-                final RefContext refContext = mRefContextCache.getOrCreateRefContext(record.getContig(), refPosition);
-                if(refContext == null)
+                if(!mRefContextCache.registerAltPosition(refPosition))
                     continue;
 
                 int baseQuality = record.getBaseQualities()[readBaseIndex];
@@ -361,7 +360,7 @@ public class RefContextConsumer
                 VariantReadContext readContext = mReadContextBuilder.createContext(variant, record, readBaseIndex, mRefSequence);
 
                 if(readContext != null)
-                    result.add(new AltRead(refContext, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext));
+                    result.add(new AltRead(refPosition, ref, alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext));
 
                 int mnvMaxLength = mnvLength(readBaseIndex, refBaseIndex, record.getReadBases(), mRefSequence.Bases);
 
@@ -388,7 +387,7 @@ public class RefContextConsumer
                         if(readContext != null)
                         {
                             result.add(new AltRead(
-                                    refContext, mnvRef, mnvAlt, baseQuality, NumberEvents.calcWithMnvRaw(numberOfEvents, mnvRef, mnvAlt),
+                                    refPosition, mnvRef, mnvAlt, baseQuality, NumberEvents.calcWithMnvRaw(numberOfEvents, mnvRef, mnvAlt),
                                     sufficientMapQuality, mnvReadContext));
                         }
                     }
@@ -445,7 +444,8 @@ public class RefContextConsumer
         if(reachedDepthLimit(refPosition, panelStatus))
             return null;
 
-        RefContext refContext = mRefContextCache.getOrCreateRefContext(record.getContig(), refPosition);
+        if(!mRefContextCache.registerAltPosition(refPosition))
+            return null;
 
         int baseQuality = baseQuality(readIndex, record, altRead.Alt.length());
 
@@ -457,7 +457,7 @@ public class RefContextConsumer
 
         boolean sufficientMapQuality = record.getMappingQuality() >= mConfig.MinMapQuality;
 
-        AltRead altReadFull = new AltRead(refContext, altRead.Ref, altRead.Alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
+        AltRead altReadFull = new AltRead(refPosition, altRead.Ref, altRead.Alt, baseQuality, numberOfEvents, sufficientMapQuality, readContext);
         return altReadFull;
     }
 
@@ -498,7 +498,7 @@ public class RefContextConsumer
             String ref = readBases.substring(impliedVarIndex, impliedVarIndex + 1);
             String alt = readBases.substring(impliedVarIndex, impliedVarIndex + altLength + 1);
 
-            return new AltRead(null, ref, alt, 0, 0, false, null);
+            return new AltRead(0, ref, alt, 0, 0, false, null);
         }
         else
         {
@@ -525,7 +525,7 @@ public class RefContextConsumer
             String ref = readBases.substring(impliedVarIndex, impliedVarIndex + 1);
             String alt = readBases.substring(impliedVarIndex, impliedVarIndex + altLength + 1);
 
-            return new AltRead(null, ref, alt, 0, 0, false, null);
+            return new AltRead(0, ref, alt, 0, 0, false, null);
         }
     }
 
@@ -0,0 +1,229 @@
+package com.hartwig.hmftools.sage.common;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import com.hartwig.hmftools.sage.candidate.AltSlot;
+
+public class AltSlotArray
+{
+    // a ring buffer holding depth and depth limit as primitive columns indexed by position offset, with each position's alts held in
+    // a chain of pooled slots which are returned to the pool on eviction, so the buffer itself allocates nothing per position - an
+    // AltContext is only created for alts reaching the materialisation support, or on demand at eviction, though each alt read still
+    // brings the read context built for it by the caller
+    private final AltSlot[] mAltSlots;
+    private final int[] mDepth;
+    private final int[] mDepthLimit;
+    private final Deque<AltSlot> mSlotPool;
+    private final Consumer<AltSlot> mEvictionHandler;
+    private final int mMaterialiseSupport;
+    private int mMinPosition;
+    private int mMinPositionIndex;
+
+    private final int mCapacity;
+
+    public static final int NO_DEPTH = -1;
+
+    public AltSlotArray(int capacity, int materialiseSupport, final Consumer<AltSlot> evictionHandler)
+    {
+        mEvictionHandler = evictionHandler;
+        mMaterialiseSupport = materialiseSupport;
+        mCapacity = capacity;
+        mAltSlots = new AltSlot[mCapacity];
+        mDepth = new int[mCapacity];
+        mDepthLimit = new int[mCapacity];
+        mSlotPool = new ArrayDeque<>();
+        mMinPosition = 0;
+        mMinPositionIndex = 0;
+    }
+
+    public int minPosition() { return mMinPosition; }
+    public int capacity() { return mCapacity; }
+    public int pooledSlotCount() { return mSlotPool.size(); }
+
+    public int getDepth(int position)
+    {
+        // returns NO_DEPTH for positions outside the buffer
+        int distanceFromMinPosition = position - mMinPosition;
+        if(distanceFromMinPosition < 0 || distanceFromMinPosition >= mCapacity)
+            return NO_DEPTH;
+
+        return mDepth[calcIndex(distanceFromMinPosition)];
+    }
+
+    public @Nullable Boolean exceedsDepthLimit(int position)
+    {
+        int distanceFromMinPosition = position - mMinPosition;
+        if(distanceFromMinPosition < 0 || distanceFromMinPosition >= mCapacity)
+            return null;
+
+        int index = calcIndex(distanceFromMinPosition);
+        if(mDepthLimit[index] == 0)
+            return null;
+
+        return mDepth[index] >= mDepthLimit[index];
+    }
+
+    public void registerDepthLimit(int position, int limit)
+    {
+        if(!isValidPosition(position, "registerDepthLimit"))
+            return;
+
+        checkFlush(position);
+
+        mDepthLimit[calcIndex(position - mMinPosition)] = limit;
+    }
+
+    public void registerDepth(int position)
+    {
+        if(!isValidPosition(position, "registerDepth"))
+            return;
+
+        checkFlush(position);
+
+        ++mDepth[calcIndex(position - mMinPosition)];
+    }
+
+    public boolean registerPosition(int position)
+    {
+        // prepares the buffer to take alt reads at this position, equivalent to creating a ref context
+        if(!isValidPosition(position, "registerPosition"))
+            return false;
+
+        checkFlush(position);
+        return true;
+    }
+
+    public void processAltRead(
+            final String chromosome, int position, final String ref, final String alt, int baseQuality, int numberOfEvents,
+            @Nullable final VariantReadContext readContext)
+    {
+        int distanceFromMinPosition = position - mMinPosition;
+
+        // positions evicted since the read's alts were registered are dropped
+        if(distanceFromMinPosition < 0 || distanceFromMinPosition >= mCapacity)
+            return;
+
+        int index = calcIndex(distanceFromMinPosition);
+
+        AltSlot altSlot = mAltSlots[index];
+        AltSlot lastSlot = null;
+
+        while(altSlot != null)
+        {
+            if(altSlot.matches(ref, alt))
+                break;
+
+            lastSlot = altSlot;
+            altSlot = altSlot.next();
+        }
+
+        if(altSlot == null)
+        {
+            altSlot = mSlotPool.isEmpty() ? new AltSlot() : mSlotPool.pop();
+            altSlot.set(chromosome, position, ref, alt);
+
+            if(lastSlot == null)
+                mAltSlots[index] = altSlot;
+            else
+                lastSlot.setNext(altSlot);
+        }
+
+        altSlot.processAltRead(baseQuality, numberOfEvents, readContext, mMaterialiseSupport);
+    }
+
+    public void evictAll()
+    {
+        checkFlush(-1);
+    }
+
+    private int calcIndex(int distanceFromMinPosition)
+    {
+        if(mMinPositionIndex + distanceFromMinPosition < mCapacity)
+            return mMinPositionIndex + distanceFromMinPosition;
+
+        return distanceFromMinPosition + mMinPositionIndex - mCapacity;
+    }
+
+    private boolean isValidPosition(int position, final String caller)
+    {
+        if(mMinPosition > 0 && position < mMinPosition)
+        {
+            SG_LOGGER.warn("{}: ignoring read with position({}) before prior position({})", caller, position, mMinPosition);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void checkFlush(int position)
+    {
+        int flushCount;
+
+        if(position > 0)
+        {
+            if(mMinPosition == 0)
+            {
+                resetMinPosition(position);
+                return;
+            }
+
+            int distanceFromMinPosition = position - mMinPosition;
+
+            if(distanceFromMinPosition < mCapacity)
+                return;
+
+            flushCount = position - mMinPosition - mCapacity + 1;
+        }
+        else
+        {
+            flushCount = mCapacity;
+        }
+
+        // only iterate at most once through the array
+        for(int i = 0; i < min(flushCount, mCapacity); i++)
+        {
+            AltSlot altSlot = mAltSlots[mMinPositionIndex];
+
+            while(altSlot != null)
+            {
+                AltSlot nextSlot = altSlot.next();
+
+                mEvictionHandler.accept(altSlot);
+
+                altSlot.clear();
+                mSlotPool.push(altSlot);
+                altSlot = nextSlot;
+            }
+
+            mAltSlots[mMinPositionIndex] = null;
+            mDepth[mMinPositionIndex] = 0;
+            mDepthLimit[mMinPositionIndex] = 0;
+
+            mMinPosition++;
+
+            if(mMinPositionIndex + 1 >= mCapacity)
+                mMinPositionIndex = 0;
+            else
+                ++mMinPositionIndex;
+        }
+
+        if(flushCount >= mCapacity)
+            resetMinPosition(position);
+    }
+
+    private void resetMinPosition(int position)
+    {
+        mMinPositionIndex = 0;
+        mMinPosition = max(1, position - (int)round(mCapacity * 0.5));
+    }
+}
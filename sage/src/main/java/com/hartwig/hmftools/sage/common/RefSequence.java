@@ -25,6 +25,9 @@ public class RefSequence
 
         Start = max(1, region.start() - BUFFER);
         End = min(sequenceEnd, region.end() + BUFFER);
+
+        // the bases are held by the region's candidates and evidence until the region completes, so can't come from a reused buffer -
+        // a packed ref genome decodes directly into the new array
         Bases = refGenome.getBases(region.Chromosome, Start, End);
     }
 
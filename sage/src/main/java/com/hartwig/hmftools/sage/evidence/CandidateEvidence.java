@@ -7,6 +7,7 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.SageConfig;
+import com.hartwig.hmftools.sage.bqr.BqrStreamCounter;
 import com.hartwig.hmftools.sage.candidate.AltContext;
 import com.hartwig.hmftools.sage.candidate.RefContextConsumer;
 import com.hartwig.hmftools.sage.candidate.RefContextCache;
@@ -24,6 +25,7 @@ public class CandidateEvidence
     private final List<SimpleVariant> mHotspots;
     private final List<BaseRegion> mPanel;
     private final Coverage mCoverage;
+    private BqrStreamCounter mBqrStreamCounter;
 
     private int mTotalReadsProcessed;
 
@@ -35,9 +37,12 @@ public class CandidateEvidence
         mHotspots = hotspots;
         mCoverage = coverage;
 
+        mBqrStreamCounter = null;
         mTotalReadsProcessed = 0;
     }
 
+    public void setBqrStreamCounter(final BqrStreamCounter bqrStreamCounter) { mBqrStreamCounter = bqrStreamCounter; }
+
     public int totalReadsProcessed() { return mTotalReadsProcessed; }
 
     public List<AltContext> readBam(
@@ -51,6 +56,9 @@ public class CandidateEvidence
         {
             refContextConsumer.processRead(record);
 
+            if(mBqrStreamCounter != null)
+                mBqrStreamCounter.processRecord(sample, record);
+
             if(!geneCoverage.isEmpty())
             {
                 geneCoverage.forEach(x -> x.processRead(record));
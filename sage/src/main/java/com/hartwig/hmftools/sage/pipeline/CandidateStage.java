@@ -9,6 +9,7 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.bqr.BqrStreamCounter;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.candidate.Candidates;
 import com.hartwig.hmftools.sage.candidate.AltContext;
@@ -44,6 +45,8 @@ public class CandidateStage
 
     public int totalReadsProcessed() { return mCandidateEvidence.totalReadsProcessed(); }
 
+    public void setBqrStreamCounter(final BqrStreamCounter bqrStreamCounter) { mCandidateEvidence.setBqrStreamCounter(bqrStreamCounter); }
+
     public List<Candidate> findCandidates(final ChrBaseRegion region, final RefSequence refSequence)
     {
         final Candidates initialCandidates = new Candidates(mHotspots, mPanelRegions, mHighConfidenceRegions);
@@ -1,54 +1,52 @@
 package com.hartwig.hmftools.sage.pipeline;
 
-import static java.lang.Math.min;
-import static java.lang.String.format;
-
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
-import static com.hartwig.hmftools.common.utils.TaskExecutor.runThreadTasks;
-import static com.hartwig.hmftools.sage.ReferenceData.loadRefGenome;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.ReferenceData;
 import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.bqr.BqrStreamCounter;
+import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
-import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 
-public class ChromosomePipeline implements AutoCloseable
+public class ChromosomePipeline
 {
     private final String mChromosome;
     private final SageCallConfig mConfig;
-    private final IndexedFastaSequenceFile mRefGenome;
 
     private final Map<String, BqrRecordMap> mQualityRecalibrationMap;
     private final Coverage mCoverage;
-    private  final PhaseSetCounter mPhaseSetCounter;
-
-    private final VcfWriter mVcfWriter;
+    private final PhaseSetCounter mPhaseSetCounter;
     private final FragmentLengths mFragmentLengths;
-    private final Queue<PartitionTask> mPartitions;
+
     private final RegionResults mRegionResults;
+    private final List<ChrBaseRegion> mPartitions;
+    private int mRemainingPartitions;
+
+    // candidates from a first pass over the partitions covering the BQR regions, held by task ID until tumor BQR is finalised
+    private final Map<Integer,List<Candidate>> mPartitionCandidates;
 
     // cache of chromosome-specific ref data
     private final List<BaseRegion> mPanelRegions;
@@ -57,18 +55,15 @@ public class ChromosomePipeline implements AutoCloseable
     private final List<BaseRegion> mHighConfidenceRegions;
 
     public ChromosomePipeline(
-            final String chromosome, final SageCallConfig config,
-            final ReferenceData refData, final Map<String, BqrRecordMap> qualityRecalibrationMap,
-            final Coverage coverage, final PhaseSetCounter phaseSetCounter, final VcfWriter vcfWriter, final FragmentLengths fragmentLengths)
+            final String chromosome, final SageCallConfig config, final ReferenceData refData, final ReferenceSequenceFile refGenome,
+            final Map<String, BqrRecordMap> qualityRecalibrationMap, final Coverage coverage, final PhaseSetCounter phaseSetCounter,
+            final VcfWriter vcfWriter, final FragmentLengths fragmentLengths)
     {
         mChromosome = chromosome;
         mConfig = config;
-        mRefGenome = loadRefGenome(config.Common.RefGenomeFile);
         mQualityRecalibrationMap = qualityRecalibrationMap;
         mCoverage = coverage;
         mPhaseSetCounter = phaseSetCounter;
-
-        mVcfWriter = vcfWriter;
         mFragmentLengths = fragmentLengths;
 
         final Chromosome chr = HumanChromosome.contains(chromosome)
@@ -79,55 +74,112 @@ public class ChromosomePipeline implements AutoCloseable
         mTranscripts = refData.ChromosomeTranscripts.get(chromosome);
         mHighConfidenceRegions = refData.HighConfidence.get(chr);
 
-        mPartitions = new ConcurrentLinkedQueue<>();
         mRegionResults = new RegionResults(vcfWriter);
 
         // split chromosome into partitions, filtering for the panel if in use
-        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, mRefGenome);
-        List<ChrBaseRegion> partitionedRegions = chrPartition.partition(mChromosome);
+        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, refGenome);
+
+        mPartitions = Lists.newArrayList();
 
-        int taskId = 0;
-        for(int i = 0; i < partitionedRegions.size(); ++i)
+        for(ChrBaseRegion region : chrPartition.partition(mChromosome))
         {
-            ChrBaseRegion region = partitionedRegions.get(i);
+            if(mConfig.PanelOnly && regionPanel(region).isEmpty())
+                continue;
 
-            List<BaseRegion> regionPanel = mPanelRegions != null ? mPanelRegions.stream()
-                    .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
-                    : Lists.newArrayList();
+            mPartitions.add(region);
+        }
 
-            if(mConfig.PanelOnly && regionPanel.isEmpty())
-                continue;
+        mRemainingPartitions = mPartitions.size();
+        mPartitionCandidates = Maps.newHashMap();
+    }
+
+    public String chromosome() { return mChromosome; }
+    public int partitionCount() { return mPartitions.size(); }
+    public RegionResults regionResults() { return mRegionResults; }
 
-            mPartitions.add(new PartitionTask(region, taskId++));
+    public void addPartitionTasks(final List<PartitionTask> partitionTasks)
+    {
+        // task IDs run across all chromosomes so the VCF writer can restore chromosome and position order
+        for(ChrBaseRegion region : mPartitions)
+        {
+            partitionTasks.add(new PartitionTask(region, partitionTasks.size()));
         }
     }
 
-    public String chromosome()
+    public void findPartitionCandidates(
+            final PartitionTask partitionTask, final RefGenomeInterface refGenome, final SamSlicerFactory samSlicerFactory,
+            final BqrStreamCounter bqrStreamCounter)
     {
-        return mChromosome;
+        RegionTask task = createRegionTask(partitionTask, refGenome, samSlicerFactory);
+
+        bqrStreamCounter.initialise(partitionTask.Partition);
+        task.setBqrStreamCounter(bqrStreamCounter);
+
+        List<Candidate> candidates = task.findCandidates();
+
+        bqrStreamCounter.completeRegion();
+
+        synchronized(mPartitionCandidates)
+        {
+            mPartitionCandidates.put(partitionTask.TaskId, candidates);
+        }
     }
 
-    public void process()
+    public void processPartition(
+            final PartitionTask partitionTask, final RefGenomeInterface refGenome, final SamSlicerFactory samSlicerFactory)
     {
-        int regionCount = mPartitions.size();
-        SG_LOGGER.info("chromosome({}) executing {} regions", mChromosome, regionCount);
+        // hold back tasks too far ahead of the next partition to be written, to bound the variants buffered for ordered writing
+        mRegionResults.waitForWriteWindow(partitionTask.TaskId);
+
+        RegionTask task = createRegionTask(partitionTask, refGenome, samSlicerFactory);
 
-        List<Thread> workers = new ArrayList<>();
+        List<Candidate> candidates;
 
-        for(int i = 0; i < min(mPartitions.size(), mConfig.Common.Threads); ++i)
+        synchronized(mPartitionCandidates)
         {
-            workers.add(new RegionThread(
-                    mChromosome, mConfig, mQualityRecalibrationMap, mCoverage, mPhaseSetCounter,
-                    mPanelRegions, mHotspots, mTranscripts, mHighConfidenceRegions, mPartitions, mRegionResults, mFragmentLengths));
+            candidates = mPartitionCandidates.remove(partitionTask.TaskId);
         }
 
-        if(!runThreadTasks(workers))
-            System.exit(1);
+        if(candidates != null)
+            task.processCandidates(candidates);
+        else
+            task.run();
 
-        SG_LOGGER.debug("chromosome({}) {} regions complete, processed {} reads, writing {} variants",
-                mChromosome, regionCount, mRegionResults.totalReads(), mRegionResults.totalVariants());
+        onPartitionComplete();
+    }
+
+    private RegionTask createRegionTask(
+            final PartitionTask partitionTask, final RefGenomeInterface refGenome, final SamSlicerFactory samSlicerFactory)
+    {
+        ChrBaseRegion region = partitionTask.Partition;
+
+        List<BaseRegion> regionPanel = regionPanel(region);
+
+        List<SimpleVariant> regionHotspots = mHotspots != null ? mHotspots.stream()
+                .filter(x -> region.containsPosition(x.position())).collect(Collectors.toList()) : Lists.newArrayList();
 
-        mVcfWriter.flushChromosome();
+        List<TranscriptData> regionsTranscripts = mTranscripts != null ? mTranscripts.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.TransStart, x.TransEnd)).collect(Collectors.toList())
+                : Lists.newArrayList();
+
+        List<BaseRegion> regionHighConfidence = mHighConfidenceRegions != null ? mHighConfidenceRegions.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
+                : Lists.newArrayList();
+
+        return new RegionTask(
+                partitionTask.TaskId, region, mRegionResults, mConfig, refGenome, regionHotspots, regionPanel, regionsTranscripts,
+                regionHighConfidence, mQualityRecalibrationMap, mPhaseSetCounter, mCoverage, samSlicerFactory, mFragmentLengths);
+    }
+
+    private synchronized void onPartitionComplete()
+    {
+        --mRemainingPartitions;
+
+        if(mRemainingPartitions > 0)
+            return;
+
+        SG_LOGGER.debug("chromosome({}) {} regions complete, processed {} reads, writing {} variants",
+                mChromosome, mPartitions.size(), mRegionResults.totalReads(), mRegionResults.totalVariants());
 
         if(mConfig.Common.logPerfStats())
         {
@@ -141,10 +193,10 @@ public class ChromosomePipeline implements AutoCloseable
         SG_LOGGER.info("chromosome({}) analysis complete", mChromosome);
     }
 
-    @Override
-    public void close() throws IOException
+    private List<BaseRegion> regionPanel(final ChrBaseRegion region)
     {
-        mRefGenome.close();
+        return mPanelRegions != null ? mPanelRegions.stream()
+                .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
+                : Lists.newArrayList();
     }
-
 }
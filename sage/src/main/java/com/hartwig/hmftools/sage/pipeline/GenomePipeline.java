@@ -0,0 +1,141 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.TaskExecutor.runThreadTasks;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.refgenome.PackedRefGenome;
+import com.hartwig.hmftools.sage.ReferenceData;
+import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.bqr.BaseQualityRecalibration;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.coverage.Coverage;
+import com.hartwig.hmftools.sage.evidence.FragmentLengths;
+import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
+import com.hartwig.hmftools.sage.vcf.VcfWriter;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class GenomePipeline
+{
+    private final SageCallConfig mConfig;
+    private final VcfWriter mVcfWriter;
+    private final BaseQualityRecalibration mBaseQualityRecalibration;
+
+    // chromosome pipelines are keyed by chromosome and hold the ref data and results for their partitions
+    private final Map<String, ChromosomePipeline> mChromosomePipelines;
+    private final List<PartitionTask> mPartitionTasks;
+    private final Queue<PartitionTask> mPartitions;
+
+    // loaded once and shared by all region threads in place of a FASTA reader per thread, if configured
+    @Nullable private final PackedRefGenome mPackedRefGenome;
+
+    public GenomePipeline(
+            final SageCallConfig config, final ReferenceData refData, final SAMSequenceDictionary dictionary,
+            final BaseQualityRecalibration baseQualityRecalibration, final Coverage coverage, final PhaseSetCounter phaseSetCounter,
+            final VcfWriter vcfWriter, final FragmentLengths fragmentLengths) throws IOException
+    {
+        mConfig = config;
+        mVcfWriter = vcfWriter;
+        mBaseQualityRecalibration = baseQualityRecalibration;
+
+        if(config.Common.RefGenomePackedFile != null)
+        {
+            mPackedRefGenome = PackedRefGenome.loadOrBuild(config.Common.RefGenomeFile, config.Common.RefGenomePackedFile);
+
+            if(mPackedRefGenome == null)
+                throw new IOException(format("failed to load packed ref genome(%s)", config.Common.RefGenomePackedFile));
+        }
+        else
+        {
+            mPackedRefGenome = null;
+        }
+
+        // tumor entries are added after the candidate pass if BQR is run in single-pass mode
+        final Map<String,BqrRecordMap> qualityRecalibrationMap = baseQualityRecalibration.getSampleRecalibrationMap();
+        mChromosomePipelines = Maps.newHashMap();
+
+        // partitions from all chromosomes go into a single queue, in dictionary order, so threads are never held up
+        // waiting for the tail of one chromosome to complete before starting on the next
+        List<PartitionTask> partitionTasks = Lists.newArrayList();
+
+        for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
+        {
+            final String chromosome = samSequenceRecord.getSequenceName();
+
+            if(!mConfig.Common.processChromosome(chromosome))
+                continue;
+
+            ChromosomePipeline chromosomePipeline = new ChromosomePipeline(
+                    chromosome, mConfig, refData, refData.RefGenome, qualityRecalibrationMap, coverage, phaseSetCounter,
+                    vcfWriter, fragmentLengths);
+
+            if(chromosomePipeline.partitionCount() == 0)
+                continue;
+
+            mChromosomePipelines.put(chromosome, chromosomePipeline);
+            chromosomePipeline.addPartitionTasks(partitionTasks);
+        }
+
+        mPartitionTasks = partitionTasks;
+        mPartitions = new ConcurrentLinkedQueue<>();
+    }
+
+    public void process()
+    {
+        int regionCount = mPartitionTasks.size();
+
+        SG_LOGGER.info("executing {} regions across {} chromosomes", regionCount, mChromosomePipelines.size());
+
+        if(mBaseQualityRecalibration.streamTumorSamples())
+        {
+            // partitions overlapping the BQR regions are run first, finding candidates and gathering tumor BQR counts from the same
+            // reads, so only their candidates are held until BQR is finalised before evidence is collected
+            List<PartitionTask> bqrPartitionTasks = mPartitionTasks.stream()
+                    .filter(x -> mBaseQualityRecalibration.overlapsStreamedRegions(x.Partition)).collect(Collectors.toList());
+
+            runRegionThreads(bqrPartitionTasks, true);
+
+            SG_LOGGER.info("candidate pass complete for {} BQR regions", bqrPartitionTasks.size());
+
+            mBaseQualityRecalibration.finaliseStreamedSamples();
+        }
+
+        runRegionThreads(mPartitionTasks, false);
+
+        mVcfWriter.flush();
+
+        SG_LOGGER.info("all {} regions complete", regionCount);
+    }
+
+    private void runRegionThreads(final List<PartitionTask> partitionTasks, boolean streamBqr)
+    {
+        mPartitions.addAll(partitionTasks);
+
+        List<Thread> workers = Lists.newArrayList();
+
+        for(int i = 0; i < min(partitionTasks.size(), mConfig.Common.Threads); ++i)
+        {
+            workers.add(new RegionThread(
+                    mConfig, mChromosomePipelines, mPartitions, streamBqr ? mBaseQualityRecalibration : null, mPackedRefGenome));
+        }
+
+        if(!runThreadTasks(workers))
+            System.exit(1);
+    }
+}
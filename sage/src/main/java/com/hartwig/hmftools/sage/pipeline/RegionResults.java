@@ -34,6 +34,13 @@ public class RegionResults
         mEvidenceStats = new EvidenceStats();
     }
 
+    public void waitForWriteWindow(final int taskId)
+    {
+        // not synchronised since other tasks must be able to register their variants while this one waits
+        if(mVcfWriter != null)
+            mVcfWriter.waitForWriteWindow(taskId);
+    }
+
     public synchronized void addFinalVariants(final int taskId, final List<SageVariant> variants)
     {
         mTotaVariants += variants.size();
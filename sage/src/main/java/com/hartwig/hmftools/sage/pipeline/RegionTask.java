@@ -5,6 +5,7 @@ import static java.lang.String.format;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import static com.hartwig.hmftools.sage.common.RepeatInfo.setReferenceMaxRepeatInfo;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +20,7 @@ import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.bqr.BqrStreamCounter;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.common.RefSequence;
 import com.hartwig.hmftools.sage.common.SageVariant;
@@ -49,6 +51,8 @@ public class RegionTask
     private final EvidenceStage mEvidenceStage;
     private final VariantDeduper mVariantDeduper;
 
+    private RefSequence mRefSequence;
+
     private final List<SageVariant> mSageVariants;
     private final Set<Integer> mPassingPhaseSets;
 
@@ -77,6 +81,7 @@ public class RegionTask
 
         mVariantDeduper = new VariantDeduper(transcripts, mRefGenome, mConfig.Common.getReadLength());
 
+        mRefSequence = null;
         mSageVariants = Lists.newArrayList();
         mPassingPhaseSets = Sets.newHashSet();
 
@@ -88,14 +93,20 @@ public class RegionTask
 
     public final List<SageVariant> getVariants() { return mSageVariants; }
 
+    public void setBqrStreamCounter(final BqrStreamCounter bqrStreamCounter) { mCandidateState.setBqrStreamCounter(bqrStreamCounter); }
+
     public void run()
     {
-        SG_LOGGER.trace("{}: region({}) finding candidates", mTaskId, mRegion);
+        List<Candidate> initialCandidates = findCandidates();
+        processCandidates(initialCandidates);
+    }
 
-        final RefSequence refSequence = new RefSequence(mRegion, mRefGenome);
+    public List<Candidate> findCandidates()
+    {
+        SG_LOGGER.trace("{}: region({}) finding candidates", mTaskId, mRegion);
 
         mPerfCounters.get(PC_CANDIDATES).start();
-        List<Candidate> initialCandidates = mCandidateState.findCandidates(mRegion, refSequence);
+        List<Candidate> initialCandidates = mCandidateState.findCandidates(mRegion, refSequence());
         mPerfCounters.get(PC_CANDIDATES).stop();
 
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_CANDIDATES).getLastTime() > mConfig.Common.PerfWarnTime)
@@ -105,9 +116,19 @@ public class RegionTask
                     String.format("%.3f", mPerfCounters.get(PC_CANDIDATES).getLastTime()));
         }
 
+        mResults.addTotalReads(mCandidateState.totalReadsProcessed());
+
+        return initialCandidates;
+    }
+
+    public void processCandidates(final List<Candidate> initialCandidates)
+    {
+        final RefSequence refSequence = refSequence();
+
         if(initialCandidates.isEmpty())
         {
             SG_LOGGER.trace("{}: region({}) complete with no candidates", mTaskId, mRegion);
+            mResults.addFinalVariants(mTaskId, Collections.emptyList()); // registers completion for ordered writing
             return;
         }
 
@@ -181,10 +202,22 @@ public class RegionTask
 
             finaliseResults();
         }
+        else
+        {
+            mResults.addFinalVariants(mTaskId, Collections.emptyList());
+        }
 
         SG_LOGGER.trace("{}: region({}) complete", mTaskId, mRegion);
     }
 
+    private RefSequence refSequence()
+    {
+        if(mRefSequence == null)
+            mRefSequence = new RefSequence(mRegion, mRefGenome);
+
+        return mRefSequence;
+    }
+
     private void finaliseResults()
     {
         mSageVariants.stream().filter(x -> x.isPassing() && x.hasLocalPhaseSets()).forEach(x -> mPassingPhaseSets.addAll(x.localPhaseSets()));
@@ -203,8 +236,6 @@ public class RegionTask
                     variant, mConfig.TumorIds, mConfig.Common.ReferenceIds, mConfig.Common.Visualiser));
         }
 
-        mResults.addTotalReads(mCandidateState.totalReadsProcessed());
-
         mPerfCounters.add(mEvidenceStage.getVariantPhaser().getPerfCounter());
 
         if(mConfig.Common.logPerfStats())
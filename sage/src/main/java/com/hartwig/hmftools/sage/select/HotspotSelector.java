@@ -17,12 +17,17 @@ public class HotspotSelector
     }
 
     public boolean isHotspot(final SimpleVariant variant)
+    {
+        return isHotspot(variant.position(), variant.ref(), variant.alt());
+    }
+
+    public boolean isHotspot(int position, final String ref, final String alt)
     {
         final AtomicBoolean hotspotMatch = new AtomicBoolean(false);
 
-        mHotspotSelector.select(variant.position(), variant.position(), hotspot ->
+        mHotspotSelector.select(position, position, hotspot ->
         {
-            if(hotspot.alt().equals(variant.alt()) && hotspot.ref().equals(variant.ref()))
+            if(hotspot.alt().equals(alt) && hotspot.ref().equals(ref))
             {
                 hotspotMatch.set(true);
             }
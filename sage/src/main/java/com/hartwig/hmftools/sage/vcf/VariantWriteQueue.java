@@ -0,0 +1,114 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import static java.lang.Math.max;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.common.SageVariant;
+
+public class VariantWriteQueue
+{
+    // writes variants from completed tasks in task order - task indices are assigned in chromosome and position order across the genome
+    // a task waits to begin until it is within a fixed window of the next task to be written, which bounds the completed tasks held
+    private final Consumer<List<SageVariant>> mWriter;
+    private final int mWindowSize;
+
+    private int mLastWrittenIndex;
+    private final List<CompleteVariants> mCompletedVariants;
+
+    public static final int WRITE_WINDOW_TASKS_PER_THREAD = 4;
+
+    public VariantWriteQueue(final Consumer<List<SageVariant>> writer, int threads)
+    {
+        mWriter = writer;
+        mWindowSize = max(threads, 1) * WRITE_WINDOW_TASKS_PER_THREAD;
+        mCompletedVariants = Lists.newArrayList();
+        mLastWrittenIndex = -1;
+    }
+
+    public int windowSize() { return mWindowSize; }
+
+    @VisibleForTesting
+    public synchronized int pendingCount() { return mCompletedVariants.size(); }
+
+    public synchronized void waitForWriteWindow(int taskIndex)
+    {
+        // tasks are taken in index order, so the next task to be written is always held by a thread which is not waiting
+        while(taskIndex > mLastWrittenIndex + mWindowSize)
+        {
+            try
+            {
+                wait();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public synchronized void addCompletedTask(int taskIndex, final List<SageVariant> variants)
+    {
+        if(taskIndex == mLastWrittenIndex + 1)
+        {
+            mWriter.accept(variants);
+            mLastWrittenIndex = taskIndex;
+            checkQueue();
+            notifyAll();
+        }
+        else
+        {
+            int index = 0;
+            while(index < mCompletedVariants.size())
+            {
+                if(taskIndex < mCompletedVariants.get(index).TaskIndex)
+                    break;
+
+                ++index;
+            }
+
+            mCompletedVariants.add(index, new CompleteVariants(taskIndex, variants));
+        }
+    }
+
+    private void checkQueue()
+    {
+        while(!mCompletedVariants.isEmpty())
+        {
+            CompleteVariants completeVariants = mCompletedVariants.get(0);
+
+            if(completeVariants.TaskIndex > mLastWrittenIndex + 1)
+                return;
+
+            mWriter.accept(completeVariants.Variants);
+            mLastWrittenIndex = completeVariants.TaskIndex;
+            mCompletedVariants.remove(0);
+        }
+    }
+
+    public synchronized void flush()
+    {
+        mCompletedVariants.forEach(x -> mWriter.accept(x.Variants));
+        mCompletedVariants.clear();
+        mLastWrittenIndex = -1;
+        notifyAll();
+    }
+
+    private class CompleteVariants
+    {
+        public final int TaskIndex;
+        public final List<SageVariant> Variants;
+
+        public CompleteVariants(int taskIndex, final List<SageVariant> variants)
+        {
+            Variants = variants;
+            TaskIndex = taskIndex;
+        }
+
+        public String toString() { return String.format("%d: %d variants", TaskIndex, Variants.size()); }
+    }
+}
@@ -2,7 +2,6 @@ package com.hartwig.hmftools.sage.vcf;
 
 import java.util.List;
 
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.sage.SageConfig;
 import com.hartwig.hmftools.sage.common.SageVariant;
 
@@ -14,9 +13,8 @@ public class VcfWriter
     private final List<String> mReferenceIds;
     private final VariantVCF mVcfFile;
 
-    // state to write variants in order
-    private int mLastWrittenIndex;
-    private final List<CompleteVariants> mCompletedVariants;
+    // writes variants in task order, limiting how far ahead of the next task to write other tasks can begin
+    private final VariantWriteQueue mWriteQueue;
 
     public VcfWriter(
             final SageConfig config, final List<String> tumorIds, final List<String> referenceIds, final IndexedFastaSequenceFile refGenome)
@@ -24,34 +22,14 @@ public class VcfWriter
         mTumorIds = tumorIds;
         mReferenceIds = referenceIds;
         mVcfFile = new VariantVCF(refGenome, config, tumorIds, referenceIds);
-        mCompletedVariants = Lists.newArrayList();
-        mLastWrittenIndex = -1;
+        mWriteQueue = new VariantWriteQueue(this::writeVariants, config.Threads);
     }
 
+    public void waitForWriteWindow(int taskIndex) { mWriteQueue.waitForWriteWindow(taskIndex); }
+
     public void writeVariants(int taskIndex, final List<SageVariant> variants)
     {
-        if(taskIndex < mLastWrittenIndex)
-            flushChromosome();
-
-        if(taskIndex == mLastWrittenIndex + 1)
-        {
-            writeVariants(variants);
-            mLastWrittenIndex = taskIndex;
-            checkQueue();
-        }
-        else
-        {
-            int index = 0;
-            while(index < mCompletedVariants.size())
-            {
-                if(taskIndex < mCompletedVariants.get(index).TaskIndex)
-                    break;
-
-                ++index;
-            }
-
-            mCompletedVariants.add(index, new CompleteVariants(taskIndex, variants));
-        }
+        mWriteQueue.addCompletedTask(taskIndex, variants);
     }
 
     private void writeVariants(final List<SageVariant> variants)
@@ -59,46 +37,10 @@ public class VcfWriter
         variants.forEach(x -> mVcfFile.write(VariantContextFactory.create(x, mReferenceIds, mTumorIds)));
     }
 
-    private void checkQueue()
-    {
-        int index = 0;
-
-        while(index < mCompletedVariants.size())
-        {
-            CompleteVariants completeVariants = mCompletedVariants.get(index);
-
-            if(completeVariants.TaskIndex > mLastWrittenIndex + 1)
-                return;
-
-            writeVariants(completeVariants.Variants);
-            mLastWrittenIndex = completeVariants.TaskIndex;
-            mCompletedVariants.remove(index);
-        }
-    }
-
-    public void flushChromosome()
-    {
-        mCompletedVariants.forEach(x -> writeVariants(x.Variants));
-        mCompletedVariants.clear();
-        mLastWrittenIndex = -1;
-    }
+    public void flush() { mWriteQueue.flush(); }
 
     public void close()
     {
         mVcfFile.close();
     }
-
-    private class CompleteVariants
-    {
-        public final int TaskIndex;
-        public final List<SageVariant> Variants;
-
-        public CompleteVariants(int taskIndex, final List<SageVariant> variants)
-        {
-            Variants = variants;
-            TaskIndex = taskIndex;
-        }
-
-        public String toString() { return String.format("%d: %d variants", TaskIndex, Variants.size()); }
-    }
 }
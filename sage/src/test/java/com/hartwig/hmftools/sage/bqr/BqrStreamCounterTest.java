@@ -0,0 +1,142 @@
+package com.hartwig.hmftools.sage.bqr;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecord;
+import static com.hartwig.hmftools.sage.common.TestUtils.createSageConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.qual.BqrKey;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.SageConfig;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class BqrStreamCounterTest
+{
+    private static final String SAMPLE_ID = "TUMOR_ID";
+    private static final int REF_LENGTH = 5000;
+    private static final int READ_LENGTH = 100;
+
+    @Test
+    public void testStreamedCountsMatchRegionCounts() throws IOException
+    {
+        SageConfig config = createSageConfig();
+
+        Random random = new Random(1);
+        String refBases = randomBases(random, REF_LENGTH);
+
+        File tempDir = Files.createTempDirectory("bqr_stream_test").toFile();
+        IndexedFastaSequenceFile refGenome = writeRefGenome(tempDir, refBases);
+
+        // reads across the whole partitioned range, with a few random errors
+        List<SAMRecord> reads = Lists.newArrayList();
+
+        for(int readStart = 600; readStart < 2800; readStart += 7)
+        {
+            char[] readBases = refBases.substring(readStart - 1, readStart - 1 + READ_LENGTH).toCharArray();
+
+            if(random.nextInt(4) == 0)
+            {
+                int errorIndex = random.nextInt(READ_LENGTH);
+                readBases[errorIndex] = readBases[errorIndex] == 'A' ? 'C' : 'A';
+            }
+
+            SAMRecord read = createSamRecord(
+                    "READ_" + readStart, CHR_1, readStart, new String(readBases), READ_LENGTH + "M", CHR_1, readStart + 200,
+                    false, false, null);
+
+            read.getBaseQualities()[random.nextInt(READ_LENGTH)] = 20;
+            reads.add(read);
+        }
+
+        // a separate BQR pass reads the BQR region
+        ChrBaseRegion bqrRegion = new ChrBaseRegion(CHR_1, 1000, 2000);
+
+        BaseQualityResults regionResults = new BaseQualityResults();
+        BqrRegionReader regionReader = new BqrRegionReader(config, null, refGenome, regionResults, null);
+        regionReader.initialise(bqrRegion, Collections.emptySet());
+        reads.stream().filter(x -> overlaps(x, bqrRegion)).forEach(regionReader::processRecord);
+        regionReader.completeStreamedRegion();
+
+        // the streamed counter sees the reads of each partition in turn, only some of which overlap the BQR region
+        Map<String,BaseQualityResults> sampleResults = Maps.newHashMap();
+        sampleResults.put(SAMPLE_ID, new BaseQualityResults());
+
+        Map<String,List<ChrBaseRegion>> chrRegions = Maps.newHashMap();
+        chrRegions.put(CHR_1, Lists.newArrayList(bqrRegion));
+
+        BqrStreamCounter streamCounter = new BqrStreamCounter(config, List.of(SAMPLE_ID), refGenome, sampleResults, chrRegions);
+
+        List<ChrBaseRegion> partitions = Lists.newArrayList(
+                new ChrBaseRegion(CHR_1, 1, 1500), new ChrBaseRegion(CHR_1, 1501, 2500), new ChrBaseRegion(CHR_1, 2501, REF_LENGTH));
+
+        for(ChrBaseRegion partition : partitions)
+        {
+            streamCounter.initialise(partition);
+            reads.stream().filter(x -> overlaps(x, partition)).forEach(x -> streamCounter.processRecord(SAMPLE_ID, x));
+            streamCounter.completeRegion();
+        }
+
+        Map<BqrKey,Integer> expectedCounts = regionResults.getCombinedQualityCounts();
+        assertFalse(expectedCounts.isEmpty());
+        assertEquals(expectedCounts, sampleResults.get(SAMPLE_ID).getCombinedQualityCounts());
+
+        refGenome.close();
+
+        for(File file : tempDir.listFiles())
+        {
+            file.delete();
+        }
+
+        tempDir.delete();
+    }
+
+    private static boolean overlaps(final SAMRecord read, final ChrBaseRegion region)
+    {
+        return read.getAlignmentStart() <= region.end() && read.getAlignmentEnd() >= region.start();
+    }
+
+    private static String randomBases(final Random random, int length)
+    {
+        char[] bases = { 'A', 'C', 'G', 'T' };
+        StringBuilder sb = new StringBuilder(length);
+
+        for(int i = 0; i < length; ++i)
+        {
+            sb.append(bases[random.nextInt(bases.length)]);
+        }
+
+        return sb.toString();
+    }
+
+    private static IndexedFastaSequenceFile writeRefGenome(final File dir, final String bases) throws IOException
+    {
+        File fastaFile = new File(dir, "ref.fasta");
+        String header = ">" + CHR_1 + "\n";
+        Files.write(fastaFile.toPath(), (header + bases + "\n").getBytes());
+
+        // name, length, offset, bases per line, bytes per line
+        String index = String.format("%s\t%d\t%d\t%d\t%d\n", CHR_1, bases.length(), header.length(), bases.length(), bases.length() + 1);
+        Files.write(new File(dir, "ref.fasta.fai").toPath(), index.getBytes());
+
+        String dictionary = String.format("@HD\tVN:1.6\n@SQ\tSN:%s\tLN:%d\n", CHR_1, bases.length());
+        Files.write(new File(dir, "ref.dict").toPath(), dictionary.getBytes());
+
+        return new IndexedFastaSequenceFile(fastaFile);
+    }
+}
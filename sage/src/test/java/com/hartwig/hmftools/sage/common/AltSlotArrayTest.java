@@ -0,0 +1,119 @@
+package com.hartwig.hmftools.sage.common;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.sage.common.VariantUtils.createReadContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.candidate.AltContext;
+import com.hartwig.hmftools.sage.candidate.AltSlot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AltSlotArrayTest
+{
+    private AltSlotArray mArray;
+    private List<String> mEvictedSlots;
+    private List<Boolean> mEvictedMaterialised;
+
+    private static final int TEST_CAPACITY = 100;
+    private static final int MATERIALISE_SUPPORT = 2;
+
+    @Before
+    public void setup()
+    {
+        mEvictedSlots = Lists.newArrayList();
+        mEvictedMaterialised = Lists.newArrayList();
+
+        mArray = new AltSlotArray(TEST_CAPACITY, MATERIALISE_SUPPORT, altSlot ->
+        {
+            mEvictedSlots.add(altSlot.toString());
+            mEvictedMaterialised.add(altSlot.hasAltContext());
+        });
+    }
+
+    @Test
+    public void testDepthAndAltSlots()
+    {
+        mArray.registerDepth(100);
+        assertEquals(50, mArray.minPosition());
+
+        mArray.registerDepth(100);
+        assertTrue(mArray.registerPosition(120));
+        addAltRead(120, "A", "C");
+        addAltRead(120, "A", "C");
+        addAltRead(120, "A", "G");
+
+        assertEquals(2, mArray.getDepth(100));
+        assertEquals(0, mArray.getDepth(120));
+        assertEquals(AltSlotArray.NO_DEPTH, mArray.getDepth(40));
+
+        // earlier positions are rejected
+        assertFalse(mArray.registerPosition(40));
+
+        // shift beyond the first positions, evicting both alts at 120
+        mArray.registerDepth(250);
+        assertEquals(AltSlotArray.NO_DEPTH, mArray.getDepth(100));
+
+        assertEquals(2, mEvictedSlots.size());
+        assertTrue(mEvictedMaterialised.get(0));
+        assertFalse(mEvictedMaterialised.get(1));
+
+        // slots are returned to the pool for reuse
+        assertEquals(2, mArray.pooledSlotCount());
+
+        addAltRead(250, "T", "C");
+        assertEquals(1, mArray.pooledSlotCount());
+
+        mArray.evictAll();
+        assertEquals(3, mEvictedSlots.size());
+        assertEquals(2, mArray.pooledSlotCount());
+    }
+
+    @Test
+    public void testMaterialisationReplaysReadContexts()
+    {
+        List<AltContext> altContexts = Lists.newArrayList();
+
+        mArray = new AltSlotArray(TEST_CAPACITY, MATERIALISE_SUPPORT, altSlot -> altContexts.add(altSlot.altContext()));
+
+        mArray.registerPosition(1000);
+        addAltRead(1000, "A", "C");
+        addAltRead(1000, "A", "C");
+        addAltRead(1000, "A", "C");
+        addAltRead(1000, "G", "T");
+
+        mArray.evictAll();
+
+        assertEquals(2, altContexts.size());
+
+        AltContext altContext = altContexts.get(0);
+        assertEquals(1000, altContext.position());
+        assertEquals(3, altContext.rawAltSupport());
+        assertEquals(90, altContext.rawAltBaseQuality());
+
+        altContext.selectCandidates();
+        assertTrue(altContext.hasValidCandidate());
+        assertEquals(2, altContext.readContextSupport()); // full matches are counted against the first read context
+
+        // the second alt is only materialised on demand, with its single read context
+        altContext = altContexts.get(1);
+        assertEquals(1, altContext.rawAltSupport());
+
+        altContext.selectCandidates();
+        assertTrue(altContext.hasValidCandidate());
+        assertEquals(0, altContext.readContextSupport());
+    }
+
+    private void addAltRead(int position, final String ref, final String alt)
+    {
+        VariantReadContext readContext = createReadContext(position, ref, alt);
+        mArray.processAltRead(CHR_1, position, ref, alt, 30, 1, readContext);
+    }
+}
@@ -0,0 +1,167 @@
+package com.hartwig.hmftools.sage.common;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.sage.common.VariantUtils.createReadContext;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.sage.candidate.AltContext;
+import com.hartwig.hmftools.sage.candidate.RefContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// compares the object-per-position evicting array with the primitive alt-slot array over a synthetic pileup, where each position
+// has the configured depth and a low rate of sequencing errors, so most positions carry only singleton alts
+// run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hartwig.hmftools.sage.common.RefContextStoreBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class RefContextStoreBenchmark
+{
+    @Param({ "1000" })
+    public int Depth;
+
+    @Param({ "0.005" })
+    public double ErrorRate;
+
+    private static final int REGION_LENGTH = 20_000;
+    private static final int CAPACITY = 256;
+    private static final int MATERIALISE_SUPPORT = 2;
+    private static final String REF = "A";
+    private static final String[] ALTS = { "C", "G", "T" };
+
+    // pre-generated alt index for each alt read per position, with all other reads at the position supporting the ref
+    private int[][] mPositionAlts;
+    private VariantReadContext[][] mReadContexts;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+
+        mPositionAlts = new int[REGION_LENGTH][];
+        mReadContexts = new VariantReadContext[REGION_LENGTH][ALTS.length];
+
+        for(int i = 0; i < REGION_LENGTH; ++i)
+        {
+            int position = i + 1;
+            int altReads = 0;
+
+            for(int d = 0; d < Depth; ++d)
+            {
+                if(random.nextDouble() < ErrorRate)
+                    ++altReads;
+            }
+
+            mPositionAlts[i] = new int[altReads];
+
+            for(int a = 0; a < altReads; ++a)
+            {
+                mPositionAlts[i][a] = random.nextInt(ALTS.length);
+            }
+
+            for(int a = 0; a < ALTS.length; ++a)
+            {
+                mReadContexts[i][a] = altReads > 0 ? createReadContext(position, REF, ALTS[a]) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public void evictingArray(final Blackhole blackhole)
+    {
+        EvictingArray array = new EvictingArray(CAPACITY, refContext ->
+        {
+            if(refContext.altContexts() == null)
+                return;
+
+            for(AltContext altContext : refContext.altContexts())
+            {
+                if(altContext.rawAltSupport() >= MATERIALISE_SUPPORT)
+                    blackhole.consume(altContext);
+            }
+        });
+
+        for(int i = 0; i < REGION_LENGTH; ++i)
+        {
+            int position = i + 1;
+            int[] alts = mPositionAlts[i];
+
+            for(int d = 0; d < Depth - alts.length; ++d)
+            {
+                array.registerDepth(position);
+            }
+
+            if(alts.length == 0)
+                continue;
+
+            RefContext refContext = array.getOrCreateRefContext(position, pos -> new RefContext(CHR_1, pos));
+
+            for(int altIndex : alts)
+            {
+                refContext.processAltRead(REF, ALTS[altIndex], 30, 1, mReadContexts[i][altIndex]);
+            }
+        }
+
+        array.evictAll();
+    }
+
+    @Benchmark
+    public void altSlotArray(final Blackhole blackhole)
+    {
+        AltSlotArray array = new AltSlotArray(CAPACITY, MATERIALISE_SUPPORT, altSlot ->
+        {
+            if(altSlot.rawAltSupport() >= MATERIALISE_SUPPORT)
+                blackhole.consume(altSlot.altContext());
+        });
+
+        for(int i = 0; i < REGION_LENGTH; ++i)
+        {
+            int position = i + 1;
+            int[] alts = mPositionAlts[i];
+
+            for(int d = 0; d < Depth - alts.length; ++d)
+            {
+                array.registerDepth(position);
+            }
+
+            if(alts.length == 0)
+                continue;
+
+            array.registerPosition(position);
+
+            for(int altIndex : alts)
+            {
+                array.processAltRead(CHR_1, position, REF, ALTS[altIndex], 30, 1, mReadContexts[i][altIndex]);
+            }
+        }
+
+        array.evictAll();
+    }
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(RefContextStoreBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
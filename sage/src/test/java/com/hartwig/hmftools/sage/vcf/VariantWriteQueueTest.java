@@ -0,0 +1,124 @@
+package com.hartwig.hmftools.sage.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.common.SageVariant;
+
+import org.junit.Test;
+
+public class VariantWriteQueueTest
+{
+    @Test
+    public void testOutOfOrderCompletion()
+    {
+        List<List<SageVariant>> written = Lists.newArrayList();
+        VariantWriteQueue writeQueue = new VariantWriteQueue(written::add, 1);
+
+        List<List<SageVariant>> taskVariants = Lists.newArrayList();
+
+        for(int i = 0; i < 5; ++i)
+        {
+            taskVariants.add(Lists.newArrayList());
+        }
+
+        writeQueue.addCompletedTask(2, taskVariants.get(2));
+        writeQueue.addCompletedTask(1, taskVariants.get(1));
+        writeQueue.addCompletedTask(4, taskVariants.get(4));
+
+        assertTrue(written.isEmpty());
+        assertEquals(3, writeQueue.pendingCount());
+
+        writeQueue.addCompletedTask(0, taskVariants.get(0));
+
+        assertEquals(3, written.size());
+        assertEquals(1, writeQueue.pendingCount());
+
+        writeQueue.addCompletedTask(3, taskVariants.get(3));
+
+        assertEquals(5, written.size());
+        assertEquals(0, writeQueue.pendingCount());
+
+        for(int i = 0; i < taskVariants.size(); ++i)
+        {
+            assertSame(taskVariants.get(i), written.get(i));
+        }
+    }
+
+    @Test
+    public void testWriteWindowBoundsPendingTasks() throws InterruptedException
+    {
+        int threadCount = 4;
+        int taskCount = 200;
+
+        List<List<SageVariant>> written = Lists.newArrayList();
+        VariantWriteQueue writeQueue = new VariantWriteQueue(written::add, threadCount);
+
+        List<List<SageVariant>> taskVariants = Lists.newArrayList();
+        Queue<Integer> tasks = new ConcurrentLinkedQueue<>();
+
+        for(int i = 0; i < taskCount; ++i)
+        {
+            taskVariants.add(Lists.newArrayList());
+            tasks.add(i);
+        }
+
+        AtomicBoolean windowExceeded = new AtomicBoolean(false);
+        List<Thread> threads = Lists.newArrayList();
+
+        for(int t = 0; t < threadCount; ++t)
+        {
+            Random random = new Random(t);
+
+            Thread thread = new Thread(() ->
+            {
+                Integer taskIndex;
+                while((taskIndex = tasks.poll()) != null)
+                {
+                    writeQueue.waitForWriteWindow(taskIndex);
+
+                    // every fifth task is slow so later tasks complete ahead of it
+                    try
+                    {
+                        Thread.sleep((taskIndex % 5) == 0 ? 5 : random.nextInt(2));
+                    }
+                    catch(InterruptedException e)
+                    {
+                        return;
+                    }
+
+                    writeQueue.addCompletedTask(taskIndex, taskVariants.get(taskIndex));
+
+                    if(writeQueue.pendingCount() > writeQueue.windowSize())
+                        windowExceeded.set(true);
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertFalse(windowExceeded.get());
+        assertEquals(0, writeQueue.pendingCount());
+        assertEquals(taskCount, written.size());
+
+        for(int i = 0; i < taskCount; ++i)
+        {
+            assertSame(taskVariants.get(i), written.get(i));
+        }
+    }
+}